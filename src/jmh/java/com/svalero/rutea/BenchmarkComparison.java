@@ -0,0 +1,106 @@
+package com.svalero.rutea;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compara un resultado JMH en JSON ({@code -rf json}) con la línea base y termina con código 1
+ * si algún benchmark empeora más de la tolerancia: menos operaciones por segundo o más bytes
+ * asignados por operación ({@code gc.alloc.rate.norm}, con {@code -prof gc}). Solo cuenta si
+ * además los intervalos de confianza de JMH (puntuación ± error, al 99,9 %) no se solapan: una
+ * diferencia dentro del error es ruido de la medida.
+ * <p>
+ * Uso: {@code BenchmarkComparison <baseline.json> <actual.json> [tolerancia %]}
+ */
+public final class BenchmarkComparison {
+
+    private static final double DEFAULT_TOLERANCE = 20;
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BenchmarkComparison <baseline.json> <actual.json> [tolerancia %]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%-75s %14s %8s %14s %8s %8s %12s %12s%n",
+                "Benchmark", "base ops/s", "err %", "ops/s", "err %", "var %", "base B/op", "B/op");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-75s %14s %8s %14.0f %8.1f %8s %12s %12.0f%n",
+                        entry.getKey(), "-", "-", now.score, now.errorPercent(), "nuevo", "-", now.bytesPerOp);
+                continue;
+            }
+            double delta = (now.score - base.score) * 100 / base.score;
+            System.out.printf("%-75s %14.0f %8.1f %14.0f %8.1f %+8.1f %12.0f %12.0f%n", entry.getKey(),
+                    base.score, base.errorPercent(), now.score, now.errorPercent(), delta, base.bytesPerOp, now.bytesPerOp);
+            if (delta < -tolerance && now.score + now.error < base.score - base.error)
+                regressions.add(entry.getKey() + ": " + String.format("%.1f%% menos ops/s", -delta));
+            // Unos pocos bytes de diferencia son ruido de la medida; solo cuenta si además sube la tolerancia
+            if (base.bytesPerOp >= 0 && now.bytesPerOp > base.bytesPerOp * (1 + tolerance / 100) + 16
+                    && now.bytesPerOp - now.bytesError > base.bytesPerOp + base.bytesError)
+                regressions.add(entry.getKey() + ": " + String.format("%.0f -> %.0f B/op", base.bytesPerOp, now.bytesPerOp));
+        }
+
+        if (regressions.isEmpty()) {
+            System.out.printf("Sin regresiones (tolerancia %.0f%%)%n", tolerance);
+            return;
+        }
+        System.out.printf("%d regresiones (tolerancia %.0f%%):%n", regressions.size(), tolerance);
+        regressions.forEach(r -> System.out.println("  " + r));
+        System.exit(1);
+    }
+
+    /**
+     * Benchmark (con sus @Param) -> resultado. Solo modo throughput, el de la suite.
+     */
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            run.path("params").fields().forEachRemaining(p -> key.append(' ').append(p.getKey()).append('=').append(p.getValue().asText()));
+            JsonNode primary = run.path("primaryMetric");
+            double bytes = -1;
+            double bytesError = 0;
+            for (var metric : (Iterable<Map.Entry<String, JsonNode>>) () -> run.path("secondaryMetrics").fields()) {
+                if (metric.getKey().endsWith(ALLOC_METRIC)) {
+                    bytes = metric.getValue().path("score").asDouble();
+                    bytesError = error(metric.getValue());
+                }
+            }
+            results.put(key.toString(), new Result(primary.path("score").asDouble(), error(primary), bytes, bytesError));
+        }
+        return results;
+    }
+
+    /**
+     * Semiamplitud del intervalo de confianza. JMH da NaN con una sola iteración: sin intervalo.
+     */
+    private static double error(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private record Result(double score, double error, double bytesPerOp, double bytesError) {
+
+        double errorPercent() {
+            return error * 100 / score;
+        }
+    }
+}
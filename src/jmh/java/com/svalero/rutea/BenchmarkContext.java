@@ -0,0 +1,44 @@
+package com.svalero.rutea;
+
+import ch.qos.logback.classic.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Arranca la aplicación completa (sin servidor web) contra un H2 en memoria propio
+ * para los benchmarks que necesitan servicios y repositorios reales.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String... extraProperties) {
+        return new SpringApplicationBuilder(RuteaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework=WARN",
+                        "logging.level.com.svalero.rutea=WARN")
+                // como argumentos, para que manden también sobre application.properties
+                .run(Arrays.stream(extraProperties).map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    /**
+     * Para los benchmarks que no arrancan Spring: sin logback-spring.xml, logback escribiría
+     * por consola todo el DEBUG de los servicios y eso es lo que se mediría.
+     */
+    public static void quietLogging() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+}
@@ -0,0 +1,128 @@
+package com.svalero.rutea;
+
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.RutaInDtoV2;
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.UsuarioRepository;
+import com.svalero.rutea.service.RutaService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Peticiones por segundo contra la aplicación levantada en un puerto aleatorio según cómo se
+ * escriban los logs: {@code off} (todo apagado), {@code dev} (la configuración por defecto:
+ * síncrona, en texto y con DEBUG de los servicios y de Spring MVC) y {@code prod} (el perfil
+ * de producción: asíncrona, en JSON y en INFO). La consola se redirige a un fichero del
+ * directorio temporal para que pese como escribir a disco y no inunde la salida de JMH.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RequestLoggingBenchmark {
+
+    @Param({"off", "dev", "prod"})
+    public String logging;
+
+    private static final String PATCH_BODY =
+            "{\"titulo\":\"Benchmark\",\"dificultad\":\"alta\",\"duracionMinutos\":90,\"publica\":true}";
+
+    private ConfigurableApplicationContext context;
+    private PrintStream consola;
+    private PrintStream stdout;
+    private HttpClient client;
+    private HttpRequest get;
+    private HttpRequest patch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path dir = Files.createTempDirectory("rutea-logging-");
+        stdout = System.out;
+        consola = new PrintStream(new FileOutputStream(dir.resolve("console.out").toFile()), true);
+        System.setOut(consola);
+
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:logging-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.main.banner-mode=off",
+                "--logging.file.path=" + dir));
+        switch (logging) {
+            case "off" -> args.addAll(List.of(
+                    "--logging.level.root=OFF",
+                    "--logging.level.com.svalero.rutea=OFF",
+                    "--logging.level.org.springframework=OFF",
+                    "--logging.level.org.springframework.web=OFF"));
+            case "prod" -> args.add("--spring.profiles.active=prod");
+            case "dev" -> { }
+            default -> throw new IllegalArgumentException("logging: " + logging);
+        }
+        context = new SpringApplicationBuilder(RuteaApplication.class).run(args.toArray(String[]::new));
+
+        Usuario usuario = context.getBean(UsuarioRepository.class).save(Usuario.builder()
+                .email("bench@rutea.com").username("bench").password("secreto")
+                .fechaRegistro(LocalDate.now()).build());
+        PuntoInteresRepository puntoRepository = context.getBean(PuntoInteresRepository.class);
+        List<Long> puntosIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            puntosIds.add(puntoRepository.save(PuntoInteres.builder()
+                    .nombre("Punto " + i).latitud(41.6 + i * 1e-3).longitud(-0.9).build()).getId());
+        }
+        long rutaId = context.getBean(RutaService.class).addV2(new RutaInDtoV2("media", 0f, 60,
+                LocalDate.now(), true, "Benchmark", usuario.getId(), puntosIds, "bench")).getId();
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newHttpClient();
+        get = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v2/rutas/" + rutaId)).GET().build();
+        patch = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/rutas/" + rutaId))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(PATCH_BODY)).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        System.setOut(stdout);
+        consola.close();
+    }
+
+    @Benchmark
+    public int getRuta() throws Exception {
+        return send(get);
+    }
+
+    @Benchmark
+    public int patchRuta() throws Exception {
+        return send(patch);
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200)
+            throw new IllegalStateException(request.method() + " " + request.uri() + " -> " + response.statusCode());
+        return response.statusCode();
+    }
+}
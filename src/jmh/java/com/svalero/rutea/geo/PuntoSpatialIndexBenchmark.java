@@ -0,0 +1,60 @@
+package com.svalero.rutea.geo;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsquedas k-nearest sobre un millón de puntos repartidos por la península.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PuntoSpatialIndexBenchmark {
+
+    @Param({"1000000"})
+    public int puntos;
+
+    @Param({"1", "20"})
+    public int k;
+
+    @Param({"5", "50"})
+    public double radiusKm;
+
+    private PuntoSpatialIndex index;
+    private double[] queryLat;
+    private double[] queryLon;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new PuntoSpatialIndex(0.05);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < puntos; i++)
+            index.put(i, 36.0 + random.nextDouble() * 7.8, -9.3 + random.nextDouble() * 12.6);
+
+        queryLat = new double[1024];
+        queryLon = new double[1024];
+        for (int i = 0; i < queryLat.length; i++) {
+            queryLat[i] = 36.0 + random.nextDouble() * 7.8;
+            queryLon[i] = -9.3 + random.nextDouble() * 12.6;
+        }
+    }
+
+    @Benchmark
+    public List<PuntoSpatialIndex.Hit> nearest() {
+        int i = next++ & 1023;
+        return index.nearest(queryLat[i], queryLon[i], radiusKm, k);
+    }
+
+    @Benchmark
+    public void move() {
+        int i = next++ & 1023;
+        index.put(i, queryLat[i], queryLon[i]);
+    }
+}
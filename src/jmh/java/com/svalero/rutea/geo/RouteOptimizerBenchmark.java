@@ -0,0 +1,46 @@
+package com.svalero.rutea.geo;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optimización completa (matriz + vecino más cercano + 2-opt/Or-opt hasta converger)
+ * de rutas aleatorias sobre una ciudad, sin límite de tiempo efectivo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RouteOptimizerBenchmark {
+
+    @Param({"20", "100", "500"})
+    public int puntos;
+
+    private double[] lats;
+    private double[] lons;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(5);
+        lats = new double[puntos];
+        lons = new double[puntos];
+        for (int i = 0; i < puntos; i++) {
+            lats[i] = 41.60 + random.nextDouble() * 0.1;
+            lons[i] = -0.95 + random.nextDouble() * 0.15;
+        }
+    }
+
+    @Benchmark
+    public RouteOptimizer.Result optimize() {
+        return RouteOptimizer.optimize(lats, lons, puntos, TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Benchmark
+    public double[] distanceMatrix() {
+        return RouteOptimizer.distanceMatrix(lats, lons, puntos);
+    }
+}
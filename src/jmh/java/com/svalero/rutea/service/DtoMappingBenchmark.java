@@ -0,0 +1,147 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.Categoria;
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Resena;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.PuntoInteresOutDto;
+import com.svalero.rutea.dto.ResenaOutDto;
+import com.svalero.rutea.dto.RutaInDtoV2;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de pasar entidades a DTO: los mapeos escritos a mano de los servicios frente al
+ * ModelMapper con {@code MatchingStrategies.STRICT} que usaban antes (y su mismo retoque de
+ * relaciones), para un objeto suelto y para una lista de {@code lista} rutas como la de un
+ * listado grande.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DtoMappingBenchmark {
+
+    @Param({"10000"})
+    public int lista;
+
+    private ModelMapper modelMapper;
+    private Ruta ruta;
+    private List<Ruta> rutas;
+    private List<Long> puntosIds;
+    private PuntoInteres punto;
+    private Resena resena;
+    private RutaInDtoV2 rutaIn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
+
+        Usuario usuario = Usuario.builder().id(7L).username("bench").build();
+        Categoria categoria = Categoria.builder().id(3L).nombre("Miradores").build();
+        punto = PuntoInteres.builder().id(11L).nombre("Mirador").latitud(41.65).longitud(-0.88)
+                .abiertoActualmente(true).fechaCreacion(LocalDateTime.now()).puntuacionMedia(4.2f)
+                .categoria(categoria).build();
+        resena = Resena.builder().id(5L).titulo("Bien").comentario("Muy recomendable").valoracion(4)
+                .likes(12).fechaPublicacion(LocalDate.now()).punto(punto).usuario(usuario).build();
+        puntosIds = List.of(11L, 12L, 13L);
+
+        rutas = new ArrayList<>(lista);
+        for (int i = 0; i < lista; i++) {
+            rutas.add(Ruta.builder().id(i + 1).titulo("Ruta " + i).dificultad("media").distanciaKm(12.5f)
+                    .duracionMinutos(180).fechaRealizacion(LocalDate.now()).publica(true)
+                    .etiquetas("montaña, agua").bboxMinLat(41.6).bboxMinLon(-0.9).bboxMaxLat(41.7)
+                    .bboxMaxLon(-0.8).tramosKm(new double[]{4.5, 8.0}).usuario(usuario).build());
+        }
+        ruta = rutas.get(0);
+        rutaIn = new RutaInDtoV2("media", 12.5f, 180, LocalDate.now(), true, "Ruta", 7L, puntosIds, "montaña");
+    }
+
+    // -------------------- Ruta -> RutaOutDtoV2 --------------------
+
+    @Benchmark
+    public RutaOutDtoV2 rutaV2_manual() {
+        return RutaService.toOutDtoV2(ruta, puntosIds);
+    }
+
+    @Benchmark
+    public RutaOutDtoV2 rutaV2_modelMapper() {
+        return modelMapperRutaV2(ruta);
+    }
+
+    @Benchmark
+    public List<RutaOutDtoV2> rutaV2List_manual() {
+        List<RutaOutDtoV2> out = new ArrayList<>(rutas.size());
+        for (Ruta r : rutas)
+            out.add(RutaService.toOutDtoV2(r, puntosIds));
+        return out;
+    }
+
+    @Benchmark
+    public List<RutaOutDtoV2> rutaV2List_modelMapper() {
+        List<RutaOutDtoV2> out = new ArrayList<>(rutas.size());
+        for (Ruta r : rutas)
+            out.add(modelMapperRutaV2(r));
+        return out;
+    }
+
+    // -------------------- Otros pares --------------------
+
+    @Benchmark
+    public Ruta rutaInV2_manual() {
+        Ruta r = new Ruta();
+        RutaService.copy(rutaIn, r);
+        return r;
+    }
+
+    @Benchmark
+    public Ruta rutaInV2_modelMapper() {
+        return modelMapper.map(rutaIn, Ruta.class);
+    }
+
+    @Benchmark
+    public PuntoInteresOutDto punto_manual() {
+        return PuntoInteresService.toOutDto(punto);
+    }
+
+    @Benchmark
+    public PuntoInteresOutDto punto_modelMapper() {
+        PuntoInteresOutDto out = modelMapper.map(punto, PuntoInteresOutDto.class);
+        out.setCategoriaId(punto.getCategoria().getId());
+        out.setCategoriaNombre(punto.getCategoria().getNombre());
+        return out;
+    }
+
+    @Benchmark
+    public ResenaOutDto resena_manual() {
+        return ResenaService.toOutDto(resena, 0);
+    }
+
+    @Benchmark
+    public ResenaOutDto resena_modelMapper() {
+        ResenaOutDto out = modelMapper.map(resena, ResenaOutDto.class);
+        out.setPuntoId(resena.getPunto().getId());
+        out.setUsuarioId(resena.getUsuario().getId());
+        return out;
+    }
+
+    private RutaOutDtoV2 modelMapperRutaV2(Ruta r) {
+        RutaOutDtoV2 out = modelMapper.map(r, RutaOutDtoV2.class);
+        out.setUsuarioId(r.getUsuario().getId());
+        out.setPuntosIds(puntosIds);
+        out.setTotalPuntos(puntosIds.size());
+        return out;
+    }
+}
@@ -0,0 +1,86 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.BenchmarkContext;
+import com.svalero.rutea.domain.PuntoInteres;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alta de {@code filas} puntos en bloques de 1000 (una transacción por bloque, con flush y
+ * clear como ImportService) con los ids de antes y los de ahora:
+ * <ul>
+ *     <li>{@code identity}: IDENTITY (vía META-INF/orm-identity.xml) y sin lotes de JDBC. Cada
+ *     insert es su propia sentencia, porque Hibernate necesita el id que devuelve.</li>
+ *     <li>{@code sequence}: la secuencia pooled de la entidad (una llamada cada 50 ids) y la
+ *     configuración de application.properties, con los inserts en lotes de 50.</li>
+ * </ul>
+ * Cada iteración arranca con la tabla vacía.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class InsertBatchingBenchmark {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @Param({"identity", "sequence"})
+    public String ids;
+
+    @Param({"100000"})
+    public int filas;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Las dos con el esquema que genera Hibernate, sin los índices de las migraciones
+        context = ids.equals("identity")
+                ? BenchmarkContext.start(
+                        "spring.flyway.enabled=false",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.mapping-resources=META-INF/orm-identity.xml",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=0",
+                        "rutea.jdbc.align-sequences.enabled=false")
+                : BenchmarkContext.start(
+                        "spring.flyway.enabled=false",
+                        "spring.jpa.hibernate.ddl-auto=create-drop");
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        entityManager = context.getBean(EntityManager.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void vaciar() {
+        transactionTemplate.executeWithoutResult(status ->
+                entityManager.createQuery("delete from PuntoInteres").executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int insertar() {
+        for (int desde = 0; desde < filas; desde += CHUNK_SIZE) {
+            int inicio = desde;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = inicio; i < Math.min(inicio + CHUNK_SIZE, filas); i++) {
+                    entityManager.persist(PuntoInteres.builder()
+                            .nombre("Punto " + i).latitud(41.6 + (i % 1000) * 1e-4).longitud(-0.9).build());
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        return filas;
+    }
+}
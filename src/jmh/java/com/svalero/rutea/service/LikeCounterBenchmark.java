@@ -0,0 +1,49 @@
+package com.svalero.rutea.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Likes por segundo con 8 hilos: LikeCounter (un LongAdder por reseña) frente a un mapa de
+ * AtomicLong, sobre una reseña muy popular ({@code resenas=1}) o repartidos entre muchas.
+ * Con una sola reseña todos los hilos golpean la misma línea de caché, que es justo el caso
+ * que el LongAdder reparte; hace falta más de un núcleo para que se note. Solo mide la parte
+ * en memoria; el volcado a BD no interviene.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LikeCounterBenchmark {
+
+    @Param({"1", "1000"})
+    public int resenas;
+
+    private LikeCounter likeCounter;
+    private Map<Long, AtomicLong> atomics;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        likeCounter = new LikeCounter();
+        atomics = new ConcurrentHashMap<>();
+    }
+
+    @Benchmark
+    public void likeCounter() {
+        likeCounter.increment(ThreadLocalRandom.current().nextInt(resenas));
+    }
+
+    @Benchmark
+    public long atomicLong() {
+        long id = ThreadLocalRandom.current().nextInt(resenas);
+        return atomics.computeIfAbsent(id, k -> new AtomicLong()).incrementAndGet();
+    }
+}
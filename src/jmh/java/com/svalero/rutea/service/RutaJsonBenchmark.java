@@ -0,0 +1,46 @@
+package com.svalero.rutea.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización a JSON de una página de GET /v2/rutas, con un ObjectMapper configurado como
+ * el de Spring Boot. {@code rutas} va del tamaño de página por defecto al máximo.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RutaJsonBenchmark {
+
+    @Param({"50", "200"})
+    public int rutas;
+
+    private ObjectMapper objectMapper;
+    private List<RutaOutDtoV2> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        page = new ArrayList<>(rutas);
+        for (int i = 0; i < rutas; i++) {
+            page.add(new RutaOutDtoV2(i + 1, "media", 12.5f, 180, LocalDate.now(), true, "Ruta " + i, 7L,
+                    List.of(11L, 12L, 13L, 14L, 15L), "montaña, agua", 5, 41.6, -0.9, 41.7, -0.8,
+                    new double[]{2.5, 3.1, 4.0, 2.9}));
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,46 @@
+package com.svalero.rutea.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.svalero.rutea.BenchmarkContext;
+import com.svalero.rutea.domain.Ruta;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * El recorrido del mapa de un PATCH de ruta sobre los campos que no son relaciones
+ * ({@link RutaService#applyCampo}), con el mapa tal y como lo deja Jackson.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RutaPatchBenchmark {
+
+    private static final String BODY = """
+            {"titulo": "Subida al Moncayo", "dificultad": "alta", "distanciaKm": 14.5,
+             "duracionMinutos": 300, "fechaRealizacion": "2024-06-01", "publica": true, "id": 99}
+            """;
+
+    private Map<String, Object> updates;
+    private Ruta ruta;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkContext.quietLogging();
+        updates = new ObjectMapper().readValue(BODY, new TypeReference<>() {
+        });
+        ruta = Ruta.builder().id(1L).titulo("Ruta").build();
+    }
+
+    @Benchmark
+    public Ruta patch() {
+        for (Map.Entry<String, Object> entry : updates.entrySet())
+            RutaService.applyCampo(ruta, entry.getKey(), entry.getValue());
+        return ruta;
+    }
+}
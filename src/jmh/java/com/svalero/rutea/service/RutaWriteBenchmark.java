@@ -0,0 +1,73 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.BenchmarkContext;
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.RutaInDtoV2;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.UsuarioRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de alta y modificación de rutas según el número de puntos de paso,
+ * para vigilar que resolver los puntos no crezca con un round trip por punto.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RutaWriteBenchmark {
+
+    @Param({"1", "10", "50", "200", "500"})
+    public int puntos;
+
+    private ConfigurableApplicationContext context;
+    private RutaService rutaService;
+    private RutaInDtoV2 dto;
+    private long rutaId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        rutaService = context.getBean(RutaService.class);
+
+        Usuario usuario = context.getBean(UsuarioRepository.class).save(Usuario.builder()
+                .email("bench@rutea.com").username("bench").password("secreto")
+                .fechaRegistro(LocalDate.now()).build());
+
+        PuntoInteresRepository puntoRepository = context.getBean(PuntoInteresRepository.class);
+        List<Long> puntosIds = new ArrayList<>();
+        for (int i = 0; i < puntos; i++) {
+            puntosIds.add(puntoRepository.save(PuntoInteres.builder()
+                    .nombre("Punto " + i).latitud(41.6 + i * 1e-3).longitud(-0.9).build()).getId());
+        }
+
+        dto = new RutaInDtoV2("media", 0f, 60, LocalDate.now(), true, "Benchmark",
+                usuario.getId(), puntosIds, "bench");
+        rutaId = rutaService.addV2(dto).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RutaOutDtoV2 addV2() throws Exception {
+        return rutaService.addV2(dto);
+    }
+
+    @Benchmark
+    public RutaOutDtoV2 modifyV2() throws Exception {
+        return rutaService.modifyV2(rutaId, dto);
+    }
+}
@@ -0,0 +1,81 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.BenchmarkContext;
+import com.svalero.rutea.domain.Categoria;
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Resena;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.domain.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construcción de la Specification de cada findAll con todos los filtros y su traducción a
+ * predicados de Criteria, que es lo que hace Spring Data en cada listado antes de generar el SQL.
+ * No toca la BD: el contexto solo aporta el CriteriaBuilder de Hibernate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SpecificationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private CriteriaBuilder cb;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        cb = entityManager.getCriteriaBuilder();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public Predicate categoria() {
+        return toPredicate(Categoria.class, CategoriaService.buildSpec(true, "Mira", 1));
+    }
+
+    @Benchmark
+    public Predicate punto() {
+        return toPredicate(PuntoInteres.class, PuntoInteresService.buildSpec(3L, true, "Mira", 4f));
+    }
+
+    @Benchmark
+    public Predicate resena() {
+        return toPredicate(Resena.class, ResenaService.buildSpec(false, 10, 4));
+    }
+
+    @Benchmark
+    public Predicate ruta() {
+        return toPredicate(Ruta.class, RutaService.buildSpec("media", true, "Moncayo"));
+    }
+
+    @Benchmark
+    public Predicate usuario() {
+        return toPredicate(Usuario.class, UsuarioService.buildSpec(true, 3, "bench"));
+    }
+
+    private <T> Predicate toPredicate(Class<T> type, Specification<T> spec) {
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        return spec.toPredicate(root, query, cb);
+    }
+}
@@ -0,0 +1,98 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.BenchmarkContext;
+import com.svalero.rutea.domain.Categoria;
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Resena;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.CategoriaOutDto;
+import com.svalero.rutea.dto.PuntoInteresNearbyOutDto;
+import com.svalero.rutea.dto.PuntoInteresOutDto;
+import com.svalero.rutea.dto.ResenaOutDto;
+import com.svalero.rutea.dto.RutaOutDto;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import com.svalero.rutea.dto.UsuarioOutDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * El toOutDto de cada servicio sobre una entidad típica. Forma parte de la línea base
+ * (ver {@code make bench-check}); interesa sobre todo la asignación por operación.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ToOutDtoBenchmark {
+
+    private Categoria categoria;
+    private PuntoInteres punto;
+    private Resena resena;
+    private Ruta ruta;
+    private Usuario usuario;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkContext.quietLogging();
+        usuario = Usuario.builder().id(7L).email("bench@rutea.com").username("bench").password("secreto")
+                .fechaRegistro(LocalDate.now()).nivelExperiencia(3).build();
+        categoria = Categoria.builder().id(3L).nombre("Miradores").descripcion("Vistas").activa(true)
+                .costePromedio(0f).ordenPrioridad(1).build();
+        punto = PuntoInteres.builder().id(11L).nombre("Mirador").latitud(41.65).longitud(-0.88)
+                .abiertoActualmente(true).fechaCreacion(LocalDateTime.now()).puntuacionMedia(4.2f)
+                .categoria(categoria).build();
+        resena = Resena.builder().id(5L).titulo("Bien").comentario("Muy recomendable").valoracion(4)
+                .likes(12).fechaPublicacion(LocalDate.now()).punto(punto).usuario(usuario).build();
+
+        List<PuntoInteres> puntos = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            puntos.add(PuntoInteres.builder().id(100 + i).build());
+        ruta = Ruta.builder().id(1L).titulo("Ruta").dificultad("media").distanciaKm(12.5f)
+                .duracionMinutos(180).fechaRealizacion(LocalDate.now()).publica(true)
+                .etiquetas("montaña, agua").bboxMinLat(41.6).bboxMinLon(-0.9).bboxMaxLat(41.7)
+                .bboxMaxLon(-0.8).tramosKm(new double[9]).usuario(usuario).puntos(puntos).build();
+    }
+
+    @Benchmark
+    public CategoriaOutDto categoria() {
+        return CategoriaService.toOutDto(categoria);
+    }
+
+    @Benchmark
+    public PuntoInteresOutDto punto() {
+        return PuntoInteresService.toOutDto(punto);
+    }
+
+    @Benchmark
+    public PuntoInteresNearbyOutDto puntoNearby() {
+        return PuntoInteresService.toNearbyOutDto(punto, 1.25);
+    }
+
+    @Benchmark
+    public ResenaOutDto resena() {
+        return ResenaService.toOutDto(resena, 3);
+    }
+
+    @Benchmark
+    public RutaOutDto ruta() {
+        return RutaService.toOutDto(ruta);
+    }
+
+    @Benchmark
+    public RutaOutDtoV2 rutaV2() {
+        return RutaService.toOutDtoV2(ruta);
+    }
+
+    @Benchmark
+    public UsuarioOutDto usuario() {
+        return UsuarioService.toOutDto(usuario);
+    }
+}
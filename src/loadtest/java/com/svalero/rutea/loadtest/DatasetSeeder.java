@@ -0,0 +1,101 @@
+package com.svalero.rutea.loadtest;
+
+import com.svalero.rutea.dto.CategoriaInDto;
+import com.svalero.rutea.dto.PuntoInteresInDto;
+import com.svalero.rutea.dto.ResenaInDto;
+import com.svalero.rutea.dto.RutaInDtoV2;
+import com.svalero.rutea.dto.UsuarioInDto;
+import com.svalero.rutea.service.CategoriaService;
+import com.svalero.rutea.service.PuntoInteresService;
+import com.svalero.rutea.service.ResenaService;
+import com.svalero.rutea.service.RutaService;
+import com.svalero.rutea.service.UsuarioService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Siembra la BD antes de la prueba a través de los servicios, para que los índices, agregados y
+ * geometrías queden como con datos reales. Corre como ApplicationRunner, antes del
+ * ApplicationReadyEvent, así que los índices en memoria se construyen ya con estos datos.
+ * <p>
+ * {@code rutea.loadtest.dataset} es el número de puntos de interés; el resto escala con él.
+ */
+public class DatasetSeeder implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetSeeder.class);
+
+    private static final String[] ETIQUETAS = {"montaña", "agua", "río", "bosque", "panorámica", "familiar",
+            "circular", "nieve", "ciudad", "historia", "ermita", "cascada"};
+    private static final String[] DIFICULTADES = {"baja", "media", "alta"};
+
+    @Value("${rutea.loadtest.dataset:1000}")
+    private int dataset;
+
+    @Autowired
+    private CategoriaService categoriaService;
+    @Autowired
+    private UsuarioService usuarioService;
+    @Autowired
+    private PuntoInteresService puntoInteresService;
+    @Autowired
+    private RutaService rutaService;
+    @Autowired
+    private ResenaService resenaService;
+
+    final List<Long> categorias = new ArrayList<>();
+    final List<Long> usuarios = new ArrayList<>();
+    final List<Long> puntos = new ArrayList<>();
+    final List<Long> rutas = new ArrayList<>();
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        logger.info("Sembrando {} puntos de interés para la prueba de carga", dataset);
+        long start = System.nanoTime();
+        Random random = new Random(42);
+
+        for (int i = 0; i < Math.max(5, dataset / 100); i++) {
+            categorias.add(categoriaService.add(CategoriaInDto.builder().activa(i % 4 != 0).costePromedio(i % 3 * 5f)
+                    .descripcion("Categoría de carga " + i).nombre("Categoria " + i).ordenPrioridad(i).build()).getId());
+        }
+        for (int i = 0; i < Math.max(10, dataset / 10); i++) {
+            usuarios.add(usuarioService.add(new UsuarioInDto("carga" + i + "@example.com", i % 5 == 0,
+                    LocalDate.now().minusDays(i), i % 10, "secreto", "carga" + i)).getId());
+        }
+        for (int i = 0; i < dataset; i++) {
+            puntos.add(puntoInteresService.add(new PuntoInteresInDto(i % 3 != 0, LocalDateTime.now(),
+                    41.3 + random.nextDouble(), -1.5 + random.nextDouble() * 1.5, "Punto de carga " + i, 0f,
+                    pick(categorias, random))).getId());
+        }
+        for (int i = 0; i < Math.max(1, dataset / 4); i++) {
+            List<Long> puntosRuta = new ArrayList<>();
+            for (int p = 0, n = 2 + random.nextInt(15); p < n; p++)
+                puntosRuta.add(pick(puntos, random));
+            rutas.add(rutaService.addV2(new RutaInDtoV2(DIFICULTADES[i % 3], 5 + random.nextInt(20), 60 + random.nextInt(300),
+                    LocalDate.now().minusDays(random.nextInt(365)), i % 5 != 0, "Ruta de carga " + i, pick(usuarios, random),
+                    puntosRuta, ETIQUETAS[random.nextInt(ETIQUETAS.length)] + ", " + ETIQUETAS[random.nextInt(ETIQUETAS.length)]))
+                    .getId());
+        }
+        for (int i = 0; i < dataset * 2; i++) {
+            resenaService.add(new ResenaInDto("Reseña de carga " + i, false, LocalDate.now(), 0, "Reseña " + i,
+                    1 + random.nextInt(5), pick(puntos, random), pick(usuarios, random)));
+        }
+
+        logger.info("Datos sembrados en {} ms: {} categorías, {} usuarios, {} puntos, {} rutas, {} reseñas",
+                (System.nanoTime() - start) / 1_000_000, categorias.size(), usuarios.size(), puntos.size(), rutas.size(),
+                dataset * 2);
+    }
+
+    static long pick(List<Long> ids, Random random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,125 @@
+package com.svalero.rutea.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias (HdrHistogram, en microsegundos), códigos y errores por petición de la colección.
+ * Un error es una respuesta con un código distinto del que espera la colección, un fallo de
+ * conexión o una petición descartada por haber demasiadas en vuelo.
+ */
+public final class LoadReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+    private final EndpointStats total = new EndpointStats();
+
+    public LoadReport(List<PostmanCollection.RequestTemplate> requests) {
+        for (PostmanCollection.RequestTemplate request : requests)
+            endpoints.put(request.name(), new EndpointStats());
+    }
+
+    public void record(PostmanCollection.RequestTemplate request, int status, long latencyNanos) {
+        boolean error = !request.isExpected(status);
+        endpoints.get(request.name()).record(String.valueOf(status), latencyNanos, error);
+        total.record(String.valueOf(status), latencyNanos, error);
+    }
+
+    public void recordFailure(PostmanCollection.RequestTemplate request, String cause, long latencyNanos) {
+        endpoints.get(request.name()).record(cause, latencyNanos, true);
+        total.record(cause, latencyNanos, true);
+    }
+
+    public long totalRequests() {
+        return total.requests.sum();
+    }
+
+    public long totalErrors() {
+        return total.errors.sum();
+    }
+
+    /**
+     * El informe como JSON: la configuración de la prueba, el total y una entrada por petición.
+     */
+    public void write(File file, Map<String, Object> config, double seconds) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("total", total.toMap(seconds));
+        Map<String, Object> byEndpoint = new LinkedHashMap<>();
+        endpoints.forEach((name, stats) -> {
+            if (stats.requests.sum() > 0) byEndpoint.put(name, stats.toMap(seconds));
+        });
+        report.put("endpoints", byEndpoint);
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    }
+
+    public void print(double seconds) {
+        System.out.printf("%-48s %8s %9s %7s %9s %9s %9s %9s%n", "Petición", "total", "req/s", "error%", "p50 ms", "p99 ms",
+                "p99.9 ms", "max ms");
+        endpoints.forEach((name, stats) -> {
+            if (stats.requests.sum() > 0) stats.print(name, seconds);
+        });
+        total.print("TOTAL", seconds);
+    }
+
+    private static final class EndpointStats {
+        final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        void record(String status, long latencyNanos, boolean error) {
+            latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+            requests.increment();
+            if (error) errors.increment();
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+
+        double errorRate() {
+            long n = requests.sum();
+            return n == 0 ? 0 : (double) errors.sum() / n;
+        }
+
+        Map<String, Object> toMap(double seconds) {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("requests", requests.sum());
+            out.put("throughput", requests.sum() / seconds);
+            out.put("errors", errors.sum());
+            out.put("errorRate", errorRate());
+            Map<String, Long> codes = new TreeMap<>();
+            statuses.forEach((status, count) -> codes.put(status, count.sum()));
+            out.put("statuses", codes);
+            Map<String, Double> latencyMs = new LinkedHashMap<>();
+            latencyMs.put("mean", latency.getMean() / 1000);
+            for (double p : new double[]{50, 90, 99, 99.9})
+                latencyMs.put("p" + (p == (long) p ? String.valueOf((long) p) : String.valueOf(p)), millis(p));
+            latencyMs.put("max", latency.getMaxValue() / 1000.0);
+            out.put("latencyMs", latencyMs);
+            return out;
+        }
+
+        void print(String name, double seconds) {
+            System.out.printf("%-48s %8d %9.1f %7.2f %9.2f %9.2f %9.2f %9.2f%n", name, requests.sum(), requests.sum() / seconds,
+                    errorRate() * 100, millis(50), millis(99), millis(99.9), latency.getMaxValue() / 1000.0);
+        }
+
+        private double millis(double percentile) {
+            return latency.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.svalero.rutea.loadtest;
+
+import com.svalero.rutea.RuteaApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Prueba de carga de extremo a extremo: arranca la aplicación en un puerto libre contra un H2 en
+ * modo MariaDB, la siembra con {@link DatasetSeeder} y lanza una mezcla ponderada de las peticiones
+ * de la colección Postman a un ritmo fijo, una por hilo virtual.
+ * <p>
+ * Es un modelo abierto: las peticiones salen a su hora aunque las anteriores no hayan vuelto y la
+ * latencia se mide desde esa hora prevista, así que las colas también cuentan (sin coordinated
+ * omission). El informe va en JSON a {@code --report} y resumido por consola.
+ * <p>
+ * Con {@code --clients=N} pasa a un modelo cerrado: N clientes concurrentes que encadenan
+ * peticiones sin pausa, para ver cómo aguanta el servidor una concurrencia dada (rps se ignora).
+ * {@code --threads=virtual|platform} elige cómo atiende Tomcat las peticiones.
+ * <p>
+ * Opciones ({@code --clave=valor}): rps, clients, threads, duration y warmup (segundos), dataset,
+ * collection, report, weights (por método, p. ej. {@code GET=20,POST=4,DELETE=0}), max-in-flight y seed.
+ * Termina con código 1 si la tasa de error supera {@code max-error-rate}.
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("rps", "100"),
+            Map.entry("clients", "0"),
+            Map.entry("threads", "virtual"),
+            Map.entry("duration", "60"),
+            Map.entry("warmup", "10"),
+            Map.entry("dataset", "1000"),
+            Map.entry("collection", "Rutea.postman_collection.json"),
+            Map.entry("report", "target/loadtest-report.json"),
+            Map.entry("weights", "GET=20,POST=4,PUT=2,PATCH=2,DELETE=0"),
+            Map.entry("max-in-flight", "2000"),
+            Map.entry("max-error-rate", "0.01"),
+            Map.entry("seed", "42"));
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int rps = Integer.parseInt(options.get("rps"));
+        int clients = Integer.parseInt(options.get("clients"));
+        String threads = options.get("threads");
+        if (!threads.equals("virtual") && !threads.equals("platform"))
+            throw new IllegalArgumentException("threads: virtual o platform, no " + threads);
+        int duration = Integer.parseInt(options.get("duration"));
+        int warmup = Integer.parseInt(options.get("warmup"));
+        double maxErrorRate = Double.parseDouble(options.get("max-error-rate"));
+
+        PostmanCollection collection = PostmanCollection.read(new File(options.get("collection")));
+        Map<String, Integer> weights = weights(options.get("weights"));
+        List<PostmanCollection.RequestTemplate> mix = new ArrayList<>();
+        List<Integer> mixWeights = new ArrayList<>();
+        for (PostmanCollection.RequestTemplate request : collection.requests()) {
+            int weight = weights.getOrDefault(request.method(), 0);
+            if (weight > 0) {
+                mix.add(request);
+                mixWeights.add(weight);
+            }
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("Ninguna petición de la colección tiene peso: " + weights);
+
+        // Como argumentos de línea de comandos para que manden sobre application.properties y logback-spring.xml
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RuteaApplication.class, DatasetSeeder.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID()
+                                + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.main.banner-mode=off",
+                        "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                        "--server.tomcat.max-connections=" + Math.max(8192, clients + 100),
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.svalero.rutea=OFF",
+                        "--logging.level.com.svalero.rutea.loadtest=INFO",
+                        "--logging.level.org.springframework=WARN",
+                        "--logging.level.org.springframework.web=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--rutea.loadtest.dataset=" + options.get("dataset"));
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Function<String, String> resolver = resolver(context.getBean(DatasetSeeder.class), collection.variables(),
+                    baseUrl, new Random(Long.parseLong(options.get("seed"))));
+
+            LoadReport report = new LoadReport(mix);
+            if (clients > 0) {
+                System.out.printf("Calentando %d s y midiendo %d s con %d clientes contra %s (hilos %s, %d peticiones en la mezcla)%n",
+                        warmup, duration, clients, baseUrl, threads, mix.size());
+                runClosed(mix, mixWeights, resolver, report, clients, warmup, duration,
+                        new Random(Long.parseLong(options.get("seed"))));
+            } else {
+                System.out.printf("Calentando %d s y midiendo %d s a %d req/s contra %s (hilos %s, %d peticiones en la mezcla)%n",
+                        warmup, duration, rps, baseUrl, threads, mix.size());
+                run(mix, mixWeights, resolver, report, rps, warmup, duration, Integer.parseInt(options.get("max-in-flight")),
+                        new Random(Long.parseLong(options.get("seed"))));
+            }
+
+            Map<String, Object> config = new TreeMap<>(options);
+            config.put("requestsInMix", mix.size());
+            report.write(new File(options.get("report")), config, duration);
+            report.print(duration);
+            System.out.println("Informe en " + options.get("report"));
+
+            double errorRate = report.totalRequests() == 0 ? 1 : (double) report.totalErrors() / report.totalRequests();
+            if (errorRate > maxErrorRate) {
+                System.out.printf(Locale.ROOT, "Tasa de error %.4f por encima de %.4f%n", errorRate, maxErrorRate);
+                System.exit(1);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Lanza las peticiones a su hora durante el calentamiento y la medida; solo se registran las
+     * que tocaban después del calentamiento.
+     */
+    private static void run(List<PostmanCollection.RequestTemplate> mix, List<Integer> mixWeights,
+                            Function<String, String> resolver, LoadReport report, int rps, int warmup, int duration,
+                            int maxInFlight, Random random) throws InterruptedException {
+        int[] cumulative = new int[mixWeights.size()];
+        int sum = 0;
+        for (int i = 0; i < cumulative.length; i++)
+            cumulative[i] = sum += mixWeights.get(i);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rps;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long intended = start; intended < end; intended += interval) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+
+                int pick = random.nextInt(sum);
+                int idx = 0;
+                while (cumulative[idx] <= pick) idx++;
+                PostmanCollection.RequestTemplate template = mix.get(idx);
+                // las variables se resuelven aquí, en un solo hilo, para que la semilla reproduzca la misma secuencia
+                HttpRequest request = build(template, resolver);
+                boolean measured = intended >= measureFrom;
+                long scheduledAt = intended;
+
+                if (!inFlight.tryAcquire()) {
+                    if (measured) report.recordFailure(template, "descartada", 0);
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (measured) report.record(template, response.statusCode(), System.nanoTime() - scheduledAt);
+                    } catch (Exception e) {
+                        if (measured) report.recordFailure(template, e.getClass().getSimpleName(), System.nanoTime() - scheduledAt);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Modelo cerrado: cada cliente manda la siguiente petición en cuanto vuelve la anterior. Los
+     * clientes no tienen hilo propio: encadenan {@code sendAsync} sobre un par de hilos de
+     * plataforma, para no competir con los hilos virtuales del servidor, que viven en el mismo
+     * proceso. La latencia se mide desde el envío; solo cuentan las que salen después del
+     * calentamiento.
+     */
+    private static void runClosed(List<PostmanCollection.RequestTemplate> mix, List<Integer> mixWeights,
+                                  Function<String, String> resolver, LoadReport report, int clients, int warmup,
+                                  int duration, Random random) throws InterruptedException {
+        int[] cumulative = new int[mixWeights.size()];
+        int sum = 0;
+        for (int i = 0; i < cumulative.length; i++)
+            cumulative[i] = sum += mixWeights.get(i);
+        int total = sum;
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            Random own = new Random(random.nextLong());
+            new Runnable() {
+                @Override
+                public void run() {
+                    long sentAt = System.nanoTime();
+                    if (sentAt >= end) {
+                        done.countDown();
+                        return;
+                    }
+                    int pick = own.nextInt(total);
+                    int idx = 0;
+                    while (cumulative[idx] <= pick) idx++;
+                    PostmanCollection.RequestTemplate template = mix.get(idx);
+                    boolean measured = sentAt >= measureFrom;
+                    client.sendAsync(build(template, resolver), HttpResponse.BodyHandlers.discarding())
+                            .whenComplete((response, error) -> {
+                                if (measured) {
+                                    if (error == null)
+                                        report.record(template, response.statusCode(), System.nanoTime() - sentAt);
+                                    else
+                                        report.recordFailure(template, cause(error).getClass().getSimpleName(),
+                                                System.nanoTime() - sentAt);
+                                }
+                                executor.execute(this);
+                            });
+                }
+            }.run();
+        }
+        // las que siguen en vuelo al acabar tienen como mucho el timeout de la petición
+        done.await(duration + warmup + 60, TimeUnit.SECONDS);
+        executor.shutdownNow();
+    }
+
+    private static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static HttpRequest build(PostmanCollection.RequestTemplate template, Function<String, String> resolver) {
+        String body = template.renderBody(resolver);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(template.renderUrl(resolver)))
+                .timeout(Duration.ofSeconds(30))
+                .method(template.method(), body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) builder.header("Content-Type", "application/json");
+        return builder.build();
+    }
+
+    /**
+     * Las variables de ids de la colección ({{categoriaId}}, {{usuarioRutaV2Id}}...) toman un id
+     * sembrado al azar de su entidad; el resto, el valor de la colección.
+     */
+    private static Function<String, String> resolver(DatasetSeeder dataset, Map<String, String> variables,
+                                                     String baseUrl, Random random) {
+        return name -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (lower.equals("baseurl")) return baseUrl;
+            if (lower.endsWith("id")) {
+                List<Long> ids = lower.startsWith("categoria") ? dataset.categorias
+                        : lower.startsWith("usuario") ? dataset.usuarios
+                        : lower.startsWith("punto") ? dataset.puntos
+                        : lower.startsWith("ruta") ? dataset.rutas
+                        : null;
+                if (ids != null) return String.valueOf(DatasetSeeder.pick(ids, random));
+            }
+            return variables.get(name);
+        };
+    }
+
+    private static Map<String, Integer> weights(String spec) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String pair : spec.split(",")) {
+            String[] kv = pair.split("=");
+            weights.put(kv[0].trim().toUpperCase(Locale.ROOT), Integer.parseInt(kv[1].trim()));
+        }
+        return weights;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Opción no válida: " + arg + " (se espera --clave=valor)");
+            String key = arg.substring(2, arg.indexOf('='));
+            if (!DEFAULTS.containsKey(key))
+                throw new IllegalArgumentException("Opción desconocida: " + key + ". Opciones: " + DEFAULTS.keySet());
+            options.put(key, arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,125 @@
+package com.svalero.rutea.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Las peticiones de una colección Postman v2.1 como plantillas que se pueden lanzar una y otra vez.
+ * El código esperado sale del test de cada petición ({@code pm.response.code).to.eql(201)}).
+ */
+public final class PostmanCollection {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{([^}]+)}}");
+    private static final Pattern EXPECTED_STATUS = Pattern.compile("pm\\.response\\.code\\)\\.to\\.eql\\((\\d{3})\\)");
+    private static final AtomicLong UNIQUE = new AtomicLong(System.currentTimeMillis());
+
+    private final List<RequestTemplate> requests;
+    private final Map<String, String> variables;
+
+    private PostmanCollection(List<RequestTemplate> requests, Map<String, String> variables) {
+        this.requests = requests;
+        this.variables = variables;
+    }
+
+    public static PostmanCollection read(File file) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(file);
+        Map<String, String> variables = new HashMap<>();
+        for (JsonNode variable : root.path("variable"))
+            variables.put(variable.path("key").asText(), variable.path("value").asText());
+        List<RequestTemplate> requests = new ArrayList<>();
+        collect(root.path("item"), requests);
+        return new PostmanCollection(requests, variables);
+    }
+
+    public List<RequestTemplate> requests() {
+        return requests;
+    }
+
+    public Map<String, String> variables() {
+        return variables;
+    }
+
+    private static void collect(JsonNode items, List<RequestTemplate> requests) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(item.path("item"), requests);
+                continue;
+            }
+            JsonNode request = item.path("request");
+            JsonNode url = request.path("url");
+            String body = request.path("body").path("raw").asText(null);
+            requests.add(new RequestTemplate(item.path("name").asText(), request.path("method").asText("GET"),
+                    url.isObject() ? url.path("raw").asText() : url.asText(),
+                    body == null || body.isBlank() ? null : body, expectedStatus(item)));
+        }
+    }
+
+    private static int expectedStatus(JsonNode item) {
+        for (JsonNode event : item.path("event")) {
+            for (JsonNode line : event.path("script").path("exec")) {
+                Matcher matcher = EXPECTED_STATUS.matcher(line.asText());
+                if (matcher.find()) return Integer.parseInt(matcher.group(1));
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Una petición de la colección. {@code expectedStatus} es 0 si la colección no lo fija
+     * (entonces vale cualquier 2xx).
+     */
+    public record RequestTemplate(String name, String method, String url, String body, int expectedStatus) {
+
+        public boolean isExpected(int status) {
+            return expectedStatus == 0 ? status / 100 == 2 : status == expectedStatus;
+        }
+
+        public String renderUrl(Function<String, String> resolver) {
+            return render(url, resolver);
+        }
+
+        public String renderBody(Function<String, String> resolver) {
+            return body == null ? null : render(body, resolver);
+        }
+    }
+
+    /**
+     * Sustituye las {{variables}}. Las dinámicas de Postman ($timestamp, $randomEmail...) dan un
+     * valor distinto en cada petición para no chocar con las restricciones únicas.
+     */
+    static String render(String template, Function<String, String> resolver) {
+        Matcher matcher = VARIABLE.matcher(template);
+        StringBuilder out = new StringBuilder();
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            String value = name.startsWith("$") ? dynamic(name) : resolver.apply(name);
+            matcher.appendReplacement(out, Matcher.quoteReplacement(value == null ? "" : value));
+        }
+        matcher.appendTail(out);
+        return out.toString();
+    }
+
+    private static String dynamic(String name) {
+        return switch (name) {
+            case "$timestamp" -> String.valueOf(UNIQUE.incrementAndGet());
+            case "$randomEmail" -> "lt" + UNIQUE.incrementAndGet() + "@example.com";
+            case "$randomUserName" -> "lt" + UNIQUE.incrementAndGet();
+            case "$randomInt" -> String.valueOf(ThreadLocalRandom.current().nextInt(1000));
+            case "$guid", "$randomUUID" -> UUID.randomUUID().toString();
+            default -> "Lorem ipsum dolor sit amet";
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.svalero.rutea.config;
+
+import com.svalero.rutea.jdbc.JdbcGateDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Con hilos virtuales ({@code spring.threads.virtual.enabled=true} sobre Java 21) pone un
+ * {@link JdbcGateDataSource} delante del pool. Por defecto deja pasar tantas conexiones como
+ * tiene Hikari y espera lo mismo que su {@code connectionTimeout}. Con hilos de plataforma ya
+ * limita el pool de Tomcat y no se activa. Se desactiva con {@code rutea.jdbc.gate.enabled=false}.
+ */
+@Configuration
+public class JdbcGateConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcGateConfig.class);
+
+    // static y PriorityOrdered: envuelve el pool antes que SqlInstrumentationConfig, que así cuenta por fuera
+    @Bean
+    static BeanPostProcessor jdbcGateDataSource(Environment environment) {
+        boolean enabled = Threading.VIRTUAL.isActive(environment)
+                && environment.getProperty("rutea.jdbc.gate.enabled", Boolean.class, true);
+        int permits = environment.getProperty("rutea.jdbc.gate.permits", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        long timeoutMs = environment.getProperty("rutea.jdbc.gate.timeout-ms", Long.class,
+                environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30_000L));
+        return new JdbcGatePostProcessor(enabled, permits, timeoutMs);
+    }
+
+    private record JdbcGatePostProcessor(boolean enabled, int permits, long timeoutMs)
+            implements BeanPostProcessor, PriorityOrdered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!enabled || !(bean instanceof DataSource dataSource) || bean instanceof JdbcGateDataSource) return bean;
+            logger.info("DataSource {} limitado a {} conexiones concurrentes (espera máxima {} ms)",
+                    beanName, permits, timeoutMs);
+            JdbcGateDataSource gate = new JdbcGateDataSource(dataSource, permits, timeoutMs);
+            Gauge.builder("rutea.jdbc.gate.waiting", gate, JdbcGateDataSource::getWaiting)
+                    .description("Peticiones esperando una conexión").register(Metrics.globalRegistry);
+            Gauge.builder("rutea.jdbc.gate.available", gate, JdbcGateDataSource::getAvailablePermits)
+                    .description("Conexiones que aún se pueden prestar").register(Metrics.globalRegistry);
+            return gate;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.svalero.rutea.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Pide la conexión al pool con la primera sentencia SQL y no al abrir la transacción. Una
+ * lectura que sale de la caché o que espera el resultado de otra igual (ver
+ * {@code SingleFlight}) termina sin haber ocupado una conexión ni un permiso de
+ * {@link JdbcGateConfig}. Se desactiva con {@code rutea.jdbc.lazy-connections.enabled=false}.
+ */
+@Configuration
+public class LazyConnectionConfig {
+
+    // Ordered: por fuera del límite de JdbcGateConfig y por dentro de SqlInstrumentationConfig
+    @Bean
+    static BeanPostProcessor lazyConnectionDataSource(Environment environment) {
+        return new LazyConnectionPostProcessor(
+                environment.getProperty("rutea.jdbc.lazy-connections.enabled", Boolean.class, true));
+    }
+
+    private record LazyConnectionPostProcessor(boolean enabled) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!enabled || !(bean instanceof DataSource dataSource) || bean instanceof LazyConnectionDataSourceProxy)
+                return bean;
+            return new LazyConnectionDataSourceProxy(dataSource);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
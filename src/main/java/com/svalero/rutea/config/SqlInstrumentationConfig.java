@@ -0,0 +1,55 @@
+package com.svalero.rutea.config;
+
+import com.svalero.rutea.jdbc.SqlStatsFilter;
+import com.svalero.rutea.jdbc.SqlStatsListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Instrumenta el DataSource con datasource-proxy para contar sentencias, filas y tiempo de SQL
+ * por petición (ver {@link SqlStatsFilter}). Se desactiva con {@code rutea.sql.instrumentation.enabled=false}.
+ */
+@Configuration
+public class SqlInstrumentationConfig {
+
+    // static: un BeanPostProcessor tiene que existir antes que el resto de beans de la configuración
+    @Bean
+    static BeanPostProcessor sqlStatsDataSourceProxy(Environment environment) {
+        boolean enabled = environment.getProperty("rutea.sql.instrumentation.enabled", Boolean.class, true);
+        long slowQueryMs = environment.getProperty("rutea.sql.slow-query-ms", Long.class, 200L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!enabled || !(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) return bean;
+                SqlStatsListener listener = new SqlStatsListener(slowQueryMs);
+                return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(listener)
+                        .proxyResultSet()
+                        .methodListener(listener)
+                        .build();
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnWebApplication
+    FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(
+            @Value("${rutea.sql.instrumentation.enabled:true}") boolean enabled,
+            @Value("${rutea.sql.response-headers:false}") boolean responseHeaders,
+            @Value("${rutea.sql.budget.fail-on-exceed:false}") boolean failOnBudgetExceeded) {
+        FilterRegistrationBean<SqlStatsFilter> registration =
+                new FilterRegistrationBean<>(new SqlStatsFilter(responseHeaders, failOnBudgetExceeded));
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -3,6 +3,7 @@ package com.svalero.rutea.controller;
 import com.svalero.rutea.dto.CategoriaInDto;
 import com.svalero.rutea.dto.CategoriaOutDto;
 import com.svalero.rutea.exception.CategoriaNotFoundException;
+import com.svalero.rutea.jdbc.QueryBudget;
 import com.svalero.rutea.service.CategoriaService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -24,6 +25,7 @@ public class CategoriaController {
     private CategoriaService categoriaService;
 
     @GetMapping("/categorias")
+    @QueryBudget(1)
     public ResponseEntity<List<CategoriaOutDto>> getAll(
             @RequestParam(required = false) Boolean activa,
             @RequestParam(required = false) String nombre,
@@ -35,18 +37,21 @@ public class CategoriaController {
     }
 
     @GetMapping("/categorias/{id}")
+    @QueryBudget(1)
     public ResponseEntity<CategoriaOutDto> get(@PathVariable long id) throws CategoriaNotFoundException {
         logger.debug("GET /categorias/{}", id);
         return ResponseEntity.ok(categoriaService.findById(id));
     }
 
     @PostMapping("/categorias")
+    @QueryBudget(1)
     public ResponseEntity<CategoriaOutDto> add(@Valid @RequestBody CategoriaInDto dto) {
         logger.debug("POST /categorias - {}", dto.getNombre());
         return new ResponseEntity<>(categoriaService.add(dto), HttpStatus.CREATED);
     }
 
     @PutMapping("/categorias/{id}")
+    @QueryBudget(2)
     public ResponseEntity<CategoriaOutDto> modify(@PathVariable long id, @Valid @RequestBody CategoriaInDto dto)
             throws CategoriaNotFoundException {
         logger.debug("PUT /categorias/{}", id);
@@ -54,6 +59,7 @@ public class CategoriaController {
     }
 
     @PatchMapping("/categorias/{id}")
+    @QueryBudget(2)
     public ResponseEntity<CategoriaOutDto> patch(
             @PathVariable long id,
             @RequestBody Map<String, Object> updates) throws CategoriaNotFoundException {
@@ -62,6 +68,7 @@ public class CategoriaController {
     }
 
     @DeleteMapping("/categorias/{id}")
+    @QueryBudget(2)
     public ResponseEntity<Void> delete(@PathVariable long id) throws CategoriaNotFoundException {
         logger.debug("DELETE /categorias/{}", id);
         categoriaService.delete(id);
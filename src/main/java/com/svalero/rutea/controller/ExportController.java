@@ -0,0 +1,96 @@
+package com.svalero.rutea.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.svalero.rutea.dto.PuntoInteresOutDto;
+import com.svalero.rutea.dto.ResenaOutDto;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import com.svalero.rutea.jdbc.QueryBudget;
+import com.svalero.rutea.service.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación completa en NDJSON (un objeto JSON por línea, como en GET /{entidad}/{id}),
+ * comprimida con gzip si el cliente lo acepta. Las filas se escriben según se leen de la BD
+ * (ver {@link ExportService}), sin montar la lista entera en memoria. Como la importación, se
+ * crea con la primera petición y no en el arranque (@Lazy).
+ */
+@Lazy
+@RestController
+public class ExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+
+    static final String NDJSON = "application/x-ndjson";
+
+    @FunctionalInterface
+    private interface Export<T> {
+        long run(ExportService.Sink<T> sink) throws IOException;
+    }
+
+    @Autowired
+    private ExportService exportService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @GetMapping("/export/rutas")
+    @QueryBudget(1)
+    public void exportRutas(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                            HttpServletResponse response) throws IOException {
+        logger.debug("GET /export/rutas");
+        export(acceptEncoding, response, RutaOutDtoV2.class, exportService::exportRutas);
+    }
+
+    @GetMapping("/export/puntos")
+    @QueryBudget(1)
+    public void exportPuntos(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                             HttpServletResponse response) throws IOException {
+        logger.debug("GET /export/puntos");
+        export(acceptEncoding, response, PuntoInteresOutDto.class, exportService::exportPuntos);
+    }
+
+    @GetMapping("/export/resenas")
+    @QueryBudget(1)
+    public void exportResenas(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                              HttpServletResponse response) throws IOException {
+        logger.debug("GET /export/resenas");
+        export(acceptEncoding, response, ResenaOutDto.class, exportService::exportResenas);
+    }
+
+    private <T> void export(String acceptEncoding, HttpServletResponse response, Class<T> type, Export<T> export)
+            throws IOException {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        response.setContentType(NDJSON);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip)
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 8192) : response.getOutputStream();
+        // sin separador entre valores raíz (por defecto un espacio): el salto de línea lo pone cada fila
+        ObjectWriter writer = objectMapper.writerFor(type)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+        // cerrar el generador cierra también el gzip, que escribe su final
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            long total = export.run(row -> {
+                writer.writeValue(generator, row);
+                generator.writeRaw('\n');
+            });
+            logger.debug("Exportadas {} filas de {}", total, type.getSimpleName());
+        }
+    }
+}
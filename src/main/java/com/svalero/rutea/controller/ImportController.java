@@ -0,0 +1,69 @@
+package com.svalero.rutea.controller;
+
+import com.svalero.rutea.dto.ImportResultOutDto;
+import com.svalero.rutea.service.ImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Importación masiva en NDJSON o CSV (ver {@link ImportService}), con el cuerpo opcionalmente
+ * comprimido con gzip ({@code Content-Encoding: gzip}). El cuerpo se lee según llega.
+ * Responde 200 con el resumen aunque haya líneas con errores.
+ * <p>
+ * Es de uso ocasional: el controlador y su servicio se crean con la primera importación
+ * (@Lazy), no durante el arranque.
+ */
+@Lazy
+@RestController
+public class ImportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportController.class);
+
+    static final String CSV = "text/csv";
+
+    @Autowired
+    private ImportService importService;
+
+    @PostMapping(value = "/import/puntos", consumes = {ExportController.NDJSON, CSV})
+    public ResponseEntity<ImportResultOutDto> importPuntos(HttpServletRequest request) throws IOException {
+        logger.debug("POST /import/puntos ({})", request.getContentType());
+        try (BufferedReader reader = reader(request)) {
+            return ResponseEntity.ok(importService.importPuntos(reader, formato(request)));
+        }
+    }
+
+    @PostMapping(value = "/import/rutas", consumes = {ExportController.NDJSON, CSV})
+    public ResponseEntity<ImportResultOutDto> importRutas(HttpServletRequest request) throws IOException {
+        logger.debug("POST /import/rutas ({})", request.getContentType());
+        try (BufferedReader reader = reader(request)) {
+            return ResponseEntity.ok(importService.importRutas(reader, formato(request)));
+        }
+    }
+
+    private static ImportService.Formato formato(HttpServletRequest request) {
+        return MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? ImportService.Formato.CSV : ImportService.Formato.NDJSON;
+    }
+
+    private static BufferedReader reader(HttpServletRequest request) throws IOException {
+        InputStream in = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING)))
+            in = new GZIPInputStream(in, 8192);
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+}
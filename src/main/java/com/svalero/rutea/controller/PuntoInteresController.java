@@ -1,11 +1,15 @@
 package com.svalero.rutea.controller;
 
 import com.svalero.rutea.dto.PuntoInteresInDto;
+import com.svalero.rutea.dto.PuntoInteresNearbyOutDto;
 import com.svalero.rutea.dto.PuntoInteresOutDto;
+import com.svalero.rutea.dto.PuntoValoracionesOutDto;
 import com.svalero.rutea.exception.CategoriaNotFoundException;
 import com.svalero.rutea.exception.PuntoInteresNotFoundException;
+import com.svalero.rutea.jdbc.QueryBudget;
 import com.svalero.rutea.service.PuntoInteresService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +29,7 @@ public class PuntoInteresController {
     private PuntoInteresService puntoInteresService;
 
     @GetMapping("/puntos")
+    @QueryBudget(1)
     public ResponseEntity<List<PuntoInteresOutDto>> getAll(
             @RequestParam(required = false) Long categoriaId,
             @RequestParam(required = false) Boolean abiertoActualmente,
@@ -38,13 +43,39 @@ public class PuntoInteresController {
         return ResponseEntity.ok(puntoInteresService.findAll(categoriaId, abiertoFinal, nombre, puntuacionMedia));
     }
 
+    @GetMapping("/puntos/nearby")
+    @QueryBudget(1)
+    public ResponseEntity<List<PuntoInteresNearbyOutDto>> getNearby(
+            @RequestParam @DecimalMin(value = "-90.0", message = "lat must be between -90 and 90")
+            @DecimalMax(value = "90.0", message = "lat must be between -90 and 90") double lat,
+            @RequestParam @DecimalMin(value = "-180.0", message = "lon must be between -180 and 180")
+            @DecimalMax(value = "180.0", message = "lon must be between -180 and 180") double lon,
+            @RequestParam(defaultValue = "5") @Positive(message = "radiusKm must be > 0")
+            @DecimalMax(value = "1000.0", message = "radiusKm max is 1000") double radiusKm,
+            @RequestParam(defaultValue = "20") @Min(value = 1, message = "limit must be between 1 and 200")
+            @Max(value = 200, message = "limit must be between 1 and 200") int limit
+    ) {
+        logger.debug("GET /puntos/nearby - lat={}, lon={}, radiusKm={}, limit={}", lat, lon, radiusKm, limit);
+        return ResponseEntity.ok(puntoInteresService.findNearby(lat, lon, radiusKm, limit));
+    }
+
     @GetMapping("/puntos/{id}")
+    @QueryBudget(1)
     public ResponseEntity<PuntoInteresOutDto> get(@PathVariable long id) throws PuntoInteresNotFoundException {
         logger.debug("GET /puntos/{}", id);
         return ResponseEntity.ok(puntoInteresService.findById(id));
     }
 
+    @GetMapping("/puntos/{id}/valoraciones")
+    @QueryBudget(1)
+    public ResponseEntity<PuntoValoracionesOutDto> getValoraciones(@PathVariable long id)
+            throws PuntoInteresNotFoundException {
+        logger.debug("GET /puntos/{}/valoraciones", id);
+        return ResponseEntity.ok(puntoInteresService.findValoraciones(id));
+    }
+
     @PostMapping("/puntos")
+    @QueryBudget(2)
     public ResponseEntity<PuntoInteresOutDto> add(@Valid @RequestBody PuntoInteresInDto dto)
             throws CategoriaNotFoundException {
         logger.debug("POST /puntos - {}", dto.getNombre());
@@ -52,6 +83,7 @@ public class PuntoInteresController {
     }
 
     @PutMapping("/puntos/{id}")
+    @QueryBudget(2)
     public ResponseEntity<PuntoInteresOutDto> modify(@PathVariable long id, @Valid @RequestBody PuntoInteresInDto dto)
             throws PuntoInteresNotFoundException, CategoriaNotFoundException {
         logger.debug("PUT /puntos/{}", id);
@@ -59,6 +91,7 @@ public class PuntoInteresController {
     }
 
     @PatchMapping("/puntos/{id}")
+    @QueryBudget(2)
     public ResponseEntity<PuntoInteresOutDto> patch(
             @PathVariable long id,
             @RequestBody Map<String, Object> updates)
@@ -68,6 +101,7 @@ public class PuntoInteresController {
     }
 
     @DeleteMapping("/puntos/{id}")
+    @QueryBudget(2)
     public ResponseEntity<Void> delete(@PathVariable long id) throws PuntoInteresNotFoundException {
         logger.debug("DELETE /puntos/{}", id);
         puntoInteresService.delete(id);
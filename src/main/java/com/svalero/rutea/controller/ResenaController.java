@@ -5,6 +5,7 @@ import com.svalero.rutea.dto.ResenaOutDto;
 import com.svalero.rutea.exception.PuntoInteresNotFoundException;
 import com.svalero.rutea.exception.ResenaNotFoundException;
 import com.svalero.rutea.exception.UsuarioNotFoundException;
+import com.svalero.rutea.jdbc.QueryBudget;
 import com.svalero.rutea.service.ResenaService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -26,6 +27,7 @@ public class ResenaController {
     private ResenaService resenaService;
 
     @GetMapping("/resenas")
+    @QueryBudget(1)
     public ResponseEntity<List<ResenaOutDto>> getAll(
             @RequestParam(required = false) Boolean editada,
             @RequestParam(required = false) Integer likes,
@@ -37,19 +39,29 @@ public class ResenaController {
     }
 
     @GetMapping("/resenas/{id}")
+    @QueryBudget(1)
     public ResponseEntity<ResenaOutDto> get(@PathVariable long id) throws ResenaNotFoundException {
         logger.debug("GET /resenas/{}", id);
         return ResponseEntity.ok(resenaService.findById(id));
     }
 
     @PostMapping("/resenas")
+    @QueryBudget(4)
     public ResponseEntity<ResenaOutDto> add(@Valid @RequestBody ResenaInDto dto)
             throws PuntoInteresNotFoundException, UsuarioNotFoundException {
         logger.debug("POST /resenas - valoracion: {}", dto.getValoracion());
         return new ResponseEntity<>(resenaService.add(dto), HttpStatus.CREATED);
     }
 
+    @PostMapping("/resenas/{id}/like")
+    @QueryBudget(1)
+    public ResponseEntity<ResenaOutDto> like(@PathVariable long id) throws ResenaNotFoundException {
+        logger.debug("POST /resenas/{}/like", id);
+        return ResponseEntity.ok(resenaService.like(id));
+    }
+
     @PutMapping("/resenas/{id}")
+    @QueryBudget(7)
     public ResponseEntity<ResenaOutDto> modify(@PathVariable long id, @Valid @RequestBody ResenaInDto dto)
             throws ResenaNotFoundException, PuntoInteresNotFoundException, UsuarioNotFoundException {
         logger.debug("PUT /resenas/{}", id);
@@ -57,6 +69,7 @@ public class ResenaController {
     }
 
     @PatchMapping("/resenas/{id}")
+    @QueryBudget(4)
     public ResponseEntity<ResenaOutDto> patch(
             @PathVariable long id,
             @RequestBody Map<String, Object> updates)
@@ -66,6 +79,7 @@ public class ResenaController {
     }
 
     @DeleteMapping("/resenas/{id}")
+    @QueryBudget(3)
     public ResponseEntity<Void> delete(@PathVariable long id) throws ResenaNotFoundException {
         logger.debug("DELETE /resenas/{}", id);
         resenaService.delete(id);
@@ -1,12 +1,17 @@
 package com.svalero.rutea.controller;
 
+import com.svalero.rutea.dto.CursorPage;
 import com.svalero.rutea.dto.RutaInDto;
 import com.svalero.rutea.dto.RutaOutDto;
+import com.svalero.rutea.exception.InvalidCursorException;
 import com.svalero.rutea.exception.PuntoInteresNotFoundException;
 import com.svalero.rutea.exception.RutaNotFoundException;
+import com.svalero.rutea.exception.TooManyPuntosException;
 import com.svalero.rutea.exception.UsuarioNotFoundException;
+import com.svalero.rutea.jdbc.QueryBudget;
 import com.svalero.rutea.service.RutaService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,17 +31,25 @@ public class RutaController {
     private RutaService rutaService;
 
     @GetMapping("/v1/rutas")
+    @QueryBudget(2)
     public ResponseEntity<List<RutaOutDto>> getAll(
             @RequestParam(required = false, defaultValue = "") String dificultad,
             @RequestParam(required = false) Boolean publica,
-            @RequestParam(required = false, defaultValue = "") String titulo
-    ) {
-        logger.debug("GET /v1/rutas - Filtros: dificultad={}, publica={}, titulo={}",
-                dificultad, publica, titulo);
-        return ResponseEntity.ok(rutaService.findAll(dificultad, publica, titulo));
+            @RequestParam(required = false, defaultValue = "") String titulo,
+            @RequestParam(required = false) @Min(value = 1, message = "limit must be >= 1") Integer limit,
+            @RequestParam(required = false) String after
+    ) throws InvalidCursorException {
+        logger.debug("GET /v1/rutas - Filtros: dificultad={}, publica={}, titulo={}, limit={}, after={}",
+                dificultad, publica, titulo, limit, after);
+        CursorPage<RutaOutDto> page = rutaService.findAll(dificultad, publica, titulo, after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null)
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        return response.body(page.getItems());
     }
 
     @GetMapping("/v1/rutas/{id}")
+    @QueryBudget(2)
     public ResponseEntity<RutaOutDto> get(@PathVariable long id) throws RutaNotFoundException {
         logger.debug("GET /v1/rutas/{}", id);
         return ResponseEntity.ok(rutaService.findById(id));
@@ -60,12 +73,14 @@ public class RutaController {
     public ResponseEntity<RutaOutDto> patch(
             @PathVariable long id,
             @RequestBody Map<String, Object> updates)
-            throws RutaNotFoundException, UsuarioNotFoundException, PuntoInteresNotFoundException {
+            throws RutaNotFoundException, UsuarioNotFoundException, PuntoInteresNotFoundException,
+            TooManyPuntosException {
         logger.debug("PATCH /v1/rutas/{} - Campos: {}", id, updates.keySet());
         return ResponseEntity.ok(rutaService.patch(id, updates));
     }
 
     @DeleteMapping("/v1/rutas/{id}")
+    @QueryBudget(4)
     public ResponseEntity<Void> delete(@PathVariable long id) throws RutaNotFoundException {
         logger.debug("DELETE /v1/rutas/{}", id);
         rutaService.delete(id);
@@ -1,12 +1,19 @@
 package com.svalero.rutea.controller;
 
+import com.svalero.rutea.dto.CursorPage;
 import com.svalero.rutea.dto.RutaInDtoV2;
+import com.svalero.rutea.dto.RutaOptimizacionOutDto;
 import com.svalero.rutea.dto.RutaOutDtoV2;
+import com.svalero.rutea.exception.InvalidCursorException;
 import com.svalero.rutea.exception.PuntoInteresNotFoundException;
 import com.svalero.rutea.exception.RutaNotFoundException;
+import com.svalero.rutea.exception.TooManyPuntosException;
 import com.svalero.rutea.exception.UsuarioNotFoundException;
+import com.svalero.rutea.jdbc.QueryBudget;
 import com.svalero.rutea.service.RutaService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,17 +32,29 @@ public class RutaControllerV2 {
     private RutaService rutaService;
 
     @GetMapping("/v2/rutas")
+    @QueryBudget(2)
     public ResponseEntity<List<RutaOutDtoV2>> getAll(
             @RequestParam(required = false, defaultValue = "") String dificultad,
             @RequestParam(required = false) Boolean publica,
-            @RequestParam(required = false, defaultValue = "") String titulo
-    ) {
-        logger.debug("GET /v2/rutas - Filtros: dificultad={}, publica={}, titulo={}",
-                dificultad, publica, titulo);
-        return ResponseEntity.ok(rutaService.findAllV2(dificultad, publica, titulo));
+            @RequestParam(required = false, defaultValue = "") String titulo,
+            @RequestParam(required = false) List<String> etiquetas,
+            @RequestParam(required = false, defaultValue = "and")
+            @Pattern(regexp = "and|or", message = "etiquetasModo must be and or or") String etiquetasModo,
+            @RequestParam(required = false) @Min(value = 1, message = "limit must be >= 1") Integer limit,
+            @RequestParam(required = false) String after
+    ) throws InvalidCursorException {
+        logger.debug("GET /v2/rutas - Filtros: dificultad={}, publica={}, titulo={}, etiquetas={} ({}), limit={}, after={}",
+                dificultad, publica, titulo, etiquetas, etiquetasModo, limit, after);
+        CursorPage<RutaOutDtoV2> page = rutaService.findAllV2(dificultad, publica, titulo,
+                etiquetas, "and".equals(etiquetasModo), after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null)
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        return response.body(page.getItems());
     }
 
     @GetMapping("/v2/rutas/{id}")
+    @QueryBudget(2)
     public ResponseEntity<RutaOutDtoV2> get(@PathVariable long id) throws RutaNotFoundException {
         logger.debug("GET /v2/rutas/{}", id);
         return ResponseEntity.ok(rutaService.findByIdV2(id));
@@ -55,7 +74,18 @@ public class RutaControllerV2 {
         return ResponseEntity.ok(rutaService.modifyV2(id, dto));
     }
 
+    @PostMapping("/v2/rutas/{id}/optimize")
+    @QueryBudget(2)
+    public ResponseEntity<RutaOptimizacionOutDto> optimize(
+            @PathVariable long id,
+            @RequestParam(required = false, defaultValue = "false") boolean persist
+    ) throws RutaNotFoundException, TooManyPuntosException {
+        logger.debug("POST /v2/rutas/{}/optimize - persist={}", id, persist);
+        return ResponseEntity.ok(rutaService.optimizeV2(id, persist));
+    }
+
     @DeleteMapping("/v2/rutas/{id}")
+    @QueryBudget(2)
     public ResponseEntity<Void> delete(@PathVariable long id) throws RutaNotFoundException {
         logger.debug("DELETE /v2/rutas/{}", id);
         rutaService.softDelete(id);
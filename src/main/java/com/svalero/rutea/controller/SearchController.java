@@ -0,0 +1,44 @@
+package com.svalero.rutea.controller;
+
+import com.svalero.rutea.dto.CursorPage;
+import com.svalero.rutea.dto.SearchHitOutDto;
+import com.svalero.rutea.exception.InvalidCursorException;
+import com.svalero.rutea.jdbc.QueryBudget;
+import com.svalero.rutea.service.SearchService;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class SearchController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchController.class);
+
+    @Autowired
+    private SearchService searchService;
+
+    @GetMapping("/search")
+    @QueryBudget(1)
+    public ResponseEntity<List<SearchHitOutDto>> search(
+            @RequestParam @NotBlank(message = "q is mandatory") String q,
+            @RequestParam(required = false) @Pattern(regexp = "ruta|punto", message = "tipo must be ruta or punto") String tipo,
+            @RequestParam(required = false) @Min(value = 1, message = "limit must be >= 1") Integer limit,
+            @RequestParam(required = false) String after
+    ) throws InvalidCursorException {
+        logger.debug("GET /search - q={}, tipo={}, limit={}, after={}", q, tipo, limit, after);
+        CursorPage<SearchHitOutDto> page = searchService.search(q, tipo, after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null)
+            response.header(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        return response.body(page.getItems());
+    }
+}
@@ -3,6 +3,7 @@ package com.svalero.rutea.controller;
 import com.svalero.rutea.dto.UsuarioInDto;
 import com.svalero.rutea.dto.UsuarioOutDto;
 import com.svalero.rutea.exception.UsuarioNotFoundException;
+import com.svalero.rutea.jdbc.QueryBudget;
 import com.svalero.rutea.service.UsuarioService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -24,6 +25,7 @@ public class UsuarioController {
     private UsuarioService usuarioService;
 
     @GetMapping("/usuarios")
+    @QueryBudget(1)
     public ResponseEntity<List<UsuarioOutDto>> getAll(
             @RequestParam(required = false) Boolean premium,
             @RequestParam(required = false) Integer nivelExperiencia,
@@ -35,18 +37,21 @@ public class UsuarioController {
     }
 
     @GetMapping("/usuarios/{id}")
+    @QueryBudget(1)
     public ResponseEntity<UsuarioOutDto> get(@PathVariable long id) throws UsuarioNotFoundException {
         logger.debug("GET /usuarios/{}", id);
         return ResponseEntity.ok(usuarioService.findById(id));
     }
 
     @PostMapping("/usuarios")
+    @QueryBudget(1)
     public ResponseEntity<UsuarioOutDto> add(@Valid @RequestBody UsuarioInDto usuarioInDto) {
         logger.debug("POST /usuarios - {}", usuarioInDto.getUsername());
         return new ResponseEntity<>(usuarioService.add(usuarioInDto), HttpStatus.CREATED);
     }
 
     @PutMapping("/usuarios/{id}")
+    @QueryBudget(2)
     public ResponseEntity<UsuarioOutDto> modify(@PathVariable long id, @Valid @RequestBody UsuarioInDto usuarioInDto)
             throws UsuarioNotFoundException {
         logger.debug("PUT /usuarios/{}", id);
@@ -54,6 +59,7 @@ public class UsuarioController {
     }
 
     @PatchMapping("/usuarios/{id}")
+    @QueryBudget(2)
     public ResponseEntity<UsuarioOutDto> patch(
             @PathVariable long id,
             @RequestBody Map<String, Object> updates) throws UsuarioNotFoundException {
@@ -62,6 +68,7 @@ public class UsuarioController {
     }
 
     @DeleteMapping("/usuarios/{id}")
+    @QueryBudget(2)
     public ResponseEntity<Void> delete(@PathVariable long id) throws UsuarioNotFoundException {
         logger.debug("DELETE /usuarios/{}", id);
         usuarioService.delete(id);
@@ -16,7 +16,8 @@ import java.util.List;
 public class Categoria {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "categorias_seq")
+    @SequenceGenerator(name = "categorias_seq", sequenceName = "categorias_seq", allocationSize = 50)
     private long id;
 
     @Column(nullable = false)
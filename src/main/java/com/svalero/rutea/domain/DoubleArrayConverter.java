@@ -0,0 +1,33 @@
+package com.svalero.rutea.domain;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Guarda un double[] como texto separado por comas, redondeado al metro (3 decimales en km).
+ */
+@Converter
+public class DoubleArrayConverter implements AttributeConverter<double[], String> {
+
+    @Override
+    public String convertToDatabaseColumn(double[] values) {
+        if (values == null) return null;
+        StringBuilder sb = new StringBuilder(values.length * 8);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(Math.round(values[i] * 1000) / 1000.0);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public double[] convertToEntityAttribute(String column) {
+        if (column == null) return null;
+        if (column.isEmpty()) return new double[0];
+        String[] parts = column.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++)
+            values[i] = Double.parseDouble(parts[i]);
+        return values;
+    }
+}
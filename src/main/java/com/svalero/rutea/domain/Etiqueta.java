@@ -0,0 +1,27 @@
+package com.svalero.rutea.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Entrada del diccionario de etiquetas: cada nombre normalizado (ver EtiquetaIndex.normalize)
+ * existe una sola vez y las rutas lo referencian por id a través de ruta_etiquetas.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "etiquetas")
+public class Etiqueta {
+
+    public static final int MAX_LENGTH = 60;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "etiquetas_seq")
+    @SequenceGenerator(name = "etiquetas_seq", sequenceName = "etiquetas_seq", allocationSize = 50)
+    private long id;
+
+    @Column(nullable = false, unique = true, length = MAX_LENGTH)
+    private String nombre;
+}
@@ -20,7 +20,8 @@ import java.util.List;
 public class PuntoInteres {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "puntos_interes_seq")
+    @SequenceGenerator(name = "puntos_interes_seq", sequenceName = "puntos_interes_seq", allocationSize = 50)
     private long id;
 
     @Column(name = "abierto_actualmente", nullable = false)
@@ -44,11 +45,38 @@ public class PuntoInteres {
     @Size(max = 255, message = "nombre max length is 255")
     private String nombre;
 
-    @Column(name = "puntuacion_media", nullable = false)
+    /**
+     * Media de las valoraciones de sus reseñas. Igual que los agregados de abajo, solo la escriben
+     * las actualizaciones de PuntoInteresRepository (updatable = false): guardar el punto nunca
+     * pisa lo que una reseña concurrente acaba de sumar.
+     */
+    @Column(name = "puntuacion_media", nullable = false, updatable = false)
     @DecimalMin(value = "0.0", message = "puntuacionMedia must be between 0 and 5")
     @DecimalMax(value = "5.0", message = "puntuacionMedia must be between 0 and 5")
     private float puntuacionMedia;
 
+    @Column(name = "total_resenas", nullable = false, updatable = false)
+    private long totalResenas;
+
+    @Column(name = "suma_valoraciones", nullable = false, updatable = false)
+    private long sumaValoraciones;
+
+    // Histograma de valoraciones (número de reseñas con 1, 2, ... 5)
+    @Column(name = "valoraciones_1", nullable = false, updatable = false)
+    private int valoraciones1;
+
+    @Column(name = "valoraciones_2", nullable = false, updatable = false)
+    private int valoraciones2;
+
+    @Column(name = "valoraciones_3", nullable = false, updatable = false)
+    private int valoraciones3;
+
+    @Column(name = "valoraciones_4", nullable = false, updatable = false)
+    private int valoraciones4;
+
+    @Column(name = "valoraciones_5", nullable = false, updatable = false)
+    private int valoraciones5;
+
     @ManyToOne
     @JoinColumn(name = "categoria_id")
     @JsonIgnore
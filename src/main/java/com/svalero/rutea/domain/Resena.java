@@ -17,7 +17,8 @@ import java.time.LocalDate;
 public class Resena {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resenas_seq")
+    @SequenceGenerator(name = "resenas_seq", sequenceName = "resenas_seq", allocationSize = 50)
     private long id;
 
     @Column(nullable = false)
@@ -30,7 +31,8 @@ public class Resena {
     @Column(name = "fecha_publicacion")
     private LocalDate fechaPublicacion;
 
-    @Column(nullable = false)
+    // solo se escribe al insertar y con ResenaRepository.setLikes / LikeCounter
+    @Column(nullable = false, updatable = false)
     @Min(value = 0, message = "likes must be >= 0")
     private int likes;
 
@@ -42,7 +44,8 @@ public class Resena {
     @Max(value = 5, message = "valoracion must be between 1 and 5")
     private int valoracion;
 
-    @ManyToOne
+    // LAZY: el listado solo necesita los ids, que el proxy ya conoce sin ir a la BD
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "punto_id")
     @JsonIgnore
     private PuntoInteres punto;
@@ -52,7 +55,7 @@ public class Resena {
         return punto != null ? punto.getId() : null;
     }
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id")
     @JsonIgnore
     private Usuario usuario;
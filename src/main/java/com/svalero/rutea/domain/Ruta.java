@@ -4,9 +4,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @Data
 @AllArgsConstructor
@@ -17,7 +19,8 @@ import java.util.List;
 public class Ruta {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rutas_seq")
+    @SequenceGenerator(name = "rutas_seq", sequenceName = "rutas_seq", allocationSize = 50)
     private long id;
 
     @Column
@@ -48,16 +51,52 @@ public class Ruta {
     @Size(max = 255, message = "etiquetas max length is 255")
     private String etiquetas;
 
+    /**
+     * Las mismas etiquetas que el texto de {@code etiquetas}, normalizadas y enlazadas al diccionario.
+     * Las sincroniza EtiquetaService cada vez que se guarda el texto. {@code @BatchSize} deja que un
+     * lote de rutas (p. ej. en EtiquetasMigrationJob) inicialice todas sus colecciones en una consulta.
+     */
+    @ManyToMany
+    @BatchSize(size = 500)
+    @JoinTable(
+            name = "ruta_etiquetas",
+            joinColumns = @JoinColumn(name = "ruta_id"),
+            inverseJoinColumns = @JoinColumn(name = "etiqueta_id")
+    )
+    @JsonIgnore
+    private Set<Etiqueta> etiquetasNormalizadas;
+
     @Column(nullable = false)
     private boolean eliminada;
 
-    @ManyToOne
+    // Geometría calculada en el servidor a partir de los puntos (ver RouteGeometry)
+    @Column(name = "bbox_min_lat")
+    private Double bboxMinLat;
+
+    @Column(name = "bbox_min_lon")
+    private Double bboxMinLon;
+
+    @Column(name = "bbox_max_lat")
+    private Double bboxMaxLat;
+
+    @Column(name = "bbox_max_lon")
+    private Double bboxMaxLon;
+
+    // Con la longitud por defecto (255) MariaDB lo crearía como tinytext y solo cabrían unos 30 tramos
+    @Lob
+    @Column(name = "tramos_km", length = 65535)
+    @Convert(converter = DoubleArrayConverter.class)
+    private double[] tramosKm;
+
+    // LAZY: los listados solo necesitan el id, que el proxy ya conoce sin ir a la BD
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id")
     private Usuario usuario;
 
     /**
      * Evita bucle infinito JSON por ManyToMany.
      * En la API se devolverán ids (DTO), no la lista completa de entidades.
+     * El orden de los puntos es el del recorrido y se guarda en ruta_puntos.posicion.
      */
     @ManyToMany
     @JoinTable(
@@ -65,6 +104,7 @@ public class Ruta {
             joinColumns = @JoinColumn(name = "ruta_id"),
             inverseJoinColumns = @JoinColumn(name = "punto_id")
     )
+    @OrderColumn(name = "posicion")
     @JsonIgnore
     private List<PuntoInteres> puntos;
 }
\ No newline at end of file
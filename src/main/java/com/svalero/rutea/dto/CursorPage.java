@@ -0,0 +1,24 @@
+package com.svalero.rutea.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados paginada por cursor (keyset).
+ * El cursor de la siguiente página viaja en la cabecera {@link #NEXT_CURSOR_HEADER}
+ * para que el cuerpo de la respuesta siga siendo el array de siempre.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private List<T> items;
+    // null cuando no hay más páginas
+    private String nextCursor;
+}
@@ -0,0 +1,17 @@
+package com.svalero.rutea.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportErrorOutDto {
+    // número de línea en el cuerpo de la petición, empezando en 1 (en CSV la 1 es la cabecera)
+    private long linea;
+    // campo -> mensaje, como los errores de validación de los POST
+    private Map<String, String> errors;
+}
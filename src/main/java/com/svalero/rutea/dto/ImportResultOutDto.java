@@ -0,0 +1,26 @@
+package com.svalero.rutea.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva. Las líneas con errores no se importan, pero no
+ * detienen el resto; {@code errores} trae como mucho las primeras {@link #MAX_ERRORES}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResultOutDto {
+
+    public static final int MAX_ERRORES = 1000;
+
+    // registros leídos (sin contar la cabecera CSV ni las líneas en blanco)
+    private long leidos;
+    private long importados;
+    private long fallidos;
+    private List<ImportErrorOutDto> errores = new ArrayList<>();
+}
@@ -28,6 +28,7 @@ public class PuntoInteresInDto {
     @Size(max = 255, message = "nombre max length is 255")
     private String nombre;
 
+    // se acepta por compatibilidad pero se ignora: la media se calcula a partir de las reseñas
     @DecimalMin(value = "0.0", message = "puntuacionMedia must be between 0 and 5")
     @DecimalMax(value = "5.0", message = "puntuacionMedia must be between 0 and 5")
     private float puntuacionMedia;
@@ -0,0 +1,12 @@
+package com.svalero.rutea.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class PuntoInteresNearbyOutDto extends PuntoInteresOutDto {
+    private double distanciaKm;
+}
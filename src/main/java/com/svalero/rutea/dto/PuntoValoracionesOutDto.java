@@ -0,0 +1,18 @@
+package com.svalero.rutea.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PuntoValoracionesOutDto {
+    private long puntoId;
+    private long totalResenas;
+    private float puntuacionMedia;
+    // valoración (1-5) -> número de reseñas
+    private Map<Integer, Integer> histograma;
+}
@@ -0,0 +1,19 @@
+package com.svalero.rutea.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RutaOptimizacionOutDto {
+    private long rutaId;
+    private double distanciaAntesKm;
+    private double distanciaDespuesKm;
+    // ids de los puntos en el orden propuesto
+    private List<Long> puntosIds;
+    private boolean guardada;
+}
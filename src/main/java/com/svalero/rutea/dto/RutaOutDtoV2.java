@@ -22,4 +22,9 @@ public class RutaOutDtoV2 {
     private List<Long> puntosIds;
     private String etiquetas;
     private int totalPuntos;
+    private Double bboxMinLat;
+    private Double bboxMinLon;
+    private Double bboxMaxLat;
+    private Double bboxMaxLon;
+    private double[] tramosKm;
 }
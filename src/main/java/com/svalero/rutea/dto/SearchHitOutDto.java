@@ -0,0 +1,18 @@
+package com.svalero.rutea.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchHitOutDto {
+    // "ruta" o "punto"
+    private String tipo;
+    private long id;
+    // título de la ruta o nombre del punto
+    private String titulo;
+    // relevancia BM25: solo sirve para comparar resultados de la misma búsqueda
+    private double score;
+}
@@ -1,13 +1,17 @@
 package com.svalero.rutea.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.HashMap;
@@ -25,6 +29,13 @@ public class GlobalExceptionHandler {
             UsuarioNotFoundException.class
     })
     public ResponseEntity<ErrorResponse> handleNotFound(Exception ex) {
+        // rutea_not_found_total{exception="RutaNotFoundException"} en /actuator/prometheus; el registro
+        // global porque Spring Boot le añade el suyo y así funciona también en los @WebMvcTest
+        Counter.builder("rutea.not_found")
+                .description("Peticiones respondidas con 404 por recurso inexistente")
+                .tag("exception", ex.getClass().getSimpleName())
+                .register(Metrics.globalRegistry)
+                .increment();
         ErrorResponse errorResponse = ErrorResponse.notFound(ex.getMessage() != null ? ex.getMessage() : "Resource not found");
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
@@ -54,6 +65,49 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    // ----------- 400 (RequestParam que no cumple sus restricciones, p.ej. limit) -----------
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ErrorResponse> handleMethodValidation(HandlerMethodValidationException ex) {
+        Map<String, String> errors = new HashMap<>();
+        ex.getAllValidationResults().forEach(result -> {
+            String param = result.getMethodParameter().getParameterName();
+            result.getResolvableErrors().forEach(error -> errors.put(param, error.getDefaultMessage()));
+        });
+
+        ErrorResponse errorResponse = ErrorResponse.validationError(errors);
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    // ----------- 400 (RequestParam obligatorio ausente) -----------
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    public ResponseEntity<ErrorResponse> handleMissingParam(MissingServletRequestParameterException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put(ex.getParameterName(), ex.getParameterName() + " is mandatory");
+
+        ErrorResponse errorResponse = ErrorResponse.validationError(errors);
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    // ----------- 400 (cursor de paginación manipulado o caducado) -----------
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("after", "Invalid cursor");
+
+        ErrorResponse errorResponse = ErrorResponse.validationError(errors);
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    // ----------- 400 (ruta con más puntos de los admitidos) -----------
+    @ExceptionHandler(TooManyPuntosException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyPuntos(TooManyPuntosException ex) {
+        Map<String, String> errors = new HashMap<>();
+        errors.put("puntosIds", ex.getMessage());
+
+        ErrorResponse errorResponse = ErrorResponse.validationError(errors);
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     // ----------- 400 (JSON mal formado / tipos incorrectos en body) -----------
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ErrorResponse> handleNotReadable(HttpMessageNotReadableException ex) {
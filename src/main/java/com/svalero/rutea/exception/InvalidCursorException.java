@@ -0,0 +1,4 @@
+package com.svalero.rutea.exception;
+
+public class InvalidCursorException extends Exception {
+}
@@ -1,4 +1,11 @@
 package com.svalero.rutea.exception;
 
 public class PuntoInteresNotFoundException extends Exception {
+
+    public PuntoInteresNotFoundException() {
+    }
+
+    public PuntoInteresNotFoundException(String message) {
+        super(message);
+    }
 }
@@ -0,0 +1,8 @@
+package com.svalero.rutea.exception;
+
+public class TooManyPuntosException extends Exception {
+
+    public TooManyPuntosException(int max) {
+        super("puntosIds max size is " + max);
+    }
+}
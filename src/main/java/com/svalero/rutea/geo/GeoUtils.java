@@ -0,0 +1,33 @@
+package com.svalero.rutea.geo;
+
+/**
+ * Cálculos sobre la esfera terrestre (radio medio IUGG).
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Distancia de haversine en km entre dos coordenadas en grados.
+     */
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        return haversineRad(phi1, Math.cos(phi1), Math.toRadians(lon1),
+                phi2, Math.cos(phi2), Math.toRadians(lon2));
+    }
+
+    /**
+     * Variante en radianes con los cosenos de latitud ya calculados, para bucles calientes.
+     */
+    static double haversineRad(double phi1, double cosPhi1, double lambda1,
+                               double phi2, double cosPhi2, double lambda2) {
+        double sinDPhi = Math.sin((phi2 - phi1) * 0.5);
+        double sinDLambda = Math.sin((lambda2 - lambda1) * 0.5);
+        double a = sinDPhi * sinDPhi + cosPhi1 * cosPhi2 * sinDLambda * sinDLambda;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,358 @@
+package com.svalero.rutea.geo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice espacial en memoria de los puntos de interés: rejilla regular lat/lon de celdas
+ * de {@code rutea.geo.cell-size-deg} grados con las coordenadas guardadas en arrays primitivos.
+ *
+ * La búsqueda recorre las celdas en anillos alrededor de la celda del origen y se detiene
+ * en cuanto la distancia mínima posible del siguiente anillo supera el radio o el k-ésimo
+ * resultado ya encontrado, así que solo toca unas pocas celdas aunque haya millones de puntos.
+ */
+@Component
+public class PuntoSpatialIndex {
+
+    public record Hit(long id, double distanciaKm) {
+    }
+
+    private final double cellDeg;
+    private final double cellRad;
+    private final int rows;
+    private final int cols;
+
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final LongLongMap cellById = new LongLongMap();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public PuntoSpatialIndex(@Value("${rutea.geo.cell-size-deg:0.05}") double cellSizeDeg) {
+        // se ajusta el tamaño para que 360º sea un número entero de columnas (la vuelta en ±180 es exacta)
+        this.cols = Math.max(3, (int) Math.round(360.0 / cellSizeDeg));
+        this.cellDeg = 360.0 / cols;
+        this.cellRad = Math.toRadians(cellDeg);
+        this.rows = (int) Math.ceil(180.0 / cellDeg);
+    }
+
+    public void put(long id, double latitud, double longitud) {
+        long key = cellKey(row(latitud), col(longitud));
+        double phi = Math.toRadians(latitud);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            cells.computeIfAbsent(key, k -> new Cell()).add(id, phi, Math.cos(phi), Math.toRadians(longitud));
+            cellById.put(id, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            cellById.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return cellById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Los k puntos más cercanos dentro de radiusKm, ordenados por distancia de haversine.
+     */
+    public List<Hit> nearest(double latitud, double longitud, double radiusKm, int k) {
+        if (k <= 0 || radiusKm < 0) return List.of();
+
+        double phi = Math.toRadians(latitud);
+        double cosPhi = Math.cos(phi);
+        double lambda = Math.toRadians(longitud);
+        double radiusRad = radiusKm / GeoUtils.EARTH_RADIUS_KM;
+
+        int row0 = row(latitud);
+        int col0 = col(longitud);
+        int maxDr = (int) Math.ceil(radiusRad / cellRad) + 1;
+        int maxDc = (cols - 1) / 2;
+        if (Math.abs(phi) + radiusRad < Math.PI / 2) {
+            double dLambda = Math.asin(Math.min(1.0, Math.sin(radiusRad) / cosPhi));
+            maxDc = Math.min(maxDc, (int) Math.ceil(dLambda / cellRad) + 1);
+        }
+        int maxRing = Math.max(maxDr, maxDc);
+
+        BoundedMaxHeap heap = new BoundedMaxHeap(k);
+        lock.readLock().lock();
+        try {
+            for (int ring = 0; ring <= maxRing; ring++) {
+                if (ring >= 2) {
+                    double bound = ringLowerBoundKm(phi, ring);
+                    if (bound > radiusKm || (heap.isFull() && bound > heap.worst())) break;
+                }
+                int drLimit = Math.min(ring, maxDr);
+                for (int dr = -drLimit; dr <= drLimit; dr++) {
+                    int row = row0 + dr;
+                    if (row < 0 || row >= rows) continue;
+                    if (Math.abs(dr) == ring) {
+                        int dcLimit = Math.min(ring, maxDc);
+                        for (int dc = -dcLimit; dc <= dcLimit; dc++)
+                            scan(row, col0 + dc, phi, cosPhi, lambda, radiusRad, radiusKm, heap);
+                    } else if (ring <= maxDc) {
+                        scan(row, col0 - ring, phi, cosPhi, lambda, radiusRad, radiusKm, heap);
+                        scan(row, col0 + ring, phi, cosPhi, lambda, radiusRad, radiusKm, heap);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return heap.toSortedHits();
+    }
+
+    private void scan(int row, int col, double phi, double cosPhi, double lambda,
+                      double radiusRad, double radiusKm, BoundedMaxHeap heap) {
+        Cell cell = cells.get(cellKey(row, Math.floorMod(col, cols)));
+        if (cell == null) return;
+        for (int i = 0; i < cell.size; i++) {
+            if (Math.abs(cell.phi[i] - phi) > radiusRad) continue;
+            double d = GeoUtils.haversineRad(phi, cosPhi, lambda, cell.phi[i], cell.cosPhi[i], cell.lambda[i]);
+            if (d <= radiusKm) heap.offer(cell.ids[i], d);
+        }
+    }
+
+    /**
+     * Cota inferior de la distancia a cualquier punto de un anillo: sus celdas están al menos
+     * (ring - 1) celdas separadas del origen en latitud o en longitud.
+     */
+    private double ringLowerBoundKm(double phi, int ring) {
+        double sep = (ring - 1) * cellRad;
+        double latBound = sep * GeoUtils.EARTH_RADIUS_KM;
+        double phiMax = Math.min(Math.PI / 2, Math.abs(phi) + (ring + 1) * cellRad);
+        double lonBound = 2 * GeoUtils.EARTH_RADIUS_KM
+                * Math.asin(Math.cos(phiMax) * Math.sin(Math.min(Math.PI, sep) / 2));
+        return Math.min(latBound, lonBound);
+    }
+
+    private void removeLocked(long id) {
+        long key = cellById.get(id);
+        if (key < 0) return;
+        Cell cell = cells.get(key);
+        if (cell != null && cell.remove(id) && cell.size == 0)
+            cells.remove(key);
+        cellById.remove(id);
+    }
+
+    private int row(double latitud) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((latitud + 90.0) / cellDeg)));
+    }
+
+    private int col(double longitud) {
+        return Math.floorMod((int) Math.floor((longitud + 180.0) / cellDeg), cols);
+    }
+
+    private long cellKey(int row, int col) {
+        return (long) row * cols + col;
+    }
+
+    // -------------------- Estructuras internas --------------------
+
+    private static final class Cell {
+        long[] ids = new long[4];
+        double[] phi = new double[4];
+        double[] cosPhi = new double[4];
+        double[] lambda = new double[4];
+        int size;
+
+        void add(long id, double p, double cp, double l) {
+            if (size == ids.length) {
+                int n = size * 2;
+                ids = Arrays.copyOf(ids, n);
+                phi = Arrays.copyOf(phi, n);
+                cosPhi = Arrays.copyOf(cosPhi, n);
+                lambda = Arrays.copyOf(lambda, n);
+            }
+            ids[size] = id;
+            phi[size] = p;
+            cosPhi[size] = cp;
+            lambda[size] = l;
+            size++;
+        }
+
+        boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] != id) continue;
+                int last = --size;
+                ids[i] = ids[last];
+                phi[i] = phi[last];
+                cosPhi[i] = cosPhi[last];
+                lambda[i] = lambda[last];
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Montículo de máximos acotado a k elementos: la raíz es el peor de los mejores k.
+     */
+    private static final class BoundedMaxHeap {
+        private final long[] ids;
+        private final double[] dist;
+        private int size;
+
+        BoundedMaxHeap(int k) {
+            ids = new long[k];
+            dist = new double[k];
+        }
+
+        boolean isFull() {
+            return size == ids.length;
+        }
+
+        double worst() {
+            return dist[0];
+        }
+
+        void offer(long id, double d) {
+            if (size < ids.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (dist[parent] >= d) break;
+                    ids[i] = ids[parent];
+                    dist[i] = dist[parent];
+                    i = parent;
+                }
+                ids[i] = id;
+                dist[i] = d;
+            } else if (d < dist[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) break;
+                    if (child + 1 < size && dist[child + 1] > dist[child]) child++;
+                    if (dist[child] <= d) break;
+                    ids[i] = ids[child];
+                    dist[i] = dist[child];
+                    i = child;
+                }
+                ids[i] = id;
+                dist[i] = d;
+            }
+        }
+
+        List<Hit> toSortedHits() {
+            List<Hit> hits = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                hits.add(new Hit(ids[i], dist[i]));
+            hits.sort(Comparator.comparingDouble(Hit::distanciaKm));
+            return hits;
+        }
+    }
+
+    /**
+     * Mapa long -> long de direccionamiento abierto (sondeo lineal) para no guardar
+     * un Long por punto; get devuelve -1 si la clave no está.
+     */
+    private static final class LongLongMap {
+        private long[] keys = new long[16];
+        private long[] values = new long[16];
+        private boolean[] used = new boolean[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); used[i]; i = (i + 1) & mask)
+                if (keys[i] == key) return values[i];
+            return -1;
+        }
+
+        void put(long key, long value) {
+            if ((size + 1) * 4 > keys.length * 3) resize();
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (used[i]) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            used[i] = true;
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (used[i] && keys[i] != key) i = (i + 1) & mask;
+            if (!used[i]) return;
+            used[i] = false;
+            size--;
+            // borrado con desplazamiento hacia atrás para no dejar huecos en las cadenas de sondeo
+            for (int j = (i + 1) & mask; used[j]; j = (j + 1) & mask) {
+                int ideal = slot(keys[j], mask);
+                boolean stays = i <= j ? (i < ideal && ideal <= j) : (i < ideal || ideal <= j);
+                if (stays) continue;
+                keys[i] = keys[j];
+                values[i] = values[j];
+                used[i] = true;
+                used[j] = false;
+                i = j;
+            }
+        }
+
+        void clear() {
+            keys = new long[16];
+            values = new long[16];
+            used = new boolean[16];
+            size = 0;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++)
+                if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
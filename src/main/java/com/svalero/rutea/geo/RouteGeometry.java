@@ -0,0 +1,157 @@
+package com.svalero.rutea.geo;
+
+import java.util.Arrays;
+
+/**
+ * Geometría de una ruta a partir de sus puntos ordenados: longitud total de haversine,
+ * distancia de cada tramo y caja envolvente.
+ * <p>
+ * La caja toma en longitud el arco más corto que contiene todos los puntos. Si ese arco cruza
+ * el antimeridiano (±180°), {@link #minLon()} (borde oeste) es mayor que {@link #maxLon()}
+ * (borde este), como en GeoJSON: una ruta de 179° a -179° da minLon 179 y maxLon -179, no una
+ * caja de 358° de ancho. Basta con comparar el rango directo con el que pasa por ±180°, que va de
+ * la menor longitud positiva a la mayor negativa; es correcto mientras la ruta no ocupe más de
+ * media vuelta en longitud.
+ * <p>
+ * Es un espacio de trabajo reutilizable: las coordenadas y los tramos viven en arrays
+ * primitivos que solo crecen, de modo que recalcular miles de rutas seguidas con la misma
+ * instancia no reserva memoria por tramo. No es thread-safe.
+ */
+public final class RouteGeometry {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private double[] phi = new double[INITIAL_CAPACITY];
+    private double[] cosPhi = new double[INITIAL_CAPACITY];
+    private double[] lambda = new double[INITIAL_CAPACITY];
+    private double[] legsKm = new double[INITIAL_CAPACITY];
+    private int size;
+
+    private double totalKm;
+    private double minLat;
+    private double minLon;
+    private double maxLat;
+    private double maxLon;
+    // Extremos del rango que cruza el antimeridiano: la menor longitud >= 0 y la mayor < 0
+    private double minEastLon = Double.POSITIVE_INFINITY;
+    private double maxWestLon = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Vacía la ruta conservando los buffers.
+     */
+    public RouteGeometry reset() {
+        size = 0;
+        totalKm = 0;
+        minEastLon = Double.POSITIVE_INFINITY;
+        maxWestLon = Double.NEGATIVE_INFINITY;
+        return this;
+    }
+
+    /**
+     * Añade el siguiente punto de la ruta (grados) y acumula el tramo desde el anterior.
+     */
+    public RouteGeometry add(double lat, double lon) {
+        if (size == phi.length) grow();
+        int i = size++;
+        phi[i] = Math.toRadians(lat);
+        cosPhi[i] = Math.cos(phi[i]);
+        lambda[i] = Math.toRadians(lon);
+
+        if (lon >= 0) {
+            if (lon < minEastLon) minEastLon = lon;
+        } else if (lon > maxWestLon) {
+            maxWestLon = lon;
+        }
+        if (i == 0) {
+            minLat = maxLat = lat;
+            minLon = maxLon = lon;
+            return this;
+        }
+        double leg = GeoUtils.haversineRad(phi[i - 1], cosPhi[i - 1], lambda[i - 1], phi[i], cosPhi[i], lambda[i]);
+        legsKm[i - 1] = leg;
+        totalKm += leg;
+        if (lat < minLat) minLat = lat;
+        if (lat > maxLat) maxLat = lat;
+        if (lon < minLon) minLon = lon;
+        if (lon > maxLon) maxLon = lon;
+        return this;
+    }
+
+    /**
+     * Carga de golpe los primeros {@code n} puntos de dos arrays paralelos.
+     */
+    public RouteGeometry compute(double[] lats, double[] lons, int n) {
+        reset();
+        for (int i = 0; i < n; i++)
+            add(lats[i], lons[i]);
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int legCount() {
+        return Math.max(0, size - 1);
+    }
+
+    public double legKm(int index) {
+        if (index < 0 || index >= legCount())
+            throw new IndexOutOfBoundsException("leg " + index + " of " + legCount());
+        return legsKm[index];
+    }
+
+    /**
+     * Copia de las distancias por tramo, para guardarla fuera del espacio de trabajo.
+     */
+    public double[] legsKm() {
+        return Arrays.copyOf(legsKm, legCount());
+    }
+
+    public double totalKm() {
+        return totalKm;
+    }
+
+    public double minLat() {
+        return checkNotEmpty(minLat);
+    }
+
+    /**
+     * Borde oeste; mayor que {@link #maxLon()} si la caja cruza el antimeridiano.
+     */
+    public double minLon() {
+        checkNotEmpty(minLon);
+        return crossesAntimeridian() ? minEastLon : minLon;
+    }
+
+    public double maxLat() {
+        return checkNotEmpty(maxLat);
+    }
+
+    /**
+     * Borde este; menor que {@link #minLon()} si la caja cruza el antimeridiano.
+     */
+    public double maxLon() {
+        checkNotEmpty(maxLon);
+        return crossesAntimeridian() ? maxWestLon : maxLon;
+    }
+
+    private boolean crossesAntimeridian() {
+        // Sin longitudes de los dos signos no hay nada que cruzar
+        if (minEastLon == Double.POSITIVE_INFINITY || maxWestLon == Double.NEGATIVE_INFINITY) return false;
+        return 360 - minEastLon + maxWestLon < maxLon - minLon;
+    }
+
+    private double checkNotEmpty(double value) {
+        if (size == 0) throw new IllegalStateException("Route has no points");
+        return value;
+    }
+
+    private void grow() {
+        int capacity = phi.length * 2;
+        phi = Arrays.copyOf(phi, capacity);
+        cosPhi = Arrays.copyOf(cosPhi, capacity);
+        lambda = Arrays.copyOf(lambda, capacity);
+        legsKm = Arrays.copyOf(legsKm, capacity);
+    }
+}
@@ -0,0 +1,207 @@
+package com.svalero.rutea.geo;
+
+import java.util.stream.IntStream;
+
+/**
+ * Reordena los puntos de una ruta abierta para acortar el recorrido total.
+ * <p>
+ * El primer punto se mantiene como salida y el final queda libre. Se parte del vecino más
+ * cercano y se mejora con 2-opt (invertir un tramo) y Or-opt (mover bloques de 1 a 3 puntos)
+ * hasta que no hay mejora o se agota el presupuesto de tiempo. Todo trabaja sobre una matriz
+ * de distancias plana {@code double[n * n]}, que se construye en paralelo (fork/join) cuando
+ * hay muchos puntos. El resultado nunca es peor que el orden original.
+ */
+public final class RouteOptimizer {
+
+    /** A partir de aquí la matriz se rellena por filas en el ForkJoinPool común. */
+    static final int PARALLEL_MATRIX_THRESHOLD = 256;
+
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_OR_OPT_SEGMENT = 3;
+
+    /**
+     * @param order     posiciones originales en el nuevo orden
+     * @param beforeKm  longitud con el orden original
+     * @param afterKm   longitud con {@code order}
+     */
+    public record Result(int[] order, double beforeKm, double afterKm) {
+
+        public boolean improved() {
+            return afterKm < beforeKm - EPSILON;
+        }
+    }
+
+    private RouteOptimizer() {
+    }
+
+    public static Result optimize(double[] lats, double[] lons, int n, long timeBudgetNanos) {
+        int[] identity = IntStream.range(0, n).toArray();
+        if (n < 3) {
+            double km = n == 2 ? GeoUtils.haversineKm(lats[0], lons[0], lats[1], lons[1]) : 0;
+            return new Result(identity, km, km);
+        }
+        long deadline = System.nanoTime() + Math.max(0, timeBudgetNanos);
+
+        double[] dist = distanceMatrix(lats, lons, n);
+        double beforeKm = length(dist, n, identity);
+
+        int[] tour = nearestNeighbour(dist, n);
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(dist, n, tour, deadline);
+            improved |= orOpt(dist, n, tour, deadline);
+        }
+
+        double afterKm = length(dist, n, tour);
+        return afterKm < beforeKm ? new Result(tour, beforeKm, afterKm) : new Result(identity, beforeKm, beforeKm);
+    }
+
+    static double[] distanceMatrix(double[] lats, double[] lons, int n) {
+        double[] phi = new double[n];
+        double[] cosPhi = new double[n];
+        double[] lambda = new double[n];
+        for (int i = 0; i < n; i++) {
+            phi[i] = Math.toRadians(lats[i]);
+            cosPhi[i] = Math.cos(phi[i]);
+            lambda[i] = Math.toRadians(lons[i]);
+        }
+
+        double[] dist = new double[n * n];
+        IntStream rows = IntStream.range(0, n);
+        if (n >= PARALLEL_MATRIX_THRESHOLD) rows = rows.parallel();
+        // cada fila escribe solo su triángulo superior y su espejo: no hay solapes entre hilos
+        rows.forEach(i -> {
+            for (int j = i + 1; j < n; j++) {
+                double d = GeoUtils.haversineRad(phi[i], cosPhi[i], lambda[i], phi[j], cosPhi[j], lambda[j]);
+                dist[i * n + j] = d;
+                dist[j * n + i] = d;
+            }
+        });
+        return dist;
+    }
+
+    static double length(double[] dist, int n, int[] tour) {
+        double km = 0;
+        for (int i = 1; i < tour.length; i++)
+            km += dist[tour[i - 1] * n + tour[i]];
+        return km;
+    }
+
+    private static int[] nearestNeighbour(double[] dist, int n) {
+        int[] tour = new int[n];
+        boolean[] visited = new boolean[n];
+        visited[0] = true;
+        for (int i = 1; i < n; i++) {
+            int from = tour[i - 1];
+            int best = -1;
+            double bestDist = Double.MAX_VALUE;
+            for (int j = 0; j < n; j++) {
+                if (!visited[j] && dist[from * n + j] < bestDist) {
+                    bestDist = dist[from * n + j];
+                    best = j;
+                }
+            }
+            tour[i] = best;
+            visited[best] = true;
+        }
+        return tour;
+    }
+
+    /**
+     * Invierte tour[i..j] si acorta el camino. Al ser abierto, si j es el último punto
+     * no hay arista de salida que romper.
+     */
+    private static boolean twoOpt(double[] dist, int n, int[] tour, long deadline) {
+        boolean improved = false;
+        for (int i = 1; i < n - 1; i++) {
+            if (System.nanoTime() >= deadline) return improved;
+            int a = tour[i - 1];
+            int b = tour[i];
+            for (int j = i + 1; j < n; j++) {
+                int c = tour[j];
+                double delta = dist[a * n + c] - dist[a * n + b];
+                if (j + 1 < n) {
+                    int d = tour[j + 1];
+                    delta += dist[b * n + d] - dist[c * n + d];
+                }
+                if (delta < -EPSILON) {
+                    reverse(tour, i, j);
+                    b = tour[i];
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Mueve el bloque tour[i..i+len-1] (en su sentido o invertido) entre otros dos puntos
+     * consecutivos, o al final del camino, si acorta el recorrido.
+     */
+    private static boolean orOpt(double[] dist, int n, int[] tour, long deadline) {
+        boolean improved = false;
+        int[] buffer = new int[n];
+        for (int len = 1; len <= MAX_OR_OPT_SEGMENT; len++) {
+            for (int i = 1; i + len <= n; i++) {
+                if (System.nanoTime() >= deadline) return improved;
+                int first = tour[i];
+                int last = tour[i + len - 1];
+                int prev = tour[i - 1];
+                int next = i + len < n ? tour[i + len] : -1;
+
+                double removeGain = dist[prev * n + first]
+                        + (next >= 0 ? dist[last * n + next] - dist[prev * n + next] : 0);
+
+                int bestPos = -1;
+                boolean bestReversed = false;
+                double bestDelta = -EPSILON;
+                // insertar entre tour[k] y tour[k+1] (o tras tour[k] si es el último)
+                for (int k = 0; k < n; k++) {
+                    if (k >= i - 1 && k < i + len) continue;
+                    int p = tour[k];
+                    int q = k + 1 < n ? tour[k + 1] : -1;
+                    double base = q >= 0 ? dist[p * n + q] : 0;
+                    double fwd = dist[p * n + first] + (q >= 0 ? dist[last * n + q] : 0) - base;
+                    double rev = dist[p * n + last] + (q >= 0 ? dist[first * n + q] : 0) - base;
+                    if (fwd - removeGain < bestDelta) {
+                        bestDelta = fwd - removeGain;
+                        bestPos = k;
+                        bestReversed = false;
+                    }
+                    if (len > 1 && rev - removeGain < bestDelta) {
+                        bestDelta = rev - removeGain;
+                        bestPos = k;
+                        bestReversed = true;
+                    }
+                }
+                if (bestPos >= 0) {
+                    moveSegment(tour, buffer, i, len, bestPos, bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static void moveSegment(int[] tour, int[] buffer, int i, int len, int afterPos, boolean reversed) {
+        int n = tour.length;
+        int w = 0;
+        for (int k = 0; k < n; k++) {
+            if (k >= i && k < i + len) continue;
+            buffer[w++] = tour[k];
+            if (k == afterPos) {
+                for (int s = 0; s < len; s++)
+                    buffer[w++] = tour[reversed ? i + len - 1 - s : i + s];
+            }
+        }
+        System.arraycopy(buffer, 0, tour, 0, n);
+    }
+
+    private static void reverse(int[] tour, int i, int j) {
+        while (i < j) {
+            int tmp = tour[i];
+            tour[i++] = tour[j];
+            tour[j--] = tmp;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.svalero.rutea.jdbc;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Deja cada secuencia de ids por delante del mayor id de su tabla. La migración V2 ya crea cada
+ * secuencia detrás de las filas que había; esto cubre las que se carguen después con su propio
+ * id (una copia de otra base de datos, un INSERT a mano), que la secuencia acabaría repitiendo.
+ * <p>
+ * Con el optimizador pooled de Hibernate, cada valor S de la secuencia reserva los ids
+ * {@code S - allocationSize + 1 .. S}, así que la secuencia tiene que dar como mínimo
+ * {@code max(id) + allocationSize}. Nunca la retrasa, así que se puede ejecutar en cada
+ * arranque y en varias instancias a la vez. Corre antes de que el servidor acepte peticiones.
+ * Se desactiva con {@code rutea.jdbc.align-sequences.enabled=false}.
+ */
+@Component
+public class IdSequenceAligner implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${rutea.jdbc.align-sequences.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) return;
+        try {
+            align();
+        } catch (SQLException e) {
+            throw new IllegalStateException("No se pudieron alinear las secuencias de ids", e);
+        }
+    }
+
+    /**
+     * Devuelve cuántas secuencias ha tenido que adelantar.
+     */
+    public int align() throws SQLException {
+        int adelantadas = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            String producto = connection.getMetaData().getDatabaseProductName();
+            String quote = connection.getMetaData().getIdentifierQuoteString();
+            for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+                Class<?> type = entity.getJavaType();
+                Field id = idField(type);
+                SequenceGenerator generator = id == null ? null : id.getAnnotation(SequenceGenerator.class);
+                Table table = type.getAnnotation(Table.class);
+                if (generator == null || table == null) continue;
+
+                long max = maxId(connection, quote + table.name() + quote, quote + id.getName() + quote);
+                if (max == 0) continue;
+                long target = max + generator.allocationSize();
+                if (advance(connection, producto, quote, generator.sequenceName(), max, target)) {
+                    logger.info("Secuencia {} adelantada hasta {} (id máximo en {}: {})",
+                            generator.sequenceName(), target, table.name(), max);
+                    adelantadas++;
+                }
+            }
+        }
+        return adelantadas;
+    }
+
+    private boolean advance(Connection connection, String producto, String quote, String sequence,
+                            long max, long target) throws SQLException {
+        String quoted = quote + sequence + quote;
+        if (producto.equals("H2")) {
+            try (PreparedStatement next = connection.prepareStatement(
+                    "select base_value from information_schema.sequences where sequence_name = ?")) {
+                next.setString(1, sequence);
+                try (ResultSet rs = next.executeQuery()) {
+                    if (!rs.next() || rs.getLong(1) >= target) return false;
+                }
+            }
+            try (Statement alter = connection.createStatement()) {
+                alter.execute("alter sequence " + quoted + " restart with " + target);
+            }
+            return true;
+        }
+        if (producto.equals("MariaDB")) {
+            // SETVAL no retrocede nunca (devuelve NULL si no cambia nada). Con el valor marcado como
+            // usado, el siguiente es el primero de la serie 1, 1 + incremento... que lo supera
+            try (Statement setval = connection.createStatement();
+                 ResultSet rs = setval.executeQuery("select setval(" + quoted + ", " + (target - 1) + ")")) {
+                return rs.next() && rs.getObject(1) != null;
+            }
+        }
+        logger.warn("No se sabe alinear la secuencia {} en {}: id máximo {}", sequence, producto, max);
+        return false;
+    }
+
+    private static long maxId(Connection connection, String table, String column) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select coalesce(max(" + column + "), 0) from " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static Field idField(Class<?> type) {
+        for (Field field : type.getDeclaredFields())
+            if (field.isAnnotationPresent(Id.class)) return field;
+        return null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.svalero.rutea.jdbc;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Máximo de sentencias SQL que puede lanzar un endpoint, sea cual sea el volumen de datos.
+ * Pasarse se avisa en el log y, con {@code rutea.sql.budget.fail-on-exceed=true} (tests),
+ * hace fallar la petición.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int value();
+}
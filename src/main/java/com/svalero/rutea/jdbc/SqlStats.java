@@ -0,0 +1,52 @@
+package com.svalero.rutea.jdbc;
+
+/**
+ * Sentencias, filas leídas y tiempo de JDBC de la petición en curso. Vive en el hilo que
+ * atiende la petición ({@link SqlStatsFilter}); fuera de una petición no se cuenta nada.
+ */
+public final class SqlStats {
+
+    private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long rows;
+    private long timeMs;
+
+    public static SqlStats begin() {
+        SqlStats stats = new SqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static SqlStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void addStatement(long elapsedMs) {
+        statements++;
+        timeMs += elapsedMs;
+    }
+
+    void addRow() {
+        rows++;
+    }
+
+    /**
+     * Ejecuciones contra la BD: un batch de Hibernate cuenta como una.
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+}
@@ -0,0 +1,117 @@
+package com.svalero.rutea.jdbc;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Abre las {@link SqlStats} de cada petición, las deja en el log y, si está activado (perfil dev),
+ * en las cabeceras X-Sql-Statements, X-Sql-Rows y X-Sql-Time-Ms. Después comprueba el
+ * {@link QueryBudget} del endpoint.
+ */
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatsFilter.class);
+
+    private final boolean responseHeaders;
+    private final boolean failOnBudgetExceeded;
+
+    public SqlStatsFilter(boolean responseHeaders, boolean failOnBudgetExceeded) {
+        this.responseHeaders = responseHeaders;
+        this.failOnBudgetExceeded = failOnBudgetExceeded;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStats stats = SqlStats.begin();
+        SqlHeadersResponse wrapped = responseHeaders ? new SqlHeadersResponse(response, stats) : null;
+        try {
+            filterChain.doFilter(request, wrapped != null ? wrapped : response);
+        } finally {
+            SqlStats.end();
+        }
+        if (wrapped != null) wrapped.writeHeaders();
+
+        logger.debug("{} {}: {} sentencias SQL, {} filas, {} ms", request.getMethod(), request.getRequestURI(),
+                stats.getStatements(), stats.getRows(), stats.getTimeMs());
+        checkBudget(request, stats);
+    }
+
+    private void checkBudget(HttpServletRequest request, SqlStats stats) {
+        if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler))
+            return;
+        QueryBudget budget = handler.getMethodAnnotation(QueryBudget.class);
+        if (budget == null || stats.getStatements() <= budget.value()) return;
+
+        String message = String.format("%s %s ha lanzado %d sentencias SQL, por encima de su presupuesto de %d",
+                request.getMethod(), request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE),
+                stats.getStatements(), budget.value());
+        logger.warn(message);
+        if (failOnBudgetExceeded) throw new IllegalStateException(message);
+    }
+
+    /**
+     * Escribe las cabeceras justo antes de que empiece el cuerpo, que es cuando se confirma la
+     * respuesta; las sentencias posteriores (serializando) ya no entran en ellas.
+     */
+    private static final class SqlHeadersResponse extends HttpServletResponseWrapper {
+
+        private final SqlStats stats;
+        private boolean written;
+
+        SqlHeadersResponse(HttpServletResponse response, SqlStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        void writeHeaders() {
+            if (written || isCommitted()) return;
+            written = true;
+            setHeader("X-Sql-Statements", String.valueOf(stats.getStatements()));
+            setHeader("X-Sql-Rows", String.valueOf(stats.getRows()));
+            setHeader("X-Sql-Time-Ms", String.valueOf(stats.getTimeMs()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+    }
+}
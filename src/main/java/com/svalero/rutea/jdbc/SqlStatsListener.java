@@ -0,0 +1,56 @@
+package com.svalero.rutea.jdbc;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Escucha el DataSource instrumentado: suma cada ejecución y cada fila leída a las
+ * {@link SqlStats} de la petición y registra las consultas lentas con sus parámetros.
+ */
+public class SqlStatsListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatsListener.class);
+
+    private final long slowQueryMs;
+    private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+
+    public SqlStatsListener(long slowQueryMs) {
+        this.slowQueryMs = slowQueryMs;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SqlStats stats = SqlStats.current();
+        if (stats != null) stats.addStatement(execInfo.getElapsedTime());
+        if (execInfo.getElapsedTime() >= slowQueryMs)
+            logger.warn("Consulta lenta ({} ms): {}", execInfo.getElapsedTime(),
+                    logEntryCreator.getLogEntry(execInfo, queryInfoList, false, false, false));
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (executionContext.getTarget() instanceof ResultSet
+                && "next".equals(executionContext.getMethod().getName())
+                && Boolean.TRUE.equals(executionContext.getResult())) {
+            SqlStats stats = SqlStats.current();
+            if (stats != null) stats.addRow();
+        }
+    }
+}
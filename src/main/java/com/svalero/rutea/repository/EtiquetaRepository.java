@@ -0,0 +1,25 @@
+package com.svalero.rutea.repository;
+
+import com.svalero.rutea.domain.Etiqueta;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EtiquetaRepository extends JpaRepository<Etiqueta, Long> {
+
+    List<Etiqueta> findByNombreIn(Collection<String> nombres);
+
+    /**
+     * Como {@link #findByNombreIn} pero con lectura bloqueante, que en MariaDB ve también lo que
+     * otra transacción confirmó después de la primera lectura de esta (REPEATABLE READ).
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select e from Etiqueta e where e.nombre in :nombres")
+    List<Etiqueta> lockByNombreIn(Collection<String> nombres);
+}
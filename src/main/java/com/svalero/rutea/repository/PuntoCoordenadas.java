@@ -0,0 +1,7 @@
+package com.svalero.rutea.repository;
+
+/**
+ * Proyección mínima de un punto de interés para construir el índice espacial.
+ */
+public record PuntoCoordenadas(long id, double latitud, double longitud) {
+}
@@ -1,10 +1,101 @@
 package com.svalero.rutea.repository;
 
 import com.svalero.rutea.domain.PuntoInteres;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface PuntoInteresRepository extends JpaRepository<PuntoInteres, Long>, JpaSpecificationExecutor<PuntoInteres> {
+
+    /**
+     * Los listados devuelven el nombre de la categoría: se trae en el mismo SELECT en lugar de
+     * una consulta por categoría distinta.
+     */
+    @Override
+    @EntityGraph(attributePaths = "categoria")
+    List<PuntoInteres> findAll(Specification<PuntoInteres> spec);
+
+    @Override
+    @EntityGraph(attributePaths = "categoria")
+    List<PuntoInteres> findAllById(Iterable<Long> ids);
+
+    /**
+     * Recorre las coordenadas de todos los puntos con un cursor (hay que consumirlo dentro de una transacción).
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.svalero.rutea.repository.PuntoCoordenadas(p.id, p.latitud, p.longitud) from PuntoInteres p")
+    Stream<PuntoCoordenadas> streamCoordenadas();
+
+    /**
+     * Coordenadas de los puntos indicados (los que no existen no aparecen).
+     */
+    @Query("select new com.svalero.rutea.repository.PuntoCoordenadas(p.id, p.latitud, p.longitud) " +
+            "from PuntoInteres p where p.id in :ids")
+    List<PuntoCoordenadas> findCoordenadasByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Recorre los nombres de todos los puntos con un cursor, para el índice de búsqueda.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.svalero.rutea.repository.PuntoNombre(p.id, p.nombre) from PuntoInteres p")
+    Stream<PuntoNombre> streamNombres();
+
+    /**
+     * Recorre todos los puntos por id, con su categoría en el mismo SELECT, con un cursor
+     * (hay que consumirlo dentro de una transacción).
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select p from PuntoInteres p left join fetch p.categoria order by p.id")
+    Stream<PuntoInteres> streamAll();
+
+    /**
+     * Suma (delta = 1) o resta (delta = -1) una reseña con esa valoración a los agregados del punto,
+     * con un UPDATE atómico en la BD en lugar de leer, modificar y guardar la entidad.
+     * La media va la primera: así usa los valores previos tanto si el motor evalúa las asignaciones
+     * a la vez (H2, estándar) como de izquierda a derecha (MariaDB).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update PuntoInteres p set " +
+            "p.puntuacionMedia = case when p.totalResenas + :delta > 0 " +
+            "  then (p.sumaValoraciones + :delta * :valoracion) * 1.0 / (p.totalResenas + :delta) else 0 end, " +
+            "p.totalResenas = p.totalResenas + :delta, " +
+            "p.sumaValoraciones = p.sumaValoraciones + :delta * :valoracion, " +
+            "p.valoraciones1 = p.valoraciones1 + case when :valoracion = 1 then :delta else 0 end, " +
+            "p.valoraciones2 = p.valoraciones2 + case when :valoracion = 2 then :delta else 0 end, " +
+            "p.valoraciones3 = p.valoraciones3 + case when :valoracion = 3 then :delta else 0 end, " +
+            "p.valoraciones4 = p.valoraciones4 + case when :valoracion = 4 then :delta else 0 end, " +
+            "p.valoraciones5 = p.valoraciones5 + case when :valoracion = 5 then :delta else 0 end " +
+            "where p.id = :puntoId")
+    int applyValoracion(@Param("puntoId") long puntoId, @Param("valoracion") int valoracion, @Param("delta") int delta);
+
+    /**
+     * Sobrescribe los agregados de un punto (reconstrucción desde las reseñas).
+     */
+    @Modifying
+    @Query("update PuntoInteres p set p.puntuacionMedia = :media, p.totalResenas = :total, " +
+            "p.sumaValoraciones = :suma, p.valoraciones1 = :v1, p.valoraciones2 = :v2, " +
+            "p.valoraciones3 = :v3, p.valoraciones4 = :v4, p.valoraciones5 = :v5 where p.id = :puntoId")
+    int setValoraciones(@Param("puntoId") long puntoId, @Param("media") float media,
+                        @Param("total") long total, @Param("suma") long suma,
+                        @Param("v1") int v1, @Param("v2") int v2, @Param("v3") int v3,
+                        @Param("v4") int v4, @Param("v5") int v5);
+
+    @Query("select p.id from PuntoInteres p where p.id > :afterId order by p.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
 }
@@ -0,0 +1,7 @@
+package com.svalero.rutea.repository;
+
+/**
+ * Proyección del nombre de un punto de interés para construir el índice de búsqueda.
+ */
+public record PuntoNombre(long id, String nombre) {
+}
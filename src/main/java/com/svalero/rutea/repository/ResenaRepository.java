@@ -1,10 +1,44 @@
 package com.svalero.rutea.repository;
 
 import com.svalero.rutea.domain.Resena;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface ResenaRepository extends JpaRepository<Resena, Long>, JpaSpecificationExecutor<Resena> {
+
+    /**
+     * Histograma de valoraciones de varios puntos, agregado en la BD.
+     */
+    @Query("select new com.svalero.rutea.repository.ValoracionCount(r.punto.id, r.valoracion, count(r)) " +
+            "from Resena r where r.punto.id in :puntoIds group by r.punto.id, r.valoracion")
+    List<ValoracionCount> countValoracionesByPuntoIds(@Param("puntoIds") Collection<Long> puntoIds);
+
+    /**
+     * Fija los likes de una reseña. La columna no se escribe al guardar la entidad, para que
+     * un save con el valor leído antes no pise los likes que LikeCounter haya volcado entretanto.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Resena r set r.likes = :likes where r.id = :id")
+    int setLikes(@Param("id") long id, @Param("likes") int likes);
+
+    /**
+     * Recorre todas las reseñas por id con un cursor (hay que consumirlo dentro de una transacción).
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select r from Resena r order by r.id")
+    Stream<Resena> streamAll();
 }
@@ -0,0 +1,7 @@
+package com.svalero.rutea.repository;
+
+/**
+ * Par ruta-etiqueta de ruta_etiquetas con el nombre de la etiqueta, para construir el índice de etiquetas.
+ */
+public record RutaEtiquetaRef(long rutaId, long etiquetaId, String nombre) {
+}
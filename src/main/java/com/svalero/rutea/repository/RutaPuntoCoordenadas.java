@@ -0,0 +1,7 @@
+package com.svalero.rutea.repository;
+
+/**
+ * Coordenadas de un punto dentro de una ruta, para recalcular la geometría sin cargar entidades.
+ */
+public record RutaPuntoCoordenadas(long rutaId, double latitud, double longitud) {
+}
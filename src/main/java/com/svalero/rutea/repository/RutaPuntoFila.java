@@ -0,0 +1,9 @@
+package com.svalero.rutea.repository;
+
+import com.svalero.rutea.domain.Ruta;
+
+/**
+ * Una ruta con uno de sus puntos (null si no tiene): hay una fila por punto, en el orden del recorrido.
+ */
+public record RutaPuntoFila(Ruta ruta, Long puntoId) {
+}
@@ -0,0 +1,7 @@
+package com.svalero.rutea.repository;
+
+/**
+ * Fila de la tabla puente ruta_puntos reducida a los dos ids.
+ */
+public record RutaPuntoRef(long rutaId, long puntoId) {
+}
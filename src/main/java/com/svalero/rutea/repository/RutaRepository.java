@@ -1,10 +1,73 @@
 package com.svalero.rutea.repository;
 
 import com.svalero.rutea.domain.Ruta;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface RutaRepository extends JpaRepository<Ruta, Long>, JpaSpecificationExecutor<Ruta> {
+
+    /**
+     * Ids de los puntos de varias rutas en una sola consulta (IN), para montar los listados
+     * sin inicializar la colección puntos ruta a ruta.
+     */
+    @Query("select new com.svalero.rutea.repository.RutaPuntoRef(r.id, p.id) " +
+            "from Ruta r join r.puntos p where r.id in :rutaIds order by r.id, index(p)")
+    List<RutaPuntoRef> findPuntoIdsByRutaIds(@Param("rutaIds") Collection<Long> rutaIds);
+
+    /**
+     * Coordenadas de los puntos de varias rutas, agrupadas por ruta y en el orden del recorrido.
+     */
+    @Query("select new com.svalero.rutea.repository.RutaPuntoCoordenadas(r.id, p.latitud, p.longitud) " +
+            "from Ruta r join r.puntos p where r.id in :rutaIds order by r.id, index(p)")
+    List<RutaPuntoCoordenadas> findCoordenadasByRutaIds(@Param("rutaIds") Collection<Long> rutaIds);
+
+    /**
+     * Recorre el título y las etiquetas de las rutas no eliminadas con un cursor
+     * (hay que consumirlo dentro de una transacción), para el índice de búsqueda.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.svalero.rutea.repository.RutaTexto(r.id, r.titulo, r.etiquetas) from Ruta r where r.eliminada = false")
+    Stream<RutaTexto> streamTextos();
+
+    /**
+     * Título de esas rutas y nombre de esos puntos en una sola consulta (UNION ALL), para pintar
+     * una página de /search. Un tipo sin ids se pasa como lista vacía.
+     */
+    @Query("select new com.svalero.rutea.repository.SearchTitulo(true, r.id, r.titulo) from Ruta r where r.id in :rutaIds " +
+            "union all " +
+            "select new com.svalero.rutea.repository.SearchTitulo(false, p.id, p.nombre) from PuntoInteres p where p.id in :puntoIds")
+    List<SearchTitulo> findTitulos(@Param("rutaIds") Collection<Long> rutaIds, @Param("puntoIds") Collection<Long> puntoIds);
+
+    /**
+     * Recorre las etiquetas normalizadas de las rutas no eliminadas, agrupadas por ruta,
+     * con un cursor (hay que consumirlo dentro de una transacción).
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.svalero.rutea.repository.RutaEtiquetaRef(r.id, e.id, e.nombre) " +
+            "from Ruta r join r.etiquetasNormalizadas e where r.eliminada = false order by r.id")
+    Stream<RutaEtiquetaRef> streamEtiquetas();
+
+    /**
+     * Recorre las rutas no eliminadas, por id, con los ids de sus puntos en el mismo SELECT
+     * (una fila por punto), con un cursor (hay que consumirlo dentro de una transacción).
+     * Mientras el cursor está abierto no se puede lanzar otra consulta sin que el driver
+     * de MariaDB lea en memoria el resto del resultado.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new com.svalero.rutea.repository.RutaPuntoFila(r, p.id) " +
+            "from Ruta r left join r.puntos p where r.eliminada = false order by r.id, index(p)")
+    Stream<RutaPuntoFila> streamConPuntos();
 }
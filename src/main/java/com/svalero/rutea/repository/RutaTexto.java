@@ -0,0 +1,7 @@
+package com.svalero.rutea.repository;
+
+/**
+ * Proyección de los campos de texto de una ruta para construir el índice de búsqueda.
+ */
+public record RutaTexto(long id, String titulo, String etiquetas) {
+}
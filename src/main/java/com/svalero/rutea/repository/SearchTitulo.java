@@ -0,0 +1,7 @@
+package com.svalero.rutea.repository;
+
+/**
+ * Proyección del texto que se muestra de un resultado de búsqueda: título de la ruta o nombre del punto.
+ */
+public record SearchTitulo(boolean ruta, long id, String titulo) {
+}
@@ -3,8 +3,19 @@ package com.svalero.rutea.repository;
 import com.svalero.rutea.domain.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long>, JpaSpecificationExecutor<Usuario> {
+
+    /**
+     * Cuáles de los ids indicados existen, sin cargar las entidades.
+     */
+    @Query("select u.id from Usuario u where u.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,7 @@
+package com.svalero.rutea.repository;
+
+/**
+ * Número de reseñas de un punto con una valoración concreta.
+ */
+public record ValoracionCount(long puntoId, int valoracion, long total) {
+}
@@ -0,0 +1,220 @@
+package com.svalero.rutea.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Listas de rutas por etiqueta en memoria para filtrar por varias etiquetas a la vez.
+ * <p>
+ * Cada etiqueta tiene sus ids de ruta ordenados en un {@code long[]}. Para "todas" (AND) se
+ * intersecan empezando por la lista más corta, y cada id se busca en las demás con búsqueda
+ * galopante desde la última posición, así que el coste lo marca la etiqueta menos frecuente.
+ * Para "alguna" (OR) se mezclan. El resultado sale ordenado por id, listo para paginar por keyset.
+ * El diccionario nombre -> id también se guarda aquí para resolver las consultas sin ir a la BD.
+ */
+@Component
+public class EtiquetaIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<String, Long> idByNombre = new HashMap<>();
+    private final Map<Long, PostingList> rutasByEtiqueta = new HashMap<>();
+    private final Map<Long, long[]> etiquetasByRuta = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Forma canónica de una etiqueta: sin tildes, en minúsculas y con los espacios colapsados.
+     * Devuelve null si no queda nada.
+     */
+    public static String normalize(String etiqueta) {
+        if (etiqueta == null) return null;
+        String normalized = TextAnalyzer.fold(etiqueta).trim().replaceAll("\\s+", " ");
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    /**
+     * Etiquetas distintas y normalizadas del texto libre de una ruta ("Montaña, agua;río").
+     * Las que pasen de {@code maxLength} se recortan.
+     */
+    public static List<String> parse(String etiquetas, int maxLength) {
+        Set<String> nombres = new LinkedHashSet<>();
+        if (etiquetas == null) return new ArrayList<>(nombres);
+        for (String raw : etiquetas.split("[,;]")) {
+            String nombre = normalize(raw);
+            if (nombre != null)
+                nombres.add(nombre.length() > maxLength ? nombre.substring(0, maxLength).trim() : nombre);
+        }
+        return new ArrayList<>(nombres);
+    }
+
+    /**
+     * Sustituye las etiquetas de una ruta por las dadas (nombre normalizado -> id).
+     */
+    public void put(long rutaId, Map<String, Long> etiquetas) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(rutaId);
+            if (etiquetas.isEmpty()) return;
+            long[] ids = new long[etiquetas.size()];
+            int i = 0;
+            for (Map.Entry<String, Long> entry : etiquetas.entrySet()) {
+                idByNombre.put(entry.getKey(), entry.getValue());
+                rutasByEtiqueta.computeIfAbsent(entry.getValue(), id -> new PostingList()).add(rutaId);
+                ids[i++] = entry.getValue();
+            }
+            etiquetasByRuta.put(rutaId, ids);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long rutaId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(rutaId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            idByNombre.clear();
+            rutasByEtiqueta.clear();
+            etiquetasByRuta.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return etiquetasByRuta.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids de ruta, ordenados, que tienen todas las etiquetas ({@code todas}) o alguna de ellas.
+     * Los nombres se normalizan; una etiqueta desconocida vacía el resultado con AND y se ignora con OR.
+     */
+    public long[] match(Collection<String> nombres, boolean todas) {
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>();
+            for (String nombre : nombres) {
+                Long id = idByNombre.get(normalize(nombre));
+                PostingList list = id == null ? null : rutasByEtiqueta.get(id);
+                if (list != null) {
+                    lists.add(list);
+                } else if (todas) {
+                    return EMPTY;
+                }
+            }
+            if (lists.isEmpty()) return EMPTY;
+            return todas ? intersect(lists) : union(lists);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static long[] intersect(List<PostingList> lists) {
+        lists.sort(Comparator.comparingInt(l -> l.size));
+        PostingList smallest = lists.get(0);
+        long[] result = Arrays.copyOf(smallest.ids, smallest.size);
+        int size = result.length;
+        for (int l = 1; l < lists.size() && size > 0; l++) {
+            PostingList other = lists.get(l);
+            int kept = 0;
+            int pos = 0;
+            for (int i = 0; i < size && pos < other.size; i++) {
+                pos = gallop(other.ids, other.size, pos, result[i]);
+                if (pos < other.size && other.ids[pos] == result[i])
+                    result[kept++] = result[i];
+            }
+            size = kept;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    static long[] union(List<PostingList> lists) {
+        int total = 0;
+        for (PostingList list : lists) total += list.size;
+        long[] all = new long[total];
+        int n = 0;
+        for (PostingList list : lists) {
+            System.arraycopy(list.ids, 0, all, n, list.size);
+            n += list.size;
+        }
+        Arrays.sort(all);
+        int size = 0;
+        for (int i = 0; i < n; i++)
+            if (size == 0 || all[size - 1] != all[i]) all[size++] = all[i];
+        return Arrays.copyOf(all, size);
+    }
+
+    /**
+     * Primera posición desde {@code from} con valor >= target: saltos de 1, 2, 4... y
+     * búsqueda binaria en el último tramo.
+     */
+    private static int gallop(long[] ids, int size, int from, long target) {
+        int step = 1;
+        int hi = from;
+        while (hi < size && ids[hi] < target) {
+            from = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        int idx = Arrays.binarySearch(ids, from, Math.min(hi + 1, size), target);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+
+    private void removeLocked(long rutaId) {
+        long[] ids = etiquetasByRuta.remove(rutaId);
+        if (ids == null) return;
+        for (long etiquetaId : ids) {
+            PostingList list = rutasByEtiqueta.get(etiquetaId);
+            if (list != null && list.remove(rutaId) && list.size == 0)
+                rutasByEtiqueta.remove(etiquetaId);
+        }
+    }
+
+    /**
+     * Ids de ruta ordenados. Las altas suelen ser ids crecientes, que se añaden al final sin mover nada.
+     */
+    static final class PostingList {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            int pos = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0 && pos < size) return;
+            if (pos < 0) pos = -pos - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return false;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.svalero.rutea.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria sobre el título y las etiquetas de las rutas y el nombre de
+ * los puntos de interés, con ranking BM25.
+ * <p>
+ * Cada término guarda sus documentos y frecuencias en arrays primitivos. El diccionario
+ * está ordenado para resolver los prefijos con un recorrido por rango. El título (o el
+ * nombre) pesa {@link #TITLE_WEIGHT} veces más que las etiquetas: cada aparición cuenta
+ * como esas apariciones al calcular la frecuencia y la longitud del documento.
+ */
+@Component
+public class SearchIndex {
+
+    public enum Tipo {
+        RUTA, PUNTO
+    }
+
+    public record Hit(Tipo tipo, long id, double score) {
+    }
+
+    /**
+     * @param total número de documentos que casan con la consulta
+     * @param hits  la página pedida, de mayor a menor puntuación
+     */
+    public record Result(int total, List<Hit> hits) {
+    }
+
+    static final int TITLE_WEIGHT = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> docByKey = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // datos por documento, indexados por su número interno; los huecos se reutilizan
+    private long[] docKeys = new long[64];
+    private int[] docLengths = new int[64];
+    private String[][] docTerms = new String[64][];
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    private int docSlots;
+    private int docCount;
+    private long totalLength;
+
+    public void put(Tipo tipo, long id, String titulo, String etiquetas) {
+        Map<String, Integer> tf = new LinkedHashMap<>();
+        for (String token : TextAnalyzer.tokens(titulo))
+            tf.merge(token, TITLE_WEIGHT, Integer::sum);
+        for (String token : TextAnalyzer.tokens(etiquetas))
+            tf.merge(token, 1, Integer::sum);
+        int length = tf.values().stream().mapToInt(Integer::intValue).sum();
+
+        long key = key(tipo, id);
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            if (tf.isEmpty()) return;
+            int doc = allocateDoc();
+            docKeys[doc] = key;
+            docLengths[doc] = length;
+            docTerms[doc] = tf.keySet().toArray(new String[0]);
+            for (Map.Entry<String, Integer> entry : tf.entrySet())
+                terms.computeIfAbsent(entry.getKey(), t -> new Postings()).add(doc, entry.getValue());
+            docByKey.put(key, doc);
+            docCount++;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Tipo tipo, long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key(tipo, id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            docByKey.clear();
+            docKeys = new long[64];
+            docLengths = new int[64];
+            docTerms = new String[64][];
+            freeCount = 0;
+            docSlots = 0;
+            docCount = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documentos que contienen alguno de los términos, ordenados por BM25 (a igual puntuación,
+     * por tipo e id para que la paginación sea estable).
+     *
+     * @param tipo   solo ese tipo de documento, o todos si es null
+     * @param offset resultados a saltar
+     */
+    public Result search(String query, Tipo tipo, int offset, int limit) {
+        List<TextAnalyzer.QueryTerm> queryTerms = TextAnalyzer.queryTerms(query);
+        if (queryTerms.isEmpty()) return new Result(0, List.of());
+
+        lock.readLock().lock();
+        try {
+            if (docCount == 0) return new Result(0, List.of());
+            double avgLength = (double) totalLength / docCount;
+            List<List<Postings>> expanded = new ArrayList<>(queryTerms.size());
+            int maxTermPostings = 0;
+            int totalPostings = 0;
+            for (TextAnalyzer.QueryTerm queryTerm : queryTerms) {
+                List<Postings> termPostings = expand(queryTerm);
+                int size = 0;
+                for (Postings postings : termPostings) size += postings.size;
+                expanded.add(termPostings);
+                maxTermPostings = Math.max(maxTermPostings, size);
+                totalPostings += size;
+            }
+            if (totalPostings == 0) return new Result(0, List.of());
+            // del tamaño de lo que se recorre, no del índice
+            DocScores scores = new DocScores(Math.min(totalPostings, docCount));
+            DocScores termScores = new DocScores(Math.min(maxTermPostings, docCount));
+
+            for (List<Postings> termPostings : expanded) {
+                // con un prefijo, cada documento puntúa por el mejor de los términos expandidos
+                for (Postings postings : termPostings) {
+                    double idf = Math.log(1 + (docCount - postings.size + 0.5) / (postings.size + 0.5));
+                    for (int i = 0; i < postings.size; i++) {
+                        int doc = postings.docs[i];
+                        if (tipo != null && tipo(docKeys[doc]) != tipo) continue;
+                        int tf = postings.tfs[i];
+                        double norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                        termScores.max(doc, idf * tf * (K1 + 1) / (tf + norm));
+                    }
+                }
+                for (int i = 0; i < termScores.size; i++)
+                    scores.add(termScores.doc(i), termScores.score(i));
+                termScores.clear();
+            }
+            return new Result(scores.size, topHits(scores, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Postings> expand(TextAnalyzer.QueryTerm queryTerm) {
+        if (!queryTerm.prefix()) {
+            Postings postings = terms.get(queryTerm.text());
+            return postings == null ? List.of() : List.of(postings);
+        }
+        String prefix = queryTerm.text();
+        return new ArrayList<>(terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+    }
+
+    /**
+     * Selecciona los mejores offset + limit con un montículo de ese tamaño en vez de ordenar
+     * todos los documentos que casan. Trabaja con las posiciones de {@code scores}.
+     */
+    private List<Hit> topHits(DocScores scores, int offset, int limit) {
+        int wanted = offset + limit;
+        if (limit <= 0 || offset >= scores.size) return List.of();
+        // la cabeza es el peor de los que se quedan
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(wanted, scores.size),
+                (a, b) -> compare(scores, b, a));
+        for (int i = 0; i < scores.size; i++) {
+            if (heap.size() < wanted) {
+                heap.add(i);
+            } else if (compare(scores, i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+        Integer[] ordered = heap.toArray(new Integer[0]);
+        Arrays.sort(ordered, (a, b) -> compare(scores, a, b));
+        List<Hit> hits = new ArrayList<>(Math.max(0, ordered.length - offset));
+        for (int i = offset; i < ordered.length; i++) {
+            long key = docKeys[scores.doc(ordered[i])];
+            hits.add(new Hit(tipo(key), id(key), scores.score(ordered[i])));
+        }
+        return hits;
+    }
+
+    /** Negativo si la posición {@code a} va antes que la {@code b}. */
+    private int compare(DocScores scores, int a, int b) {
+        int byScore = Double.compare(scores.score(b), scores.score(a));
+        return byScore != 0 ? byScore : Long.compare(docKeys[scores.doc(a)], docKeys[scores.doc(b)]);
+    }
+
+    private void removeLocked(long key) {
+        Integer doc = docByKey.remove(key);
+        if (doc == null) return;
+        for (String term : docTerms[doc]) {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove(doc) && postings.size == 0)
+                terms.remove(term);
+        }
+        docCount--;
+        totalLength -= docLengths[doc];
+        docTerms[doc] = null;
+        if (freeCount == freeDocs.length) freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+        freeDocs[freeCount++] = doc;
+    }
+
+    private int allocateDoc() {
+        if (freeCount > 0) return freeDocs[--freeCount];
+        if (docSlots == docKeys.length) {
+            int capacity = docSlots * 2;
+            docKeys = Arrays.copyOf(docKeys, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+        }
+        return docSlots++;
+    }
+
+    // el tipo va en el bit bajo de la clave: cabe cualquier id positivo
+    private static long key(Tipo tipo, long id) {
+        return (id << 1) | tipo.ordinal();
+    }
+
+    private static Tipo tipo(long key) {
+        return Tipo.values()[(int) (key & 1)];
+    }
+
+    private static long id(long key) {
+        return key >>> 1;
+    }
+
+    /**
+     * Documentos y frecuencias de un término, sin orden: borrar es mover el último al hueco.
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] tfs = new int[4];
+        int size;
+
+        void add(int doc, int tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            docs[size] = doc;
+            tfs[size] = tf;
+            size++;
+        }
+
+        boolean remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] != doc) continue;
+                int last = --size;
+                docs[i] = docs[last];
+                tfs[i] = tfs[last];
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Puntuación por documento de una consulta: tabla con direccionamiento abierto (sondeo lineal)
+     * dimensionada para {@code expected} documentos. Las posiciones {@code 0..size-1} recorren los
+     * documentos en el orden en que entraron.
+     */
+    private static final class DocScores {
+        private final int[] keys;      // documento + 1; 0 es hueco libre
+        private final double[] values;
+        private final int[] slots;     // hueco de cada posición
+        private final int mask;
+        int size;
+
+        DocScores(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(2, expected) * 2 - 1) << 1;
+            keys = new int[capacity];
+            values = new double[capacity];
+            slots = new int[expected];
+            mask = capacity - 1;
+        }
+
+        void add(int doc, double score) {
+            values[slot(doc)] += score;
+        }
+
+        void max(int doc, double score) {
+            int slot = slot(doc);
+            if (score > values[slot]) values[slot] = score;
+        }
+
+        int doc(int position) {
+            return keys[slots[position]] - 1;
+        }
+
+        double score(int position) {
+            return values[slots[position]];
+        }
+
+        /** Vacía solo los huecos usados. */
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                keys[slots[i]] = 0;
+                values[slots[i]] = 0;
+            }
+            size = 0;
+        }
+
+        private int slot(int doc) {
+            int hash = doc * 0x9E3779B9;
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (keys[slot] != 0) {
+                if (keys[slot] == doc + 1) return slot;
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = doc + 1;
+            slots[size++] = slot;
+            return slot;
+        }
+    }
+}
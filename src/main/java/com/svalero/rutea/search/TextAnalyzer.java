@@ -0,0 +1,82 @@
+package com.svalero.rutea.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Convierte texto en términos del índice: minúsculas, sin tildes ni diéresis (la ñ queda
+ * como n), partido por todo lo que no sea letra o dígito y sin las palabras vacías más
+ * comunes del español. Índice y consultas pasan por aquí para que "Cañón" case con "canon".
+ */
+public final class TextAnalyzer {
+
+    /**
+     * Término de una consulta; con {@code prefix} casa con todos los términos que empiezan así.
+     */
+    public record QueryTerm(String text, boolean prefix) {
+    }
+
+    /** Un prefijo más corto expandiría a casi todo el diccionario. */
+    public static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "se", "su", "un", "una", "unos", "unas", "y");
+
+    private TextAnalyzer() {
+    }
+
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) sb.append(c);
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) return tokens;
+        forEachToken(fold(text), (token, end) -> tokens.add(token));
+        return tokens;
+    }
+
+    /**
+     * Términos de una consulta. Una palabra terminada en {@code *} es un prefijo
+     * ("mira*" encuentra "mirador" y "miradores").
+     */
+    public static List<QueryTerm> queryTerms(String query) {
+        List<QueryTerm> terms = new ArrayList<>();
+        if (query == null || query.isBlank()) return terms;
+        String folded = fold(query);
+        forEachToken(folded, (token, end) -> {
+            boolean prefix = end < folded.length() && folded.charAt(end) == '*'
+                    && token.length() >= MIN_PREFIX_LENGTH;
+            terms.add(new QueryTerm(token, prefix));
+        });
+        return terms;
+    }
+
+    private interface TokenSink {
+        void accept(String token, int end);
+    }
+
+    private static void forEachToken(String folded, TokenSink sink) {
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean word = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                String token = folded.substring(start, i);
+                if (!STOPWORDS.contains(token)) sink.accept(token, i);
+                start = -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.svalero.rutea.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Aplaza la actualización de estructuras en memoria (índices) hasta que la transacción
+ * confirma, para que un rollback no las deje desalineadas con la base de datos.
+ * Fuera de una transacción la acción se ejecuta en el momento.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -5,6 +5,7 @@ import com.svalero.rutea.dto.CategoriaInDto;
 import com.svalero.rutea.dto.CategoriaOutDto;
 import com.svalero.rutea.exception.CategoriaNotFoundException;
 import com.svalero.rutea.repository.CategoriaRepository;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,10 +13,12 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 @Service
+@Timed("rutea.service")
 @Transactional
 public class CategoriaService {
 
@@ -23,10 +26,13 @@ public class CategoriaService {
 
     @Autowired
     private CategoriaRepository categoriaRepository;
+    @Autowired
+    private EntityCaches entityCaches;
 
     public CategoriaOutDto add(CategoriaInDto dto) {
         logger.info("Creando nueva categoría: {}", dto.getNombre());
         Categoria saved = categoriaRepository.save(toEntity(dto));
+        entityCaches.categorias().evictQueries();
         logger.info("Categoría creada exitosamente con ID: {}", saved.getId());
         return toOutDto(saved);
     }
@@ -39,6 +45,7 @@ public class CategoriaService {
                     return new CategoriaNotFoundException();
                 });
         categoriaRepository.delete(categoria);
+        evictAfterCommit(id);
         logger.info("Categoría eliminada exitosamente: ID {}", id);
     }
 
@@ -47,35 +54,28 @@ public class CategoriaService {
         logger.debug("Buscando categorías con filtros: activa={}, nombre={}, ordenPrioridad={}",
                 activa, nombre, ordenPrioridad);
 
-        Specification<Categoria> spec = Specification.where(null);
-
-        if (activa != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("activa"), activa));
+        return entityCaches.categorias().query(Arrays.asList(activa, nombre, ordenPrioridad), () -> {
+            Specification<Categoria> spec = buildSpec(activa, nombre, ordenPrioridad);
 
-        if (nombre != null && !nombre.isBlank()) {
-            String pattern = "%" + nombre.toLowerCase() + "%";
-            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("nombre")), pattern));
-        }
-
-        if (ordenPrioridad != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("ordenPrioridad"), ordenPrioridad));
-
-        List<CategoriaOutDto> result = categoriaRepository.findAll(spec).stream()
-                .map(this::toOutDto)
-                .toList();
-        logger.info("Se encontraron {} categorías", result.size());
-        return result;
+            List<CategoriaOutDto> result = categoriaRepository.findAll(spec).stream()
+                    .map(CategoriaService::toOutDto)
+                    .toList();
+            logger.info("Se encontraron {} categorías", result.size());
+            return result;
+        });
     }
 
     @Transactional(readOnly = true)
     public CategoriaOutDto findById(long id) throws CategoriaNotFoundException {
         logger.debug("Buscando categoría por ID: {}", id);
-        Categoria categoria = categoriaRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.error("Categoría no encontrada: ID {}", id);
-                    return new CategoriaNotFoundException();
-                });
-        return toOutDto(categoria);
+        return entityCaches.categorias().get(id, () -> {
+            Categoria categoria = categoriaRepository.findById(id)
+                    .orElseThrow(() -> {
+                        logger.error("Categoría no encontrada: ID {}", id);
+                        return new CategoriaNotFoundException();
+                    });
+            return toOutDto(categoria);
+        });
     }
 
     public CategoriaOutDto modify(long id, CategoriaInDto dto) throws CategoriaNotFoundException {
@@ -94,6 +94,7 @@ public class CategoriaService {
         existing.setOrdenPrioridad(dto.getOrdenPrioridad());
 
         Categoria saved = categoriaRepository.save(existing);
+        evictAfterCommit(id);
         logger.info("Categoría modificada exitosamente: ID {}", id);
         return toOutDto(saved);
     }
@@ -144,11 +145,38 @@ public class CategoriaService {
         }
 
         Categoria updated = categoriaRepository.save(categoria);
+        evictAfterCommit(id);
         logger.info("Categoría actualizada exitosamente con PATCH: ID {}", id);
         return toOutDto(updated);
     }
 
-    private Categoria toEntity(CategoriaInDto dto) {
+    /**
+     * Los puntos llevan el nombre de su categoría en el DTO; como las categorías apenas cambian,
+     * se invalidan todos en vez de buscar los de esta.
+     */
+    private void evictAfterCommit(long id) {
+        entityCaches.categorias().evict(id);
+        entityCaches.puntos().evictAll();
+    }
+
+    static Specification<Categoria> buildSpec(Boolean activa, String nombre, Integer ordenPrioridad) {
+        Specification<Categoria> spec = Specification.where(null);
+
+        if (activa != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("activa"), activa));
+
+        if (nombre != null && !nombre.isBlank()) {
+            String pattern = "%" + nombre.toLowerCase() + "%";
+            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("nombre")), pattern));
+        }
+
+        if (ordenPrioridad != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("ordenPrioridad"), ordenPrioridad));
+
+        return spec;
+    }
+
+    static Categoria toEntity(CategoriaInDto dto) {
         return Categoria.builder()
                 .activa(dto.isActiva())
                 .costePromedio(dto.getCostePromedio())
@@ -159,7 +187,7 @@ public class CategoriaService {
                 .build();
     }
 
-    private CategoriaOutDto toOutDto(Categoria categoria) {
+    static CategoriaOutDto toOutDto(Categoria categoria) {
         return CategoriaOutDto.builder()
                 .id(categoria.getId())
                 .activa(categoria.isActiva())
@@ -0,0 +1,149 @@
+package com.svalero.rutea.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * DTO de salida por id de una entidad, en una caché Caffeine con tamaño máximo y caducidad
+ * desde la escritura. Los DTO guardados se comparten entre peticiones y no se modifican.
+ * <p>
+ * Las invalidaciones se aplican al confirmar la transacción que cambia la entidad (ver
+ * {@link AfterCommit}). Para que una lectura que cargó el valor anterior no lo deje en la caché
+ * después de invalidarlo, cada invalidación sube una generación: si cambió mientras se cargaba,
+ * el valor recién cargado se descarta.
+ * <p>
+ * Las cargas concurrentes del mismo id se agrupan en una sola ({@link SingleFlight}), y
+ * {@link #query} hace lo mismo con los listados que tienen los mismos filtros, sin guardarlos.
+ * Cada invalidación olvida las cargas en curso: quien llega después no recibe datos anteriores
+ * a la escritura.
+ */
+public class EntityCache<T> {
+
+    @FunctionalInterface
+    public interface Loader<T, E extends Exception> {
+        T load() throws E;
+    }
+
+    private final String name;
+    private final Cache<Long, T> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final SingleFlight<Long, T> loads;
+    private final SingleFlight<Object, Object> queries;
+
+    EntityCache(String name, long maxSize, Duration ttl) {
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.loads = new SingleFlight<>(name + ".findById");
+        this.queries = new SingleFlight<>(name + ".findAll");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * El valor de la caché o, si no está, el del loader, que se guarda. Las excepciones del
+     * loader (no encontrado) se propagan y no se guarda nada.
+     */
+    public <E extends Exception> T get(long id, Loader<T, E> loader) throws E {
+        T cached = cache.getIfPresent(id);
+        if (cached != null) return cached;
+        return loads.execute(id, () -> load(id, loader));
+    }
+
+    /**
+     * Un listado de esta entidad: las llamadas concurrentes con la misma {@code key} (los filtros,
+     * con {@code equals}) comparten una sola ejecución del loader. El resultado no se guarda.
+     */
+    @SuppressWarnings("unchecked")
+    public <R, E extends Exception> R query(Object key, Loader<R, E> loader) throws E {
+        return (R) queries.execute(key, loader::load);
+    }
+
+    private <E extends Exception> T load(long id, Loader<T, E> loader) throws E {
+        long before = generation.get();
+        T loaded = loader.load();
+        if (loaded != null && generation.get() == before) {
+            cache.put(id, loaded);
+            // una invalidación entre la comprobación y el put también lo retira
+            if (generation.get() != before) cache.asMap().remove(id, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Si el id está en la caché, la entidad existía al cargarlo y no se ha borrado desde entonces.
+     */
+    public boolean contains(long id) {
+        return cache.asMap().containsKey(id);
+    }
+
+    /**
+     * Para las escrituras que solo necesitan la entidad relacionada por su id (relaciones LAZY):
+     * si está en la caché se sabe que existe y basta {@code reference}, sin SELECT; si no, se
+     * carga con {@code loader} y su DTO queda en la caché para la próxima.
+     */
+    @SuppressWarnings("unchecked")
+    public <V, E extends Exception> V reference(long id, Loader<V, E> loader, Function<V, T> toDto,
+                                                LongFunction<V> reference) throws E {
+        Object[] loaded = new Object[1];
+        get(id, () -> {
+            V entity = loader.load();
+            loaded[0] = entity;
+            return toDto.apply(entity);
+        });
+        return loaded[0] != null ? (V) loaded[0] : reference.apply(id);
+    }
+
+    /**
+     * Invalida los ids al confirmar la transacción en curso (en el momento si no hay ninguna).
+     */
+    public void evict(long... ids) {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            for (long id : ids) {
+                cache.invalidate(id);
+                loads.forget(id);
+            }
+            queries.forgetAll();
+        });
+    }
+
+    /**
+     * Tras crear una entidad: al confirmar, los listados en curso (que no la incluyen) dejan de
+     * compartirse.
+     */
+    public void evictQueries() {
+        AfterCommit.run(queries::forgetAll);
+    }
+
+    /**
+     * Como {@link #evict(long...)}, para cuando cambian muchas entradas a la vez.
+     */
+    public void evictAll() {
+        AfterCommit.run(() -> {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+            loads.forgetAll();
+            queries.forgetAll();
+        });
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    Cache<Long, T> cache() {
+        return cache;
+    }
+}
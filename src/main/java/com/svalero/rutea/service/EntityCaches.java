@@ -0,0 +1,93 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.dto.CategoriaOutDto;
+import com.svalero.rutea.dto.PuntoInteresOutDto;
+import com.svalero.rutea.dto.ResenaOutDto;
+import com.svalero.rutea.dto.RutaOutDto;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import com.svalero.rutea.dto.UsuarioOutDto;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Las cachés por id de los findById de los servicios. Cada una se configura con
+ * {@code rutea.cache.<entidad>.max-size} y {@code rutea.cache.<entidad>.ttl} (las dos de rutas,
+ * v1 y v2, comparten {@code rutea.cache.rutas.*}; {@code max-size=0} la desactiva) y publica
+ * aciertos, fallos y expulsiones en las métricas {@code cache.*} con la etiqueta {@code cache}.
+ * <p>
+ * Qué invalida cada escritura, además de la propia entidad: cambiar o borrar una categoría
+ * invalida todos los puntos (llevan su nombre) y cualquier cambio en una reseña invalida sus
+ * puntos (agregados de valoración). Los borrados con referencias fallan por clave ajena, así
+ * que no dejan otras entradas obsoletas. Las cachés son de cada instancia: con varias, otra
+ * instancia puede servir un valor anterior hasta su ttl.
+ */
+@Component
+public class EntityCaches {
+
+    private final EntityCache<CategoriaOutDto> categorias;
+    private final EntityCache<UsuarioOutDto> usuarios;
+    private final EntityCache<PuntoInteresOutDto> puntos;
+    private final EntityCache<ResenaOutDto> resenas;
+    private final EntityCache<RutaOutDto> rutas;
+    private final EntityCache<RutaOutDtoV2> rutasV2;
+
+    @Autowired
+    public EntityCaches(Environment environment) {
+        categorias = create(environment, "categorias", "categorias", 1_000, Duration.ofHours(1));
+        usuarios = create(environment, "usuarios", "usuarios", 10_000, Duration.ofMinutes(10));
+        puntos = create(environment, "puntos", "puntos", 10_000, Duration.ofMinutes(10));
+        resenas = create(environment, "resenas", "resenas", 10_000, Duration.ofMinutes(5));
+        rutas = create(environment, "rutas", "rutas", 10_000, Duration.ofMinutes(10));
+        rutasV2 = create(environment, "rutas-v2", "rutas", 10_000, Duration.ofMinutes(10));
+    }
+
+    public EntityCache<CategoriaOutDto> categorias() {
+        return categorias;
+    }
+
+    public EntityCache<UsuarioOutDto> usuarios() {
+        return usuarios;
+    }
+
+    public EntityCache<PuntoInteresOutDto> puntos() {
+        return puntos;
+    }
+
+    /**
+     * Con los likes de la BD; los pendientes de volcar se suman al leer.
+     */
+    public EntityCache<ResenaOutDto> resenas() {
+        return resenas;
+    }
+
+    public EntityCache<RutaOutDto> rutas() {
+        return rutas;
+    }
+
+    public EntityCache<RutaOutDtoV2> rutasV2() {
+        return rutasV2;
+    }
+
+    /**
+     * Invalida las dos representaciones de una ruta.
+     */
+    public void evictRuta(long id) {
+        rutas.evict(id);
+        rutasV2.evict(id);
+    }
+
+    private static <T> EntityCache<T> create(Environment environment, String name, String config,
+                                             long defaultMaxSize, Duration defaultTtl) {
+        String prefix = "rutea.cache." + config + ".";
+        EntityCache<T> cache = new EntityCache<>(name,
+                environment.getProperty(prefix + "max-size", Long.class, defaultMaxSize),
+                environment.getProperty(prefix + "ttl", Duration.class, defaultTtl));
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache.cache(), name);
+        return cache;
+    }
+}
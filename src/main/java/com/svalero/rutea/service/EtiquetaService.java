@@ -0,0 +1,177 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.Etiqueta;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.repository.EtiquetaRepository;
+import com.svalero.rutea.repository.RutaEtiquetaRef;
+import com.svalero.rutea.repository.RutaRepository;
+import com.svalero.rutea.search.EtiquetaIndex;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Diccionario de etiquetas normalizadas y su relación con las rutas. El texto libre de
+ * {@code Ruta.etiquetas} sigue siendo lo que envía y recibe la API; aquí se traduce a filas
+ * de ruta_etiquetas y se carga el {@link EtiquetaIndex} con el que filtra GET /v2/rutas.
+ */
+@Service
+@Timed("rutea.service")
+@Transactional
+public class EtiquetaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EtiquetaService.class);
+
+    @Autowired
+    private EtiquetaRepository etiquetaRepository;
+    @Autowired
+    private RutaRepository rutaRepository;
+    @Autowired
+    private EtiquetaIndex etiquetaIndex;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private volatile String insertSql;
+
+    /**
+     * Carga el índice al arrancar recorriendo ruta_etiquetas con un cursor; las filas llegan
+     * ordenadas por ruta, así que basta con agrupar las consecutivas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildEtiquetaIndex() {
+        logger.info("Construyendo índice de etiquetas");
+        etiquetaIndex.clear();
+        try (Stream<RutaEtiquetaRef> refs = rutaRepository.streamEtiquetas()) {
+            long[] rutaId = {-1};
+            Map<String, Long> etiquetas = new HashMap<>();
+            refs.forEach(ref -> {
+                if (ref.rutaId() != rutaId[0] && !etiquetas.isEmpty()) {
+                    etiquetaIndex.put(rutaId[0], Map.copyOf(etiquetas));
+                    etiquetas.clear();
+                }
+                rutaId[0] = ref.rutaId();
+                etiquetas.put(ref.nombre(), ref.etiquetaId());
+            });
+            if (!etiquetas.isEmpty()) etiquetaIndex.put(rutaId[0], Map.copyOf(etiquetas));
+        }
+        logger.info("Índice de etiquetas construido con {} rutas", etiquetaIndex.size());
+    }
+
+    /**
+     * Etiquetas del diccionario para los nombres (ya normalizados) dados; crea las que no existen.
+     * Una consulta para las conocidas y, si hay nuevas, un INSERT por lotes y otra consulta.
+     * <p>
+     * Las nuevas se insertan con JDBC y no con save: si otra petición crea la misma etiqueta a la
+     * vez, la clave única de etiquetas.nombre rechaza la fila sin estropear la sesión de Hibernate
+     * ni la transacción, y se usa la que ya existe. Van ordenadas para que dos transacciones que
+     * crean las mismas no se bloqueen en orden contrario.
+     */
+    public Map<String, Etiqueta> resolve(Collection<String> nombres) {
+        Map<String, Etiqueta> byNombre = new HashMap<>();
+        if (nombres.isEmpty()) return byNombre;
+        etiquetaRepository.findByNombreIn(nombres).forEach(e -> byNombre.put(e.getNombre(), e));
+        List<String> nuevas = nombres.stream().filter(n -> !byNombre.containsKey(n)).distinct().sorted().toList();
+        if (nuevas.isEmpty()) return byNombre;
+
+        DataIntegrityViolationException rechazo = null;
+        try {
+            jdbcTemplate.batchUpdate(insertSql(), nuevas, nuevas.size(), (ps, nombre) -> ps.setString(1, nombre));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Alguna de las {} etiquetas nuevas ya existe, se insertan una a una", nuevas.size());
+            rechazo = e;
+            for (String nombre : nuevas) {
+                try {
+                    jdbcTemplate.update(insertSql(), nombre);
+                } catch (DataIntegrityViolationException duplicada) {
+                    // la creó otra transacción (o este mismo lote antes del fallo)
+                }
+            }
+        }
+        etiquetaRepository.lockByNombreIn(nuevas).forEach(e -> byNombre.put(e.getNombre(), e));
+        List<String> faltan = nuevas.stream().filter(n -> !byNombre.containsKey(n)).toList();
+        if (!faltan.isEmpty()) {
+            // el rechazo no era por duplicado (un nombre demasiado largo, por ejemplo)
+            if (rechazo != null) throw rechazo;
+            throw new IllegalStateException("No se pudieron crear las etiquetas " + faltan);
+        }
+        logger.debug("Nuevas etiquetas en el diccionario: {}", nuevas);
+        return byNombre;
+    }
+
+    /**
+     * Deja las etiquetas normalizadas de la ruta iguales a las de su texto libre.
+     */
+    public void sync(Ruta ruta) {
+        sync(ruta, resolve(EtiquetaIndex.parse(ruta.getEtiquetas(), Etiqueta.MAX_LENGTH)));
+    }
+
+    /**
+     * Como {@link #sync(Ruta)} pero con el diccionario ya resuelto, para procesar muchas rutas
+     * con una sola consulta. La colección se modifica en el sitio para que Hibernate solo
+     * escriba las filas de ruta_etiquetas que cambian.
+     */
+    void sync(Ruta ruta, Map<String, Etiqueta> diccionario) {
+        Set<Etiqueta> nuevas = new HashSet<>();
+        for (String nombre : EtiquetaIndex.parse(ruta.getEtiquetas(), Etiqueta.MAX_LENGTH))
+            nuevas.add(diccionario.get(nombre));
+
+        Set<Etiqueta> actuales = ruta.getEtiquetasNormalizadas();
+        if (actuales == null) {
+            ruta.setEtiquetasNormalizadas(nuevas);
+            return;
+        }
+        actuales.retainAll(nuevas);
+        actuales.addAll(nuevas);
+    }
+
+    private String insertSql() {
+        if (insertSql == null)
+            insertSql = "insert into " + SqlIdentifiers.render(entityManagerFactory, "etiquetas") + " ("
+                    + SqlIdentifiers.render(entityManagerFactory, "id") + ", "
+                    + SqlIdentifiers.render(entityManagerFactory, "nombre") + ") values (next value for "
+                    + SqlIdentifiers.render(entityManagerFactory, "etiquetas_seq") + ", ?)";
+        return insertSql;
+    }
+
+    /**
+     * Nombre -> id de las etiquetas normalizadas de una ruta, tal y como las guarda el índice.
+     */
+    static Map<String, Long> etiquetaIds(Ruta ruta) {
+        Map<String, Long> ids = new LinkedHashMap<>();
+        if (ruta.getEtiquetasNormalizadas() != null)
+            for (Etiqueta etiqueta : ruta.getEtiquetasNormalizadas())
+                ids.put(etiqueta.getNombre(), etiqueta.getId());
+        return ids;
+    }
+
+    /**
+     * Nombres normalizados y distintos de las etiquetas de varias rutas.
+     */
+    static List<String> nombres(Collection<Ruta> rutas) {
+        Set<String> nombres = new HashSet<>();
+        for (Ruta ruta : rutas)
+            nombres.addAll(EtiquetaIndex.parse(ruta.getEtiquetas(), Etiqueta.MAX_LENGTH));
+        return new ArrayList<>(nombres);
+    }
+}
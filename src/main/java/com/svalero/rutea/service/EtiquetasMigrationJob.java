@@ -0,0 +1,82 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.Etiqueta;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.repository.RutaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rellena al arrancar el diccionario de etiquetas y ruta_etiquetas a partir del texto libre
+ * {@code etiquetas} de todas las rutas, para los datos anteriores al modelo normalizado.
+ * Se activa con {@code rutea.jobs.etiquetas.enabled=true}; se puede repetir sin duplicar nada.
+ * Corre antes de que se construya el índice de etiquetas, así que el filtro ya las ve.
+ * <p>
+ * Recorre las rutas por keyset en lotes de {@link #BATCH_SIZE}, cada uno en su transacción:
+ * una consulta de rutas, una de sus etiquetas actuales, una para las etiquetas conocidas del
+ * lote, un INSERT por lotes y otra consulta para las nuevas y un INSERT por cada enlace nuevo.
+ */
+@Component
+public class EtiquetasMigrationJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(EtiquetasMigrationJob.class);
+
+    static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private RutaRepository rutaRepository;
+    @Autowired
+    private EtiquetaService etiquetaService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${rutea.jobs.etiquetas.enabled:false}")
+    private boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        migrateAll();
+    }
+
+    public int migrateAll() {
+        logger.info("Normalizando las etiquetas de todas las rutas");
+        long start = System.nanoTime();
+
+        int total = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<Ruta> rutas = transactionTemplate.execute(status -> migrateBatch(from));
+            if (rutas == null || rutas.isEmpty()) break;
+            total += rutas.size();
+            afterId = rutas.get(rutas.size() - 1).getId();
+            logger.debug("Etiquetas normalizadas hasta la ruta ID {} ({} rutas)", afterId, total);
+        }
+
+        logger.info("Etiquetas normalizadas para {} rutas en {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+
+    private List<Ruta> migrateBatch(long afterId) {
+        List<Ruta> rutas = rutaRepository.findBy(
+                (root, query, cb) -> cb.greaterThan(root.get("id"), afterId),
+                q -> q.sortBy(Sort.by("id")).limit(BATCH_SIZE).all());
+        if (rutas.isEmpty()) return rutas;
+
+        Map<String, Etiqueta> diccionario = etiquetaService.resolve(EtiquetaService.nombres(rutas));
+        for (Ruta ruta : rutas)
+            etiquetaService.sync(ruta, diccionario);
+        return rutas;
+    }
+}
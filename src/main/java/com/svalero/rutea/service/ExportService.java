@@ -0,0 +1,136 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Resena;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.dto.PuntoInteresOutDto;
+import com.svalero.rutea.dto.ResenaOutDto;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.ResenaRepository;
+import com.svalero.rutea.repository.RutaPuntoFila;
+import com.svalero.rutea.repository.RutaRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exportación completa de rutas, puntos y reseñas fila a fila, para las cargas de analítica.
+ * Cada tabla se recorre con un único SELECT y un cursor; cada DTO se entrega al {@link Sink}
+ * en cuanto se lee y el contexto de persistencia se vacía cada {@link #BATCH_SIZE} filas, así
+ * que la memoria no depende del tamaño de la tabla.
+ * <p>
+ * Durante el recorrido no se lanza ninguna otra consulta: con el cursor abierto, el driver de
+ * MariaDB tendría que leer en memoria el resto del resultado.
+ */
+@Lazy
+@Service
+@Timed("rutea.service")
+@Transactional(readOnly = true)
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    static final int BATCH_SIZE = 1000;
+
+    /**
+     * Recibe cada fila exportada; normalmente la escribe en la respuesta.
+     */
+    @FunctionalInterface
+    public interface Sink<T> {
+        void write(T row) throws IOException;
+    }
+
+    @Autowired
+    private RutaRepository rutaRepository;
+    @Autowired
+    private PuntoInteresRepository puntoInteresRepository;
+    @Autowired
+    private ResenaRepository resenaRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * Las rutas no eliminadas, como en GET /v2/rutas/{id}. Devuelve cuántas se exportaron.
+     */
+    public long exportRutas(Sink<RutaOutDtoV2> sink) throws IOException {
+        logger.info("Exportando rutas");
+        long start = System.nanoTime();
+        long total = 0;
+        try (Stream<RutaPuntoFila> filas = rutaRepository.streamConPuntos()) {
+            Iterator<RutaPuntoFila> it = filas.iterator();
+            Ruta actual = null;
+            List<Long> puntosIds = new ArrayList<>();
+            while (it.hasNext()) {
+                RutaPuntoFila fila = it.next();
+                if (actual != null && actual.getId() != fila.ruta().getId()) {
+                    sink.write(RutaService.toOutDtoV2(actual, puntosIds));
+                    actual = null;
+                    puntosIds = new ArrayList<>();
+                    if (++total % BATCH_SIZE == 0)
+                        entityManager.clear();
+                }
+                if (actual == null)
+                    actual = fila.ruta();
+                if (fila.puntoId() != null)
+                    puntosIds.add(fila.puntoId());
+            }
+            if (actual != null) {
+                sink.write(RutaService.toOutDtoV2(actual, puntosIds));
+                total++;
+            }
+        }
+        logger.info("Exportadas {} rutas en {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+
+    public long exportPuntos(Sink<PuntoInteresOutDto> sink) throws IOException {
+        logger.info("Exportando puntos de interés");
+        long start = System.nanoTime();
+        long total;
+        try (Stream<PuntoInteres> puntos = puntoInteresRepository.streamAll()) {
+            total = export(puntos, PuntoInteresService::toOutDto, sink);
+        }
+        logger.info("Exportados {} puntos de interés en {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+
+    /**
+     * Con los likes ya volcados a la BD: los pendientes de {@link LikeCounter} (como mucho los
+     * de un intervalo de volcado) no se incluyen.
+     */
+    public long exportResenas(Sink<ResenaOutDto> sink) throws IOException {
+        logger.info("Exportando reseñas");
+        long start = System.nanoTime();
+        long total;
+        try (Stream<Resena> resenas = resenaRepository.streamAll()) {
+            total = export(resenas, resena -> ResenaService.toOutDto(resena, 0), sink);
+        }
+        logger.info("Exportadas {} reseñas en {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+
+    private <E, D> long export(Stream<E> rows, Function<E, D> toOutDto, Sink<D> sink)
+            throws IOException {
+        long total = 0;
+        Iterator<E> it = rows.iterator();
+        while (it.hasNext()) {
+            sink.write(toOutDto.apply(it.next()));
+            if (++total % BATCH_SIZE == 0)
+                entityManager.clear();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,465 @@
+package com.svalero.rutea.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.svalero.rutea.domain.Etiqueta;
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.dto.ImportErrorOutDto;
+import com.svalero.rutea.dto.ImportResultOutDto;
+import com.svalero.rutea.dto.PuntoInteresInDto;
+import com.svalero.rutea.dto.RutaInDtoV2;
+import com.svalero.rutea.geo.PuntoSpatialIndex;
+import com.svalero.rutea.geo.RouteGeometry;
+import com.svalero.rutea.repository.CategoriaRepository;
+import com.svalero.rutea.repository.PuntoCoordenadas;
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.UsuarioRepository;
+import com.svalero.rutea.search.EtiquetaIndex;
+import com.svalero.rutea.search.SearchIndex;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de puntos de interés y rutas. Cada registro lleva los campos de
+ * POST /puntos o POST /v2/rutas, en NDJSON (un objeto por línea) o en CSV (cabecera con esos
+ * mismos nombres; en rutas, los puntosIds separados por ';').
+ * <p>
+ * El cuerpo se procesa en bloques de {@link #CHUNK_SIZE} líneas, sin leerlo entero:
+ * <ol>
+ *     <li>las líneas del bloque se convierten y validan en paralelo;</li>
+ *     <li>las referencias (categoriaId, usuarioId, puntosIds) se comprueban con consultas IN,
+ *     y solo para los ids que no se habían visto en bloques anteriores;</li>
+ *     <li>los registros válidos se insertan en una transacción que termina con flush y clear.</li>
+ * </ol>
+ * Una línea con errores se informa en el resultado y no detiene el resto. Si la BD rechaza
+ * un bloque, se reintenta registro a registro para que solo fallen los culpables.
+ */
+@Lazy
+@Service
+@Timed("rutea.service")
+public class ImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+
+    static final int CHUNK_SIZE = 1000;
+    // ids por consulta IN al comprobar referencias
+    static final int LOOKUP_CHUNK_SIZE = 500;
+    // columnas CSV que son listas de ids
+    private static final Set<String> LIST_COLUMNS = Set.of("puntosIds");
+
+    public enum Formato { NDJSON, CSV }
+
+    private record Linea(long numero, String texto) {
+    }
+
+    /**
+     * Un registro ya convertido; {@code errors} vacío si es válido.
+     */
+    private record Fila<T>(long linea, T dto, Map<String, String> errors) {
+    }
+
+    @FunctionalInterface
+    private interface Insert<T> {
+        void insert(List<Fila<T>> filas);
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private PuntoInteresRepository puntoInteresRepository;
+    @Autowired
+    private EtiquetaService etiquetaService;
+    @Autowired
+    private PuntoSpatialIndex spatialIndex;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private EtiquetaIndex etiquetaIndex;
+    @Autowired
+    private EntityCaches entityCaches;
+
+    public ImportResultOutDto importPuntos(BufferedReader reader, Formato formato) throws IOException {
+        logger.info("Importando puntos de interés ({})", formato);
+        long start = System.nanoTime();
+        ImportResultOutDto result = new ImportResultOutDto();
+        Referencias<Long> categorias = new Referencias<>(ids -> identity(categoriaRepository.findExistingIds(ids)));
+
+        Lector lector = new Lector(reader, formato);
+        List<Linea> lineas;
+        while (!(lineas = lector.next(CHUNK_SIZE)).isEmpty()) {
+            List<Fila<PuntoInteresInDto>> filas = read(lineas, lector.cabecera, PuntoInteresInDto.class, result);
+            categorias.resolve(filas.stream().map(fila -> fila.dto().getCategoriaId()).toList());
+            filas = check(filas, result, dto -> categorias.contains(dto.getCategoriaId())
+                    ? Map.of() : Map.of("categoriaId", "Categoria not found"));
+            write(filas, result, this::insertPuntos);
+            logger.debug("Importación de puntos: {} líneas leídas, {} importadas", result.getLeidos(), result.getImportados());
+        }
+
+        logger.info("Importados {} de {} puntos de interés en {} ms ({} con errores)", result.getImportados(),
+                result.getLeidos(), (System.nanoTime() - start) / 1_000_000, result.getFallidos());
+        return result;
+    }
+
+    public ImportResultOutDto importRutas(BufferedReader reader, Formato formato) throws IOException {
+        logger.info("Importando rutas ({})", formato);
+        long start = System.nanoTime();
+        ImportResultOutDto result = new ImportResultOutDto();
+        Referencias<Long> usuarios = new Referencias<>(ids -> identity(usuarioRepository.findExistingIds(ids)));
+        // las coordenadas de los puntos bastan para la geometría: las entidades no se cargan
+        Referencias<PuntoCoordenadas> puntos = new Referencias<>(ids -> puntoInteresRepository.findCoordenadasByIds(ids)
+                .stream().collect(Collectors.toMap(PuntoCoordenadas::id, c -> c)));
+
+        Lector lector = new Lector(reader, formato);
+        List<Linea> lineas;
+        while (!(lineas = lector.next(CHUNK_SIZE)).isEmpty()) {
+            List<Fila<RutaInDtoV2>> filas = read(lineas, lector.cabecera, RutaInDtoV2.class, result);
+            usuarios.resolve(filas.stream().map(fila -> fila.dto().getUsuarioId()).toList());
+            puntos.resolve(filas.stream()
+                    .filter(fila -> fila.dto().getPuntosIds() != null)
+                    .flatMap(fila -> fila.dto().getPuntosIds().stream())
+                    .toList());
+            filas = check(filas, result, dto -> {
+                Map<String, String> errors = new TreeMap<>();
+                if (!usuarios.contains(dto.getUsuarioId()))
+                    errors.put("usuarioId", "Usuario not found");
+                List<Long> missing = dto.getPuntosIds() == null ? List.of()
+                        : dto.getPuntosIds().stream().filter(id -> !puntos.contains(id)).distinct().toList();
+                if (!missing.isEmpty())
+                    errors.put("puntosIds", "PuntoInteres not found: " + missing);
+                return errors;
+            });
+            write(filas, result, batch -> insertRutas(batch, puntos));
+            logger.debug("Importación de rutas: {} líneas leídas, {} importadas", result.getLeidos(), result.getImportados());
+        }
+
+        logger.info("Importadas {} de {} rutas en {} ms ({} con errores)", result.getImportados(),
+                result.getLeidos(), (System.nanoTime() - start) / 1_000_000, result.getFallidos());
+        return result;
+    }
+
+    // -------------------- Escritura --------------------
+
+    private void insertPuntos(List<Fila<PuntoInteresInDto>> filas) {
+        List<PuntoInteres> puntos = new ArrayList<>(filas.size());
+        for (Fila<PuntoInteresInDto> fila : filas) {
+            PuntoInteres punto = new PuntoInteres();
+            PuntoInteresService.copy(fila.dto(), punto);
+            punto.setCategoria(categoriaRepository.getReferenceById(fila.dto().getCategoriaId()));
+            entityManager.persist(punto);
+            puntos.add(punto);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        AfterCommit.run(() -> {
+            for (PuntoInteres punto : puntos) {
+                spatialIndex.put(punto.getId(), punto.getLatitud(), punto.getLongitud());
+                searchIndex.put(SearchIndex.Tipo.PUNTO, punto.getId(), punto.getNombre(), null);
+            }
+        });
+        entityCaches.puntos().evictQueries();
+    }
+
+    /**
+     * Como addV2, pero con usuario y puntos como referencias (ya se sabe que existen), la
+     * geometría calculada con las coordenadas ya leídas y el diccionario de etiquetas resuelto
+     * una vez para todo el bloque.
+     */
+    private void insertRutas(List<Fila<RutaInDtoV2>> filas, Referencias<PuntoCoordenadas> coordenadas) {
+        RouteGeometry geometry = new RouteGeometry();
+        List<Ruta> rutas = new ArrayList<>(filas.size());
+        for (Fila<RutaInDtoV2> fila : filas) {
+            RutaInDtoV2 dto = fila.dto();
+            Ruta ruta = new Ruta();
+            RutaService.copy(dto, ruta);
+            ruta.setUsuario(usuarioRepository.getReferenceById(dto.getUsuarioId()));
+
+            List<PuntoInteres> puntos = new ArrayList<>();
+            geometry.reset();
+            if (dto.getPuntosIds() != null) {
+                for (Long puntoId : dto.getPuntosIds()) {
+                    PuntoCoordenadas c = coordenadas.get(puntoId);
+                    puntos.add(puntoInteresRepository.getReferenceById(puntoId));
+                    geometry.add(c.latitud(), c.longitud());
+                }
+            }
+            ruta.setPuntos(puntos);
+            RutaService.applyGeometry(ruta, geometry);
+            rutas.add(ruta);
+        }
+
+        Map<String, Etiqueta> diccionario = etiquetaService.resolve(EtiquetaService.nombres(rutas));
+        Map<Long, Map<String, Long>> etiquetaIds = new HashMap<>();
+        for (Ruta ruta : rutas) {
+            etiquetaService.sync(ruta, diccionario);
+            entityManager.persist(ruta);
+            etiquetaIds.put(ruta.getId(), EtiquetaService.etiquetaIds(ruta));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        AfterCommit.run(() -> {
+            for (Ruta ruta : rutas) {
+                searchIndex.put(SearchIndex.Tipo.RUTA, ruta.getId(), ruta.getTitulo(), ruta.getEtiquetas());
+                etiquetaIndex.put(ruta.getId(), etiquetaIds.get(ruta.getId()));
+            }
+        });
+        entityCaches.rutas().evictQueries();
+        entityCaches.rutasV2().evictQueries();
+    }
+
+    /**
+     * Inserta el bloque en una transacción. Si la BD lo rechaza (p. ej. una categoría borrada
+     * durante la importación), lo reintenta registro a registro.
+     */
+    private <T> void write(List<Fila<T>> filas, ImportResultOutDto result, Insert<T> insert) {
+        if (filas.isEmpty()) return;
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert.insert(filas));
+            result.setImportados(result.getImportados() + filas.size());
+        } catch (RuntimeException e) {
+            if (filas.size() == 1) {
+                logger.warn("Línea {} rechazada por la BD: {}", filas.get(0).linea(), e.getMessage());
+                error(result, filas.get(0).linea(), Map.of("linea", "Rejected by the database"));
+                return;
+            }
+            logger.warn("Bloque de {} registros rechazado por la BD, se reintenta uno a uno: {}",
+                    filas.size(), e.getMessage());
+            for (Fila<T> fila : filas)
+                write(List.of(fila), result, insert);
+        }
+    }
+
+    // -------------------- Lectura y validación --------------------
+
+    /**
+     * Convierte y valida las líneas en paralelo. Devuelve, en su orden, las válidas; las demás
+     * quedan como errores en el resultado.
+     */
+    private <T> List<Fila<T>> read(List<Linea> lineas, List<String> cabecera, Class<T> type,
+                                   ImportResultOutDto result) {
+        result.setLeidos(result.getLeidos() + lineas.size());
+        List<Fila<T>> filas = lineas.parallelStream()
+                .map(linea -> read(linea, cabecera, type))
+                .toList();
+        return check(filas, result, dto -> Map.of());
+    }
+
+    private <T> Fila<T> read(Linea linea, List<String> cabecera, Class<T> type) {
+        T dto;
+        try {
+            JsonNode json = cabecera == null ? objectMapper.readTree(linea.texto()) : csvToJson(linea.texto(), cabecera);
+            dto = json == null || !json.isObject() ? null : objectMapper.treeToValue(json, type);
+        } catch (CsvColumnsException e) {
+            return new Fila<>(linea.numero(), null, Map.of("linea", e.getMessage()));
+        } catch (JsonProcessingException e) {
+            // un valor con el tipo incorrecto se atribuye a su campo; JSON mal formado, a la línea
+            if (e instanceof JsonMappingException mapping && !mapping.getPath().isEmpty()
+                    && mapping.getPath().get(0).getFieldName() != null)
+                return new Fila<>(linea.numero(), null, Map.of(mapping.getPath().get(0).getFieldName(), "Invalid value"));
+            return new Fila<>(linea.numero(), null, Map.of("linea", "Malformed JSON"));
+        }
+        if (dto == null)
+            return new Fila<>(linea.numero(), null, Map.of("linea", "Malformed JSON"));
+
+        Map<String, String> errors = new TreeMap<>();
+        for (ConstraintViolation<T> violation : validator.validate(dto))
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        return new Fila<>(linea.numero(), dto, errors);
+    }
+
+    /**
+     * Pasa al resultado las filas que ya traen errores o para las que {@code referencias}
+     * devuelve alguno, y devuelve el resto.
+     */
+    private <T> List<Fila<T>> check(List<Fila<T>> filas, ImportResultOutDto result,
+                                    Function<T, Map<String, String>> referencias) {
+        List<Fila<T>> validas = new ArrayList<>(filas.size());
+        for (Fila<T> fila : filas) {
+            Map<String, String> errors = fila.errors().isEmpty() ? referencias.apply(fila.dto()) : fila.errors();
+            if (errors.isEmpty())
+                validas.add(fila);
+            else
+                error(result, fila.linea(), errors);
+        }
+        return validas;
+    }
+
+    private static void error(ImportResultOutDto result, long linea, Map<String, String> errors) {
+        result.setFallidos(result.getFallidos() + 1);
+        if (result.getErrores().size() < ImportResultOutDto.MAX_ERRORES)
+            result.getErrores().add(new ImportErrorOutDto(linea, errors));
+    }
+
+    /**
+     * Una fila CSV como objeto JSON con los nombres de la cabecera, para que Jackson la convierta
+     * igual que una línea NDJSON. Las celdas vacías se omiten (el campo queda a null o a su valor
+     * por defecto).
+     */
+    private JsonNode csvToJson(String texto, List<String> cabecera) {
+        List<String> valores = splitCsv(texto);
+        if (valores.size() != cabecera.size())
+            throw new CsvColumnsException("Expected " + cabecera.size() + " columns but found " + valores.size());
+
+        ObjectNode json = objectMapper.createObjectNode();
+        for (int i = 0; i < cabecera.size(); i++) {
+            String valor = valores.get(i);
+            if (valor.isEmpty()) continue;
+            if (LIST_COLUMNS.contains(cabecera.get(i))) {
+                ArrayNode lista = json.putArray(cabecera.get(i));
+                for (String elemento : valor.split(";"))
+                    if (!elemento.isBlank()) lista.add(elemento.trim());
+            } else {
+                json.put(cabecera.get(i), valor);
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Separa una línea CSV por comas. Admite campos entre comillas dobles (con comas dentro y
+     * {@code ""} como comilla escapada), pero no saltos de línea dentro de un campo.
+     */
+    static List<String> splitCsv(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean comillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (comillas) {
+                if (c != '"')
+                    campo.append(c);
+                else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"')
+                    campo.append(linea.charAt(++i));
+                else
+                    comillas = false;
+            } else if (c == '"') {
+                comillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString().trim());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString().trim());
+        return campos;
+    }
+
+    private static Map<Long, Long> identity(List<Long> ids) {
+        return ids.stream().collect(Collectors.toMap(id -> id, id -> id));
+    }
+
+    private static class CsvColumnsException extends RuntimeException {
+        CsvColumnsException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Lee el cuerpo línea a línea, numerándolas y saltando las vacías. En CSV la primera línea
+     * no vacía es la cabecera.
+     */
+    private static final class Lector {
+
+        private final BufferedReader reader;
+        // null en NDJSON
+        private final List<String> cabecera;
+        private long numero;
+
+        Lector(BufferedReader reader, Formato formato) throws IOException {
+            this.reader = reader;
+            if (formato != Formato.CSV) {
+                cabecera = null;
+                return;
+            }
+            List<Linea> primera = next(1);
+            cabecera = primera.isEmpty() ? List.of()
+                    : splitCsv(primera.get(0).texto().replace("\uFEFF", ""));
+        }
+
+        List<Linea> next(int max) throws IOException {
+            List<Linea> lineas = new ArrayList<>(Math.min(max, 64));
+            String texto;
+            while (lineas.size() < max && (texto = reader.readLine()) != null) {
+                numero++;
+                if (!texto.isBlank())
+                    lineas.add(new Linea(numero, texto));
+            }
+            return lineas;
+        }
+    }
+
+    /**
+     * Ids ya comprobados durante una importación: cada id se busca en la BD una sola vez, con
+     * consultas IN de como mucho {@link #LOOKUP_CHUNK_SIZE} ids.
+     */
+    private static final class Referencias<V> {
+
+        private final Function<List<Long>, Map<Long, V>> lookup;
+        private final Map<Long, V> encontradas = new HashMap<>();
+        private final Set<Long> ausentes = new HashSet<>();
+
+        Referencias(Function<List<Long>, Map<Long, V>> lookup) {
+            this.lookup = lookup;
+        }
+
+        void resolve(Collection<Long> ids) {
+            List<Long> nuevos = ids.stream()
+                    .filter(id -> id != null && !encontradas.containsKey(id) && !ausentes.contains(id))
+                    .distinct()
+                    .toList();
+            for (int from = 0; from < nuevos.size(); from += LOOKUP_CHUNK_SIZE) {
+                List<Long> chunk = nuevos.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, nuevos.size()));
+                Map<Long, V> found = lookup.apply(chunk);
+                encontradas.putAll(found);
+                for (Long id : chunk)
+                    if (!found.containsKey(id)) ausentes.add(id);
+            }
+        }
+
+        boolean contains(Long id) {
+            return id != null && encontradas.containsKey(id);
+        }
+
+        V get(Long id) {
+            return encontradas.get(id);
+        }
+    }
+}
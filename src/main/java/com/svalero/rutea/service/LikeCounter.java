@@ -0,0 +1,262 @@
+package com.svalero.rutea.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Likes de reseñas acumulados en memoria y volcados a la BD cada
+ * {@code rutea.likes.flush-interval-ms} con un único UPDATE por lotes
+ * ({@code likes = likes + ?}), en lugar de leer, sumar y guardar la fila en cada like.
+ * <p>
+ * Cada reseña tiene su {@link LongAdder}, así que muchos likes simultáneos sobre la misma
+ * reseña no compiten por un mismo contador ni por el bloqueo de su fila. Los likes no
+ * requieren bloqueo.
+ * <p>
+ * Lecturas: el valor real es {@code likes en BD + en vuelo + pendientes}, calculado con
+ * {@link #likes(long, long)} dentro de {@link #read}. El volcado pasa los pendientes a "en vuelo"
+ * y, después del commit, invalida la caché y los olvida; solo esos dos pasos en memoria llevan el
+ * bloqueo de escritura, no el UPDATE ni el commit. Mientras tanto las lecturas toman los likes de
+ * la BD de antes del volcado, que el propio volcado publica antes de confirmar, de modo que nunca
+ * se ve un like dos veces ni se pierde de vista y nadie espera a la BD.
+ * <p>
+ * Si el proceso muere, se pierden como mucho los likes de un intervalo; en un apagado ordenado se
+ * vuelcan antes de cerrar.
+ */
+@Component
+public class LikeCounter {
+
+    /**
+     * Lectura que combina likes de la BD con {@link #likes(long, long)}.
+     */
+    @FunctionalInterface
+    public interface Read<T, E extends Exception> {
+        T read() throws E;
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeCounter.class);
+
+    // ids por SELECT al leer los likes de antes del volcado
+    private static final int SELECT_CHUNK = 500;
+
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private final StampedLock flushLock = new StampedLock();
+    private final Lock flushes = new ReentrantLock();
+
+    // del volcado en curso: los likes que lleva y los que tenía cada reseña en la BD antes de él.
+    // Se sustituyen enteros, nunca se modifican
+    private volatile Map<Long, Long> inFlight = Map.of();
+    private volatile Map<Long, Long> storedBefore = Map.of();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private EntityCaches entityCaches;
+
+    private volatile String updateSql;
+    private volatile String selectSql;
+
+    public void increment(long resenaId) {
+        LongAdder adder = pending.computeIfAbsent(resenaId, id -> new LongAdder());
+        adder.increment();
+        // el volcado pudo retirar este contador justo ahora: lo que quede en él se pasa al vigente
+        if (pending.get(resenaId) != adder)
+            transfer(resenaId, adder);
+    }
+
+    public long pending(long resenaId) {
+        LongAdder adder = pending.get(resenaId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Los likes de una reseña a partir de los de la BD, {@code stored}, leídos dentro de
+     * {@link #read}. Si hay un volcado en curso y ya publicó lo que había en la BD antes de él,
+     * se usa eso: {@code stored} pudo leerse con su UPDATE ya confirmado.
+     */
+    public long likes(long resenaId, long stored) {
+        Long flushing = inFlight.get(resenaId);
+        if (flushing != null)
+            stored = storedBefore.getOrDefault(resenaId, stored) + flushing;
+        return stored + pending(resenaId);
+    }
+
+    /**
+     * Ejecuta una lectura sin bloqueo: si mientras tanto un volcado empieza o termina, se repite.
+     * Solo espera a los pasos en memoria del volcado, nunca a la BD. Antes de cada intento se
+     * vacía el contexto de persistencia, cuyas entidades guardarían los likes leídos en el
+     * anterior, así que es solo para transacciones de lectura.
+     */
+    public <T, E extends Exception> T read(Read<T, E> read) throws E {
+        while (true) {
+            long stamp = flushLock.tryOptimisticRead();
+            if (stamp == 0) {
+                flushLock.unlockRead(flushLock.readLock());
+                continue;
+            }
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+            if (entityManager != null) entityManager.clear();
+            T result = read.read();
+            if (flushLock.validate(stamp)) return result;
+        }
+    }
+
+    /**
+     * Olvida los likes pendientes de una reseña cuyo valor se acaba de fijar a mano.
+     */
+    public void discard(long resenaId) {
+        LongAdder adder = pending.remove(resenaId);
+        if (adder != null) adder.reset();
+    }
+
+    /**
+     * Para los tests: con él cogido el volcado no puede empezar ni terminar.
+     */
+    Lock readLock() {
+        return flushLock.asReadLock();
+    }
+
+    /**
+     * Vuelca los likes pendientes en una transacción. Devuelve cuántas reseñas se actualizaron.
+     */
+    @Scheduled(fixedDelayString = "${rutea.likes.flush-interval-ms:1000}")
+    public int flush() {
+        if (pending.isEmpty()) return 0;
+        flushes.lock();
+        try {
+            Map<Long, Long> batch = takePending();
+            if (batch.isEmpty()) return 0;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<Object[]> rows = new ArrayList<>(batch.size());
+                    batch.forEach((id, delta) -> rows.add(new Object[]{delta, id}));
+                    jdbcTemplate.batchUpdate(updateSql(), rows);
+                    // antes del commit: desde ahí una lectura de la BD ya puede incluir el lote
+                    storedBefore = storedBefore(batch);
+                });
+            } catch (RuntimeException e) {
+                finish(batch, false);
+                logger.error("Error volcando likes de {} reseñas, se reintentará", batch.size(), e);
+                return 0;
+            }
+            finish(batch, true);
+            logger.debug("Likes volcados para {} reseñas", batch.size());
+            return batch.size();
+        } finally {
+            flushes.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        logger.info("Volcando likes pendientes antes de parar");
+        flush();
+    }
+
+    /**
+     * Pasa los pendientes a en vuelo, con el bloqueo de escritura.
+     */
+    private Map<Long, Long> takePending() {
+        Map<Long, Long> batch = new HashMap<>();
+        long stamp = flushLock.writeLock();
+        try {
+            for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta != 0) {
+                    batch.put(entry.getKey(), delta);
+                } else if (pending.remove(entry.getKey(), entry.getValue())) {
+                    // contador inactivo: se retira; un like que llegue a la vez se transfiere
+                    transfer(entry.getKey(), entry.getValue());
+                }
+            }
+            inFlight = batch;
+        } finally {
+            flushLock.unlockWrite(stamp);
+        }
+        return batch;
+    }
+
+    /**
+     * Cierra el volcado, con el bloqueo de escritura: si se confirmó se invalidan las reseñas de
+     * la caché; si no, los likes vuelven a pendientes para el siguiente intento.
+     */
+    private void finish(Map<Long, Long> batch, boolean committed) {
+        long stamp = flushLock.writeLock();
+        try {
+            if (committed) {
+                entityCaches.resenas().evict(batch.keySet().stream().mapToLong(Long::longValue).toArray());
+            } else {
+                batch.forEach((id, delta) -> pending.computeIfAbsent(id, k -> new LongAdder()).add(delta));
+            }
+            inFlight = Map.of();
+            storedBefore = Map.of();
+        } finally {
+            flushLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Los likes de cada reseña antes del UPDATE del lote, leídos en su misma transacción: el
+     * UPDATE bloquea las filas, así que nadie más los ha cambiado.
+     */
+    private Map<Long, Long> storedBefore(Map<Long, Long> batch) {
+        Map<Long, Long> before = new HashMap<>();
+        List<Long> ids = new ArrayList<>(batch.keySet());
+        for (int from = 0; from < ids.size(); from += SELECT_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + SELECT_CHUNK));
+            String sql = selectSql() + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                long id = rs.getLong(1);
+                before.put(id, rs.getLong(2) - batch.get(id));
+            }, chunk.toArray());
+        }
+        return before;
+    }
+
+    private void transfer(long resenaId, LongAdder stale) {
+        long late = stale.sumThenReset();
+        if (late != 0)
+            pending.computeIfAbsent(resenaId, id -> new LongAdder()).add(late);
+    }
+
+    private String updateSql() {
+        if (updateSql == null)
+            updateSql = "update " + identifier("resenas") + " set " + identifier("likes") + " = "
+                    + identifier("likes") + " + ? where " + identifier("id") + " = ?";
+        return updateSql;
+    }
+
+    private String selectSql() {
+        if (selectSql == null)
+            selectSql = "select " + identifier("id") + ", " + identifier("likes") + " from "
+                    + identifier("resenas") + " where " + identifier("id") + " in (";
+        return selectSql;
+    }
+
+    private String identifier(String name) {
+        return SqlIdentifiers.render(entityManagerFactory, name);
+    }
+}
@@ -0,0 +1,77 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Codifica/decodifica los cursores opacos de la paginación keyset.
+ * El cliente solo debe reenviar el valor recibido en X-Next-Cursor, nunca construirlo.
+ */
+public final class PageCursor {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private static final String PREFIX = "id:";
+    // resultados ordenados por relevancia (/search): no hay clave estable, se pagina por posición
+    private static final String OFFSET_PREFIX = "off:";
+
+    private PageCursor() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String encodeOffset(int offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((OFFSET_PREFIX + offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return el último id ya servido, o null si no hay cursor (primera página)
+     */
+    public static Long decode(String cursor) throws InvalidCursorException {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            return Long.parseLong(payload(cursor, PREFIX));
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException();
+        }
+    }
+
+    /**
+     * @return los resultados ya servidos, o 0 si no hay cursor (primera página)
+     */
+    public static int decodeOffset(String cursor) throws InvalidCursorException {
+        if (cursor == null || cursor.isBlank()) return 0;
+        try {
+            int offset = Integer.parseInt(payload(cursor, OFFSET_PREFIX));
+            if (offset < 0) throw new InvalidCursorException();
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException();
+        }
+    }
+
+    private static String payload(String cursor, String prefix) throws InvalidCursorException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(prefix)) throw new InvalidCursorException();
+            return raw.substring(prefix.length());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+    }
+
+    /**
+     * Aplica el tamaño por defecto y el tope máximo de página.
+     */
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit < 1) return DEFAULT_LIMIT;
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
@@ -3,24 +3,37 @@ package com.svalero.rutea.service;
 import com.svalero.rutea.domain.Categoria;
 import com.svalero.rutea.domain.PuntoInteres;
 import com.svalero.rutea.dto.PuntoInteresInDto;
+import com.svalero.rutea.dto.PuntoInteresNearbyOutDto;
 import com.svalero.rutea.dto.PuntoInteresOutDto;
+import com.svalero.rutea.dto.PuntoValoracionesOutDto;
 import com.svalero.rutea.exception.CategoriaNotFoundException;
 import com.svalero.rutea.exception.PuntoInteresNotFoundException;
+import com.svalero.rutea.geo.PuntoSpatialIndex;
 import com.svalero.rutea.repository.CategoriaRepository;
+import com.svalero.rutea.repository.PuntoCoordenadas;
 import com.svalero.rutea.repository.PuntoInteresRepository;
-import org.modelmapper.ModelMapper;
+import com.svalero.rutea.search.SearchIndex;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
+@Timed("rutea.service")
 @Transactional
 public class PuntoInteresService {
 
@@ -31,7 +44,25 @@ public class PuntoInteresService {
     @Autowired
     private CategoriaRepository categoriaRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private PuntoSpatialIndex spatialIndex;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private EntityCaches entityCaches;
+
+    /**
+     * Carga el índice espacial al arrancar recorriendo las coordenadas con un cursor.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildSpatialIndex() {
+        logger.info("Construyendo índice espacial de puntos de interés");
+        spatialIndex.clear();
+        try (Stream<PuntoCoordenadas> coordenadas = puntoInteresRepository.streamCoordenadas()) {
+            coordenadas.forEach(c -> spatialIndex.put(c.id(), c.latitud(), c.longitud()));
+        }
+        logger.info("Índice espacial construido con {} puntos", spatialIndex.size());
+    }
 
     public PuntoInteresOutDto add(PuntoInteresInDto dto) throws CategoriaNotFoundException {
         logger.info("Creando nuevo punto de interés: {}", dto.getNombre());
@@ -42,10 +73,13 @@ public class PuntoInteresService {
                     return new CategoriaNotFoundException();
                 });
 
-        PuntoInteres punto = modelMapper.map(dto, PuntoInteres.class);
+        PuntoInteres punto = new PuntoInteres();
+        copy(dto, punto);
         punto.setCategoria(categoria);
 
         PuntoInteres saved = puntoInteresRepository.save(punto);
+        indexAfterCommit(saved);
+        entityCaches.puntos().evictQueries();
         logger.info("Punto de interés creado exitosamente con ID: {}", saved.getId());
         return toOutDto(saved);
     }
@@ -58,6 +92,11 @@ public class PuntoInteresService {
                     return new PuntoInteresNotFoundException();
                 });
         puntoInteresRepository.delete(punto);
+        entityCaches.puntos().evict(id);
+        AfterCommit.run(() -> {
+            spatialIndex.remove(id);
+            searchIndex.remove(SearchIndex.Tipo.PUNTO, id);
+        });
         logger.info("Punto de interés eliminado exitosamente: ID {}", id);
     }
 
@@ -66,38 +105,74 @@ public class PuntoInteresService {
         logger.debug("Buscando puntos de interés con filtros: categoriaId={}, abiertoActualmente={}, nombre={}, puntuacionMedia={}",
                 categoriaId, abiertoActualmente, nombre, puntuacionMedia);
 
-        Specification<PuntoInteres> spec = Specification.where(null);
+        return entityCaches.puntos().query(Arrays.asList(categoriaId, abiertoActualmente, nombre, puntuacionMedia), () -> {
+            Specification<PuntoInteres> spec = buildSpec(categoriaId, abiertoActualmente, nombre, puntuacionMedia);
 
-        if (categoriaId != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("categoria").get("id"), categoriaId));
+            List<PuntoInteresOutDto> result = puntoInteresRepository.findAll(spec).stream()
+                    .map(PuntoInteresService::toOutDto)
+                    .toList();
+            logger.info("Se encontraron {} puntos de interés", result.size());
+            return result;
+        });
+    }
 
-        if (abiertoActualmente != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("abiertoActualmente"), abiertoActualmente));
+    /**
+     * Los puntos más cercanos a (latitud, longitud) dentro de radiusKm, del más cercano al más lejano.
+     * El índice espacial da los ids y distancias; la BD solo se consulta una vez para esos ids.
+     */
+    @Transactional(readOnly = true)
+    public List<PuntoInteresNearbyOutDto> findNearby(double latitud, double longitud, double radiusKm, int limit) {
+        logger.debug("Buscando puntos cercanos a ({}, {}) en {} km, limit={}", latitud, longitud, radiusKm, limit);
 
-        if (nombre != null && !nombre.isBlank()) {
-            String pattern = "%" + nombre.toLowerCase() + "%";
-            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("nombre")), pattern));
-        }
+        List<PuntoSpatialIndex.Hit> hits = spatialIndex.nearest(latitud, longitud, radiusKm, limit);
+        if (hits.isEmpty()) return List.of();
 
-        if (puntuacionMedia != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("puntuacionMedia"), puntuacionMedia));
+        Map<Long, PuntoInteres> byId = new HashMap<>();
+        puntoInteresRepository.findAllById(hits.stream().map(PuntoSpatialIndex.Hit::id).toList())
+                .forEach(p -> byId.put(p.getId(), p));
 
-        List<PuntoInteresOutDto> result = puntoInteresRepository.findAll(spec).stream()
-                .map(this::toOutDto)
-                .toList();
-        logger.info("Se encontraron {} puntos de interés", result.size());
+        List<PuntoInteresNearbyOutDto> result = new ArrayList<>(hits.size());
+        for (PuntoSpatialIndex.Hit hit : hits) {
+            PuntoInteres punto = byId.get(hit.id());
+            if (punto != null)
+                result.add(toNearbyOutDto(punto, hit.distanciaKm()));
+        }
+        logger.info("Se encontraron {} puntos de interés cercanos", result.size());
         return result;
     }
 
     @Transactional(readOnly = true)
     public PuntoInteresOutDto findById(long id) throws PuntoInteresNotFoundException {
         logger.debug("Buscando punto de interés por ID: {}", id);
+        return entityCaches.puntos().get(id, () -> {
+            PuntoInteres punto = puntoInteresRepository.findById(id)
+                    .orElseThrow(() -> {
+                        logger.error("Punto de interés no encontrado: ID {}", id);
+                        return new PuntoInteresNotFoundException();
+                    });
+            return toOutDto(punto);
+        });
+    }
+
+    /**
+     * Resumen de valoraciones leído de los agregados del punto, sin recorrer sus reseñas.
+     */
+    @Transactional(readOnly = true)
+    public PuntoValoracionesOutDto findValoraciones(long id) throws PuntoInteresNotFoundException {
+        logger.debug("Buscando valoraciones del punto de interés ID: {}", id);
         PuntoInteres punto = puntoInteresRepository.findById(id)
                 .orElseThrow(() -> {
                     logger.error("Punto de interés no encontrado: ID {}", id);
                     return new PuntoInteresNotFoundException();
                 });
-        return toOutDto(punto);
+
+        Map<Integer, Integer> histograma = new LinkedHashMap<>();
+        histograma.put(1, punto.getValoraciones1());
+        histograma.put(2, punto.getValoraciones2());
+        histograma.put(3, punto.getValoraciones3());
+        histograma.put(4, punto.getValoraciones4());
+        histograma.put(5, punto.getValoraciones5());
+        return new PuntoValoracionesOutDto(id, punto.getTotalResenas(), punto.getPuntuacionMedia(), histograma);
     }
 
     public PuntoInteresOutDto modify(long id, PuntoInteresInDto dto)
@@ -116,11 +191,13 @@ public class PuntoInteresService {
                     return new CategoriaNotFoundException();
                 });
 
-        modelMapper.map(dto, existing);
+        copy(dto, existing);
         existing.setId(id);
         existing.setCategoria(categoria);
 
         PuntoInteres saved = puntoInteresRepository.save(existing);
+        indexAfterCommit(saved);
+        entityCaches.puntos().evict(id);
         logger.info("Punto de interés modificado exitosamente: ID {}", id);
         return toOutDto(saved);
     }
@@ -168,8 +245,7 @@ public class PuntoInteresService {
                     logger.debug("Campo actualizado: abiertoActualmente = {}", valor);
                     break;
                 case "puntuacionMedia":
-                    punto.setPuntuacionMedia(((Number) valor).floatValue());
-                    logger.debug("Campo actualizado: puntuacionMedia = {}", valor);
+                    logger.warn("Ignorando campo calculado 'puntuacionMedia' en PATCH");
                     break;
                 case "fechaCreacion":
                     if (valor instanceof String s)
@@ -185,16 +261,77 @@ public class PuntoInteresService {
         }
 
         PuntoInteres updated = puntoInteresRepository.save(punto);
+        indexAfterCommit(updated);
+        entityCaches.puntos().evict(id);
         logger.info("Punto de interés actualizado exitosamente con PATCH: ID {}", id);
         return toOutDto(updated);
     }
 
-    private PuntoInteresOutDto toOutDto(PuntoInteres punto) {
-        PuntoInteresOutDto out = modelMapper.map(punto, PuntoInteresOutDto.class);
+    private void indexAfterCommit(PuntoInteres punto) {
+        long id = punto.getId();
+        double latitud = punto.getLatitud();
+        double longitud = punto.getLongitud();
+        String nombre = punto.getNombre();
+        AfterCommit.run(() -> {
+            spatialIndex.put(id, latitud, longitud);
+            searchIndex.put(SearchIndex.Tipo.PUNTO, id, nombre, null);
+        });
+    }
+
+    static Specification<PuntoInteres> buildSpec(Long categoriaId, Boolean abiertoActualmente, String nombre, Float puntuacionMedia) {
+        Specification<PuntoInteres> spec = Specification.where(null);
+
+        if (categoriaId != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("categoria").get("id"), categoriaId));
+
+        if (abiertoActualmente != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("abiertoActualmente"), abiertoActualmente));
+
+        if (nombre != null && !nombre.isBlank()) {
+            String pattern = "%" + nombre.toLowerCase() + "%";
+            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("nombre")), pattern));
+        }
+
+        if (puntuacionMedia != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("puntuacionMedia"), puntuacionMedia));
+
+        return spec;
+    }
+
+    // -------------------- Mapeo --------------------
+
+    static void copy(PuntoInteresInDto dto, PuntoInteres punto) {
+        punto.setAbiertoActualmente(dto.isAbiertoActualmente());
+        punto.setFechaCreacion(dto.getFechaCreacion());
+        punto.setLatitud(dto.getLatitud());
+        punto.setLongitud(dto.getLongitud());
+        punto.setNombre(dto.getNombre());
+    }
+
+    static PuntoInteresNearbyOutDto toNearbyOutDto(PuntoInteres punto, double distanciaKm) {
+        PuntoInteresNearbyOutDto out = new PuntoInteresNearbyOutDto();
+        fill(punto, out);
+        out.setDistanciaKm(distanciaKm);
+        return out;
+    }
+
+    static PuntoInteresOutDto toOutDto(PuntoInteres punto) {
+        PuntoInteresOutDto out = new PuntoInteresOutDto();
+        fill(punto, out);
+        return out;
+    }
+
+    private static void fill(PuntoInteres punto, PuntoInteresOutDto out) {
+        out.setId(punto.getId());
+        out.setAbiertoActualmente(punto.isAbiertoActualmente());
+        out.setFechaCreacion(punto.getFechaCreacion());
+        out.setLatitud(punto.getLatitud());
+        out.setLongitud(punto.getLongitud());
+        out.setNombre(punto.getNombre());
+        out.setPuntuacionMedia(punto.getPuntuacionMedia());
         if (punto.getCategoria() != null) {
             out.setCategoriaId(punto.getCategoria().getId());
             out.setCategoriaNombre(punto.getCategoria().getNombre());
         }
-        return out;
     }
 }
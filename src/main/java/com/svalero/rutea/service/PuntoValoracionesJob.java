@@ -0,0 +1,103 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.ResenaRepository;
+import com.svalero.rutea.repository.ValoracionCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reconstruye al arrancar los agregados de valoración de todos los puntos a partir de la tabla
+ * resenas, p. ej. tras una carga masiva o para los datos anteriores al mantenimiento incremental.
+ * Se activa con {@code rutea.jobs.puntos-valoraciones.enabled=true}.
+ * <p>
+ * Recorre los puntos por keyset en lotes de {@link #BATCH_SIZE}, cada uno en su transacción:
+ * la BD agrupa las reseñas del lote por punto y valoración y aquí solo se suman 5 contadores.
+ */
+@Component
+public class PuntoValoracionesJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PuntoValoracionesJob.class);
+
+    static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private PuntoInteresRepository puntoInteresRepository;
+    @Autowired
+    private ResenaRepository resenaRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Value("${rutea.jobs.puntos-valoraciones.enabled:false}")
+    private boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        rebuildAll();
+    }
+
+    public int rebuildAll() {
+        logger.info("Reconstruyendo los agregados de valoración de todos los puntos");
+        long start = System.nanoTime();
+
+        int total = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<Long> ids = transactionTemplate.execute(status -> rebuildBatch(from));
+            if (ids == null || ids.isEmpty()) break;
+            total += ids.size();
+            afterId = ids.get(ids.size() - 1);
+            logger.debug("Agregados reconstruidos hasta el punto ID {} ({} puntos)", afterId, total);
+        }
+        entityCaches.puntos().evictAll();
+
+        logger.info("Agregados de valoración reconstruidos para {} puntos en {} ms",
+                total, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+
+    private List<Long> rebuildBatch(long afterId) {
+        List<Long> ids = puntoInteresRepository.findIdsAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+        if (ids.isEmpty()) return ids;
+
+        Map<Long, long[]> histogramas = new HashMap<>();
+        for (ValoracionCount count : resenaRepository.countValoracionesByPuntoIds(ids)) {
+            if (count.valoracion() < 1 || count.valoracion() > 5) {
+                logger.warn("Valoración fuera de rango ignorada: punto ID {}, valoracion {}",
+                        count.puntoId(), count.valoracion());
+                continue;
+            }
+            histogramas.computeIfAbsent(count.puntoId(), k -> new long[5])[count.valoracion() - 1] = count.total();
+        }
+
+        long[] vacio = new long[5];
+        for (Long id : ids) {
+            long[] h = histogramas.getOrDefault(id, vacio);
+            long totalResenas = 0;
+            long suma = 0;
+            for (int v = 0; v < 5; v++) {
+                totalResenas += h[v];
+                suma += h[v] * (v + 1);
+            }
+            float media = totalResenas > 0 ? (float) suma / totalResenas : 0;
+            puntoInteresRepository.setValoraciones(id, media, totalResenas, suma,
+                    (int) h[0], (int) h[1], (int) h[2], (int) h[3], (int) h[4]);
+        }
+        return ids;
+    }
+}
@@ -11,7 +11,7 @@ import com.svalero.rutea.exception.UsuarioNotFoundException;
 import com.svalero.rutea.repository.PuntoInteresRepository;
 import com.svalero.rutea.repository.ResenaRepository;
 import com.svalero.rutea.repository.UsuarioRepository;
-import org.modelmapper.ModelMapper;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,10 +20,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 @Service
+@Timed("rutea.service")
 @Transactional
 public class ResenaService {
 
@@ -36,28 +38,24 @@ public class ResenaService {
     @Autowired
     private UsuarioRepository usuarioRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private LikeCounter likeCounter;
+    @Autowired
+    private EntityCaches entityCaches;
 
     public ResenaOutDto add(ResenaInDto dto) throws PuntoInteresNotFoundException, UsuarioNotFoundException {
         logger.info("Creando nueva reseña para punto ID: {}", dto.getPuntoId());
 
-        PuntoInteres punto = puntoInteresRepository.findById(dto.getPuntoId())
-                .orElseThrow(() -> {
-                    logger.error("Punto de interés no encontrado: ID {}", dto.getPuntoId());
-                    return new PuntoInteresNotFoundException();
-                });
-
-        Usuario usuario = usuarioRepository.findById(dto.getUsuarioId())
-                .orElseThrow(() -> {
-                    logger.error("Usuario no encontrado: ID {}", dto.getUsuarioId());
-                    return new UsuarioNotFoundException();
-                });
+        PuntoInteres punto = findPunto(dto.getPuntoId());
+        Usuario usuario = findUsuario(dto.getUsuarioId());
 
-        Resena resena = modelMapper.map(dto, Resena.class);
+        Resena resena = new Resena();
+        copy(dto, resena);
         resena.setPunto(punto);
         resena.setUsuario(usuario);
 
         Resena saved = resenaRepository.save(resena);
+        applyValoracion(punto, saved.getValoracion(), 1);
+        entityCaches.resenas().evictQueries();
         logger.info("Reseña creada exitosamente con ID: {}", saved.getId());
         return toOutDto(saved);
     }
@@ -70,6 +68,8 @@ public class ResenaService {
                     return new ResenaNotFoundException();
                 });
         resenaRepository.delete(resena);
+        applyValoracion(resena.getPunto(), resena.getValoracion(), -1);
+        entityCaches.resenas().evict(id);
         logger.info("Reseña eliminada exitosamente: ID {}", id);
     }
 
@@ -78,33 +78,47 @@ public class ResenaService {
         logger.debug("Buscando reseñas con filtros: editada={}, likes={}, valoracion={}",
                 editada, likes, valoracion);
 
-        Specification<Resena> spec = Specification.where(null);
-
-        if (editada != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("editada"), editada));
-
-        if (likes != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("likes"), likes));
-
-        if (valoracion != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("valoracion"), valoracion));
+        return entityCaches.resenas().query(Arrays.asList(editada, likes, valoracion), () -> {
+            Specification<Resena> spec = buildSpec(editada, likes, valoracion);
 
-        List<ResenaOutDto> result = resenaRepository.findAll(spec).stream()
-                .map(this::toOutDto)
-                .toList();
-        logger.info("Se encontraron {} reseñas", result.size());
-        return result;
+            List<ResenaOutDto> result = likeCounter.read(() -> resenaRepository.findAll(spec).stream()
+                    .map(this::toOutDto)
+                    .toList());
+            logger.info("Se encontraron {} reseñas", result.size());
+            return result;
+        });
     }
 
     @Transactional(readOnly = true)
     public ResenaOutDto findById(long id) throws ResenaNotFoundException {
         logger.debug("Buscando reseña por ID: {}", id);
-        Resena resena = resenaRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.error("Reseña no encontrada: ID {}", id);
-                    return new ResenaNotFoundException();
-                });
-        return toOutDto(resena);
+        return likeCounter.read(() -> withLikes(findCached(id, "Reseña no encontrada: ID {}")));
+    }
+
+    /**
+     * Suma un like sin tocar la fila: va al contador en memoria y se vuelca por lotes
+     * (ver {@link LikeCounter}). La respuesta ya incluye este like.
+     */
+    @Transactional(readOnly = true)
+    public ResenaOutDto like(long id) throws ResenaNotFoundException {
+        logger.debug("Like a reseña ID: {}", id);
+        findCached(id, "Reseña no encontrada para like: ID {}");
+        likeCounter.increment(id);
+        return likeCounter.read(() -> withLikes(findCached(id, "Reseña no encontrada para like: ID {}")));
+    }
+
+    /**
+     * El DTO de la caché, con los likes que había en la BD al cargarlo.
+     */
+    private ResenaOutDto findCached(long id, String notFound) throws ResenaNotFoundException {
+        return entityCaches.resenas().get(id, () -> {
+            Resena resena = resenaRepository.findById(id)
+                    .orElseThrow(() -> {
+                        logger.error(notFound, id);
+                        return new ResenaNotFoundException();
+                    });
+            return toOutDto(resena, 0);
+        });
     }
 
     public ResenaOutDto modify(long id, ResenaInDto dto)
@@ -117,24 +131,21 @@ public class ResenaService {
                     return new ResenaNotFoundException();
                 });
 
-        PuntoInteres punto = puntoInteresRepository.findById(dto.getPuntoId())
-                .orElseThrow(() -> {
-                    logger.error("Punto de interés no encontrado: ID {}", dto.getPuntoId());
-                    return new PuntoInteresNotFoundException();
-                });
+        PuntoInteres punto = findPunto(dto.getPuntoId());
+        Usuario usuario = findUsuario(dto.getUsuarioId());
 
-        Usuario usuario = usuarioRepository.findById(dto.getUsuarioId())
-                .orElseThrow(() -> {
-                    logger.error("Usuario no encontrado: ID {}", dto.getUsuarioId());
-                    return new UsuarioNotFoundException();
-                });
+        PuntoInteres puntoAnterior = existing.getPunto();
+        int valoracionAnterior = existing.getValoracion();
 
-        modelMapper.map(dto, existing);
+        copy(dto, existing);
         existing.setId(id);
         existing.setPunto(punto);
         existing.setUsuario(usuario);
 
         Resena saved = resenaRepository.save(existing);
+        moveValoracion(puntoAnterior, valoracionAnterior, saved);
+        setLikes(id, dto.getLikes());
+        entityCaches.resenas().evict(id);
         logger.info("Reseña modificada exitosamente: ID {}", id);
         return toOutDto(saved);
     }
@@ -149,6 +160,10 @@ public class ResenaService {
                     return new ResenaNotFoundException();
                 });
 
+        PuntoInteres puntoAnterior = resena.getPunto();
+        int valoracionAnterior = resena.getValoracion();
+        Integer likes = null;
+
         for (Map.Entry<String, Object> entry : updates.entrySet()) {
             String campo = entry.getKey();
             Object valor = entry.getValue();
@@ -156,24 +171,14 @@ public class ResenaService {
                 case "puntoId":
                     if (valor instanceof Number n) {
                         long puntoId = n.longValue();
-                        PuntoInteres punto = puntoInteresRepository.findById(puntoId)
-                                .orElseThrow(() -> {
-                                    logger.error("Punto de interés no encontrado: ID {}", puntoId);
-                                    return new PuntoInteresNotFoundException();
-                                });
-                        resena.setPunto(punto);
+                        resena.setPunto(findPunto(puntoId));
                         logger.debug("Relación punto actualizada: ID {}", puntoId);
                     }
                     break;
                 case "usuarioId":
                     if (valor instanceof Number n) {
                         long userId = n.longValue();
-                        Usuario usuario = usuarioRepository.findById(userId)
-                                .orElseThrow(() -> {
-                                    logger.error("Usuario no encontrado: ID {}", userId);
-                                    return new UsuarioNotFoundException();
-                                });
-                        resena.setUsuario(usuario);
+                        resena.setUsuario(findUsuario(userId));
                         logger.debug("Relación usuario actualizada: ID {}", userId);
                     }
                     break;
@@ -191,7 +196,8 @@ public class ResenaService {
                     logger.debug("Campo actualizado: fechaPublicacion = {}", valor);
                     break;
                 case "likes":
-                    resena.setLikes(((Number) valor).intValue());
+                    likes = ((Number) valor).intValue();
+                    resena.setLikes(likes);
                     logger.debug("Campo actualizado: likes = {}", valor);
                     break;
                 case "titulo":
@@ -211,14 +217,120 @@ public class ResenaService {
         }
 
         Resena updated = resenaRepository.save(resena);
+        moveValoracion(puntoAnterior, valoracionAnterior, updated);
+        if (likes != null)
+            setLikes(id, likes);
+        entityCaches.resenas().evict(id);
         logger.info("Reseña actualizada exitosamente con PATCH: ID {}", id);
         return toOutDto(updated);
     }
 
+    /**
+     * Un valor explícito de likes sustituye también a los que aún no se han volcado.
+     */
+    private void setLikes(long id, int likes) {
+        resenaRepository.setLikes(id, likes);
+        likeCounter.discard(id);
+        logger.debug("Likes fijados: reseña ID {}, likes {}", id, likes);
+    }
+
+    /**
+     * La reseña solo guarda el id del punto: si su DTO está en la caché basta una referencia.
+     */
+    private PuntoInteres findPunto(long id) throws PuntoInteresNotFoundException {
+        return entityCaches.puntos().reference(id,
+                () -> puntoInteresRepository.findById(id)
+                        .orElseThrow(() -> {
+                            logger.error("Punto de interés no encontrado: ID {}", id);
+                            return new PuntoInteresNotFoundException();
+                        }),
+                PuntoInteresService::toOutDto, puntoInteresRepository::getReferenceById);
+    }
+
+    private Usuario findUsuario(long id) throws UsuarioNotFoundException {
+        return entityCaches.usuarios().reference(id,
+                () -> usuarioRepository.findById(id)
+                        .orElseThrow(() -> {
+                            logger.error("Usuario no encontrado: ID {}", id);
+                            return new UsuarioNotFoundException();
+                        }),
+                UsuarioService::toOutDto, usuarioRepository::getReferenceById);
+    }
+
+    /**
+     * Mantiene los agregados del punto (total, suma, histograma y media) en la misma transacción
+     * que la reseña, con un delta O(1) en vez de recalcular a partir de todas sus reseñas.
+     */
+    private void applyValoracion(PuntoInteres punto, int valoracion, int delta) {
+        if (punto == null) return;
+        puntoInteresRepository.applyValoracion(punto.getId(), valoracion, delta);
+        entityCaches.puntos().evict(punto.getId());
+        logger.debug("Agregados de valoración actualizados: punto ID {}, valoracion {}, delta {}",
+                punto.getId(), valoracion, delta);
+    }
+
+    private void moveValoracion(PuntoInteres puntoAnterior, int valoracionAnterior, Resena resena) {
+        boolean mismoPunto = puntoAnterior == null ? resena.getPunto() == null
+                : resena.getPunto() != null && puntoAnterior.getId() == resena.getPunto().getId();
+        if (mismoPunto && valoracionAnterior == resena.getValoracion()) return;
+        applyValoracion(puntoAnterior, valoracionAnterior, -1);
+        applyValoracion(resena.getPunto(), resena.getValoracion(), 1);
+    }
+
     private ResenaOutDto toOutDto(Resena resena) {
-        ResenaOutDto out = modelMapper.map(resena, ResenaOutDto.class);
-        out.setPuntoId(resena.getPunto() != null ? resena.getPunto().getId() : null);
-        out.setUsuarioId(resena.getUsuario() != null ? resena.getUsuario().getId() : null);
-        return out;
+        return toOutDto(resena, likeCounter.likes(resena.getId(), resena.getLikes()) - resena.getLikes());
+    }
+
+    /**
+     * El DTO de la caché no se modifica: si los likes no coinciden se devuelve una copia.
+     */
+    private ResenaOutDto withLikes(ResenaOutDto cached) {
+        long likes = likeCounter.likes(cached.getId(), cached.getLikes());
+        if (likes == cached.getLikes()) return cached;
+        return new ResenaOutDto(cached.getId(), cached.getComentario(), cached.isEditada(),
+                cached.getFechaPublicacion(), (int) likes, cached.getTitulo(),
+                cached.getValoracion(), cached.getPuntoId(), cached.getUsuarioId());
+    }
+
+    static Specification<Resena> buildSpec(Boolean editada, Integer likes, Integer valoracion) {
+        Specification<Resena> spec = Specification.where(null);
+
+        if (editada != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("editada"), editada));
+
+        if (likes != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("likes"), likes));
+
+        if (valoracion != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("valoracion"), valoracion));
+
+        return spec;
+    }
+
+    // -------------------- Mapeo --------------------
+
+    static void copy(ResenaInDto dto, Resena resena) {
+        resena.setComentario(dto.getComentario());
+        resena.setEditada(dto.isEditada());
+        resena.setFechaPublicacion(dto.getFechaPublicacion());
+        resena.setLikes(dto.getLikes());
+        resena.setTitulo(dto.getTitulo());
+        resena.setValoracion(dto.getValoracion());
+    }
+
+    /**
+     * @param pendingLikes likes aún en memoria, sin volcar a la BD
+     */
+    static ResenaOutDto toOutDto(Resena resena, long pendingLikes) {
+        return new ResenaOutDto(
+                resena.getId(),
+                resena.getComentario(),
+                resena.isEditada(),
+                resena.getFechaPublicacion(),
+                (int) (resena.getLikes() + pendingLikes),
+                resena.getTitulo(),
+                resena.getValoracion(),
+                resena.getPunto() != null ? resena.getPunto().getId() : null,
+                resena.getUsuario() != null ? resena.getUsuario().getId() : null);
     }
 }
@@ -0,0 +1,92 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.geo.RouteGeometry;
+import com.svalero.rutea.repository.RutaPuntoCoordenadas;
+import com.svalero.rutea.repository.RutaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Recalcula al arrancar la geometría (distanciaKm, caja envolvente y tramos) de todas las rutas.
+ * Se activa con {@code rutea.jobs.ruta-geometry.enabled=true}, p. ej. tras una carga masiva
+ * o para rellenar las rutas creadas antes de que existiera el cálculo en el servidor.
+ * <p>
+ * Recorre la tabla por keyset en lotes de {@link #BATCH_SIZE}, cada uno en su transacción:
+ * una consulta de rutas, una de coordenadas y un único {@link RouteGeometry} reutilizado.
+ */
+@Component
+public class RutaGeometryJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RutaGeometryJob.class);
+
+    static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private RutaRepository rutaRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Value("${rutea.jobs.ruta-geometry.enabled:false}")
+    private boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        recomputeAll();
+    }
+
+    public int recomputeAll() {
+        logger.info("Recalculando la geometría de todas las rutas");
+        long start = System.nanoTime();
+        RouteGeometry geometry = new RouteGeometry();
+
+        int total = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<Ruta> rutas = transactionTemplate.execute(status -> recomputeBatch(from, geometry));
+            if (rutas == null || rutas.isEmpty()) break;
+            total += rutas.size();
+            afterId = rutas.get(rutas.size() - 1).getId();
+            logger.debug("Geometría recalculada hasta la ruta ID {} ({} rutas)", afterId, total);
+        }
+        entityCaches.rutas().evictAll();
+        entityCaches.rutasV2().evictAll();
+
+        logger.info("Geometría recalculada para {} rutas en {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+
+    private List<Ruta> recomputeBatch(long afterId, RouteGeometry geometry) {
+        List<Ruta> rutas = rutaRepository.findBy(
+                (root, query, cb) -> cb.greaterThan(root.get("id"), afterId),
+                q -> q.sortBy(Sort.by("id")).limit(BATCH_SIZE).all());
+        if (rutas.isEmpty()) return rutas;
+
+        List<RutaPuntoCoordenadas> coordenadas =
+                rutaRepository.findCoordenadasByRutaIds(rutas.stream().map(Ruta::getId).toList());
+
+        int next = 0;
+        for (Ruta ruta : rutas) {
+            geometry.reset();
+            while (next < coordenadas.size() && coordenadas.get(next).rutaId() == ruta.getId()) {
+                RutaPuntoCoordenadas c = coordenadas.get(next++);
+                geometry.add(c.latitud(), c.longitud());
+            }
+            RutaService.applyGeometry(ruta, geometry);
+        }
+        return rutas;
+    }
+}
@@ -3,36 +3,59 @@ package com.svalero.rutea.service;
 import com.svalero.rutea.domain.PuntoInteres;
 import com.svalero.rutea.domain.Ruta;
 import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.CursorPage;
 import com.svalero.rutea.dto.RutaInDto;
 import com.svalero.rutea.dto.RutaInDtoV2;
 import com.svalero.rutea.dto.RutaOutDto;
+import com.svalero.rutea.dto.RutaOptimizacionOutDto;
 import com.svalero.rutea.dto.RutaOutDtoV2;
+import com.svalero.rutea.exception.InvalidCursorException;
 import com.svalero.rutea.exception.PuntoInteresNotFoundException;
 import com.svalero.rutea.exception.RutaNotFoundException;
+import com.svalero.rutea.exception.TooManyPuntosException;
 import com.svalero.rutea.exception.UsuarioNotFoundException;
+import com.svalero.rutea.geo.RouteGeometry;
+import com.svalero.rutea.geo.RouteOptimizer;
 import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.RutaPuntoRef;
 import com.svalero.rutea.repository.RutaRepository;
 import com.svalero.rutea.repository.UsuarioRepository;
-import org.modelmapper.ModelMapper;
+import com.svalero.rutea.search.EtiquetaIndex;
+import com.svalero.rutea.search.SearchIndex;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("rutea.service")
 @Transactional
 public class RutaService {
 
     private static final Logger logger = LoggerFactory.getLogger(RutaService.class);
 
+    // Máximo de puntos por ruta, el mismo @Size de puntosIds de los DTO. PATCH no pasa por su validación
+    // y lo comprueba aparte; optimize lo exige también porque reserva una matriz de n * n distancias
+    public static final int MAX_PUNTOS = 500;
+    // ids por consulta IN al resolver puntos
+    static final int PUNTOS_CHUNK_SIZE = 500;
+    // ids candidatos que revisa cada página al filtrar por etiquetas, en una sola consulta IN
+    static final int ETIQUETAS_CHUNK_SIZE = 500;
+
     @Autowired
     private RutaRepository rutaRepository;
     @Autowired
@@ -40,22 +63,31 @@ public class RutaService {
     @Autowired
     private PuntoInteresRepository puntoInteresRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private SearchIndex searchIndex;
+    @Autowired
+    private EtiquetaService etiquetaService;
+    @Autowired
+    private EtiquetaIndex etiquetaIndex;
+    @Autowired
+    private EntityCaches entityCaches;
+
+    @Value("${rutea.optimize.time-budget-ms:200}")
+    private long optimizeTimeBudgetMs;
 
     public RutaOutDto add(RutaInDto dto) throws UsuarioNotFoundException, PuntoInteresNotFoundException {
         logger.info("Creando nueva ruta: {}", dto.getTitulo());
 
-        Usuario usuario = usuarioRepository.findById(dto.getUsuarioId())
-                .orElseThrow(() -> {
-                    logger.error("Usuario no encontrado: ID {}", dto.getUsuarioId());
-                    return new UsuarioNotFoundException();
-                });
+        Usuario usuario = findUsuario(dto.getUsuarioId());
 
-        Ruta ruta = modelMapper.map(dto, Ruta.class);
+        Ruta ruta = new Ruta();
+        copy(dto, ruta);
         ruta.setUsuario(usuario);
         ruta.setPuntos(fetchPuntos(dto.getPuntosIds()));
+        updateGeometry(ruta);
+        etiquetaService.sync(ruta);
 
         Ruta saved = rutaRepository.save(ruta);
+        indexAfterCommit(saved);
         logger.info("Ruta creada exitosamente con ID: {}", saved.getId());
         return toOutDto(saved);
     }
@@ -68,65 +100,66 @@ public class RutaService {
                     return new RutaNotFoundException();
                 });
         rutaRepository.delete(ruta);
+        entityCaches.evictRuta(id);
+        AfterCommit.run(() -> {
+            searchIndex.remove(SearchIndex.Tipo.RUTA, id);
+            etiquetaIndex.remove(id);
+        });
         logger.info("Ruta eliminada exitosamente: ID {}", id);
     }
 
     @Transactional(readOnly = true)
-    public List<RutaOutDto> findAll(String dificultad, Boolean publica, String titulo) {
-        logger.debug("Buscando rutas con filtros: dificultad={}, publica={}, titulo={}",
-                dificultad, publica, titulo);
-
-        Specification<Ruta> spec = Specification.where(
-                (root, query, cb) -> cb.isFalse(root.get("eliminada")));
-
-        if (dificultad != null && !dificultad.isBlank()) {
-            String pattern = "%" + dificultad.toLowerCase() + "%";
-            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("dificultad")), pattern));
-        }
-
-        if (publica != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("publica"), publica));
-
-        if (titulo != null && !titulo.isBlank()) {
-            String pattern = "%" + titulo.toLowerCase() + "%";
-            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("titulo")), pattern));
-        }
-
-        List<RutaOutDto> result = rutaRepository.findAll(spec).stream()
-                .map(this::toOutDto)
-                .toList();
-        logger.info("Se encontraron {} rutas", result.size());
-        return result;
+    public CursorPage<RutaOutDto> findAll(String dificultad, Boolean publica, String titulo,
+                                          String after, Integer limit) throws InvalidCursorException {
+        logger.debug("Buscando rutas con filtros: dificultad={}, publica={}, titulo={}, after={}, limit={}",
+                dificultad, publica, titulo, after, limit);
+
+        return entityCaches.rutas().query(Arrays.asList(dificultad, publica, titulo, after, limit), () -> {
+            int pageSize = PageCursor.clampLimit(limit);
+            List<Ruta> rutas = findPage(buildSpec(dificultad, publica, titulo), PageCursor.decode(after), pageSize);
+
+            List<Ruta> page = rutas.subList(0, Math.min(rutas.size(), pageSize));
+            Map<Long, List<Long>> puntosIds = loadPuntosIds(page);
+            List<RutaOutDto> result = page.stream()
+                    .map(ruta -> toOutDto(ruta, puntosIds.getOrDefault(ruta.getId(), List.of())))
+                    .toList();
+            logger.info("Se encontraron {} rutas", result.size());
+            return new CursorPage<>(result, nextCursor(rutas, pageSize));
+        });
     }
 
     @Transactional(readOnly = true)
     public RutaOutDto findById(long id) throws RutaNotFoundException {
         logger.debug("Buscando ruta por ID: {}", id);
-        Ruta ruta = rutaRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.error("Ruta no encontrada: ID {}", id);
-                    return new RutaNotFoundException();
-                });
-        if (ruta.isEliminada()) {
-            logger.error("Ruta no encontrada (eliminada): ID {}", id);
-            throw new RutaNotFoundException();
-        }
-        return toOutDto(ruta);
+        return entityCaches.rutas().get(id, () -> {
+            Ruta ruta = rutaRepository.findById(id)
+                    .orElseThrow(() -> {
+                        logger.error("Ruta no encontrada: ID {}", id);
+                        return new RutaNotFoundException();
+                    });
+            if (ruta.isEliminada()) {
+                logger.error("Ruta no encontrada (eliminada): ID {}", id);
+                throw new RutaNotFoundException();
+            }
+            return toOutDto(ruta);
+        });
     }
 
     @Transactional(readOnly = true)
     public RutaOutDtoV2 findByIdV2(long id) throws RutaNotFoundException {
         logger.debug("Buscando ruta v2 por ID: {}", id);
-        Ruta ruta = rutaRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.error("Ruta no encontrada v2: ID {}", id);
-                    return new RutaNotFoundException();
-                });
-        if (ruta.isEliminada()) {
-            logger.error("Ruta no encontrada v2 (eliminada): ID {}", id);
-            throw new RutaNotFoundException();
-        }
-        return toOutDtoV2(ruta);
+        return entityCaches.rutasV2().get(id, () -> {
+            Ruta ruta = rutaRepository.findById(id)
+                    .orElseThrow(() -> {
+                        logger.error("Ruta no encontrada v2: ID {}", id);
+                        return new RutaNotFoundException();
+                    });
+            if (ruta.isEliminada()) {
+                logger.error("Ruta no encontrada v2 (eliminada): ID {}", id);
+                throw new RutaNotFoundException();
+            }
+            return toOutDtoV2(ruta);
+        });
     }
 
     public RutaOutDto modify(long id, RutaInDto dto)
@@ -143,24 +176,24 @@ public class RutaService {
             throw new RutaNotFoundException();
         }
 
-        Usuario usuario = usuarioRepository.findById(dto.getUsuarioId())
-                .orElseThrow(() -> {
-                    logger.error("Usuario no encontrado: ID {}", dto.getUsuarioId());
-                    return new UsuarioNotFoundException();
-                });
+        Usuario usuario = findUsuario(dto.getUsuarioId());
 
-        modelMapper.map(dto, existing);
+        copy(dto, existing);
         existing.setId(id);
         existing.setUsuario(usuario);
-        existing.setPuntos(fetchPuntos(dto.getPuntosIds()));
+        replacePuntos(existing, fetchPuntos(dto.getPuntosIds()));
+        updateGeometry(existing);
+        etiquetaService.sync(existing);
 
         Ruta saved = rutaRepository.save(existing);
+        indexAfterCommit(saved);
         logger.info("Ruta modificada exitosamente: ID {}", id);
         return toOutDto(saved);
     }
 
     public RutaOutDto patch(long id, Map<String, Object> updates)
-            throws RutaNotFoundException, UsuarioNotFoundException, PuntoInteresNotFoundException {
+            throws RutaNotFoundException, UsuarioNotFoundException, PuntoInteresNotFoundException,
+            TooManyPuntosException {
         logger.info("Aplicando PATCH a ruta ID: {} con {} campos", id, updates.size());
 
         Ruta ruta = rutaRepository.findById(id)
@@ -180,12 +213,7 @@ public class RutaService {
                 case "usuarioId":
                     if (valor instanceof Number n) {
                         long userId = n.longValue();
-                        Usuario usuario = usuarioRepository.findById(userId)
-                                .orElseThrow(() -> {
-                                    logger.error("Usuario no encontrado: ID {}", userId);
-                                    return new UsuarioNotFoundException();
-                                });
-                        ruta.setUsuario(usuario);
+                        ruta.setUsuario(findUsuario(userId));
                         logger.debug("Relación usuario actualizada: ID {}", userId);
                     }
                     break;
@@ -195,104 +223,202 @@ public class RutaService {
                                 .filter(o -> o instanceof Number)
                                 .map(o -> ((Number) o).longValue())
                                 .collect(Collectors.toList());
-                        ruta.setPuntos(fetchPuntos(ids));
+                        if (ids.size() > MAX_PUNTOS) {
+                            logger.error("PATCH de ruta ID {} con demasiados puntos: {}", id, ids.size());
+                            throw new TooManyPuntosException(MAX_PUNTOS);
+                        }
+                        replacePuntos(ruta, fetchPuntos(ids));
                         logger.debug("Relación puntos actualizada: {} puntos", ids.size());
                     }
                     break;
-                case "dificultad":
-                    ruta.setDificultad((String) valor);
-                    logger.debug("Campo actualizado: dificultad = {}", valor);
-                    break;
-                case "distanciaKm":
-                    ruta.setDistanciaKm(((Number) valor).floatValue());
-                    logger.debug("Campo actualizado: distanciaKm = {}", valor);
-                    break;
-                case "duracionMinutos":
-                    ruta.setDuracionMinutos(((Number) valor).intValue());
-                    logger.debug("Campo actualizado: duracionMinutos = {}", valor);
-                    break;
-                case "fechaRealizacion":
-                    if (valor instanceof String s)
-                        ruta.setFechaRealizacion(LocalDate.parse(s));
-                    logger.debug("Campo actualizado: fechaRealizacion = {}", valor);
-                    break;
-                case "publica":
-                    ruta.setPublica((Boolean) valor);
-                    logger.debug("Campo actualizado: publica = {}", valor);
-                    break;
-                case "titulo":
-                    ruta.setTitulo((String) valor);
-                    logger.debug("Campo actualizado: titulo = {}", valor);
-                    break;
-                case "id":
-                    logger.debug("Ignorando campo 'id' en PATCH");
-                    break;
                 default:
-                    logger.warn("Campo desconocido ignorado en PATCH: {}", campo);
+                    applyCampo(ruta, campo, valor);
             }
         }
 
+        // distanciaKm la dicta el recorrido: se recalcula también si el PATCH solo trae distanciaKm
+        if (updates.containsKey("puntosIds") || updates.containsKey("distanciaKm"))
+            updateGeometry(ruta);
+
         Ruta updated = rutaRepository.save(ruta);
+        indexAfterCommit(updated);
         logger.info("Ruta actualizada exitosamente con PATCH: ID {}", id);
         return toOutDto(updated);
     }
 
+    /**
+     * Aplica al PATCH un campo que no es una relación. Los campos desconocidos se ignoran.
+     */
+    static void applyCampo(Ruta ruta, String campo, Object valor) {
+        switch (campo) {
+            case "dificultad":
+                ruta.setDificultad((String) valor);
+                logger.debug("Campo actualizado: dificultad = {}", valor);
+                break;
+            case "distanciaKm":
+                ruta.setDistanciaKm(((Number) valor).floatValue());
+                logger.debug("Campo actualizado: distanciaKm = {}", valor);
+                break;
+            case "duracionMinutos":
+                ruta.setDuracionMinutos(((Number) valor).intValue());
+                logger.debug("Campo actualizado: duracionMinutos = {}", valor);
+                break;
+            case "fechaRealizacion":
+                if (valor instanceof String s)
+                    ruta.setFechaRealizacion(LocalDate.parse(s));
+                logger.debug("Campo actualizado: fechaRealizacion = {}", valor);
+                break;
+            case "publica":
+                ruta.setPublica((Boolean) valor);
+                logger.debug("Campo actualizado: publica = {}", valor);
+                break;
+            case "titulo":
+                ruta.setTitulo((String) valor);
+                logger.debug("Campo actualizado: titulo = {}", valor);
+                break;
+            case "id":
+                logger.debug("Ignorando campo 'id' en PATCH");
+                break;
+            default:
+                logger.warn("Campo desconocido ignorado en PATCH: {}", campo);
+        }
+    }
+
+    /**
+     * Resuelve los puntos con consultas IN (troceadas en bloques de {@link #PUNTOS_CHUNK_SIZE})
+     * en lugar de un findById por punto. Respeta el orden y los duplicados de la lista original
+     * y, si faltan puntos, la excepción informa de todos los ids que no existen.
+     */
     private List<PuntoInteres> fetchPuntos(List<Long> puntosIds) throws PuntoInteresNotFoundException {
         if (puntosIds == null || puntosIds.isEmpty()) return new ArrayList<>();
-        List<PuntoInteres> puntos = new ArrayList<>();
-        for (Long pid : puntosIds) {
-            PuntoInteres p = puntoInteresRepository.findById(pid)
-                    .orElseThrow(() -> {
-                        logger.error("Punto de interés no encontrado: ID {}", pid);
-                        return new PuntoInteresNotFoundException();
-                    });
-            puntos.add(p);
+
+        List<Long> distinctIds = puntosIds.stream().distinct().toList();
+        Map<Long, PuntoInteres> byId = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += PUNTOS_CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + PUNTOS_CHUNK_SIZE, distinctIds.size()));
+            puntoInteresRepository.findAllById(chunk).forEach(p -> byId.put(p.getId(), p));
         }
+
+        List<Long> missing = distinctIds.stream().filter(pid -> !byId.containsKey(pid)).toList();
+        if (!missing.isEmpty()) {
+            logger.error("Puntos de interés no encontrados: IDs {}", missing);
+            throw new PuntoInteresNotFoundException("PuntoInteres not found: " + missing);
+        }
+
+        List<PuntoInteres> puntos = new ArrayList<>(puntosIds.size());
+        for (Long pid : puntosIds)
+            puntos.add(byId.get(pid));
         return puntos;
     }
 
-    // -------------------- V2 --------------------
+    /**
+     * Deja en la colección gestionada exactamente los puntos indicados, modificándola en el sitio.
+     * Con la columna posicion, Hibernate compara posición a posición con la foto cargada y solo
+     * escribe las filas que cambian: añadir al final es un INSERT, quitar el último un DELETE y
+     * mover un punto actualiza las posiciones entre el origen y el destino. Un setPuntos con una
+     * lista nueva, en cambio, borra y reinserta la colección entera.
+     */
+    private void replacePuntos(Ruta ruta, List<PuntoInteres> nuevos) {
+        List<PuntoInteres> actuales = ruta.getPuntos();
+        if (actuales == null) {
+            ruta.setPuntos(nuevos);
+            return;
+        }
 
-    @Transactional(readOnly = true)
-    public List<RutaOutDtoV2> findAllV2(String dificultad, Boolean publica, String titulo) {
-        logger.debug("Buscando rutas v2 con filtros: dificultad={}, publica={}, titulo={}",
-                dificultad, publica, titulo);
+        int common = Math.min(actuales.size(), nuevos.size());
+        for (int i = 0; i < common; i++) {
+            if (actuales.get(i).getId() != nuevos.get(i).getId())
+                actuales.set(i, nuevos.get(i));
+        }
+        while (actuales.size() > nuevos.size())
+            actuales.remove(actuales.size() - 1);
+        for (int i = common; i < nuevos.size(); i++)
+            actuales.add(nuevos.get(i));
+    }
 
-        Specification<Ruta> spec = Specification.where(
-                (root, query, cb) -> cb.isFalse(root.get("eliminada")));
+    private void updateGeometry(Ruta ruta) {
+        RouteGeometry geometry = new RouteGeometry();
+        if (ruta.getPuntos() != null)
+            for (PuntoInteres punto : ruta.getPuntos())
+                geometry.add(punto.getLatitud(), punto.getLongitud());
+        applyGeometry(ruta, geometry);
+    }
 
-        if (dificultad != null && !dificultad.isBlank()) {
-            String pattern = "%" + dificultad.toLowerCase() + "%";
-            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("dificultad")), pattern));
-        }
-        if (publica != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("publica"), publica));
-        if (titulo != null && !titulo.isBlank()) {
-            String pattern = "%" + titulo.toLowerCase() + "%";
-            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("titulo")), pattern));
+    /**
+     * Copia la geometría calculada a la ruta. Con al menos dos puntos, distanciaKm pasa a ser
+     * la longitud real del recorrido y se ignora la que envió el cliente.
+     */
+    static void applyGeometry(Ruta ruta, RouteGeometry geometry) {
+        if (geometry.size() == 0) {
+            ruta.setBboxMinLat(null);
+            ruta.setBboxMinLon(null);
+            ruta.setBboxMaxLat(null);
+            ruta.setBboxMaxLon(null);
+            ruta.setTramosKm(null);
+            return;
         }
+        ruta.setBboxMinLat(geometry.minLat());
+        ruta.setBboxMinLon(geometry.minLon());
+        ruta.setBboxMaxLat(geometry.maxLat());
+        ruta.setBboxMaxLon(geometry.maxLon());
+        ruta.setTramosKm(geometry.legsKm());
+        if (geometry.size() >= 2)
+            ruta.setDistanciaKm((float) geometry.totalKm());
+    }
 
-        List<RutaOutDtoV2> result = rutaRepository.findAll(spec).stream()
-                .map(this::toOutDtoV2)
-                .toList();
-        logger.info("Se encontraron {} rutas (v2)", result.size());
-        return result;
+    // -------------------- V2 --------------------
+
+    /**
+     * Como findAll, y además filtra por etiquetas: las que tengan todas ({@code todas}) o alguna.
+     * El {@link EtiquetaIndex} da los ids candidatos ya ordenados y la BD aplica el resto de
+     * filtros sobre un bloque de ellos por página; con filtros muy selectivos una página puede
+     * traer menos de {@code limit} rutas y aun así tener siguiente.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<RutaOutDtoV2> findAllV2(String dificultad, Boolean publica, String titulo,
+                                              List<String> etiquetas, boolean todas,
+                                              String after, Integer limit) throws InvalidCursorException {
+        logger.debug("Buscando rutas v2 con filtros: dificultad={}, publica={}, titulo={}, etiquetas={} ({}), after={}, limit={}",
+                dificultad, publica, titulo, etiquetas, todas ? "todas" : "alguna", after, limit);
+
+        List<Object> key = Arrays.asList(dificultad, publica, titulo, etiquetas, todas, after, limit);
+        return entityCaches.rutasV2().query(key, () -> {
+            int pageSize = PageCursor.clampLimit(limit);
+            Specification<Ruta> spec = buildSpec(dificultad, publica, titulo);
+            Long afterId = PageCursor.decode(after);
+            RutaPage found;
+            if (etiquetas == null || etiquetas.isEmpty()) {
+                List<Ruta> rutas = findPage(spec, afterId, pageSize);
+                found = new RutaPage(rutas, nextCursor(rutas, pageSize));
+            } else {
+                found = findPage(spec, etiquetaIndex.match(etiquetas, todas), afterId, pageSize);
+            }
+
+            List<Ruta> rutas = found.rutas();
+            List<Ruta> page = rutas.subList(0, Math.min(rutas.size(), pageSize));
+            Map<Long, List<Long>> puntosIds = loadPuntosIds(page);
+            List<RutaOutDtoV2> result = page.stream()
+                    .map(ruta -> toOutDtoV2(ruta, puntosIds.getOrDefault(ruta.getId(), List.of())))
+                    .toList();
+            logger.info("Se encontraron {} rutas (v2)", result.size());
+            return new CursorPage<>(result, found.nextCursor());
+        });
     }
 
     public RutaOutDtoV2 addV2(RutaInDtoV2 dto) throws UsuarioNotFoundException, PuntoInteresNotFoundException {
         logger.info("Creando nueva ruta v2: {}", dto.getTitulo());
 
-        Usuario usuario = usuarioRepository.findById(dto.getUsuarioId())
-                .orElseThrow(() -> {
-                    logger.error("Usuario no encontrado: ID {}", dto.getUsuarioId());
-                    return new UsuarioNotFoundException();
-                });
+        Usuario usuario = findUsuario(dto.getUsuarioId());
 
-        Ruta ruta = modelMapper.map(dto, Ruta.class);
+        Ruta ruta = new Ruta();
+        copy(dto, ruta);
         ruta.setUsuario(usuario);
         ruta.setPuntos(fetchPuntos(dto.getPuntosIds()));
+        updateGeometry(ruta);
+        etiquetaService.sync(ruta);
 
         Ruta saved = rutaRepository.save(ruta);
+        indexAfterCommit(saved);
         logger.info("Ruta v2 creada exitosamente con ID: {}", saved.getId());
         return toOutDtoV2(saved);
     }
@@ -311,22 +437,76 @@ public class RutaService {
             throw new RutaNotFoundException();
         }
 
-        Usuario usuario = usuarioRepository.findById(dto.getUsuarioId())
-                .orElseThrow(() -> {
-                    logger.error("Usuario no encontrado: ID {}", dto.getUsuarioId());
-                    return new UsuarioNotFoundException();
-                });
+        Usuario usuario = findUsuario(dto.getUsuarioId());
 
-        modelMapper.map(dto, existing);
+        copy(dto, existing);
         existing.setId(id);
         existing.setUsuario(usuario);
-        existing.setPuntos(fetchPuntos(dto.getPuntosIds()));
+        replacePuntos(existing, fetchPuntos(dto.getPuntosIds()));
+        updateGeometry(existing);
+        etiquetaService.sync(existing);
 
         Ruta saved = rutaRepository.save(existing);
+        indexAfterCommit(saved);
         logger.info("Ruta v2 modificada exitosamente: ID {}", id);
         return toOutDtoV2(saved);
     }
 
+    /**
+     * Propone un orden de puntos más corto (ver {@link RouteOptimizer}) manteniendo el primero
+     * como salida. Con {@code persist} y si hay mejora, lo guarda igual que modifyV2. Las rutas de
+     * más de {@link #MAX_PUNTOS} puntos (anteriores al límite de PATCH) se rechazan.
+     */
+    public RutaOptimizacionOutDto optimizeV2(long id, boolean persist)
+            throws RutaNotFoundException, TooManyPuntosException {
+        logger.info("Optimizando orden de puntos de la ruta v2 ID: {} (guardar={})", id, persist);
+
+        Ruta ruta = rutaRepository.findById(id)
+                .orElseThrow(() -> {
+                    logger.error("Ruta no encontrada para optimizar: ID {}", id);
+                    return new RutaNotFoundException();
+                });
+        if (ruta.isEliminada()) {
+            logger.error("Ruta no encontrada para optimizar (eliminada): ID {}", id);
+            throw new RutaNotFoundException();
+        }
+
+        List<PuntoInteres> puntos = ruta.getPuntos() == null ? List.of() : ruta.getPuntos();
+        int n = puntos.size();
+        if (n > MAX_PUNTOS) {
+            logger.error("Ruta ID {} con demasiados puntos para optimizar: {}", id, n);
+            throw new TooManyPuntosException(MAX_PUNTOS);
+        }
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = puntos.get(i).getLatitud();
+            lons[i] = puntos.get(i).getLongitud();
+        }
+        RouteOptimizer.Result result = RouteOptimizer.optimize(lats, lons, n,
+                TimeUnit.MILLISECONDS.toNanos(optimizeTimeBudgetMs));
+
+        List<PuntoInteres> ordenados = new ArrayList<>(n);
+        for (int i : result.order())
+            ordenados.add(puntos.get(i));
+
+        boolean guardada = persist && result.improved();
+        if (guardada) {
+            replacePuntos(ruta, ordenados);
+            updateGeometry(ruta);
+            rutaRepository.save(ruta);
+            entityCaches.evictRuta(id);
+            logger.info("Nuevo orden guardado para la ruta ID {}: {} km -> {} km", id,
+                    result.beforeKm(), result.afterKm());
+        } else {
+            logger.debug("Orden propuesto para la ruta ID {}: {} km -> {} km", id,
+                    result.beforeKm(), result.afterKm());
+        }
+
+        return new RutaOptimizacionOutDto(id, result.beforeKm(), result.afterKm(),
+                ordenados.stream().map(PuntoInteres::getId).toList(), guardada);
+    }
+
     public void softDelete(long id) throws RutaNotFoundException {
         logger.info("Soft-delete ruta ID: {}", id);
         Ruta ruta = rutaRepository.findById(id)
@@ -340,26 +520,196 @@ public class RutaService {
         }
         ruta.setEliminada(true);
         rutaRepository.save(ruta);
+        entityCaches.evictRuta(id);
+        AfterCommit.run(() -> {
+            searchIndex.remove(SearchIndex.Tipo.RUTA, id);
+            etiquetaIndex.remove(id);
+        });
         logger.info("Ruta marcada como eliminada: ID {}", id);
     }
 
     // -------------------- Helpers --------------------
 
-    private RutaOutDto toOutDto(Ruta ruta) {
-        RutaOutDto out = modelMapper.map(ruta, RutaOutDto.class);
-        out.setUsuarioId(ruta.getUsuario() != null ? ruta.getUsuario().getId() : null);
-        out.setPuntosIds(ruta.getPuntos() == null ? List.of() :
-                ruta.getPuntos().stream().map(PuntoInteres::getId).collect(Collectors.toList()));
-        return out;
+    /**
+     * Tras guardar una ruta: la reindexa e invalida su caché al confirmar.
+     */
+    private void indexAfterCommit(Ruta ruta) {
+        long id = ruta.getId();
+        String titulo = ruta.getTitulo();
+        String etiquetas = ruta.getEtiquetas();
+        entityCaches.evictRuta(id);
+        if (ruta.isEliminada()) {
+            AfterCommit.run(() -> {
+                searchIndex.remove(SearchIndex.Tipo.RUTA, id);
+                etiquetaIndex.remove(id);
+            });
+            return;
+        }
+        Map<String, Long> etiquetaIds = EtiquetaService.etiquetaIds(ruta);
+        AfterCommit.run(() -> {
+            searchIndex.put(SearchIndex.Tipo.RUTA, id, titulo, etiquetas);
+            etiquetaIndex.put(id, etiquetaIds);
+        });
+    }
+
+    /**
+     * La ruta solo guarda el id del usuario: si su DTO está en la caché basta una referencia.
+     */
+    private Usuario findUsuario(long id) throws UsuarioNotFoundException {
+        return entityCaches.usuarios().reference(id,
+                () -> usuarioRepository.findById(id)
+                        .orElseThrow(() -> {
+                            logger.error("Usuario no encontrado: ID {}", id);
+                            return new UsuarioNotFoundException();
+                        }),
+                UsuarioService::toOutDto, usuarioRepository::getReferenceById);
+    }
+
+    static Specification<Ruta> buildSpec(String dificultad, Boolean publica, String titulo) {
+        Specification<Ruta> spec = Specification.where(
+                (root, query, cb) -> cb.isFalse(root.get("eliminada")));
+
+        if (dificultad != null && !dificultad.isBlank()) {
+            String pattern = "%" + dificultad.toLowerCase() + "%";
+            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("dificultad")), pattern));
+        }
+        if (publica != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("publica"), publica));
+        if (titulo != null && !titulo.isBlank()) {
+            String pattern = "%" + titulo.toLowerCase() + "%";
+            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("titulo")), pattern));
+        }
+        return spec;
+    }
+
+    /**
+     * Keyset: "id > cursor ORDER BY id LIMIT n+1", sin OFFSET ni count.
+     * La fila extra solo sirve para saber si hay página siguiente.
+     */
+    private List<Ruta> findPage(Specification<Ruta> spec, Long afterId, int pageSize) {
+        if (afterId != null)
+            spec = spec.and((root, query, cb) -> cb.greaterThan(root.get("id"), afterId));
+        return rutaRepository.findBy(spec, q -> q.sortBy(Sort.by("id")).limit(pageSize + 1).all());
+    }
+
+    /**
+     * Página de rutas y cursor de la siguiente (null si no hay más).
+     */
+    private record RutaPage(List<Ruta> rutas, String nextCursor) {
+    }
+
+    /**
+     * Keyset sobre una lista ordenada de ids candidatos: desde el primero mayor que el cursor,
+     * una sola consulta "id IN (bloque) ORDER BY id LIMIT pageSize + 1" con los siguientes
+     * {@link #ETIQUETAS_CHUNK_SIZE} candidatos, como la de findPage sin etiquetas. Si el resto
+     * de filtros deja menos de pageSize + 1 rutas en el bloque y quedan candidatos, la página sale
+     * corta (o vacía) con el cursor en el último candidato revisado: el número de consultas por
+     * petición no depende de lo selectivos que sean los filtros.
+     */
+    private RutaPage findPage(Specification<Ruta> spec, long[] candidatos, Long afterId, int pageSize) {
+        int from = 0;
+        if (afterId != null) {
+            int idx = Arrays.binarySearch(candidatos, afterId);
+            from = idx >= 0 ? idx + 1 : -idx - 1;
+        }
+        if (from >= candidatos.length) return new RutaPage(List.of(), null);
+
+        int to = Math.min(from + ETIQUETAS_CHUNK_SIZE, candidatos.length);
+        List<Long> chunk = Arrays.stream(candidatos, from, to).boxed().toList();
+        List<Ruta> rutas = rutaRepository.findBy(spec.and((root, query, cb) -> root.get("id").in(chunk)),
+                q -> q.sortBy(Sort.by("id")).limit(pageSize + 1).all());
+        if (rutas.size() <= pageSize && to < candidatos.length)
+            return new RutaPage(rutas, PageCursor.encode(candidatos[to - 1]));
+        return new RutaPage(rutas, nextCursor(rutas, pageSize));
+    }
+
+    private String nextCursor(List<Ruta> rutas, int pageSize) {
+        return rutas.size() > pageSize ? PageCursor.encode(rutas.get(pageSize - 1).getId()) : null;
+    }
+
+    /**
+     * Ids de los puntos de todas las rutas de la página en una sola consulta,
+     * en lugar de inicializar ruta.getPuntos() una vez por ruta (N+1).
+     */
+    private Map<Long, List<Long>> loadPuntosIds(List<Ruta> rutas) {
+        if (rutas.isEmpty()) return Map.of();
+        List<Long> rutaIds = rutas.stream().map(Ruta::getId).toList();
+        Map<Long, List<Long>> puntosIds = new HashMap<>();
+        for (RutaPuntoRef ref : rutaRepository.findPuntoIdsByRutaIds(rutaIds))
+            puntosIds.computeIfAbsent(ref.rutaId(), k -> new ArrayList<>()).add(ref.puntoId());
+        return puntosIds;
+    }
+
+    // -------------------- Mapeo --------------------
+    // A mano y sin reflexión: están en el camino de todos los listados. Las relaciones
+    // (usuario, puntos) las resuelve el servicio.
+
+    static void copy(RutaInDto dto, Ruta ruta) {
+        ruta.setDificultad(dto.getDificultad());
+        ruta.setDistanciaKm(dto.getDistanciaKm());
+        ruta.setDuracionMinutos(dto.getDuracionMinutos());
+        ruta.setFechaRealizacion(dto.getFechaRealizacion());
+        ruta.setPublica(dto.isPublica());
+        ruta.setTitulo(dto.getTitulo());
+    }
+
+    static void copy(RutaInDtoV2 dto, Ruta ruta) {
+        ruta.setDificultad(dto.getDificultad());
+        ruta.setDistanciaKm(dto.getDistanciaKm());
+        ruta.setDuracionMinutos(dto.getDuracionMinutos());
+        ruta.setFechaRealizacion(dto.getFechaRealizacion());
+        ruta.setPublica(dto.isPublica());
+        ruta.setTitulo(dto.getTitulo());
+        ruta.setEtiquetas(dto.getEtiquetas());
+    }
+
+    private static List<Long> puntosIds(Ruta ruta) {
+        if (ruta.getPuntos() == null) return List.of();
+        List<Long> ids = new ArrayList<>(ruta.getPuntos().size());
+        for (PuntoInteres punto : ruta.getPuntos())
+            ids.add(punto.getId());
+        return ids;
+    }
+
+    static RutaOutDto toOutDto(Ruta ruta) {
+        return toOutDto(ruta, puntosIds(ruta));
+    }
+
+    static RutaOutDto toOutDto(Ruta ruta, List<Long> puntosIds) {
+        return new RutaOutDto(
+                ruta.getId(),
+                ruta.getDificultad(),
+                ruta.getDistanciaKm(),
+                ruta.getDuracionMinutos(),
+                ruta.getFechaRealizacion(),
+                ruta.isPublica(),
+                ruta.getTitulo(),
+                ruta.getUsuario() != null ? ruta.getUsuario().getId() : null,
+                puntosIds);
+    }
+
+    static RutaOutDtoV2 toOutDtoV2(Ruta ruta) {
+        return toOutDtoV2(ruta, puntosIds(ruta));
     }
 
-    private RutaOutDtoV2 toOutDtoV2(Ruta ruta) {
-        RutaOutDtoV2 out = modelMapper.map(ruta, RutaOutDtoV2.class);
+    static RutaOutDtoV2 toOutDtoV2(Ruta ruta, List<Long> puntosIds) {
+        RutaOutDtoV2 out = new RutaOutDtoV2();
+        out.setId(ruta.getId());
+        out.setDificultad(ruta.getDificultad());
+        out.setDistanciaKm(ruta.getDistanciaKm());
+        out.setDuracionMinutos(ruta.getDuracionMinutos());
+        out.setFechaRealizacion(ruta.getFechaRealizacion());
+        out.setPublica(ruta.isPublica());
+        out.setTitulo(ruta.getTitulo());
         out.setUsuarioId(ruta.getUsuario() != null ? ruta.getUsuario().getId() : null);
-        List<Long> puntosIds = ruta.getPuntos() == null ? List.of() :
-                ruta.getPuntos().stream().map(PuntoInteres::getId).collect(Collectors.toList());
         out.setPuntosIds(puntosIds);
+        out.setEtiquetas(ruta.getEtiquetas());
         out.setTotalPuntos(puntosIds.size());
+        out.setBboxMinLat(ruta.getBboxMinLat());
+        out.setBboxMinLon(ruta.getBboxMinLon());
+        out.setBboxMaxLat(ruta.getBboxMaxLat());
+        out.setBboxMaxLon(ruta.getBboxMaxLon());
+        out.setTramosKm(ruta.getTramosKm());
         return out;
     }
 }
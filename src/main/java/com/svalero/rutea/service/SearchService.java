@@ -0,0 +1,103 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.dto.CursorPage;
+import com.svalero.rutea.dto.SearchHitOutDto;
+import com.svalero.rutea.exception.InvalidCursorException;
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.PuntoNombre;
+import com.svalero.rutea.repository.RutaRepository;
+import com.svalero.rutea.repository.RutaTexto;
+import com.svalero.rutea.repository.SearchTitulo;
+import com.svalero.rutea.search.SearchIndex;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Búsqueda de texto sobre rutas y puntos de interés con el índice invertido en memoria
+ * ({@link SearchIndex}). RutaService y PuntoInteresService lo mantienen al día en cada escritura.
+ */
+@Service
+@Timed("rutea.service")
+@Transactional(readOnly = true)
+public class SearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private RutaRepository rutaRepository;
+    @Autowired
+    private PuntoInteresRepository puntoInteresRepository;
+
+    /**
+     * Carga el índice al arrancar recorriendo rutas y puntos con un cursor.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        logger.info("Construyendo índice de búsqueda");
+        searchIndex.clear();
+        try (Stream<RutaTexto> rutas = rutaRepository.streamTextos()) {
+            rutas.forEach(r -> searchIndex.put(SearchIndex.Tipo.RUTA, r.id(), r.titulo(), r.etiquetas()));
+        }
+        try (Stream<PuntoNombre> puntos = puntoInteresRepository.streamNombres()) {
+            puntos.forEach(p -> searchIndex.put(SearchIndex.Tipo.PUNTO, p.id(), p.nombre(), null));
+        }
+        logger.info("Índice de búsqueda construido con {} documentos", searchIndex.size());
+    }
+
+    /**
+     * Rutas y puntos cuyo texto contiene alguno de los términos de {@code q}, del más al menos
+     * relevante. El índice da ids y puntuaciones; la BD solo los títulos, en una consulta.
+     *
+     * @param tipo "ruta", "punto" o null para ambos
+     */
+    public CursorPage<SearchHitOutDto> search(String q, String tipo, String after, Integer limit)
+            throws InvalidCursorException {
+        logger.debug("Buscando '{}': tipo={}, after={}, limit={}", q, tipo, after, limit);
+
+        int pageSize = PageCursor.clampLimit(limit);
+        int offset = PageCursor.decodeOffset(after);
+        SearchIndex.Tipo filtro = tipo == null || tipo.isBlank() ? null
+                : SearchIndex.Tipo.valueOf(tipo.toUpperCase(Locale.ROOT));
+        SearchIndex.Result result = searchIndex.search(q, filtro, offset, pageSize);
+
+        List<Long> rutaIds = new ArrayList<>();
+        List<Long> puntoIds = new ArrayList<>();
+        for (SearchIndex.Hit hit : result.hits())
+            (hit.tipo() == SearchIndex.Tipo.RUTA ? rutaIds : puntoIds).add(hit.id());
+
+        Map<Long, String> rutaTitulos = new HashMap<>();
+        Map<Long, String> puntoNombres = new HashMap<>();
+        if (!result.hits().isEmpty())
+            for (SearchTitulo t : rutaRepository.findTitulos(rutaIds, puntoIds))
+                (t.ruta() ? rutaTitulos : puntoNombres).put(t.id(), t.titulo());
+
+        List<SearchHitOutDto> items = new ArrayList<>(result.hits().size());
+        for (SearchIndex.Hit hit : result.hits()) {
+            boolean esRuta = hit.tipo() == SearchIndex.Tipo.RUTA;
+            // borrado entre la búsqueda y la carga: se omite
+            String titulo = esRuta ? rutaTitulos.get(hit.id()) : puntoNombres.get(hit.id());
+            if (titulo != null)
+                items.add(new SearchHitOutDto(esRuta ? "ruta" : "punto", hit.id(), titulo, hit.score()));
+        }
+
+        int served = offset + result.hits().size();
+        String nextCursor = served < result.total() ? PageCursor.encodeOffset(served) : null;
+        logger.info("La búsqueda '{}' encontró {} resultados", q, result.total());
+        return new CursorPage<>(items, nextCursor);
+    }
+}
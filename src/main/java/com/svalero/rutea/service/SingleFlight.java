@@ -0,0 +1,87 @@
+package com.svalero.rutea.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Agrupa las llamadas concurrentes con la misma clave: la primera ejecuta la carga y las que
+ * llegan mientras tanto esperan y reciben su mismo resultado (o su misma excepción), sin ir a
+ * la BD. No guarda nada: en cuanto la carga termina, la siguiente llamada vuelve a ejecutarla.
+ * <p>
+ * {@link #forgetAll()} hace que las llamadas siguientes no se unan a cargas ya empezadas, que
+ * pueden haber leído datos anteriores a una escritura recién confirmada.
+ * <p>
+ * Publica {@code rutea.singleflight.calls} con la etiqueta {@code name} y
+ * {@code result=leader} (ejecutó la carga) o {@code result=shared} (recibió la de otra).
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter shared;
+
+    public SingleFlight(String name) {
+        this(name, Metrics.globalRegistry);
+    }
+
+    SingleFlight(String name, MeterRegistry registry) {
+        leaders = counter(registry, name, "leader");
+        shared = counter(registry, name, "shared");
+    }
+
+    public <E extends Exception> V execute(K key, EntityCache.Loader<V, E> loader) throws E {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            shared.increment();
+            return await(existing);
+        }
+
+        leaders.increment();
+        try {
+            V value = loader.load();
+            flight.complete(value);
+            return value;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    // la excepción es la de una carga con la misma clave, y por tanto del mismo tipo E
+    @SuppressWarnings("unchecked")
+    private static <V, E extends Exception> V await(CompletableFuture<V> flight) throws E {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw (E) cause;
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String result) {
+        return Counter.builder("rutea.singleflight.calls")
+                .description("Llamadas agrupadas por clave: las que ejecutaron la carga y las que compartieron otra")
+                .tag("name", name)
+                .tag("result", result)
+                .register(registry);
+    }
+}
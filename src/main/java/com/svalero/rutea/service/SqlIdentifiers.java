@@ -0,0 +1,21 @@
+package com.svalero.rutea.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.jdbc.env.spi.JdbcEnvironment;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Nombres de tablas y columnas para el SQL escrito a mano, tal como los escribe Hibernate
+ * (entrecomillado global y comillas del dialecto).
+ */
+final class SqlIdentifiers {
+
+    private SqlIdentifiers() {
+    }
+
+    static String render(EntityManagerFactory entityManagerFactory, String name) {
+        JdbcEnvironment env = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getJdbcEnvironment();
+        return env.getIdentifierHelper().toIdentifier(name).render(env.getDialect());
+    }
+}
@@ -5,7 +5,7 @@ import com.svalero.rutea.dto.UsuarioInDto;
 import com.svalero.rutea.dto.UsuarioOutDto;
 import com.svalero.rutea.exception.UsuarioNotFoundException;
 import com.svalero.rutea.repository.UsuarioRepository;
-import org.modelmapper.ModelMapper;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,10 +14,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 @Service
+@Timed("rutea.service")
 @Transactional
 public class UsuarioService {
 
@@ -26,12 +28,14 @@ public class UsuarioService {
     @Autowired
     private UsuarioRepository usuarioRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private EntityCaches entityCaches;
 
     public UsuarioOutDto add(UsuarioInDto usuarioInDto) {
         logger.info("Creando nuevo usuario: {}", usuarioInDto.getUsername());
-        Usuario usuario = modelMapper.map(usuarioInDto, Usuario.class);
+        Usuario usuario = new Usuario();
+        copy(usuarioInDto, usuario);
         Usuario saved = usuarioRepository.save(usuario);
+        entityCaches.usuarios().evictQueries();
         logger.info("Usuario creado exitosamente con ID: {}", saved.getId());
         return toOutDto(saved);
     }
@@ -44,6 +48,7 @@ public class UsuarioService {
                     return new UsuarioNotFoundException();
                 });
         usuarioRepository.delete(usuario);
+        entityCaches.usuarios().evict(id);
         logger.info("Usuario eliminado exitosamente: ID {}", id);
     }
 
@@ -52,35 +57,28 @@ public class UsuarioService {
         logger.debug("Buscando usuarios con filtros: premium={}, nivelExperiencia={}, username={}",
                 premium, nivelExperiencia, username);
 
-        Specification<Usuario> spec = Specification.where(null);
+        return entityCaches.usuarios().query(Arrays.asList(premium, nivelExperiencia, username), () -> {
+            Specification<Usuario> spec = buildSpec(premium, nivelExperiencia, username);
 
-        if (premium != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("esPremium"), premium));
-
-        if (nivelExperiencia != null)
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("nivelExperiencia"), nivelExperiencia));
-
-        if (username != null && !username.isBlank()) {
-            String pattern = "%" + username.toLowerCase() + "%";
-            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("username")), pattern));
-        }
-
-        List<UsuarioOutDto> result = usuarioRepository.findAll(spec).stream()
-                .map(this::toOutDto)
-                .toList();
-        logger.info("Se encontraron {} usuarios", result.size());
-        return result;
+            List<UsuarioOutDto> result = usuarioRepository.findAll(spec).stream()
+                    .map(UsuarioService::toOutDto)
+                    .toList();
+            logger.info("Se encontraron {} usuarios", result.size());
+            return result;
+        });
     }
 
     @Transactional(readOnly = true)
     public UsuarioOutDto findById(long id) throws UsuarioNotFoundException {
         logger.debug("Buscando usuario por ID: {}", id);
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.error("Usuario no encontrado: ID {}", id);
-                    return new UsuarioNotFoundException();
-                });
-        return toOutDto(usuario);
+        return entityCaches.usuarios().get(id, () -> {
+            Usuario usuario = usuarioRepository.findById(id)
+                    .orElseThrow(() -> {
+                        logger.error("Usuario no encontrado: ID {}", id);
+                        return new UsuarioNotFoundException();
+                    });
+            return toOutDto(usuario);
+        });
     }
 
     public UsuarioOutDto modify(long id, UsuarioInDto usuarioInDto) throws UsuarioNotFoundException {
@@ -91,10 +89,11 @@ public class UsuarioService {
                     return new UsuarioNotFoundException();
                 });
 
-        modelMapper.map(usuarioInDto, existing);
+        copy(usuarioInDto, existing);
         existing.setId(id);
 
         Usuario saved = usuarioRepository.save(existing);
+        entityCaches.usuarios().evict(id);
         logger.info("Usuario modificado exitosamente: ID {}", id);
         return toOutDto(saved);
     }
@@ -146,11 +145,46 @@ public class UsuarioService {
         }
 
         Usuario updated = usuarioRepository.save(usuario);
+        entityCaches.usuarios().evict(id);
         logger.info("Usuario actualizado exitosamente con PATCH: ID {}", id);
         return toOutDto(updated);
     }
 
-    private UsuarioOutDto toOutDto(Usuario usuario) {
-        return modelMapper.map(usuario, UsuarioOutDto.class);
+    static Specification<Usuario> buildSpec(Boolean premium, Integer nivelExperiencia, String username) {
+        Specification<Usuario> spec = Specification.where(null);
+
+        if (premium != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("esPremium"), premium));
+
+        if (nivelExperiencia != null)
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("nivelExperiencia"), nivelExperiencia));
+
+        if (username != null && !username.isBlank()) {
+            String pattern = "%" + username.toLowerCase() + "%";
+            spec = spec.and((root, query, cb) -> cb.like(cb.lower(root.get("username")), pattern));
+        }
+
+        return spec;
+    }
+
+    // -------------------- Mapeo --------------------
+
+    static void copy(UsuarioInDto dto, Usuario usuario) {
+        usuario.setEmail(dto.getEmail());
+        usuario.setEsPremium(dto.isEsPremium());
+        usuario.setFechaRegistro(dto.getFechaRegistro());
+        usuario.setNivelExperiencia(dto.getNivelExperiencia());
+        usuario.setPassword(dto.getPassword());
+        usuario.setUsername(dto.getUsername());
+    }
+
+    static UsuarioOutDto toOutDto(Usuario usuario) {
+        return new UsuarioOutDto(
+                usuario.getId(),
+                usuario.getEmail(),
+                usuario.isEsPremium(),
+                usuario.getFechaRegistro(),
+                usuario.getNivelExperiencia(),
+                usuario.getUsername());
     }
 }
@@ -0,0 +1,79 @@
+-- Esquema tal y como lo dejaba spring.jpa.hibernate.ddl-auto=update antes de pasar a Flyway: ids
+-- identity y ruta_puntos sin clave primaria ni orden. Las bases de datos que ya existían se marcan
+-- con esta versión sin ejecutarla (spring.flyway.baseline-on-migrate) y reciben las migraciones siguientes.
+
+create table "categorias" (
+    "id" bigint generated by default as identity,
+    "activa" boolean not null,
+    "coste_promedio" float(24) not null,
+    "descripcion" varchar(500),
+    "icono_url" varchar(255),
+    "nombre" varchar(255) not null,
+    "orden_prioridad" integer not null check ("orden_prioridad" >= 0),
+    primary key ("id")
+);
+
+create table "usuarios" (
+    "id" bigint generated by default as identity,
+    "email" varchar(255) not null,
+    "es_premium" boolean not null,
+    "fecha_registro" date not null,
+    "nivel_experiencia" integer not null check ("nivel_experiencia" >= 0),
+    "password" varchar(255) not null,
+    "username" varchar(255) not null,
+    primary key ("id")
+);
+
+create table "puntos_interes" (
+    "id" bigint generated by default as identity,
+    "abierto_actualmente" boolean not null,
+    "fecha_creacion" timestamp(6),
+    "latitud" float(53) not null,
+    "longitud" float(53) not null,
+    "nombre" varchar(255) not null,
+    "puntuacion_media" float(24) not null,
+    "categoria_id" bigint,
+    primary key ("id")
+);
+
+create table "resenas" (
+    "id" bigint generated by default as identity,
+    "comentario" varchar(255) not null,
+    "editada" boolean not null,
+    "fecha_publicacion" date,
+    "likes" integer not null check ("likes" >= 0),
+    "titulo" varchar(255),
+    "valoracion" integer not null check (("valoracion" >= 1) and ("valoracion" <= 5)),
+    "punto_id" bigint,
+    "usuario_id" bigint,
+    primary key ("id")
+);
+
+create table "rutas" (
+    "id" bigint generated by default as identity,
+    "dificultad" varchar(255),
+    "distancia_km" float(24) not null,
+    "duracion_minutos" integer not null check ("duracion_minutos" >= 0),
+    "eliminada" boolean not null,
+    "etiquetas" varchar(255),
+    "fecha_realizacion" date not null,
+    "publica" boolean not null,
+    "titulo" varchar(60) not null,
+    "usuario_id" bigint,
+    primary key ("id")
+);
+
+create table "ruta_puntos" (
+    "ruta_id" bigint not null,
+    "punto_id" bigint not null
+);
+
+alter table "usuarios" add constraint "UKdms9f7l95csdi2w7w91seb01c" unique ("email");
+alter table "usuarios" add constraint "UKl6ry5astby48lwau9l84av316" unique ("username");
+
+alter table "puntos_interes" add constraint "FKc8uns1213d1l0vivv0i0i8wmc" foreign key ("categoria_id") references "categorias" ("id");
+alter table "resenas" add constraint "FKgr0olmlk589n5vipkrencaykv" foreign key ("punto_id") references "puntos_interes" ("id");
+alter table "resenas" add constraint "FKqmgnj7jpq76u7y06qtngfwm0p" foreign key ("usuario_id") references "usuarios" ("id");
+alter table "ruta_puntos" add constraint "FK3pccw4hy9cplnyg2j2tbh7jnr" foreign key ("punto_id") references "puntos_interes" ("id");
+alter table "ruta_puntos" add constraint "FKncapvhv12pnwjl1a69wxatnh9" foreign key ("ruta_id") references "rutas" ("id");
+alter table "rutas" add constraint "FKg2i6peobkcmueoe9gsejbys6n" foreign key ("usuario_id") references "usuarios" ("id");
@@ -0,0 +1,16 @@
+-- Ids en secuencias (allocationSize = 50) en lugar de identity, para que Hibernate agrupe los INSERT.
+-- Con el optimizador pooled cada valor S de la secuencia reserva los ids S-49..S, así que cada una empieza
+-- en max(id) + 50: el primer bloque va justo detrás de las filas que ya hay.
+
+create sequence "categorias_seq" start with (select coalesce(max("id"), 0) + 50 from "categorias") increment by 50;
+create sequence "puntos_interes_seq" start with (select coalesce(max("id"), 0) + 50 from "puntos_interes") increment by 50;
+create sequence "resenas_seq" start with (select coalesce(max("id"), 0) + 50 from "resenas") increment by 50;
+create sequence "rutas_seq" start with (select coalesce(max("id"), 0) + 50 from "rutas") increment by 50;
+create sequence "usuarios_seq" start with (select coalesce(max("id"), 0) + 50 from "usuarios") increment by 50;
+
+-- Sin identity: un INSERT que olvide el id falla en vez de pisar un bloque ya reservado
+alter table "categorias" alter column "id" drop identity;
+alter table "puntos_interes" alter column "id" drop identity;
+alter table "resenas" alter column "id" drop identity;
+alter table "rutas" alter column "id" drop identity;
+alter table "usuarios" alter column "id" drop identity;
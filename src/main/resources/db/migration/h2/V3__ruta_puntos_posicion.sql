@@ -0,0 +1,12 @@
+-- Orden de los puntos de cada ruta (@OrderColumn, desde 0) y clave primaria (ruta_id, posicion).
+-- Hasta ahora ruta_puntos era una bolsa sin clave: Hibernate borraba y volvía a insertar todas las filas
+-- de una ruta en el orden de la lista en cada cambio, así que el orden de inserción es el de la lista.
+-- Sin clave primaria H2 numera las filas en ese orden (_ROWID_).
+
+alter table "ruta_puntos" add column "posicion" integer;
+
+update "ruta_puntos" r set "posicion" =
+    (select count(*) from "ruta_puntos" o where o."ruta_id" = r."ruta_id" and o._ROWID_ < r._ROWID_);
+
+alter table "ruta_puntos" alter column "posicion" set not null;
+alter table "ruta_puntos" add primary key ("ruta_id", "posicion");
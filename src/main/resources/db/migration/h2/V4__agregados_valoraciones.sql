@@ -0,0 +1,26 @@
+-- Agregados de valoración de cada punto (histograma, total y suma), que mantienen las reseñas con UPDATE
+-- atómicos. puntuacion_media pasa a derivarse de ellos: se recalcula igual que PuntoValoracionesJob.
+
+alter table "puntos_interes" add column "suma_valoraciones" bigint default 0 not null;
+alter table "puntos_interes" add column "total_resenas" bigint default 0 not null;
+alter table "puntos_interes" add column "valoraciones_1" integer default 0 not null;
+alter table "puntos_interes" add column "valoraciones_2" integer default 0 not null;
+alter table "puntos_interes" add column "valoraciones_3" integer default 0 not null;
+alter table "puntos_interes" add column "valoraciones_4" integer default 0 not null;
+alter table "puntos_interes" add column "valoraciones_5" integer default 0 not null;
+
+update "puntos_interes" p set
+    "valoraciones_1" = (select count(*) from "resenas" r where r."punto_id" = p."id" and r."valoracion" = 1),
+    "valoraciones_2" = (select count(*) from "resenas" r where r."punto_id" = p."id" and r."valoracion" = 2),
+    "valoraciones_3" = (select count(*) from "resenas" r where r."punto_id" = p."id" and r."valoracion" = 3),
+    "valoraciones_4" = (select count(*) from "resenas" r where r."punto_id" = p."id" and r."valoracion" = 4),
+    "valoraciones_5" = (select count(*) from "resenas" r where r."punto_id" = p."id" and r."valoracion" = 5);
+
+-- En sentencias aparte, como en MariaDB (que evalúa las asignaciones de izquierda a derecha)
+update "puntos_interes" set
+    "total_resenas" = "valoraciones_1" + "valoraciones_2" + "valoraciones_3" + "valoraciones_4" + "valoraciones_5",
+    "suma_valoraciones" = "valoraciones_1" + 2 * "valoraciones_2" + 3 * "valoraciones_3"
+        + 4 * "valoraciones_4" + 5 * "valoraciones_5";
+
+update "puntos_interes" set
+    "puntuacion_media" = case when "total_resenas" > 0 then "suma_valoraciones" * 1.0 / "total_resenas" else 0 end;
@@ -0,0 +1,33 @@
+-- Índices para los filtros de los listados (los buildSpec de los servicios) y las claves ajenas.
+-- Ni MariaDB ni H2 tienen índices parciales: la condición fija va como primera columna del índice.
+-- Los LIKE '%texto%' sobre nombre, titulo, dificultad y username no pueden usar un B-tree; el texto
+-- libre se busca en SearchIndex (/search) y aquí los acotan las demás condiciones.
+
+-- GET /rutas y /v2/rutas: siempre eliminada = false, keyset por id, y opcionalmente publica
+create index "idx_rutas_eliminada_id" on "rutas" ("eliminada", "id");
+create index "idx_rutas_eliminada_publica_id" on "rutas" ("eliminada", "publica", "id");
+create index "idx_rutas_usuario" on "rutas" ("usuario_id");
+
+-- GET /puntos: categoriaId, abiertoActualmente y puntuacionMedia
+create index "idx_puntos_categoria_abierto" on "puntos_interes" ("categoria_id", "abierto_actualmente");
+create index "idx_puntos_abierto" on "puntos_interes" ("abierto_actualmente");
+create index "idx_puntos_puntuacion" on "puntos_interes" ("puntuacion_media");
+
+-- GET /resenas: editada, likes y valoracion; (punto_id, valoracion) sirve además al recuento por estrellas
+create index "idx_resenas_punto_valoracion" on "resenas" ("punto_id", "valoracion");
+create index "idx_resenas_usuario" on "resenas" ("usuario_id");
+create index "idx_resenas_valoracion" on "resenas" ("valoracion");
+create index "idx_resenas_likes" on "resenas" ("likes");
+create index "idx_resenas_editada" on "resenas" ("editada");
+
+-- GET /categorias: activa y ordenPrioridad
+create index "idx_categorias_activa_orden" on "categorias" ("activa", "orden_prioridad");
+create index "idx_categorias_orden" on "categorias" ("orden_prioridad");
+
+-- GET /usuarios: premium y nivelExperiencia
+create index "idx_usuarios_premium_nivel" on "usuarios" ("es_premium", "nivel_experiencia");
+create index "idx_usuarios_nivel" on "usuarios" ("nivel_experiencia");
+
+-- Tablas de unión: la clave primaria empieza por ruta_id; estos cubren el lado contrario
+create index "idx_ruta_puntos_punto" on "ruta_puntos" ("punto_id");
+create index "idx_ruta_etiquetas_etiqueta" on "ruta_etiquetas" ("etiqueta_id");
@@ -0,0 +1,41 @@
+-- Ids en secuencias (allocationSize = 50) en lugar de AUTO_INCREMENT, para que Hibernate agrupe los INSERT.
+-- Con el optimizador pooled cada valor S de la secuencia reserva los ids S-49..S, así que cada una empieza
+-- en max(id) + 50: el primer bloque va justo detrás de las filas que ya hay. CREATE SEQUENCE no admite
+-- una expresión en START WITH, de ahí la sentencia preparada.
+
+set @sql = concat('create sequence `categorias_seq` start with ',
+    (select coalesce(max(`id`), 0) + 50 from `categorias`), ' increment by 50 nocache');
+prepare stmt from @sql;
+execute stmt;
+deallocate prepare stmt;
+
+set @sql = concat('create sequence `puntos_interes_seq` start with ',
+    (select coalesce(max(`id`), 0) + 50 from `puntos_interes`), ' increment by 50 nocache');
+prepare stmt from @sql;
+execute stmt;
+deallocate prepare stmt;
+
+set @sql = concat('create sequence `resenas_seq` start with ',
+    (select coalesce(max(`id`), 0) + 50 from `resenas`), ' increment by 50 nocache');
+prepare stmt from @sql;
+execute stmt;
+deallocate prepare stmt;
+
+set @sql = concat('create sequence `rutas_seq` start with ',
+    (select coalesce(max(`id`), 0) + 50 from `rutas`), ' increment by 50 nocache');
+prepare stmt from @sql;
+execute stmt;
+deallocate prepare stmt;
+
+set @sql = concat('create sequence `usuarios_seq` start with ',
+    (select coalesce(max(`id`), 0) + 50 from `usuarios`), ' increment by 50 nocache');
+prepare stmt from @sql;
+execute stmt;
+deallocate prepare stmt;
+
+-- Sin AUTO_INCREMENT: un INSERT que olvide el id falla en vez de pisar un bloque ya reservado
+alter table `categorias` modify `id` bigint not null;
+alter table `puntos_interes` modify `id` bigint not null;
+alter table `resenas` modify `id` bigint not null;
+alter table `rutas` modify `id` bigint not null;
+alter table `usuarios` modify `id` bigint not null;
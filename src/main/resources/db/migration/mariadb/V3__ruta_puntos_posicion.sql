@@ -0,0 +1,19 @@
+-- Orden de los puntos de cada ruta (@OrderColumn, desde 0) y clave primaria (ruta_id, posicion).
+-- Hasta ahora ruta_puntos era una bolsa sin clave: Hibernate borraba y volvía a insertar todas las filas
+-- de una ruta en el orden de la lista en cada cambio, así que el orden de inserción es el de la lista.
+-- Sin clave primaria InnoDB guarda las filas en ese orden (su id de fila oculto); la columna n lo hace
+-- visible al añadirla, porque ALTER TABLE copia las filas en ese mismo orden.
+
+alter table `ruta_puntos`
+    add column `n` bigint not null auto_increment unique,
+    add column `posicion` integer;
+
+update `ruta_puntos` r
+    join (select `n`, row_number() over (partition by `ruta_id` order by `n`) - 1 as `posicion`
+          from `ruta_puntos`) o on o.`n` = r.`n`
+    set r.`posicion` = o.`posicion`;
+
+alter table `ruta_puntos`
+    drop column `n`,
+    modify `posicion` integer not null,
+    add primary key (`ruta_id`, `posicion`);
@@ -0,0 +1,31 @@
+-- Agregados de valoración de cada punto (histograma, total y suma), que mantienen las reseñas con UPDATE
+-- atómicos. puntuacion_media pasa a derivarse de ellos: se recalcula igual que PuntoValoracionesJob.
+
+alter table `puntos_interes`
+    add column `suma_valoraciones` bigint not null default 0,
+    add column `total_resenas` bigint not null default 0,
+    add column `valoraciones_1` integer not null default 0,
+    add column `valoraciones_2` integer not null default 0,
+    add column `valoraciones_3` integer not null default 0,
+    add column `valoraciones_4` integer not null default 0,
+    add column `valoraciones_5` integer not null default 0;
+
+update `puntos_interes` p
+    join (select `punto_id`,
+                 sum(case when `valoracion` = 1 then 1 else 0 end) as `v1`,
+                 sum(case when `valoracion` = 2 then 1 else 0 end) as `v2`,
+                 sum(case when `valoracion` = 3 then 1 else 0 end) as `v3`,
+                 sum(case when `valoracion` = 4 then 1 else 0 end) as `v4`,
+                 sum(case when `valoracion` = 5 then 1 else 0 end) as `v5`
+          from `resenas` where `punto_id` is not null group by `punto_id`) r on r.`punto_id` = p.`id`
+    set p.`valoraciones_1` = r.`v1`, p.`valoraciones_2` = r.`v2`, p.`valoraciones_3` = r.`v3`,
+        p.`valoraciones_4` = r.`v4`, p.`valoraciones_5` = r.`v5`;
+
+-- En una sentencia aparte: MariaDB evalúa las asignaciones de izquierda a derecha
+update `puntos_interes` set
+    `total_resenas` = `valoraciones_1` + `valoraciones_2` + `valoraciones_3` + `valoraciones_4` + `valoraciones_5`,
+    `suma_valoraciones` = `valoraciones_1` + 2 * `valoraciones_2` + 3 * `valoraciones_3`
+        + 4 * `valoraciones_4` + 5 * `valoraciones_5`;
+
+update `puntos_interes` set
+    `puntuacion_media` = case when `total_resenas` > 0 then `suma_valoraciones` * 1.0 / `total_resenas` else 0 end;
@@ -0,0 +1,10 @@
+-- Caja envolvente y distancias entre puntos consecutivos de cada ruta (RouteGeometry).
+-- Las rutas que ya existían quedan a null hasta que las recalcula RutaGeometryJob
+-- (rutea.jobs.ruta-geometry.enabled=true).
+
+alter table `rutas`
+    add column `bbox_max_lat` float(53),
+    add column `bbox_max_lon` float(53),
+    add column `bbox_min_lat` float(53),
+    add column `bbox_min_lon` float(53),
+    add column `tramos_km` text;
@@ -0,0 +1,21 @@
+-- Etiquetas normalizadas (una fila por nombre) y su tabla de unión con las rutas.
+-- La columna rutas.etiquetas se conserva: EtiquetasMigrationJob (rutea.jobs.etiquetas.enabled=true)
+-- reparte su contenido en estas tablas.
+
+create sequence `etiquetas_seq` start with 1 increment by 50 nocache;
+
+create table `etiquetas` (
+    `id` bigint not null,
+    `nombre` varchar(60) not null,
+    primary key (`id`)
+) engine=InnoDB;
+
+create table `ruta_etiquetas` (
+    `ruta_id` bigint not null,
+    `etiqueta_id` bigint not null,
+    primary key (`ruta_id`, `etiqueta_id`)
+) engine=InnoDB;
+
+alter table `etiquetas` add constraint `UKiffb3xndtr5em4qp9rso2h7lw` unique (`nombre`);
+alter table `ruta_etiquetas` add constraint `FKoorb1pgb82tj40wsrxu8s0o1e` foreign key (`etiqueta_id`) references `etiquetas` (`id`);
+alter table `ruta_etiquetas` add constraint `FKrv6vfcc7bopdlydgb4k2r9v80` foreign key (`ruta_id`) references `rutas` (`id`);
@@ -0,0 +1,30 @@
+#!/bin/sh
+# Extrae el JAR en DESTINO (el JAR de la aplicación y lib/) y genera DESTINO/application.jsa, el archivo
+# de AppCDS, con un arranque de entrenamiento: la aplicación arranca contra un H2 en memoria, se para
+# en cuanto el contexto está listo y la JVM vuelca las clases que ha cargado. Las siguientes JVM las
+# leen del archivo ya analizadas en lugar de cargarlas desde los JAR.
+#
+# El archivo solo vale para la misma JVM y el mismo classpath: se genera en la imagen Docker que lo
+# usa y se arranca desde DESTINO con
+#   java -XX:SharedArchiveFile=DESTINO/application.jsa -Dspring.aot.enabled=true -jar DESTINO/application.jar
+#
+#   src/startup/cds-archive.sh target/rutea-api-0.0.1-SNAPSHOT.jar target/startup
+set -eu
+
+JAR=$1
+DESTINO=$2
+
+rm -rf "$DESTINO"
+java -Djarmode=tools -jar "$JAR" extract --destination "$DESTINO"
+mv "$DESTINO/$(basename "$JAR")" "$DESTINO/application.jar"
+
+# Sin los avisos de las clases que no se pueden archivar (proxies, clases generadas en tiempo de ejecución)
+java -XX:ArchiveClassesAtExit="$DESTINO/application.jsa" -Xlog:cds=error \
+    -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh \
+    -jar "$DESTINO/application.jar" \
+    --spring.datasource.url="jdbc:h2:mem:cds;DB_CLOSE_DELAY=-1" \
+    --spring.datasource.driver-class-name=org.h2.Driver \
+    --spring.datasource.username=sa \
+    --spring.main.banner-mode=off \
+    --logging.level.root=WARN
@@ -0,0 +1,45 @@
+#!/bin/sh
+# Tiempo hasta la primera petición: arranca la aplicación con el comando que se le pasa y mide cuánto
+# tarda GET /actuator/health en responder 200, contra un H2 en memoria para no depender de MariaDB.
+# Repite RUNS veces (5 por defecto) y da la mediana, la mínima y la máxima en milisegundos.
+#
+#   src/startup/startup-time.sh java -jar target/rutea-api-0.0.1-SNAPSHOT.jar
+set -eu
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+URL="http://localhost:$PORT/actuator/health"
+
+now_ms() {
+    date +%s%3N
+}
+
+tiempos=""
+i=0
+while [ "$i" -lt "$RUNS" ]; do
+    i=$((i + 1))
+    inicio=$(now_ms)
+    "$@" --server.port="$PORT" \
+        --spring.datasource.url="jdbc:h2:mem:startup-$i;DB_CLOSE_DELAY=-1" \
+        --spring.datasource.driver-class-name=org.h2.Driver \
+        --spring.datasource.username=sa \
+        --spring.main.banner-mode=off \
+        --logging.level.root=WARN > /dev/null 2>&1 &
+    pid=$!
+    until curl -fs -o /dev/null "$URL"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "La aplicación terminó sin responder" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    fin=$(now_ms)
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "Arranque $i: $((fin - inicio)) ms"
+    tiempos="$tiempos $((fin - inicio))"
+done
+
+echo "$tiempos" | tr ' ' '\n' | grep . | sort -n | awk '
+    { t[NR] = $1 }
+    END { printf "Primera petición: mediana %d ms (mín %d, máx %d, %d arranques)\n", t[int((NR + 1) / 2)], t[1], t[NR], NR }'
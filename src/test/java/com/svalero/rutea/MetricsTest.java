@@ -0,0 +1,39 @@
+package com.svalero.rutea;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Lo que publica /actuator/prometheus después de unas cuantas peticiones reales.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsTest {
+
+    @Autowired private MockMvc mockMvc;
+
+    @Test
+    void prometheus_shouldExposeEndpointServiceNotFoundAndPoolMetrics() throws Exception {
+        mockMvc.perform(get("/categorias")).andExpect(status().isOk());
+        mockMvc.perform(get("/categorias/999999")).andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString("uri=\"/categorias/{id}\"")))
+                .andExpect(content().string(containsString("rutea_service_seconds_count{class=\"com.svalero.rutea.service.CategoriaService\"")))
+                .andExpect(content().string(containsString("method=\"findById\"")))
+                .andExpect(content().string(containsString("rutea_not_found_total{exception=\"CategoriaNotFoundException\"} 1.0")))
+                .andExpect(content().string(containsString("hikaricp_connections_active{")));
+    }
+}
@@ -0,0 +1,194 @@
+package com.svalero.rutea;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.svalero.rutea.dto.CategoriaInDto;
+import com.svalero.rutea.dto.PuntoInteresInDto;
+import com.svalero.rutea.dto.ResenaInDto;
+import com.svalero.rutea.dto.RutaInDtoV2;
+import com.svalero.rutea.dto.UsuarioInDto;
+import com.svalero.rutea.jdbc.QueryBudget;
+import com.svalero.rutea.repository.UsuarioRepository;
+import com.svalero.rutea.service.CategoriaService;
+import com.svalero.rutea.service.PuntoInteresService;
+import com.svalero.rutea.service.ResenaService;
+import com.svalero.rutea.service.RutaService;
+import com.svalero.rutea.service.UsuarioService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Recorre los endpoints con datos suficientes para que un N+1 se note y con
+ * {@code rutea.sql.budget.fail-on-exceed=true}: cualquiera que lance más sentencias que su
+ * {@link QueryBudget} hace fallar la petición, y con ella el test.
+ */
+@SpringBootTest(properties = {
+        "rutea.sql.response-headers=true",
+        "rutea.sql.budget.fail-on-exceed=true"})
+@AutoConfigureMockMvc
+@Import(QueryBudgetTest.ProbeController.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private CategoriaService categoriaService;
+    @Autowired private UsuarioService usuarioService;
+    @Autowired private PuntoInteresService puntoInteresService;
+    @Autowired private RutaService rutaService;
+    @Autowired private ResenaService resenaService;
+
+    /**
+     * Un endpoint que se pasa de su presupuesto a propósito.
+     */
+    @RestController
+    static class ProbeController {
+
+        @Autowired private UsuarioRepository usuarioRepository;
+
+        @GetMapping("/test/query-budget")
+        @QueryBudget(1)
+        public long overBudget() {
+            return usuarioRepository.count() + usuarioRepository.count();
+        }
+    }
+
+    private final List<Long> puntos = new ArrayList<>();
+    private final List<Long> usuarios = new ArrayList<>();
+    private final List<Long> rutas = new ArrayList<>();
+    private final List<Long> resenas = new ArrayList<>();
+    private long categoriaId;
+
+    @BeforeAll
+    void seed() throws Exception {
+        List<Long> categorias = new ArrayList<>();
+        for (int c = 0; c < 5; c++)
+            categorias.add(categoriaService.add(CategoriaInDto.builder().nombre("Categoria " + c).activa(true).build()).getId());
+        categoriaId = categorias.get(0);
+        for (int u = 0; u < 10; u++)
+            usuarios.add(usuarioService.add(new UsuarioInDto("q" + u + "@rutea.com", false, LocalDate.now(), 1, "secreto", "q" + u)).getId());
+        for (int p = 0; p < 40; p++)
+            puntos.add(puntoInteresService.add(new PuntoInteresInDto(true, LocalDateTime.now(), 41.6 + p * 0.001, -0.9,
+                    "Punto " + p, 0f, categorias.get(p % categorias.size()))).getId());
+        for (int r = 0; r < 30; r++)
+            rutas.add(rutaService.addV2(new RutaInDtoV2("media", 10, 120, LocalDate.now(), true, "Ruta " + r,
+                    usuarios.get(r % usuarios.size()), puntos.subList(r % 20, r % 20 + 10), "montaña, agua")).getId());
+        for (int i = 0; i < 60; i++)
+            resenas.add(resenaService.add(new ResenaInDto("Comentario " + i, false, LocalDate.now(), 0, "Reseña " + i,
+                    1 + i % 5, puntos.get(i % puntos.size()), usuarios.get(i % usuarios.size()))).getId());
+    }
+
+    private void perform(RequestBuilder request) throws Exception {
+        mockMvc.perform(request)
+                .andExpect(status().is2xxSuccessful())
+                .andExpect(header().exists("X-Sql-Statements"));
+    }
+
+    private RequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+
+    @Test
+    void responseHeaders_shouldReportStatementsAndRows() throws Exception {
+        mockMvc.perform(get("/resenas"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Sql-Statements", "1"))
+                .andExpect(header().string("X-Sql-Rows", String.valueOf(resenaService.findAll(null, null, null).size())))
+                .andExpect(header().exists("X-Sql-Time-Ms"));
+    }
+
+    @Test
+    void overBudget_shouldFailRequest() {
+        Exception e = assertThrows(Exception.class, () -> mockMvc.perform(get("/test/query-budget")));
+        assertTrue(e.getMessage().contains("2 sentencias SQL, por encima de su presupuesto de 1"), e.getMessage());
+    }
+
+    @Test
+    void categorias_shouldStayWithinQueryBudget() throws Exception {
+        perform(get("/categorias"));
+        perform(get("/categorias/{id}", categoriaId));
+        perform(json(post("/categorias"), CategoriaInDto.builder().nombre("Nueva").build()));
+        perform(json(put("/categorias/{id}", categoriaId), CategoriaInDto.builder().nombre("Cambiada").build()));
+        perform(json(patch("/categorias/{id}", categoriaId), Map.of("costePromedio", 5)));
+        perform(delete("/categorias/{id}", categoriaService.add(CategoriaInDto.builder().nombre("Borrar").build()).getId()));
+    }
+
+    @Test
+    void export_shouldStayWithinQueryBudget() throws Exception {
+        perform(get("/export/rutas"));
+        perform(get("/export/puntos"));
+        perform(get("/export/resenas").header("Accept-Encoding", "gzip"));
+    }
+
+    @Test
+    void puntos_shouldStayWithinQueryBudget() throws Exception {
+        long punto = puntos.get(0);
+        perform(get("/puntos"));
+        perform(get("/puntos/nearby").param("lat", "41.61").param("lon", "-0.9").param("radiusKm", "10"));
+        perform(get("/puntos/{id}", punto));
+        perform(get("/puntos/{id}/valoraciones", punto));
+        perform(json(post("/puntos"), new PuntoInteresInDto(true, null, 41.0, -1.0, "Nuevo", 0f, categoriaId)));
+        perform(json(put("/puntos/{id}", punto), new PuntoInteresInDto(true, null, 41.0, -1.0, "Cambiado", 0f, categoriaId)));
+        perform(json(patch("/puntos/{id}", punto), Map.of("nombre", "Parcheado")));
+        perform(delete("/puntos/{id}", puntoInteresService.add(new PuntoInteresInDto(true, null, 41.0, -1.0, "Borrar", 0f, categoriaId)).getId()));
+    }
+
+    @Test
+    void resenas_shouldStayWithinQueryBudget() throws Exception {
+        long resena = resenas.get(0), punto = puntos.get(0), usuario = usuarios.get(0);
+        perform(get("/resenas"));
+        perform(get("/resenas/{id}", resena));
+        perform(json(post("/resenas"), new ResenaInDto("Nueva", false, null, 0, "t", 4, punto, usuario)));
+        perform(post("/resenas/{id}/like", resena));
+        perform(json(put("/resenas/{id}", resena), new ResenaInDto("Cambiada", false, null, 0, "t", 2, puntos.get(1), usuario)));
+        perform(json(patch("/resenas/{id}", resena), Map.of("valoracion", 5)));
+        perform(delete("/resenas/{id}", resenas.get(1)));
+    }
+
+    @Test
+    void rutas_shouldStayWithinQueryBudget() throws Exception {
+        perform(get("/v1/rutas"));
+        perform(get("/v1/rutas/{id}", rutas.get(0)));
+        perform(delete("/v1/rutas/{id}", rutas.get(1)));
+        perform(get("/v2/rutas"));
+        perform(get("/v2/rutas").param("etiquetas", "agua,montaña"));
+        perform(get("/v2/rutas/{id}", rutas.get(0)));
+        perform(post("/v2/rutas/{id}/optimize", rutas.get(0)));
+        perform(delete("/v2/rutas/{id}", rutas.get(2)));
+        perform(get("/search").param("q", "ruta"));
+        // rutas y puntos en la misma página
+        perform(get("/search").param("q", "ruta punto").param("limit", "100"));
+    }
+
+    @Test
+    void usuarios_shouldStayWithinQueryBudget() throws Exception {
+        long usuario = usuarios.get(0);
+        perform(get("/usuarios"));
+        perform(get("/usuarios/{id}", usuario));
+        perform(json(post("/usuarios"), new UsuarioInDto("nuevo@rutea.com", false, LocalDate.now(), 1, "secreto", "nuevo")));
+        perform(json(put("/usuarios/{id}", usuario), new UsuarioInDto("cambiado@rutea.com", false, LocalDate.now(), 1, "secreto", "cambiado")));
+        perform(json(patch("/usuarios/{id}", usuario), Map.of("nivelExperiencia", 3)));
+        perform(delete("/usuarios/{id}", usuarioService.add(new UsuarioInDto("borrar@rutea.com", false, LocalDate.now(), 1, "secreto", "borrar")).getId()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.svalero.rutea;
+
+import com.svalero.rutea.domain.Categoria;
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.repository.CategoriaRepository;
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.RutaRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Actualiza una base de datos de la versión anterior a Flyway (volcado en db/esquema-previo-h2.sql)
+ * como lo hace el perfil prod: se marca con la versión 1 y recibe el resto de migraciones. Después
+ * Hibernate valida las entidades contra el resultado (ddl-auto=validate) al crear el contexto.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+class SchemaMigrationTest {
+
+    @TestConfiguration
+    static class EsquemaPrevio {
+
+        @Bean
+        FlywayMigrationStrategy desdeEsquemaPrevio(DataSource dataSource) {
+            return flyway -> {
+                new ResourceDatabasePopulator(new ClassPathResource("db/esquema-previo-h2.sql")).execute(dataSource);
+                Flyway.configure().configuration(flyway.getConfiguration())
+                        .baselineOnMigrate(true).baselineVersion("1")
+                        .load().migrate();
+            };
+        }
+    }
+
+    @Autowired private Flyway flyway;
+    @Autowired private RutaRepository rutaRepository;
+    @Autowired private PuntoInteresRepository puntoInteresRepository;
+    @Autowired private CategoriaRepository categoriaRepository;
+
+    @Test
+    void migrate_shouldStartFromTheBaseline_andApplyTheRest() {
+        assertEquals("1", flyway.info().applied()[0].getVersion().getVersion());
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void migrate_shouldKeepTheOrderOfEachRoute() {
+        assertEquals(List.of(2L, 3L, 1L, 1L), puntosIds(1));
+        assertEquals(List.of(4L, 2L), puntosIds(2));
+        assertEquals(List.of(), puntosIds(3));
+    }
+
+    @Test
+    void migrate_shouldRebuildTheAggregatesFromResenas() {
+        PuntoInteres conResenas = puntoInteresRepository.findById(1L).orElseThrow();
+        assertEquals(2, conResenas.getTotalResenas());
+        assertEquals(9, conResenas.getSumaValoraciones());
+        assertEquals(1, conResenas.getValoraciones4());
+        assertEquals(1, conResenas.getValoraciones5());
+        assertEquals(4.5f, conResenas.getPuntuacionMedia());
+
+        // la media que se guardaba a mano (3.3) no se sostiene sin reseñas
+        PuntoInteres sinResenas = puntoInteresRepository.findById(3L).orElseThrow();
+        assertEquals(0, sinResenas.getTotalResenas());
+        assertEquals(0f, sinResenas.getPuntuacionMedia());
+    }
+
+    @Test
+    void migrate_shouldStartEachSequenceAfterTheExistingIds() {
+        long id = categoriaRepository.save(Categoria.builder().nombre("Nueva").build()).getId();
+        assertTrue(id > 2, "id nuevo: " + id);
+    }
+
+    private List<Long> puntosIds(long rutaId) {
+        Ruta ruta = rutaRepository.findById(rutaId).orElseThrow();
+        return ruta.getPuntos().stream().map(PuntoInteres::getId).toList();
+    }
+}
@@ -0,0 +1,79 @@
+package com.svalero.rutea.controller;
+
+import com.svalero.rutea.dto.ResenaOutDto;
+import com.svalero.rutea.service.ExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ExportController.class)
+class ExportControllerTest {
+
+    private static final String NDJSON_BODY =
+            "{\"id\":1,\"comentario\":\"Bien\",\"editada\":false,\"fechaPublicacion\":\"2024-05-01\",\"likes\":3,"
+                    + "\"titulo\":\"Uno\",\"valoracion\":4,\"puntoId\":7,\"usuarioId\":9}\n"
+                    + "{\"id\":2,\"comentario\":\"Mal\",\"editada\":true,\"fechaPublicacion\":\"2024-05-02\",\"likes\":0,"
+                    + "\"titulo\":\"Dos\",\"valoracion\":1,\"puntoId\":7,\"usuarioId\":9}\n";
+
+    @Autowired private MockMvc mockMvc;
+
+    @MockBean private ExportService exportService;
+
+    private void givenTwoResenas() throws Exception {
+        when(exportService.exportResenas(any())).thenAnswer(invocation -> {
+            ExportService.Sink<ResenaOutDto> sink = invocation.getArgument(0);
+            sink.write(new ResenaOutDto(1, "Bien", false, LocalDate.of(2024, 5, 1), 3, "Uno", 4, 7L, 9L));
+            sink.write(new ResenaOutDto(2, "Mal", true, LocalDate.of(2024, 5, 2), 0, "Dos", 1, 7L, 9L));
+            return 2L;
+        });
+    }
+
+    @Test
+    void exportResenas_shouldWriteOneJsonObjectPerLine() throws Exception {
+        givenTwoResenas();
+
+        mockMvc.perform(get("/export/resenas"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ExportController.NDJSON))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string(NDJSON_BODY));
+    }
+
+    @Test
+    void exportResenas_shouldGzip_whenAccepted() throws Exception {
+        givenTwoResenas();
+
+        MvcResult result = mockMvc.perform(get("/export/resenas").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            assertEquals(NDJSON_BODY, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void exportRutas_shouldReturnEmptyBody_whenNoRows() throws Exception {
+        when(exportService.exportRutas(any())).thenReturn(0L);
+
+        mockMvc.perform(get("/export/rutas"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+}
@@ -0,0 +1,77 @@
+package com.svalero.rutea.controller;
+
+import com.svalero.rutea.dto.ImportErrorOutDto;
+import com.svalero.rutea.dto.ImportResultOutDto;
+import com.svalero.rutea.service.ImportService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ImportController.class)
+class ImportControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+
+    @MockBean private ImportService importService;
+
+    @Test
+    void importPuntos_shouldReturnSummary_withLineErrors() throws Exception {
+        when(importService.importPuntos(any(), eq(ImportService.Formato.NDJSON))).thenReturn(new ImportResultOutDto(
+                3, 2, 1, List.of(new ImportErrorOutDto(2, Map.of("categoriaId", "Categoria not found")))));
+
+        mockMvc.perform(post("/import/puntos").contentType(ExportController.NDJSON).content("{}\n{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.leidos").value(3))
+                .andExpect(jsonPath("$.importados").value(2))
+                .andExpect(jsonPath("$.fallidos").value(1))
+                .andExpect(jsonPath("$.errores[0].linea").value(2))
+                .andExpect(jsonPath("$.errores[0].errors.categoriaId").value("Categoria not found"));
+    }
+
+    @Test
+    void importRutas_shouldReadGzippedCsv() throws Exception {
+        String csv = "titulo,usuarioId\nUna,1\n";
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+        ArgumentCaptor<BufferedReader> body = ArgumentCaptor.forClass(BufferedReader.class);
+        when(importService.importRutas(body.capture(), eq(ImportService.Formato.CSV))).thenAnswer(invocation -> {
+            assertEquals(csv, body.getValue().lines().map(linea -> linea + "\n").collect(Collectors.joining()));
+            return new ImportResultOutDto(1, 1, 0, List.of());
+        });
+
+        mockMvc.perform(post("/import/rutas").contentType("text/csv; charset=UTF-8")
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip").content(gzipped.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importados").value(1));
+        verify(importService).importRutas(any(), eq(ImportService.Formato.CSV));
+    }
+
+    @Test
+    void importPuntos_shouldReturn400_whenContentTypeIsNotSupported() throws Exception {
+        mockMvc.perform(post("/import/puntos").contentType(MediaType.APPLICATION_XML).content("<puntos/>"))
+                .andExpect(status().isBadRequest());
+    }
+}
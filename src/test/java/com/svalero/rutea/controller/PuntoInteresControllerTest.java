@@ -2,7 +2,9 @@ package com.svalero.rutea.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.svalero.rutea.dto.PuntoInteresInDto;
+import com.svalero.rutea.dto.PuntoInteresNearbyOutDto;
 import com.svalero.rutea.dto.PuntoInteresOutDto;
+import com.svalero.rutea.dto.PuntoValoracionesOutDto;
 import com.svalero.rutea.exception.CategoriaNotFoundException;
 import com.svalero.rutea.exception.PuntoInteresNotFoundException;
 import com.svalero.rutea.service.PuntoInteresService;
@@ -15,6 +17,7 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doThrow;
@@ -77,6 +80,56 @@ class PuntoInteresControllerTest {
 
     // -------------------- GET BY ID --------------------
 
+    // -------------------- NEARBY --------------------
+
+    @Test
+    void getNearby_shouldReturn200() throws Exception {
+        PuntoInteresNearbyOutDto cercano = new PuntoInteresNearbyOutDto();
+        cercano.setId(10L);
+        cercano.setNombre("Parque Grande");
+        cercano.setDistanciaKm(1.25);
+        when(puntoInteresService.findNearby(41.65, -0.88, 2.0, 5)).thenReturn(List.of(cercano));
+
+        mockMvc.perform(get("/puntos/nearby")
+                        .param("lat", "41.65")
+                        .param("lon", "-0.88")
+                        .param("radiusKm", "2")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(10))
+                .andExpect(jsonPath("$[0].distanciaKm").value(1.25));
+    }
+
+    @Test
+    void getNearby_shouldUseDefaults_whenRadiusAndLimitMissing() throws Exception {
+        when(puntoInteresService.findNearby(41.65, -0.88, 5.0, 20)).thenReturn(List.of());
+
+        mockMvc.perform(get("/puntos/nearby")
+                        .param("lat", "41.65")
+                        .param("lon", "-0.88"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void getNearby_shouldReturn400_whenCoordinatesOutOfRange() throws Exception {
+        mockMvc.perform(get("/puntos/nearby")
+                        .param("lat", "95")
+                        .param("lon", "-0.88")
+                        .param("limit", "500"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400))
+                .andExpect(jsonPath("$.errors.lat").exists())
+                .andExpect(jsonPath("$.errors.limit").exists());
+    }
+
+    @Test
+    void getNearby_shouldReturn400_whenLatMissing() throws Exception {
+        mockMvc.perform(get("/puntos/nearby").param("lon", "-0.88"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.lat").exists());
+    }
+
     @Test
     void getById_shouldReturn200() throws Exception {
         PuntoInteresOutDto dto = new PuntoInteresOutDto(
@@ -106,6 +159,26 @@ class PuntoInteresControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void getValoraciones_shouldReturn200() throws Exception {
+        when(puntoInteresService.findValoraciones(1L))
+                .thenReturn(new PuntoValoracionesOutDto(1L, 3, 4.0f, Map.of(1, 0, 2, 0, 3, 1, 4, 1, 5, 1)));
+
+        mockMvc.perform(get("/puntos/1/valoraciones"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalResenas").value(3))
+                .andExpect(jsonPath("$.puntuacionMedia").value(4.0))
+                .andExpect(jsonPath("$.histograma.5").value(1));
+    }
+
+    @Test
+    void getValoraciones_shouldReturn404_whenNotFound() throws Exception {
+        when(puntoInteresService.findValoraciones(99L)).thenThrow(new PuntoInteresNotFoundException());
+
+        mockMvc.perform(get("/puntos/99/valoraciones"))
+                .andExpect(status().isNotFound());
+    }
+
     // -------------------- POST --------------------
 
     @Test
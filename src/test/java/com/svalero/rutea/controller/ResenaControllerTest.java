@@ -239,6 +239,27 @@ class ResenaControllerTest {
                 .andExpect(jsonPath("$.errors.usuarioId").exists());
     }
 
+    // -------------------- LIKE --------------------
+
+    @Test
+    void like_shouldReturn200_withUpdatedLikes() throws Exception {
+        ResenaOutDto out = new ResenaOutDto(1L, "Muy bien", false, LocalDate.now(), 11, "Genial", 5, 1L, 1L);
+        when(resenaService.like(1L)).thenReturn(out);
+
+        mockMvc.perform(post("/resenas/1/like"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likes").value(11));
+    }
+
+    @Test
+    void like_shouldReturn404_whenNotFound() throws Exception {
+        when(resenaService.like(99L)).thenThrow(new ResenaNotFoundException());
+
+        mockMvc.perform(post("/resenas/99/like"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value(404));
+    }
+
     // -------------------- DELETE --------------------
 
     @Test
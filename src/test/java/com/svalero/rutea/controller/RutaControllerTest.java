@@ -1,8 +1,10 @@
 package com.svalero.rutea.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.svalero.rutea.dto.CursorPage;
 import com.svalero.rutea.dto.RutaInDto;
 import com.svalero.rutea.dto.RutaOutDto;
+import com.svalero.rutea.exception.InvalidCursorException;
 import com.svalero.rutea.exception.PuntoInteresNotFoundException;
 import com.svalero.rutea.exception.RutaNotFoundException;
 import com.svalero.rutea.exception.UsuarioNotFoundException;
@@ -35,21 +37,56 @@ class RutaControllerTest {
 
     @Test
     void getAll_shouldReturn200() throws Exception {
-        when(rutaService.findAll(eq("facil"), eq(true), eq("paseo")))
-                .thenReturn(List.of(new RutaOutDto(
+        when(rutaService.findAll(eq("facil"), eq(true), eq("paseo"), isNull(), isNull()))
+                .thenReturn(new CursorPage<>(List.of(new RutaOutDto(
                         1L, "facil", 5.5f, 60, LocalDate.now(), true, "Paseo por el parque", 10L, List.of(100L, 200L)
-                )));
+                )), null));
 
         mockMvc.perform(get("/v1/rutas")
                         .param("dificultad", "facil")
                         .param("publica", "true")
                         .param("titulo", "paseo"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(CursorPage.NEXT_CURSOR_HEADER))
                 .andExpect(jsonPath("$[0].id").value(1))
                 .andExpect(jsonPath("$[0].publica").value(true))
                 .andExpect(jsonPath("$[0].usuarioId").value(10));
     }
 
+    @Test
+    void getAll_shouldReturnNextCursorHeader_whenMorePages() throws Exception {
+        when(rutaService.findAll(eq(""), isNull(), eq(""), eq("abc"), eq(1)))
+                .thenReturn(new CursorPage<>(List.of(new RutaOutDto(
+                        2L, "media", 8f, 90, LocalDate.now(), true, "Ruta", 10L, List.of()
+                )), "next"));
+
+        mockMvc.perform(get("/v1/rutas")
+                        .param("limit", "1")
+                        .param("after", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].id").value(2));
+    }
+
+    @Test
+    void getAll_shouldReturn400_whenLimitBelowOne() throws Exception {
+        mockMvc.perform(get("/v1/rutas").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400))
+                .andExpect(jsonPath("$.errors.limit").exists());
+    }
+
+    @Test
+    void getAll_shouldReturn400_whenInvalidCursor() throws Exception {
+        when(rutaService.findAll(eq(""), isNull(), eq(""), eq("roto"), isNull()))
+                .thenThrow(new InvalidCursorException());
+
+        mockMvc.perform(get("/v1/rutas").param("after", "roto"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400))
+                .andExpect(jsonPath("$.errors.after").exists());
+    }
+
     @Test
     void getAll_shouldReturn400_whenBadQueryParam() throws Exception {
         mockMvc.perform(get("/v1/rutas").param("publica", "abc"))
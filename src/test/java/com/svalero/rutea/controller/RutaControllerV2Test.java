@@ -0,0 +1,93 @@
+package com.svalero.rutea.controller;
+
+import com.svalero.rutea.dto.CursorPage;
+import com.svalero.rutea.dto.RutaOptimizacionOutDto;
+import com.svalero.rutea.exception.RutaNotFoundException;
+import com.svalero.rutea.exception.TooManyPuntosException;
+import com.svalero.rutea.service.RutaService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RutaControllerV2.class)
+class RutaControllerV2Test {
+
+    @Autowired private MockMvc mockMvc;
+
+    @MockBean private RutaService rutaService;
+
+    // -------------------- GET ALL --------------------
+
+    @Test
+    void getAll_shouldPassTagsAndMode() throws Exception {
+        when(rutaService.findAllV2("", null, "", List.of("montana", "agua"), false, null, null))
+                .thenReturn(new CursorPage<>(List.of(), null));
+
+        mockMvc.perform(get("/v2/rutas").param("etiquetas", "montana", "agua").param("etiquetasModo", "or"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isArray());
+
+        verify(rutaService).findAllV2("", null, "", List.of("montana", "agua"), false, null, null);
+    }
+
+    @Test
+    void getAll_shouldReturn400_whenTagModeIsInvalid() throws Exception {
+        mockMvc.perform(get("/v2/rutas").param("etiquetas", "montana").param("etiquetasModo", "xor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.etiquetasModo").exists());
+    }
+
+    // -------------------- OPTIMIZE --------------------
+
+    @Test
+    void optimize_shouldReturn200_withoutPersistingByDefault() throws Exception {
+        when(rutaService.optimizeV2(1L, false))
+                .thenReturn(new RutaOptimizacionOutDto(1L, 12.5, 9.75, List.of(100L, 300L, 200L), false));
+
+        mockMvc.perform(post("/v2/rutas/1/optimize"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rutaId").value(1))
+                .andExpect(jsonPath("$.distanciaAntesKm").value(12.5))
+                .andExpect(jsonPath("$.distanciaDespuesKm").value(9.75))
+                .andExpect(jsonPath("$.puntosIds[1]").value(300))
+                .andExpect(jsonPath("$.guardada").value(false));
+    }
+
+    @Test
+    void optimize_shouldPassPersistFlag() throws Exception {
+        when(rutaService.optimizeV2(1L, true))
+                .thenReturn(new RutaOptimizacionOutDto(1L, 12.5, 9.75, List.of(100L, 300L, 200L), true));
+
+        mockMvc.perform(post("/v2/rutas/1/optimize").param("persist", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.guardada").value(true));
+    }
+
+    @Test
+    void optimize_shouldReturn404_whenNotFound() throws Exception {
+        when(rutaService.optimizeV2(99L, false)).thenThrow(new RutaNotFoundException());
+
+        mockMvc.perform(post("/v2/rutas/99/optimize"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value(404));
+    }
+
+    @Test
+    void optimize_shouldReturn400_whenTooManyPuntos() throws Exception {
+        when(rutaService.optimizeV2(1L, false)).thenThrow(new TooManyPuntosException(500));
+
+        mockMvc.perform(post("/v2/rutas/1/optimize"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.puntosIds").value("puntosIds max size is 500"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.svalero.rutea.controller;
+
+import com.svalero.rutea.dto.CursorPage;
+import com.svalero.rutea.dto.SearchHitOutDto;
+import com.svalero.rutea.exception.InvalidCursorException;
+import com.svalero.rutea.service.SearchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SearchController.class)
+class SearchControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+
+    @MockBean private SearchService searchService;
+
+    @Test
+    void search_shouldReturn200_withNextCursorHeader() throws Exception {
+        when(searchService.search("moncayo", "ruta", null, 2)).thenReturn(new CursorPage<>(List.of(
+                new SearchHitOutDto("ruta", 3L, "Subida al Moncayo", 2.5),
+                new SearchHitOutDto("ruta", 8L, "Moncayo nevado", 1.75)), "next"));
+
+        mockMvc.perform(get("/search").param("q", "moncayo").param("tipo", "ruta").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].tipo").value("ruta"))
+                .andExpect(jsonPath("$[0].titulo").value("Subida al Moncayo"))
+                .andExpect(jsonPath("$[1].score").value(1.75));
+    }
+
+    @Test
+    void search_shouldReturn400_whenQueryMissing() throws Exception {
+        mockMvc.perform(get("/search"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.q").exists());
+        verifyNoInteractions(searchService);
+    }
+
+    @Test
+    void search_shouldReturn400_whenTipoUnknown() throws Exception {
+        mockMvc.perform(get("/search").param("q", "ebro").param("tipo", "usuario"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.tipo").exists());
+    }
+
+    @Test
+    void search_shouldReturn400_whenCursorInvalid() throws Exception {
+        when(searchService.search(eq("ebro"), isNull(), eq("basura"), isNull())).thenThrow(new InvalidCursorException());
+
+        mockMvc.perform(get("/search").param("q", "ebro").param("after", "basura"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.after").exists());
+    }
+}
@@ -0,0 +1,109 @@
+package com.svalero.rutea.geo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuntoSpatialIndexTest {
+
+    private PuntoSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PuntoSpatialIndex(0.05);
+    }
+
+    @Test
+    void nearest_shouldMatchBruteForce_whenRandomPoints() {
+        Random random = new Random(42);
+        int n = 20_000;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 40.0 + random.nextDouble() * 3;
+            lon[i] = -2.0 + random.nextDouble() * 3;
+            index.put(i, lat[i], lon[i]);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            double qLat = 40.0 + random.nextDouble() * 3;
+            double qLon = -2.0 + random.nextDouble() * 3;
+            double radius = 1 + random.nextDouble() * 30;
+            int k = 1 + random.nextInt(30);
+
+            List<Integer> expected = IntStream.range(0, n).boxed()
+                    .filter(i -> GeoUtils.haversineKm(qLat, qLon, lat[i], lon[i]) <= radius)
+                    .sorted(Comparator.comparingDouble(i -> GeoUtils.haversineKm(qLat, qLon, lat[i], lon[i])))
+                    .limit(k)
+                    .toList();
+
+            List<PuntoSpatialIndex.Hit> hits = index.nearest(qLat, qLon, radius, k);
+
+            assertEquals(expected.size(), hits.size());
+            for (int i = 0; i < hits.size(); i++)
+                assertEquals(expected.get(i).longValue(), hits.get(i).id());
+        }
+    }
+
+    @Test
+    void nearest_shouldReturnSortedByDistance() {
+        index.put(1L, 41.6500, -0.8800);
+        index.put(2L, 41.6600, -0.8800);
+        index.put(3L, 41.6520, -0.8800);
+
+        List<PuntoSpatialIndex.Hit> hits = index.nearest(41.6500, -0.8800, 5, 10);
+
+        assertEquals(List.of(1L, 3L, 2L), hits.stream().map(PuntoSpatialIndex.Hit::id).toList());
+        assertEquals(0.0, hits.get(0).distanciaKm(), 1e-9);
+        assertEquals(1.112, hits.get(2).distanciaKm(), 0.01);
+    }
+
+    @Test
+    void nearest_shouldFindPoints_acrossAntimeridian() {
+        index.put(1L, 0.0, 179.99);
+        index.put(2L, 0.0, -179.99);
+        index.put(3L, 0.0, 170.0);
+
+        List<PuntoSpatialIndex.Hit> hits = index.nearest(0.0, -179.999, 10, 10);
+
+        assertEquals(List.of(2L, 1L), hits.stream().map(PuntoSpatialIndex.Hit::id).toList());
+    }
+
+    @Test
+    void nearest_shouldHonourRadius_whenKIsLarge() {
+        index.put(1L, 41.65, -0.88);
+        index.put(2L, 42.65, -0.88);
+
+        assertEquals(1, index.nearest(41.65, -0.88, 50, 100).size());
+        assertEquals(2, index.nearest(41.65, -0.88, 200, 100).size());
+    }
+
+    @Test
+    void put_shouldMovePoint_whenCoordinatesChange() {
+        index.put(1L, 41.65, -0.88);
+        index.put(1L, 40.41, -3.70);
+
+        assertEquals(1, index.size());
+        assertTrue(index.nearest(41.65, -0.88, 10, 10).isEmpty());
+        assertEquals(1L, index.nearest(40.41, -3.70, 10, 10).get(0).id());
+    }
+
+    @Test
+    void remove_shouldDropPoint_andKeepOthersReachable() {
+        for (long id = 1; id <= 1_000; id++)
+            index.put(id, 41.65 + id * 1e-5, -0.88);
+        for (long id = 1; id <= 1_000; id += 2)
+            index.remove(id);
+
+        assertEquals(500, index.size());
+        List<PuntoSpatialIndex.Hit> hits = index.nearest(41.65, -0.88, 50, 1_000);
+        assertEquals(500, hits.size());
+        assertTrue(hits.stream().allMatch(h -> h.id() % 2 == 0));
+    }
+}
@@ -0,0 +1,89 @@
+package com.svalero.rutea.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteGeometryTest {
+
+    @Test
+    void compute_shouldSumLegsAndTrackBbox_whenSeveralPoints() {
+        double[] lat = {41.6488, 42.1401, 42.5700, 41.6488};
+        double[] lon = {-0.8891, -0.4089, -0.5500, -0.8891};
+
+        RouteGeometry geometry = new RouteGeometry().compute(lat, lon, lat.length);
+
+        assertEquals(4, geometry.size());
+        assertEquals(3, geometry.legCount());
+        double sum = 0;
+        for (int i = 0; i < geometry.legCount(); i++) {
+            assertEquals(GeoUtils.haversineKm(lat[i], lon[i], lat[i + 1], lon[i + 1]), geometry.legKm(i), 1e-9);
+            sum += geometry.legKm(i);
+        }
+        assertEquals(sum, geometry.totalKm(), 1e-9);
+        assertEquals(41.6488, geometry.minLat());
+        assertEquals(42.5700, geometry.maxLat());
+        assertEquals(-0.8891, geometry.minLon());
+        assertEquals(-0.4089, geometry.maxLon());
+    }
+
+    @Test
+    void compute_shouldHaveNoLegs_whenSinglePoint() {
+        RouteGeometry geometry = new RouteGeometry().add(40.0, -3.0);
+
+        assertEquals(0, geometry.legCount());
+        assertEquals(0, geometry.totalKm());
+        assertEquals(0, geometry.legsKm().length);
+        assertEquals(40.0, geometry.minLat());
+        assertEquals(40.0, geometry.maxLat());
+    }
+
+    @Test
+    void bbox_shouldWrapAroundTheAntimeridian_whenShorterThanTheDirectArc() {
+        // Fiyi: de 178.5° a -179.8° pasando por 180°
+        RouteGeometry geometry = new RouteGeometry().compute(
+                new double[]{-17.8, -16.5, -16.8}, new double[]{178.5, 179.9, -179.8}, 3);
+
+        assertEquals(178.5, geometry.minLon(), 1e-9);
+        assertEquals(-179.8, geometry.maxLon(), 1e-9);
+        assertEquals(-17.8, geometry.minLat());
+        assertEquals(-16.5, geometry.maxLat());
+
+        // cerca de Greenwich el rango directo es el corto y no se envuelve nada
+        geometry.compute(new double[]{51.4, 51.5}, new double[]{-0.2, 0.1}, 2);
+        assertEquals(-0.2, geometry.minLon(), 1e-9);
+        assertEquals(0.1, geometry.maxLon(), 1e-9);
+    }
+
+    @Test
+    void bbox_shouldThrow_whenEmpty() {
+        RouteGeometry geometry = new RouteGeometry();
+
+        assertEquals(0, geometry.legCount());
+        assertThrows(IllegalStateException.class, geometry::minLat);
+    }
+
+    @Test
+    void reset_shouldDiscardPreviousRoute_whenReused() {
+        Random random = new Random(7);
+        RouteGeometry geometry = new RouteGeometry();
+        int n = 1_000;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 40 + random.nextDouble();
+            lon[i] = -1 + random.nextDouble();
+        }
+        geometry.compute(lat, lon, n);
+
+        geometry.compute(new double[]{0, 0}, new double[]{0, 1}, 2);
+
+        assertEquals(1, geometry.legCount());
+        assertEquals(GeoUtils.haversineKm(0, 0, 0, 1), geometry.totalKm(), 1e-9);
+        assertEquals(0, geometry.minLat());
+        assertEquals(1, geometry.maxLon());
+        assertThrows(IndexOutOfBoundsException.class, () -> geometry.legKm(1));
+    }
+}
@@ -0,0 +1,107 @@
+package com.svalero.rutea.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteOptimizerTest {
+
+    private static final long BUDGET = 1_000_000_000L;
+
+    @Test
+    void optimize_shouldWalkStraightLine_whenPointsShuffled() {
+        // puntos sobre el ecuador; el óptimo desde lon 0 es recorrerlos en orden
+        double[] lons = {0, 7, 2, 9, 4, 1, 8, 3, 6, 5};
+        double[] lats = new double[lons.length];
+
+        RouteOptimizer.Result result = RouteOptimizer.optimize(lats, lons, lons.length, BUDGET);
+
+        double[] visited = Arrays.stream(result.order()).mapToDouble(i -> lons[i]).toArray();
+        assertArrayEquals(new double[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, visited);
+        assertEquals(GeoUtils.haversineKm(0, 0, 0, 9), result.afterKm(), 1e-6);
+        assertTrue(result.improved());
+    }
+
+    @Test
+    void optimize_shouldKeepOriginalOrder_whenAlreadyOptimal() {
+        double[] lats = {0, 0, 0, 0};
+        double[] lons = {0, 1, 2, 3};
+
+        RouteOptimizer.Result result = RouteOptimizer.optimize(lats, lons, 4, BUDGET);
+
+        assertArrayEquals(new int[]{0, 1, 2, 3}, result.order());
+        assertEquals(result.beforeKm(), result.afterKm());
+        assertFalse(result.improved());
+    }
+
+    @Test
+    void optimize_shouldReturnPermutationStartingAtFirst_andNeverWorse_whenRandomPoints() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            int n = 3 + random.nextInt(150);
+            double[] lats = new double[n];
+            double[] lons = new double[n];
+            for (int i = 0; i < n; i++) {
+                lats[i] = 41.5 + random.nextDouble() * 0.3;
+                lons[i] = -1.0 + random.nextDouble() * 0.3;
+            }
+
+            RouteOptimizer.Result result = RouteOptimizer.optimize(lats, lons, n, BUDGET);
+
+            int[] order = result.order();
+            assertEquals(0, order[0]);
+            assertArrayEquals(IntStream.range(0, n).toArray(), Arrays.stream(order).sorted().toArray());
+            assertTrue(result.afterKm() <= result.beforeKm());
+            double km = 0;
+            for (int i = 1; i < n; i++)
+                km += GeoUtils.haversineKm(lats[order[i - 1]], lons[order[i - 1]], lats[order[i]], lons[order[i]]);
+            assertEquals(km, result.afterKm(), 1e-6);
+        }
+    }
+
+    @Test
+    void optimize_shouldReturnIdentity_whenFewerThanThreePoints() {
+        RouteOptimizer.Result result = RouteOptimizer.optimize(new double[]{40, 41}, new double[]{-3, -3}, 2, BUDGET);
+
+        assertArrayEquals(new int[]{0, 1}, result.order());
+        assertEquals(GeoUtils.haversineKm(40, -3, 41, -3), result.beforeKm(), 1e-9);
+        assertEquals(0, RouteOptimizer.optimize(new double[0], new double[0], 0, BUDGET).afterKm());
+    }
+
+    @Test
+    void optimize_shouldStillReturnValidOrder_whenBudgetIsZero() {
+        double[] lons = {0, 3, 1, 2};
+        double[] lats = new double[4];
+
+        RouteOptimizer.Result result = RouteOptimizer.optimize(lats, lons, 4, 0);
+
+        assertEquals(0, result.order()[0]);
+        assertTrue(result.afterKm() <= result.beforeKm());
+    }
+
+    @Test
+    void distanceMatrix_shouldBeSymmetricHaversine_whenBuiltInParallel() {
+        Random random = new Random(3);
+        int n = RouteOptimizer.PARALLEL_MATRIX_THRESHOLD + 44;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = -60 + random.nextDouble() * 120;
+            lons[i] = -180 + random.nextDouble() * 360;
+        }
+
+        double[] dist = RouteOptimizer.distanceMatrix(lats, lons, n);
+
+        for (int i = 0; i < n; i += 7) {
+            assertEquals(0, dist[i * n + i]);
+            for (int j = 0; j < n; j += 13) {
+                assertEquals(GeoUtils.haversineKm(lats[i], lons[i], lats[j], lons[j]), dist[i * n + j], 1e-9);
+                assertEquals(dist[i * n + j], dist[j * n + i]);
+            }
+        }
+    }
+}
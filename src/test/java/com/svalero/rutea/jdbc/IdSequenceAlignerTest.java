@@ -0,0 +1,49 @@
+package com.svalero.rutea.jdbc;
+
+import com.svalero.rutea.domain.Etiqueta;
+import com.svalero.rutea.repository.EtiquetaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Filas insertadas con su propio id, como las que dejaron los AUTO_INCREMENT, antes de que
+ * Hibernate pida ids a la secuencia. Sin la transacción del test, para que las vea el alineador.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(IdSequenceAligner.class)
+class IdSequenceAlignerTest {
+
+    @Autowired private IdSequenceAligner aligner;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EtiquetaRepository etiquetaRepository;
+
+    @AfterEach
+    void tearDown() {
+        etiquetaRepository.deleteAll();
+    }
+
+    @Test
+    void align_shouldKeepExistingIds_andContinueAfterTheLargest() throws Exception {
+        for (long id = 1; id <= 120; id++)
+            jdbcTemplate.update("insert into \"etiquetas\" (\"id\", \"nombre\") values (?, ?)", id, "previa-" + id);
+
+        assertTrue(aligner.align() >= 1);
+        // ya por delante: no vuelve a tocarla
+        assertEquals(0, aligner.align());
+
+        long primero = etiquetaRepository.save(Etiqueta.builder().nombre("nueva-1").build()).getId();
+        long segundo = etiquetaRepository.save(Etiqueta.builder().nombre("nueva-2").build()).getId();
+        assertTrue(primero > 120, "primer id nuevo: " + primero);
+        assertEquals(primero + 1, segundo);
+        assertEquals(122, etiquetaRepository.count());
+    }
+}
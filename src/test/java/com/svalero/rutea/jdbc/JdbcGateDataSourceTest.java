@@ -0,0 +1,61 @@
+package com.svalero.rutea.jdbc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JdbcGateDataSourceTest {
+
+    private DataSource target;
+    private Connection inner;
+    private JdbcGateDataSource gate;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        inner = mock(Connection.class);
+        when(target.getConnection()).thenReturn(inner);
+        gate = new JdbcGateDataSource(target, 2, 50);
+    }
+
+    @Test
+    void getConnection_shouldTimeOut_whenAllPermitsAreTaken() throws SQLException {
+        gate.getConnection();
+        gate.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, gate::getConnection);
+        assertEquals(0, gate.getAvailablePermits());
+    }
+
+    @Test
+    void close_shouldReleasePermitOnce_whenClosedTwice() throws SQLException {
+        Connection connection = gate.getConnection();
+
+        connection.close();
+        connection.close();
+
+        assertEquals(2, gate.getAvailablePermits());
+    }
+
+    @Test
+    void close_shouldCloseTargetConnection() throws SQLException {
+        gate.getConnection().close();
+
+        verify(inner).close();
+    }
+
+    @Test
+    void getConnection_shouldReleasePermit_whenTargetFails() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("down"));
+
+        assertThrows(SQLException.class, gate::getConnection);
+        assertEquals(2, gate.getAvailablePermits());
+    }
+}
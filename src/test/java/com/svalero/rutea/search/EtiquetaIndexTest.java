@@ -0,0 +1,105 @@
+package com.svalero.rutea.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EtiquetaIndexTest {
+
+    private EtiquetaIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EtiquetaIndex();
+    }
+
+    @Test
+    void parse_shouldNormalizeSplitAndDedupe() {
+        assertEquals(List.of("montana", "rio ebro", "familiar"),
+                EtiquetaIndex.parse(" Montaña ,Río   Ebro; familiar,,montana ", 60));
+        assertEquals(List.of("abc"), EtiquetaIndex.parse("abcdef", 3));
+        assertTrue(EtiquetaIndex.parse(null, 60).isEmpty());
+        assertTrue(EtiquetaIndex.parse(" , ; ", 60).isEmpty());
+    }
+
+    @Test
+    void match_shouldIntersect_whenTodas() {
+        index.put(1, Map.of("montana", 10L, "agua", 20L));
+        index.put(2, Map.of("montana", 10L));
+        index.put(3, Map.of("montana", 10L, "agua", 20L, "familiar", 30L));
+        index.put(4, Map.of("agua", 20L));
+
+        assertArrayEquals(new long[]{1, 3}, index.match(List.of("Montaña", "agua"), true));
+        assertArrayEquals(new long[]{3}, index.match(List.of("familiar", "agua", "montana"), true));
+    }
+
+    @Test
+    void match_shouldUnionSortedWithoutRepeats_whenAlguna() {
+        index.put(5, Map.of("montana", 10L, "agua", 20L));
+        index.put(2, Map.of("montana", 10L));
+        index.put(9, Map.of("agua", 20L));
+
+        assertArrayEquals(new long[]{2, 5, 9}, index.match(List.of("agua", "montana"), false));
+    }
+
+    @Test
+    void match_shouldHandleUnknownTags() {
+        index.put(1, Map.of("montana", 10L));
+
+        assertEquals(0, index.match(List.of("montana", "desconocida"), true).length);
+        assertArrayEquals(new long[]{1}, index.match(List.of("montana", "desconocida"), false));
+    }
+
+    @Test
+    void put_shouldReplacePreviousTags_andRemoveShouldForgetThem() {
+        index.put(1, Map.of("montana", 10L));
+        index.put(1, Map.of("agua", 20L));
+
+        assertEquals(0, index.match(List.of("montana"), true).length);
+        assertArrayEquals(new long[]{1}, index.match(List.of("agua"), true));
+
+        index.remove(1);
+
+        assertEquals(0, index.match(List.of("agua"), false).length);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void match_shouldAgreeWithNaiveIntersection_onRandomLists() {
+        Random random = new Random(42);
+        TreeSet<Long> a = new TreeSet<>();
+        TreeSet<Long> b = new TreeSet<>();
+        TreeSet<Long> c = new TreeSet<>();
+        // insertadas en orden aleatorio para ejercitar las altas en medio de la lista
+        List<Long> ids = new ArrayList<>(LongStream.range(1, 5000).boxed().toList());
+        Collections.shuffle(ids, random);
+        for (long id : ids) {
+            Map<String, Long> etiquetas = new HashMap<>();
+            if (random.nextInt(2) == 0) { etiquetas.put("a", 1L); a.add(id); }
+            if (random.nextInt(10) == 0) { etiquetas.put("b", 2L); b.add(id); }
+            if (random.nextInt(4) == 0) { etiquetas.put("c", 3L); c.add(id); }
+            index.put(id, etiquetas);
+        }
+
+        TreeSet<Long> expected = new TreeSet<>(a);
+        expected.retainAll(b);
+        expected.retainAll(c);
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(),
+                index.match(List.of("a", "b", "c"), true));
+
+        TreeSet<Long> union = new TreeSet<>(b);
+        union.addAll(c);
+        assertArrayEquals(union.stream().mapToLong(Long::longValue).toArray(),
+                index.match(List.of("b", "c"), false));
+    }
+}
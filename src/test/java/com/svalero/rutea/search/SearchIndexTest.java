@@ -0,0 +1,132 @@
+package com.svalero.rutea.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SearchIndex();
+    }
+
+    private List<Long> ids(SearchIndex.Result result) {
+        return result.hits().stream().map(SearchIndex.Hit::id).toList();
+    }
+
+    @Test
+    void tokens_shouldFoldAccentsLowercaseAndDropStopwords() {
+        assertEquals(List.of("canon", "rio", "lobos"), TextAnalyzer.tokens("Cañón del Río Lobos"));
+        assertEquals(List.of("pinguinos", "2024"), TextAnalyzer.tokens("¡PINGÜINOS, 2024!"));
+        assertTrue(TextAnalyzer.tokens("   ").isEmpty());
+    }
+
+    @Test
+    void queryTerms_shouldMarkPrefixes_onlyWhenLongEnough() {
+        assertEquals(List.of(new TextAnalyzer.QueryTerm("mira", true), new TextAnalyzer.QueryTerm("ebro", false)),
+                TextAnalyzer.queryTerms("Mira* ebro"));
+        assertFalse(TextAnalyzer.queryTerms("m*").get(0).prefix());
+    }
+
+    @Test
+    void search_shouldIgnoreAccentsAndCase() {
+        index.put(SearchIndex.Tipo.RUTA, 1, "Cañón del Río Lobos", null);
+        index.put(SearchIndex.Tipo.RUTA, 2, "Ribera del Ebro", null);
+
+        assertEquals(List.of(1L), ids(index.search("CANON rio", null, 0, 10)));
+    }
+
+    @Test
+    void search_shouldExpandPrefixes() {
+        index.put(SearchIndex.Tipo.PUNTO, 1, "Mirador de San Cristóbal", null);
+        index.put(SearchIndex.Tipo.PUNTO, 2, "Miradores del Moncayo", null);
+        index.put(SearchIndex.Tipo.PUNTO, 3, "Castillo de Mesones", null);
+
+        assertEquals(List.of(1L, 2L), ids(index.search("mira*", null, 0, 10)).stream().sorted().toList());
+        assertTrue(index.search("mira", null, 0, 10).hits().isEmpty());
+    }
+
+    @Test
+    void search_shouldRankTitleAboveTags_andMoreMatchedTermsFirst() {
+        index.put(SearchIndex.Tipo.RUTA, 1, "Paseo urbano", "montaña");
+        index.put(SearchIndex.Tipo.RUTA, 2, "Ruta de montaña", "familiar");
+        index.put(SearchIndex.Tipo.RUTA, 3, "Montaña y lagos", "lagos");
+        index.put(SearchIndex.Tipo.RUTA, 4, "Otra cosa", "nada");
+
+        List<Long> ranked = ids(index.search("montaña lagos", null, 0, 10));
+
+        assertEquals(3L, ranked.get(0));
+        assertTrue(ranked.indexOf(2L) < ranked.indexOf(1L), "title match should beat tag match: " + ranked);
+        assertFalse(ranked.contains(4L));
+    }
+
+    @Test
+    void search_shouldPreferRareTerms() {
+        for (int i = 0; i < 20; i++)
+            index.put(SearchIndex.Tipo.RUTA, i, "Ruta " + i, null);
+        index.put(SearchIndex.Tipo.RUTA, 100, "Ruta Moncayo", null);
+
+        // "ruta" está en todas: manda "moncayo"
+        assertEquals(100L, ids(index.search("ruta moncayo", null, 0, 10)).get(0));
+    }
+
+    @Test
+    void search_shouldFilterByTipo() {
+        index.put(SearchIndex.Tipo.RUTA, 7, "Ebro", null);
+        index.put(SearchIndex.Tipo.PUNTO, 7, "Ebro", null);
+
+        SearchIndex.Result puntos = index.search("ebro", SearchIndex.Tipo.PUNTO, 0, 10);
+
+        assertEquals(1, puntos.total());
+        assertEquals(SearchIndex.Tipo.PUNTO, puntos.hits().get(0).tipo());
+        assertEquals(2, index.search("ebro", null, 0, 10).total());
+    }
+
+    @Test
+    void put_shouldReplacePreviousText_andRemoveShouldForgetIt() {
+        index.put(SearchIndex.Tipo.RUTA, 1, "Ruta vieja", null);
+        index.put(SearchIndex.Tipo.RUTA, 1, "Ruta nueva", null);
+
+        assertTrue(index.search("vieja", null, 0, 10).hits().isEmpty());
+        assertEquals(List.of(1L), ids(index.search("nueva", null, 0, 10)));
+        assertEquals(1, index.size());
+
+        index.remove(SearchIndex.Tipo.RUTA, 1);
+
+        assertTrue(index.search("nueva", null, 0, 10).hits().isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void search_shouldPageThroughAllResults_withoutGapsOrRepeats() {
+        for (int i = 1; i <= 95; i++)
+            index.put(SearchIndex.Tipo.PUNTO, i, i % 3 == 0 ? "Fuente fuente" : "Fuente " + i, null);
+
+        List<Long> seen = new ArrayList<>();
+        int offset = 0;
+        SearchIndex.Result page;
+        do {
+            page = index.search("fuente", null, offset, 20);
+            seen.addAll(ids(page));
+            offset += page.hits().size();
+        } while (offset < page.total());
+
+        assertEquals(95, seen.size());
+        assertEquals(95, seen.stream().distinct().count());
+        assertEquals(ids(index.search("fuente", null, 0, 95)), seen);
+    }
+
+    @Test
+    void search_shouldReturnNothing_whenQueryHasNoTerms() {
+        index.put(SearchIndex.Tipo.RUTA, 1, "Ruta", null);
+
+        assertEquals(0, index.search("  de la ", null, 0, 10).total());
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.env.MockEnvironment;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,6 +26,9 @@ class CategoriaServiceTest {
     @Mock
     private CategoriaRepository categoriaRepository;
 
+    @Spy
+    private EntityCaches entityCaches = new EntityCaches(new MockEnvironment());
+
     @InjectMocks
     private CategoriaService categoriaService;
 
@@ -0,0 +1,70 @@
+package com.svalero.rutea.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+
+    private final EntityCache<String> cache = new EntityCache<>("test", 100, Duration.ofMinutes(1));
+
+    @Test
+    void get_shouldLoadOnce_andThenHit() {
+        AtomicInteger loads = new AtomicInteger();
+
+        EntityCache.Loader<String, RuntimeException> loader = () -> {
+            loads.incrementAndGet();
+            return "a";
+        };
+
+        assertEquals("a", cache.get(1, loader));
+        assertEquals("a", cache.get(1, loader));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void get_shouldNotCache_whenLoaderThrows() {
+        assertThrows(IllegalStateException.class, () -> cache.get(1, () -> {
+            throw new IllegalStateException("no existe");
+        }));
+
+        assertFalse(cache.contains(1));
+    }
+
+    @Test
+    void evict_shouldForceReload() {
+        cache.get(1, () -> "a");
+
+        cache.evict(1);
+
+        assertFalse(cache.contains(1));
+        assertEquals("b", cache.get(1, () -> "b"));
+    }
+
+    @Test
+    void get_shouldDiscardLoadedValue_whenEvictedWhileLoading() {
+        // la lectura carga el valor anterior y, antes de guardarlo, una escritura lo invalida
+        String loaded = cache.get(1, () -> {
+            cache.evict(1);
+            return "anterior";
+        });
+
+        assertEquals("anterior", loaded);
+        assertFalse(cache.contains(1));
+    }
+
+    @Test
+    void reference_shouldReturnLoadedEntity_onMiss_andReference_onHit() {
+        Object entity = new Object();
+        Object reference = new Object();
+
+        assertSame(entity, cache.reference(1, () -> entity, e -> "dto", id -> reference));
+        assertSame(reference, cache.reference(1, () -> fail("ya estaba en la caché"), e -> "dto", id -> reference));
+    }
+}
@@ -0,0 +1,117 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.Categoria;
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.CategoriaInDto;
+import com.svalero.rutea.dto.ResenaInDto;
+import com.svalero.rutea.geo.PuntoSpatialIndex;
+import com.svalero.rutea.repository.CategoriaRepository;
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.ResenaRepository;
+import com.svalero.rutea.repository.UsuarioRepository;
+import com.svalero.rutea.search.SearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Las escrituras de los servicios invalidan lo que cambian, también en otras entidades.
+ * Sin la transacción del test: las invalidaciones se aplican al confirmar.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({CategoriaService.class, PuntoInteresService.class, ResenaService.class, LikeCounter.class,
+        EntityCaches.class, PuntoSpatialIndex.class, SearchIndex.class})
+class EntityCachesTest {
+
+    @Autowired private CategoriaService categoriaService;
+    @Autowired private PuntoInteresService puntoInteresService;
+    @Autowired private ResenaService resenaService;
+    @Autowired private LikeCounter likeCounter;
+    @Autowired private EntityCaches entityCaches;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private PuntoInteresRepository puntoInteresRepository;
+    @Autowired private ResenaRepository resenaRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+
+    private long categoriaId;
+    private long puntoId;
+    private long usuarioId;
+
+    @BeforeEach
+    void setUp() {
+        Categoria categoria = categoriaRepository.save(Categoria.builder().nombre("Parques").activa(true).build());
+        categoriaId = categoria.getId();
+        puntoId = puntoInteresRepository.save(PuntoInteres.builder()
+                .nombre("Parque").latitud(41.6).longitud(-0.9).categoria(categoria).build()).getId();
+        usuarioId = usuarioRepository.save(Usuario.builder()
+                .email("u@rutea.com").username("u").password("secreto").fechaRegistro(LocalDate.now()).build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        likeCounter.flush();
+        resenaRepository.deleteAll();
+        puntoInteresRepository.deleteAll();
+        categoriaRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    void modify_shouldEvictCategoria_andPuntosWithItsName() throws Exception {
+        assertEquals("Parques", categoriaService.findById(categoriaId).getNombre());
+        assertEquals("Parques", puntoInteresService.findById(puntoId).getCategoriaNombre());
+        assertTrue(entityCaches.puntos().contains(puntoId));
+
+        categoriaService.modify(categoriaId, CategoriaInDto.builder().nombre("Zonas verdes").activa(true).build());
+
+        assertEquals("Zonas verdes", categoriaService.findById(categoriaId).getNombre());
+        assertEquals("Zonas verdes", puntoInteresService.findById(puntoId).getCategoriaNombre());
+    }
+
+    @Test
+    void addResena_shouldEvictPuntoAggregates() throws Exception {
+        assertEquals(0f, puntoInteresService.findById(puntoId).getPuntuacionMedia());
+
+        resenaService.add(new ResenaInDto("Bien", false, LocalDate.now(), 0, null, 4, puntoId, usuarioId));
+        resenaService.add(new ResenaInDto("Mal", false, LocalDate.now(), 0, null, 2, puntoId, usuarioId));
+
+        assertEquals(3f, puntoInteresService.findById(puntoId).getPuntuacionMedia(), 0.0001);
+    }
+
+    @Test
+    void like_shouldBeVisible_beforeAndAfterFlush() throws Exception {
+        long id = resenaService.add(new ResenaInDto("Bien", false, LocalDate.now(), 10, null, 4, puntoId, usuarioId)).getId();
+        assertEquals(10, resenaService.findById(id).getLikes());
+
+        assertEquals(11, resenaService.like(id).getLikes());
+        assertEquals(11, resenaService.findById(id).getLikes());
+
+        likeCounter.flush();
+        assertEquals(11, resenaService.findById(id).getLikes());
+        // el DTO de la caché no se modificó al sumarle los pendientes
+        assertEquals(12, resenaService.like(id).getLikes());
+        assertEquals(12, resenaService.findById(id).getLikes());
+    }
+
+    @Test
+    void patch_shouldReplaceCachedResena() throws Exception {
+        long id = resenaService.add(new ResenaInDto("Bien", false, LocalDate.now(), 0, "Antes", 4, puntoId, usuarioId)).getId();
+        resenaService.findById(id);
+
+        resenaService.patch(id, Map.of("titulo", "Después"));
+
+        assertEquals("Después", resenaService.findById(id).getTitulo());
+    }
+}
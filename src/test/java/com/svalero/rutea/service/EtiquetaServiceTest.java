@@ -0,0 +1,95 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.Etiqueta;
+import com.svalero.rutea.repository.EtiquetaRepository;
+import com.svalero.rutea.search.EtiquetaIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Varias transacciones crean a la vez la misma etiqueta: la clave única de etiquetas.nombre
+ * rechaza las repetidas y todas acaban con la misma fila, sin error.
+ * Sin la transacción del test, para que cada hilo confirme la suya.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({EtiquetaService.class, EtiquetaIndex.class})
+class EtiquetaServiceTest {
+
+    @Autowired private EtiquetaService etiquetaService;
+    @Autowired private EtiquetaRepository etiquetaRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        etiquetaRepository.deleteAll();
+    }
+
+    /**
+     * La otra transacción inserta la etiqueta después de que resolve la busque y la confirma
+     * mientras resolve espera su clave.
+     */
+    @Test
+    void resolve_shouldUseTheRow_whenAnotherTransactionCreatesItFirst() throws Exception {
+        PlatformTransactionManager txManager = transactionTemplate.getTransactionManager();
+        TransactionStatus other = txManager.getTransaction(transactionTemplate);
+        long id;
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            id = etiquetaRepository.saveAndFlush(Etiqueta.builder().nombre("rio").build()).getId();
+            Future<Map<String, Etiqueta>> resolved = pool.submit(() -> transactionTemplate.execute(
+                    status -> etiquetaService.resolve(List.of("montana", "rio"))));
+            Thread.sleep(200);
+            txManager.commit(other);
+
+            Map<String, Etiqueta> etiquetas = resolved.get(10, TimeUnit.SECONDS);
+            assertEquals(id, etiquetas.get("rio").getId());
+            assertEquals("montana", etiquetas.get("montana").getNombre());
+        } finally {
+            if (!other.isCompleted()) txManager.rollback(other);
+            pool.shutdownNow();
+        }
+        assertEquals(2, etiquetaRepository.count());
+    }
+
+    @Test
+    void resolve_shouldNotFail_underConcurrentCreationOfTheSameTags() throws Exception {
+        int threads = 8;
+        List<String> nombres = List.of("agua", "bosque", "familiar", "montana");
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        try {
+            List<Future<Map<String, Etiqueta>>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return transactionTemplate.execute(status -> etiquetaService.resolve(nombres));
+                }));
+            }
+            Map<String, Etiqueta> first = results.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<Map<String, Etiqueta>> result : results) {
+                Map<String, Etiqueta> etiquetas = result.get(30, TimeUnit.SECONDS);
+                for (String nombre : nombres)
+                    assertEquals(first.get(nombre).getId(), etiquetas.get(nombre).getId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(nombres.size(), etiquetaRepository.count());
+    }
+}
@@ -0,0 +1,139 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.Etiqueta;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.CursorPage;
+import com.svalero.rutea.dto.RutaInDtoV2;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import com.svalero.rutea.search.EtiquetaIndex;
+import com.svalero.rutea.search.SearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migración del texto libre de etiquetas a ruta_etiquetas y filtro por etiquetas de GET /v2/rutas
+ * sobre el resultado.
+ */
+@DataJpaTest(properties = "rutea.jobs.etiquetas.enabled=true")
+@Import({EtiquetasMigrationJob.class, EtiquetaService.class, EtiquetaIndex.class,
+        RutaService.class, SearchIndex.class, EntityCaches.class})
+class EtiquetasMigrationJobTest {
+
+    @Autowired private EtiquetasMigrationJob job;
+    @Autowired private EtiquetaService etiquetaService;
+    @Autowired private RutaService rutaService;
+    @Autowired private TestEntityManager entityManager;
+
+    private List<Long> persistRutas(int total) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            String etiquetas = switch (i % 4) {
+                case 0 -> "Montaña, Agua";
+                case 1 -> "montana;familiar";
+                case 2 -> "AGUA , agua";
+                default -> null;
+            };
+            ids.add(entityManager.persist(Ruta.builder()
+                    .titulo("Ruta " + i).fechaRealizacion(LocalDate.now()).etiquetas(etiquetas).build()).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return ids;
+    }
+
+    private List<String> nombres(long rutaId) {
+        return entityManager.find(Ruta.class, rutaId).getEtiquetasNormalizadas().stream()
+                .map(Etiqueta::getNombre).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void migrateAll_shouldLinkNormalizedTags_forEveryRutaAcrossBatches() {
+        int total = EtiquetasMigrationJob.BATCH_SIZE + 10;
+        List<Long> ids = persistRutas(total);
+
+        assertEquals(total, job.migrateAll());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(3L, entityManager.getEntityManager()
+                .createQuery("select count(e) from Etiqueta e", Long.class).getSingleResult());
+        assertEquals(List.of("agua", "montana"), nombres(ids.get(total - 2)));
+        assertEquals(List.of("familiar", "montana"), nombres(ids.get(total - 1)));
+        assertEquals(List.of("agua"), nombres(ids.get(total - 4)));
+        assertEquals(List.of(), nombres(ids.get(total - 3)));
+    }
+
+    @Test
+    void migrateAll_shouldBeRepeatable() {
+        List<Long> ids = persistRutas(8);
+
+        job.migrateAll();
+        entityManager.flush();
+        entityManager.clear();
+        job.migrateAll();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(3L, entityManager.getEntityManager()
+                .createQuery("select count(e) from Etiqueta e", Long.class).getSingleResult());
+        assertEquals(List.of("agua", "montana"), nombres(ids.get(0)));
+    }
+
+    @Test
+    void findAllV2_shouldFilterByTags_withAndOrAndKeysetPaging() throws Exception {
+        List<Long> ids = persistRutas(40);
+        job.migrateAll();
+        entityManager.flush();
+        etiquetaService.buildEtiquetaIndex();
+
+        List<Long> todas = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<RutaOutDtoV2> page = rutaService.findAllV2(null, null, null,
+                    List.of("MONTAÑA", "agua"), true, cursor, 3);
+            page.getItems().forEach(r -> todas.add(r.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += 4) expected.add(ids.get(i));
+        assertEquals(expected, todas);
+
+        CursorPage<RutaOutDtoV2> alguna = rutaService.findAllV2(null, null, null,
+                List.of("familiar", "agua"), false, null, 100);
+        assertEquals(30, alguna.getItems().size());
+        assertNull(alguna.getNextCursor());
+
+        assertTrue(rutaService.findAllV2(null, null, null, List.of("nieve"), true, null, 10).getItems().isEmpty());
+    }
+
+    @Test
+    void modifyV2_shouldSyncNormalizedTags() throws Exception {
+        Usuario usuario = entityManager.persist(Usuario.builder()
+                .email("u@rutea.com").username("u").password("secreto").fechaRegistro(LocalDate.now()).build());
+        RutaInDtoV2 dto = new RutaInDtoV2(null, 1f, 10, LocalDate.now(), true, "Ruta", usuario.getId(),
+                List.of(), "Montaña, río");
+        long id = rutaService.addV2(dto).getId();
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(List.of("montana", "rio"), nombres(id));
+
+        dto.setEtiquetas("rio, Nieve");
+        rutaService.modifyV2(id, dto);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(List.of("nieve", "rio"), nombres(id));
+    }
+}
@@ -0,0 +1,85 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.Categoria;
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.dto.PuntoInteresOutDto;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(ExportService.class)
+class ExportServiceTest {
+
+    @Autowired private ExportService exportService;
+    @Autowired private TestEntityManager entityManager;
+
+    private int managedEntities() {
+        return entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+    @Test
+    void exportRutas_shouldGroupPuntosInOrder_andSkipEliminadas() throws Exception {
+        PuntoInteres a = entityManager.persist(PuntoInteres.builder().nombre("A").latitud(41.60).longitud(-0.90).build());
+        PuntoInteres b = entityManager.persist(PuntoInteres.builder().nombre("B").latitud(41.70).longitud(-0.80).build());
+
+        int total = ExportService.BATCH_SIZE + 10;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            List<PuntoInteres> puntos = switch (i % 3) {
+                case 0 -> List.of(b, a, b);
+                case 1 -> List.of(a);
+                default -> List.of();
+            };
+            ids.add(entityManager.persist(Ruta.builder()
+                    .titulo("Ruta " + i).fechaRealizacion(LocalDate.now())
+                    .puntos(new ArrayList<>(puntos)).build()).getId());
+        }
+        entityManager.persist(Ruta.builder().titulo("Borrada").fechaRealizacion(LocalDate.now()).eliminada(true).puntos(new ArrayList<>(List.of(a))).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        List<RutaOutDtoV2> exported = new ArrayList<>();
+        int[] maxManaged = new int[1];
+        assertEquals(total, exportService.exportRutas(ruta -> {
+            exported.add(ruta);
+            maxManaged[0] = Math.max(maxManaged[0], managedEntities());
+        }));
+
+        assertEquals(ids, exported.stream().map(RutaOutDtoV2::getId).toList());
+        assertEquals(List.of(b.getId(), a.getId(), b.getId()), exported.get(0).getPuntosIds());
+        assertEquals(3, exported.get(0).getTotalPuntos());
+        assertEquals(List.of(a.getId()), exported.get(total - 1).getPuntosIds());
+        assertEquals(List.of(), exported.get(total - 3).getPuntosIds());
+        // el contexto de persistencia se vacía por lotes en lugar de acumular todas las rutas
+        assertTrue(maxManaged[0] <= ExportService.BATCH_SIZE + 1, "entidades gestionadas: " + maxManaged[0]);
+    }
+
+    @Test
+    void exportPuntos_shouldIncludeCategoria() throws Exception {
+        Categoria parques = entityManager.persist(Categoria.builder().nombre("Parques").activa(true).build());
+        PuntoInteres punto = entityManager.persist(PuntoInteres.builder()
+                .nombre("Parque").latitud(41.6).longitud(-0.9).categoria(parques).build());
+        entityManager.persist(PuntoInteres.builder().nombre("Sin categoría").latitud(41.7).longitud(-0.8).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        List<PuntoInteresOutDto> exported = new ArrayList<>();
+        assertEquals(2, exportService.exportPuntos(exported::add));
+
+        assertEquals(punto.getId(), exported.get(0).getId());
+        assertEquals("Parques", exported.get(0).getCategoriaNombre());
+        assertNull(exported.get(1).getCategoriaId());
+    }
+}
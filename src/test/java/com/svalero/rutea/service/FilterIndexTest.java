@@ -0,0 +1,185 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.Categoria;
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Resena;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.geo.PuntoSpatialIndex;
+import com.svalero.rutea.search.EtiquetaIndex;
+import com.svalero.rutea.search.SearchIndex;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pasa por EXPLAIN cada SELECT que lanzan los listados con sus filtros y comprueba que H2 resuelve
+ * todas las tablas con un índice de las migraciones (o la clave primaria) y una condición, nunca
+ * recorriendo la tabla entera. Los valores de los filtros van en el SQL (value_handling_mode=inline)
+ * para poder explicarlo tal cual.
+ * <p>
+ * Los filtros de texto (LIKE '%texto%') no pueden usar un índice y solo se prueban junto a otro.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.svalero.rutea.service.FilterIndexTest$Selects",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline"})
+@Import({RutaService.class, PuntoInteresService.class, ResenaService.class, CategoriaService.class,
+        UsuarioService.class, EtiquetaService.class, EtiquetaIndex.class, SearchIndex.class,
+        PuntoSpatialIndex.class, LikeCounter.class, EntityCaches.class})
+class FilterIndexTest {
+
+    /**
+     * "tabla" alias /* PUBLIC."indice": condición *&#47;, o /* PUBLIC."tabla".tableScan *&#47; si la recorre.
+     */
+    private static final Pattern ACCESO = Pattern.compile("/\\* PUBLIC\\.([^*]+?) \\*/");
+
+    @Autowired private RutaService rutaService;
+    @Autowired private PuntoInteresService puntoInteresService;
+    @Autowired private ResenaService resenaService;
+    @Autowired private CategoriaService categoriaService;
+    @Autowired private UsuarioService usuarioService;
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private long categoriaId;
+
+    /**
+     * Guarda los SELECT. Hibernate instancia la clase, de ahí el estado estático.
+     */
+    public static class Selects implements StatementInspector {
+
+        static final List<String> SQL = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.toLowerCase().startsWith("select"))
+                SQL.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        List<Categoria> categorias = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            categorias.add(entityManager.persist(Categoria.builder()
+                    .nombre("Categoria " + i).activa(i % 2 == 0).ordenPrioridad(i).build()));
+        }
+        categoriaId = categorias.get(0).getId();
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            usuarios.add(entityManager.persist(Usuario.builder()
+                    .email("u" + i + "@rutea.com").username("u" + i).password("secreto")
+                    .esPremium(i % 3 == 0).nivelExperiencia(i % 5).fechaRegistro(LocalDate.now()).build()));
+        }
+        List<PuntoInteres> puntos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            puntos.add(entityManager.persist(PuntoInteres.builder()
+                    .nombre("Punto " + i).latitud(41.6).longitud(-0.9).abiertoActualmente(i % 2 == 0)
+                    .categoria(categorias.get(i % categorias.size())).build()));
+        }
+        for (int i = 0; i < 200; i++) {
+            entityManager.persist(Resena.builder()
+                    .comentario("Comentario " + i).valoracion(1 + i % 5).editada(i % 4 == 0)
+                    .fechaPublicacion(LocalDate.now()).punto(puntos.get(i)).usuario(usuarios.get(i % 20)).build());
+            entityManager.persist(Ruta.builder()
+                    .titulo("Ruta " + i).dificultad(i % 2 == 0 ? "media" : "alta")
+                    .fechaRealizacion(LocalDate.now()).publica(i % 2 == 0).eliminada(i % 10 == 0)
+                    .usuario(usuarios.get(i % 20))
+                    .puntos(new ArrayList<>(List.of(puntos.get(i), puntos.get((i + 1) % 200)))).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Selects.SQL.clear();
+    }
+
+    /**
+     * Explica cada SELECT lanzado desde la última llamada y falla si alguna tabla se recorre entera
+     * o se lee por un índice sin condición.
+     */
+    private void assertIndexed(String filtro) {
+        List<String> selects;
+        synchronized (Selects.SQL) {
+            selects = new ArrayList<>(Selects.SQL);
+            Selects.SQL.clear();
+        }
+        assertFalse(selects.isEmpty(), filtro + ": no se lanzó ninguna consulta");
+        for (String sql : selects) {
+            String plan = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+            Matcher acceso = ACCESO.matcher(plan);
+            int tablas = 0;
+            while (acceso.find()) {
+                tablas++;
+                String indice = acceso.group(1);
+                assertFalse(indice.endsWith(".tableScan"), filtro + ": recorre la tabla entera\n" + plan);
+                assertTrue(indice.contains(": "), filtro + ": índice sin condición\n" + plan);
+            }
+            assertTrue(tablas > 0, filtro + ": plan inesperado\n" + plan);
+        }
+    }
+
+    @Test
+    void rutas_shouldUseAnIndex_forEveryFilter() throws Exception {
+        rutaService.findAll(null, null, null, null, null);
+        assertIndexed("rutas");
+        rutaService.findAll(null, true, null, null, null);
+        assertIndexed("rutas?publica");
+        rutaService.findAll("media", false, "ruta", PageCursor.encode(10), 20);
+        assertIndexed("rutas?dificultad&publica&titulo&after");
+        rutaService.findAllV2(null, true, null, null, false, PageCursor.encode(10), 20);
+        assertIndexed("v2/rutas?publica&after");
+    }
+
+    @Test
+    void puntos_shouldUseAnIndex_forEveryFilter() {
+        puntoInteresService.findAll(categoriaId, null, null, null);
+        assertIndexed("puntos?categoriaId");
+        puntoInteresService.findAll(categoriaId, true, "punto", null);
+        assertIndexed("puntos?categoriaId&abiertoActualmente&nombre");
+        puntoInteresService.findAll(null, false, null, null);
+        assertIndexed("puntos?abiertoActualmente");
+        puntoInteresService.findAll(null, null, null, 4.5f);
+        assertIndexed("puntos?puntuacionMedia");
+    }
+
+    @Test
+    void resenas_shouldUseAnIndex_forEveryFilter() {
+        resenaService.findAll(true, null, null);
+        assertIndexed("resenas?editada");
+        resenaService.findAll(null, 3, null);
+        assertIndexed("resenas?likes");
+        resenaService.findAll(null, null, 5);
+        assertIndexed("resenas?valoracion");
+    }
+
+    @Test
+    void categorias_shouldUseAnIndex_forEveryFilter() {
+        categoriaService.findAll(true, null, null);
+        assertIndexed("categorias?activa");
+        categoriaService.findAll(null, "categoria", 2);
+        assertIndexed("categorias?nombre&ordenPrioridad");
+    }
+
+    @Test
+    void usuarios_shouldUseAnIndex_forEveryFilter() {
+        usuarioService.findAll(true, null, null);
+        assertIndexed("usuarios?premium");
+        usuarioService.findAll(null, 2, "u");
+        assertIndexed("usuarios?nivelExperiencia&username");
+    }
+}
@@ -0,0 +1,171 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.Categoria;
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.ImportErrorOutDto;
+import com.svalero.rutea.dto.ImportResultOutDto;
+import com.svalero.rutea.geo.PuntoSpatialIndex;
+import com.svalero.rutea.repository.CategoriaRepository;
+import com.svalero.rutea.repository.EtiquetaRepository;
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.RutaRepository;
+import com.svalero.rutea.repository.UsuarioRepository;
+import com.svalero.rutea.search.EtiquetaIndex;
+import com.svalero.rutea.search.SearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Importación de varios bloques con líneas erróneas intercaladas. Sin la transacción del test:
+ * cada bloque confirma la suya y los índices se actualizan al confirmar.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({ImportService.class, EtiquetaService.class, EtiquetaIndex.class, SearchIndex.class,
+        PuntoSpatialIndex.class, EntityCaches.class})
+class ImportServiceTest {
+
+    @Autowired private ImportService importService;
+    @Autowired private PuntoSpatialIndex spatialIndex;
+    @Autowired private SearchIndex searchIndex;
+    @Autowired private EtiquetaIndex etiquetaIndex;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private CategoriaRepository categoriaRepository;
+    @Autowired private PuntoInteresRepository puntoInteresRepository;
+    @Autowired private RutaRepository rutaRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private EtiquetaRepository etiquetaRepository;
+
+    private long categoriaId;
+    private long usuarioId;
+
+    @BeforeEach
+    void setUp() {
+        categoriaId = categoriaRepository.save(Categoria.builder().nombre("Parques").activa(true).build()).getId();
+        usuarioId = usuarioRepository.save(Usuario.builder()
+                .email("u@rutea.com").username("u").password("secreto").fechaRegistro(LocalDate.now()).build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        rutaRepository.deleteAll();
+        etiquetaRepository.deleteAll();
+        puntoInteresRepository.deleteAll();
+        categoriaRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        spatialIndex.clear();
+        searchIndex.clear();
+        etiquetaIndex.clear();
+    }
+
+    private static BufferedReader body(String body) {
+        return new BufferedReader(new StringReader(body));
+    }
+
+    private static Map<Long, Map<String, String>> errores(ImportResultOutDto result) {
+        return result.getErrores().stream()
+                .collect(Collectors.toMap(ImportErrorOutDto::getLinea, ImportErrorOutDto::getErrors));
+    }
+
+    @Test
+    void importPuntos_shouldImportValidLinesOfEveryChunk_andReportTheRest() throws Exception {
+        int validos = ImportService.CHUNK_SIZE + 5;
+        // JSON mal formado en la línea 12, una en blanco en la 23, latitud fuera de rango en la 34
+        // y una categoría inexistente ya en el segundo bloque
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < validos; i++) {
+            ndjson.append("{\"nombre\":\"Punto ").append(i).append("\",\"latitud\":41.6,\"longitud\":-0.9,")
+                    .append("\"abiertoActualmente\":true,\"puntuacionMedia\":4,\"categoriaId\":").append(categoriaId).append("}\n");
+            if (i == 10) ndjson.append("{\"nombre\":\"Roto\"\n");
+            if (i == 20) ndjson.append("\n");
+            if (i == 30) ndjson.append("{\"nombre\":\"Lejos\",\"latitud\":100,\"longitud\":0,\"categoriaId\":")
+                    .append(categoriaId).append("}\n");
+            if (i == ImportService.CHUNK_SIZE)
+                ndjson.append("{\"nombre\":\"Huérfano\",\"latitud\":1,\"longitud\":1,\"categoriaId\":999999}\n");
+        }
+
+        ImportResultOutDto result = importService.importPuntos(body(ndjson.toString()), ImportService.Formato.NDJSON);
+
+        assertEquals(validos + 3, result.getLeidos());
+        assertEquals(validos, result.getImportados());
+        assertEquals(3, result.getFallidos());
+        Map<Long, Map<String, String>> errores = errores(result);
+        assertEquals(Map.of("linea", "Malformed JSON"), errores.get(12L));
+        assertEquals(Map.of("latitud", "latitud must be between -90 and 90"), errores.get(34L));
+        assertEquals(Map.of("categoriaId", "Categoria not found"), errores.get((long) ImportService.CHUNK_SIZE + 5));
+
+        assertEquals(validos, puntoInteresRepository.count());
+        assertEquals(validos, spatialIndex.size());
+        assertEquals(validos, searchIndex.size());
+        PuntoInteres punto = puntoInteresRepository.findAll().get(0);
+        assertEquals(categoriaId, punto.getCategoria().getId());
+        // como en POST /puntos, la media no la decide el cliente
+        assertEquals(0f, punto.getPuntuacionMedia());
+    }
+
+    @Test
+    void importRutas_shouldResolveReferences_andComputeGeometryAndEtiquetas() throws Exception {
+        long a = puntoInteresRepository.save(PuntoInteres.builder().nombre("A").latitud(41.60).longitud(-0.90).build()).getId();
+        long b = puntoInteresRepository.save(PuntoInteres.builder().nombre("B").latitud(41.70).longitud(-0.80).build()).getId();
+        String csv = "titulo,fechaRealizacion,publica,usuarioId,puntosIds,etiquetas,distanciaKm\n"
+                + "Ida y vuelta,2024-05-01,true," + usuarioId + "," + a + ";" + b + ";" + a + ",\"Montaña, Agua\",1\n"
+                + "Sin puntos,2024-05-02,false," + usuarioId + ",,,3.5\n"
+                + "Fantasma,2024-05-03,true,999999,,,0\n"
+                + "Perdida,2024-05-04,true," + usuarioId + "," + a + ";888888,,0\n"
+                + "Corta,2024-05-05,true\n"
+                + "\"Con \"\"comillas\"\"\",2024-05-06,true," + usuarioId + ",,agua,0\n";
+
+        ImportResultOutDto result = importService.importRutas(body(csv), ImportService.Formato.CSV);
+
+        assertEquals(6, result.getLeidos());
+        assertEquals(3, result.getImportados());
+        Map<Long, Map<String, String>> errores = errores(result);
+        assertEquals(Map.of("usuarioId", "Usuario not found"), errores.get(4L));
+        assertEquals(Map.of("puntosIds", "PuntoInteres not found: [888888]"), errores.get(5L));
+        assertEquals(Map.of("linea", "Expected 7 columns but found 3"), errores.get(6L));
+
+        List<Ruta> rutas = transactionTemplate.execute(status -> {
+            List<Ruta> all = rutaRepository.findAll();
+            all.forEach(ruta -> ruta.getPuntos().size());
+            return all;
+        });
+        Ruta idaYVuelta = rutas.stream().filter(r -> r.getTitulo().equals("Ida y vuelta")).findFirst().orElseThrow();
+        assertEquals(List.of(a, b, a), idaYVuelta.getPuntos().stream().map(PuntoInteres::getId).toList());
+        // la distancia la calcula el servidor a partir de los puntos, no la del CSV
+        assertTrue(idaYVuelta.getDistanciaKm() > 20, "distanciaKm: " + idaYVuelta.getDistanciaKm());
+        assertEquals(41.60, idaYVuelta.getBboxMinLat());
+        assertEquals(3.5f, rutas.stream().filter(r -> r.getTitulo().equals("Sin puntos")).findFirst().orElseThrow().getDistanciaKm());
+        assertTrue(rutas.stream().anyMatch(r -> r.getTitulo().equals("Con \"comillas\"")));
+
+        assertEquals(2, etiquetaIndex.match(List.of("agua"), false).length);
+        assertArrayEquals(new long[]{idaYVuelta.getId()}, etiquetaIndex.match(List.of("montana"), false));
+        assertEquals(1, searchIndex.search("vuelta", SearchIndex.Tipo.RUTA, 0, 10).total());
+    }
+
+    @Test
+    void splitCsv_shouldHandleQuotedFields() {
+        assertEquals(List.of("a", "b, c", "d \"e\"", ""), ImportService.splitCsv("a,\"b, c\",\"d \"\"e\"\"\","));
+    }
+}
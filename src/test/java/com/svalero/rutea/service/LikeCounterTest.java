@@ -0,0 +1,195 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Resena;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.ResenaRepository;
+import com.svalero.rutea.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Miles de likes concurrentes sobre las mismas reseñas con volcados a la vez: no se pierde
+ * ninguno y cada lectura ve al menos los likes ya confirmados, nunca uno de más.
+ * Sin la transacción del test, para que los hilos vean los datos iniciales.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ResenaService.class, LikeCounter.class, EntityCaches.class})
+class LikeCounterTest {
+
+    private static final int THREADS = 16;
+    private static final int LIKES_PER_THREAD = 250;
+
+    @Autowired private ResenaService resenaService;
+    @Autowired private LikeCounter likeCounter;
+    @Autowired private ResenaRepository resenaRepository;
+    @Autowired private PuntoInteresRepository puntoInteresRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private long[] resenaIds;
+
+    @BeforeEach
+    void setUp() {
+        PuntoInteres punto = puntoInteresRepository.save(PuntoInteres.builder()
+                .nombre("Parque").latitud(41.6).longitud(-0.9).build());
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .email("u@rutea.com").username("u").password("secreto").fechaRegistro(LocalDate.now()).build());
+        resenaIds = new long[2];
+        for (int i = 0; i < resenaIds.length; i++) {
+            resenaIds[i] = resenaRepository.save(Resena.builder()
+                    .comentario("Comentario " + i).valoracion(4).likes(10)
+                    .punto(punto).usuario(usuario).build()).getId();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        likeCounter.flush();
+        resenaRepository.deleteAll();
+        puntoInteresRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    void like_shouldNotLoseUpdates_underConcurrentLikersAndFlushes() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<?>> likers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                long resenaId = resenaIds[t % resenaIds.length];
+                likers.add(pool.submit(() -> {
+                    start.await();
+                    int previous = 0;
+                    for (int i = 0; i < LIKES_PER_THREAD; i++) {
+                        int likes = resenaService.like(resenaId).getLikes();
+                        // read-your-writes: el propio like ya cuenta y nada se ve dos veces
+                        assertTrue(likes > previous, "likes " + likes + " after " + previous);
+                        previous = likes;
+                    }
+                    return null;
+                }));
+            }
+            Future<?> flusher = pool.submit(() -> {
+                start.await();
+                while (running.get())
+                    likeCounter.flush();
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> liker : likers)
+                liker.get(60, TimeUnit.SECONDS);
+            running.set(false);
+            flusher.get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int expected = 10 + THREADS / resenaIds.length * LIKES_PER_THREAD;
+        for (long id : resenaIds) {
+            assertEquals(expected, resenaService.findById(id).getLikes());
+            likeCounter.flush();
+            assertEquals(0, likeCounter.pending(id));
+            assertEquals(expected, resenaRepository.findById(id).orElseThrow().getLikes());
+        }
+    }
+
+    @Test
+    void flush_shouldWriteOneDeltaPerResena_andKeepReadsExact() throws Exception {
+        for (int i = 0; i < 5; i++)
+            resenaService.like(resenaIds[0]);
+
+        assertEquals(10, resenaRepository.findById(resenaIds[0]).orElseThrow().getLikes());
+        assertEquals(15, resenaService.findById(resenaIds[0]).getLikes());
+
+        assertEquals(1, likeCounter.flush());
+
+        assertEquals(15, resenaRepository.findById(resenaIds[0]).orElseThrow().getLikes());
+        assertEquals(15, resenaService.findById(resenaIds[0]).getLikes());
+        assertEquals(0, likeCounter.flush());
+    }
+
+    @Test
+    void patch_shouldKeepFlushedLikes_andOverrideThemWhenSetExplicitly() throws Exception {
+        for (int i = 0; i < 3; i++)
+            resenaService.like(resenaIds[0]);
+        likeCounter.flush();
+
+        resenaService.patch(resenaIds[0], Map.of("comentario", "Editado"));
+        assertEquals(13, resenaService.findById(resenaIds[0]).getLikes());
+
+        resenaService.like(resenaIds[0]);
+        resenaService.patch(resenaIds[0], Map.of("likes", 0));
+        likeCounter.flush();
+        assertEquals(0, resenaService.findById(resenaIds[0]).getLikes());
+    }
+
+    /**
+     * Un volcado parado en la BD (otra transacción tiene la fila bloqueada) no hace esperar a los
+     * likes ni a las lecturas, que lo cuentan una sola vez mientras espera y después del commit.
+     */
+    @Test
+    void like_shouldNotWait_forAFlushBlockedInTheDatabase() throws Exception {
+        long id = resenaIds[0];
+        assertEquals(11, resenaService.like(id).getLikes());
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<?> blocker = pool.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                Resena resena = resenaRepository.findById(id).orElseThrow();
+                resena.setComentario("Bloqueada");
+                resenaRepository.saveAndFlush(resena);
+                locked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            Future<Integer> flush = pool.submit(likeCounter::flush);
+            // el like ya va en el volcado, que espera la fila
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (likeCounter.pending(id) != 0 && System.nanoTime() < deadline)
+                Thread.sleep(5);
+            Thread.sleep(50);
+
+            assertEquals(12, resenaService.like(id).getLikes());
+            assertEquals(12, resenaService.findById(id).getLikes());
+            assertFalse(flush.isDone(), "el volcado no estaba esperando la fila");
+
+            release.countDown();
+            blocker.get(10, TimeUnit.SECONDS);
+            assertEquals(1, flush.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+        assertEquals(12, resenaService.findById(id).getLikes());
+        assertEquals(1, likeCounter.flush());
+        assertEquals(12, resenaRepository.findById(id).orElseThrow().getLikes());
+    }
+}
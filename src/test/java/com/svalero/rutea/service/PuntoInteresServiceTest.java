@@ -3,21 +3,26 @@ package com.svalero.rutea.service;
 import com.svalero.rutea.domain.Categoria;
 import com.svalero.rutea.domain.PuntoInteres;
 import com.svalero.rutea.dto.PuntoInteresInDto;
+import com.svalero.rutea.dto.PuntoInteresNearbyOutDto;
 import com.svalero.rutea.dto.PuntoInteresOutDto;
+import com.svalero.rutea.dto.PuntoValoracionesOutDto;
 import com.svalero.rutea.exception.CategoriaNotFoundException;
 import com.svalero.rutea.exception.PuntoInteresNotFoundException;
+import com.svalero.rutea.geo.PuntoSpatialIndex;
 import com.svalero.rutea.repository.CategoriaRepository;
 import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.search.SearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.env.MockEnvironment;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,8 +34,10 @@ class PuntoInteresServiceTest {
 
     @Mock private PuntoInteresRepository puntoInteresRepository;
     @Mock private CategoriaRepository categoriaRepository;
-    @Mock private ModelMapper modelMapper;
+    @Mock private PuntoSpatialIndex spatialIndex;
+    @Mock private SearchIndex searchIndex;
 
+    @Spy private EntityCaches entityCaches = new EntityCaches(new MockEnvironment());
     @InjectMocks private PuntoInteresService puntoInteresService;
 
     private Categoria cat1;
@@ -74,16 +81,8 @@ class PuntoInteresServiceTest {
 
         when(categoriaRepository.findById(1L)).thenReturn(Optional.of(cat1));
 
-        PuntoInteres mapped = PuntoInteres.builder().build();
-        when(modelMapper.map(in, PuntoInteres.class)).thenReturn(mapped);
-
         when(puntoInteresRepository.save(any(PuntoInteres.class))).thenReturn(p1);
 
-        PuntoInteresOutDto mappedOut = new PuntoInteresOutDto(
-                10L, true, p1.getFechaCreacion(), 41.0, -0.8, "Parque Grande", 4.5f, null, null
-        );
-        when(modelMapper.map(p1, PuntoInteresOutDto.class)).thenReturn(mappedOut);
-
         PuntoInteresOutDto out = puntoInteresService.add(in);
 
         assertNotNull(out);
@@ -94,10 +93,11 @@ class PuntoInteresServiceTest {
         ArgumentCaptor<PuntoInteres> captor = ArgumentCaptor.forClass(PuntoInteres.class);
         verify(puntoInteresRepository).save(captor.capture());
         assertSame(cat1, captor.getValue().getCategoria());
+        assertEquals(0f, captor.getValue().getPuntuacionMedia());
 
         verify(categoriaRepository).findById(1L);
-        verify(modelMapper).map(in, PuntoInteres.class);
-        verify(modelMapper).map(p1, PuntoInteresOutDto.class);
+        verify(spatialIndex).put(10L, 41.0, -0.8);
+        verify(searchIndex).put(SearchIndex.Tipo.PUNTO, 10L, p1.getNombre(), null);
     }
 
     @Test
@@ -112,7 +112,6 @@ class PuntoInteresServiceTest {
 
         verify(categoriaRepository).findById(99L);
         verify(puntoInteresRepository, never()).save(any());
-        verify(modelMapper, never()).map(any(), eq(PuntoInteres.class));
     }
 
     // -------------------- FIND BY ID --------------------
@@ -121,11 +120,6 @@ class PuntoInteresServiceTest {
     void findById_shouldReturnOutDto_whenExists() throws Exception {
         when(puntoInteresRepository.findById(10L)).thenReturn(Optional.of(p1));
 
-        PuntoInteresOutDto mappedOut = new PuntoInteresOutDto(
-                10L, true, p1.getFechaCreacion(), 41.0, -0.8, "Parque Grande", 4.5f, null, null
-        );
-        when(modelMapper.map(p1, PuntoInteresOutDto.class)).thenReturn(mappedOut);
-
         PuntoInteresOutDto out = puntoInteresService.findById(10L);
 
         assertEquals(10L, out.getId());
@@ -134,7 +128,6 @@ class PuntoInteresServiceTest {
         assertEquals("Naturaleza", out.getCategoriaNombre());
 
         verify(puntoInteresRepository).findById(10L);
-        verify(modelMapper).map(p1, PuntoInteresOutDto.class);
     }
 
     @Test
@@ -143,7 +136,6 @@ class PuntoInteresServiceTest {
 
         assertThrows(PuntoInteresNotFoundException.class, () -> puntoInteresService.findById(999L));
         verify(puntoInteresRepository).findById(999L);
-        verifyNoInteractions(modelMapper);
     }
 
     // -------------------- MODIFY --------------------
@@ -157,25 +149,8 @@ class PuntoInteresServiceTest {
         when(puntoInteresRepository.findById(10L)).thenReturn(Optional.of(p1));
         when(categoriaRepository.findById(1L)).thenReturn(Optional.of(cat1));
 
-        doAnswer(inv -> {
-            PuntoInteresInDto src = inv.getArgument(0);
-            PuntoInteres dest = inv.getArgument(1);
-            dest.setAbiertoActualmente(src.isAbiertoActualmente());
-            dest.setLatitud(src.getLatitud());
-            dest.setLongitud(src.getLongitud());
-            dest.setNombre(src.getNombre());
-            dest.setPuntuacionMedia(src.getPuntuacionMedia());
-            dest.setFechaCreacion(src.getFechaCreacion());
-            return null;
-        }).when(modelMapper).map(any(PuntoInteresInDto.class), any(PuntoInteres.class));
-
         when(puntoInteresRepository.save(any(PuntoInteres.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        PuntoInteresOutDto mappedOut = new PuntoInteresOutDto(
-                10L, false, null, 40.0, -0.7, "Nuevo", 3.5f, null, null
-        );
-        when(modelMapper.map(any(PuntoInteres.class), eq(PuntoInteresOutDto.class))).thenReturn(mappedOut);
-
         PuntoInteresOutDto out = puntoInteresService.modify(10L, in);
 
         assertEquals(10L, out.getId());
@@ -186,7 +161,6 @@ class PuntoInteresServiceTest {
 
         verify(puntoInteresRepository).findById(10L);
         verify(categoriaRepository).findById(1L);
-        verify(modelMapper).map(any(PuntoInteresInDto.class), any(PuntoInteres.class));
         verify(puntoInteresRepository).save(any(PuntoInteres.class));
     }
 
@@ -219,7 +193,6 @@ class PuntoInteresServiceTest {
         verify(puntoInteresRepository).findById(10L);
         verify(categoriaRepository).findById(99L);
         verify(puntoInteresRepository, never()).save(any());
-        verify(modelMapper, never()).map(any(PuntoInteresInDto.class), any(PuntoInteres.class));
     }
 
     // -------------------- DELETE --------------------
@@ -231,7 +204,9 @@ class PuntoInteresServiceTest {
         puntoInteresService.delete(10L);
 
         verify(puntoInteresRepository).findById(10L);
-        verify(puntoInteresRepository).findById(10L);
+        verify(puntoInteresRepository).delete(p1);
+        verify(spatialIndex).remove(10L);
+        verify(searchIndex).remove(SearchIndex.Tipo.PUNTO, 10L);
     }
 
     @Test
@@ -242,6 +217,57 @@ class PuntoInteresServiceTest {
 
         verify(puntoInteresRepository).findById(999L);
         verify(puntoInteresRepository, never()).save(any());
+        verifyNoInteractions(spatialIndex);
+    }
+
+    // -------------------- VALORACIONES --------------------
+
+    @Test
+    void findValoraciones_shouldReadStoredAggregates() throws Exception {
+        p1.setTotalResenas(4);
+        p1.setValoraciones2(1);
+        p1.setValoraciones5(3);
+        when(puntoInteresRepository.findById(10L)).thenReturn(Optional.of(p1));
+
+        PuntoValoracionesOutDto out = puntoInteresService.findValoraciones(10L);
+
+        assertEquals(10L, out.getPuntoId());
+        assertEquals(4, out.getTotalResenas());
+        assertEquals(4.5f, out.getPuntuacionMedia());
+        assertEquals(Map.of(1, 0, 2, 1, 3, 0, 4, 0, 5, 3), out.getHistograma());
+    }
+
+    @Test
+    void findValoraciones_shouldThrow_whenNotFound() {
+        when(puntoInteresRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(PuntoInteresNotFoundException.class, () -> puntoInteresService.findValoraciones(99L));
+    }
+
+    // -------------------- NEARBY --------------------
+
+    @Test
+    void findNearby_shouldReturnPuntosInIndexOrder_withDistance() {
+        when(spatialIndex.nearest(41.0, -0.8, 5.0, 10)).thenReturn(List.of(
+                new PuntoSpatialIndex.Hit(10L, 0.0), new PuntoSpatialIndex.Hit(20L, 2.5)));
+        // la BD puede devolverlos en otro orden
+        when(puntoInteresRepository.findAllById(List.of(10L, 20L))).thenReturn(List.of(p2, p1));
+
+        List<PuntoInteresNearbyOutDto> result = puntoInteresService.findNearby(41.0, -0.8, 5.0, 10);
+
+        assertEquals(List.of(10L, 20L), result.stream().map(PuntoInteresNearbyOutDto::getId).toList());
+        assertEquals(2.5, result.get(1).getDistanciaKm());
+        assertEquals(1L, result.get(0).getCategoriaId());
+        assertNull(result.get(1).getCategoriaId());
+    }
+
+    @Test
+    void findNearby_shouldNotQueryDatabase_whenIndexFindsNothing() {
+        when(spatialIndex.nearest(0.0, 0.0, 1.0, 5)).thenReturn(List.of());
+
+        assertTrue(puntoInteresService.findNearby(0.0, 0.0, 1.0, 5).isEmpty());
+
+        verifyNoInteractions(puntoInteresRepository);
     }
 
     // -------------------- FIND ALL (SPECIFICATION) --------------------
@@ -251,11 +277,6 @@ class PuntoInteresServiceTest {
     void findAll_shouldReturnFiltered_whenAllFiltersPresent() {
         when(puntoInteresRepository.findAll(any(Specification.class))).thenReturn(List.of(p1));
 
-        PuntoInteresOutDto mappedOut = new PuntoInteresOutDto(
-                10L, true, p1.getFechaCreacion(), 41.0, -0.8, "Parque Grande", 4.5f, null, null
-        );
-        when(modelMapper.map(p1, PuntoInteresOutDto.class)).thenReturn(mappedOut);
-
         List<PuntoInteresOutDto> result = puntoInteresService.findAll(1L, true, "parque", 4.5f);
 
         assertEquals(1, result.size());
@@ -271,11 +292,6 @@ class PuntoInteresServiceTest {
     void findAll_shouldReturnAll_whenNoFilters() {
         when(puntoInteresRepository.findAll(any(Specification.class))).thenReturn(List.of(p1, p2));
 
-        PuntoInteresOutDto out1 = new PuntoInteresOutDto(10L, true, p1.getFechaCreacion(), 41.0, -0.8, "Parque Grande", 4.5f, null, null);
-        PuntoInteresOutDto out2 = new PuntoInteresOutDto(20L, false, p2.getFechaCreacion(), 40.0, -1.0, "Museo", 3.0f, null, null);
-        when(modelMapper.map(p1, PuntoInteresOutDto.class)).thenReturn(out1);
-        when(modelMapper.map(p2, PuntoInteresOutDto.class)).thenReturn(out2);
-
         List<PuntoInteresOutDto> result = puntoInteresService.findAll(null, null, null, null);
 
         assertEquals(2, result.size());
@@ -0,0 +1,135 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Resena;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.ResenaInDto;
+import com.svalero.rutea.dto.ResenaOutDto;
+import com.svalero.rutea.repository.PuntoInteresRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Agregados de valoración contra la BD: deltas de ResenaService y reconstrucción completa.
+ */
+@DataJpaTest(properties = "rutea.jobs.puntos-valoraciones.enabled=true")
+@Import({ResenaService.class, LikeCounter.class, PuntoValoracionesJob.class, EntityCaches.class})
+class PuntoValoracionesTest {
+
+    @Autowired private ResenaService resenaService;
+    @Autowired private PuntoValoracionesJob job;
+    @Autowired private PuntoInteresRepository puntoInteresRepository;
+    @Autowired private TestEntityManager entityManager;
+
+    private long parqueId;
+    private long miradorId;
+    private long usuarioId;
+
+    @BeforeEach
+    void setUp() {
+        parqueId = entityManager.persist(PuntoInteres.builder().nombre("Parque").latitud(41.6).longitud(-0.9).build()).getId();
+        miradorId = entityManager.persist(PuntoInteres.builder().nombre("Mirador").latitud(41.7).longitud(-0.8).build()).getId();
+        usuarioId = entityManager.persist(Usuario.builder()
+                .email("u@rutea.com").username("u").password("secreto").fechaRegistro(LocalDate.now()).build()).getId();
+        entityManager.flush();
+    }
+
+    private ResenaOutDto addResena(long puntoId, int valoracion) throws Exception {
+        return resenaService.add(new ResenaInDto("Comentario", false, LocalDate.now(), 0, null, valoracion, puntoId, usuarioId));
+    }
+
+    private PuntoInteres reload(long id) {
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.find(PuntoInteres.class, id);
+    }
+
+    @Test
+    void add_shouldUpdateCountSumHistogramAndMedia() throws Exception {
+        addResena(parqueId, 5);
+        addResena(parqueId, 4);
+        addResena(parqueId, 4);
+
+        PuntoInteres parque = reload(parqueId);
+        assertEquals(3, parque.getTotalResenas());
+        assertEquals(13, parque.getSumaValoraciones());
+        assertEquals(2, parque.getValoraciones4());
+        assertEquals(1, parque.getValoraciones5());
+        assertEquals(0, parque.getValoraciones1());
+        assertEquals(13f / 3, parque.getPuntuacionMedia(), 0.0001);
+    }
+
+    @Test
+    void modifyPatchDelete_shouldApplyDeltas() throws Exception {
+        long id = addResena(parqueId, 5).getId();
+        addResena(parqueId, 3);
+
+        resenaService.patch(id, Map.of("valoracion", 1));
+        PuntoInteres parque = reload(parqueId);
+        assertEquals(2, parque.getTotalResenas());
+        assertEquals(0, parque.getValoraciones5());
+        assertEquals(1, parque.getValoraciones1());
+        assertEquals(2f, parque.getPuntuacionMedia(), 0.0001);
+
+        resenaService.modify(id, new ResenaInDto("Cambio", true, LocalDate.now(), 0, null, 4, miradorId, usuarioId));
+        assertEquals(1, reload(parqueId).getTotalResenas());
+        assertEquals(3f, reload(parqueId).getPuntuacionMedia(), 0.0001);
+        assertEquals(4f, reload(miradorId).getPuntuacionMedia(), 0.0001);
+
+        resenaService.delete(id);
+        PuntoInteres mirador = reload(miradorId);
+        assertEquals(0, mirador.getTotalResenas());
+        assertEquals(0, mirador.getSumaValoraciones());
+        assertEquals(0, mirador.getValoraciones4());
+        assertEquals(0f, mirador.getPuntuacionMedia());
+    }
+
+    @Test
+    void savingPunto_shouldNotOverwriteAggregates() throws Exception {
+        PuntoInteres stale = reload(parqueId);
+        addResena(parqueId, 5);
+
+        stale.setNombre("Parque Grande");
+        stale.setPuntuacionMedia(1f);
+        puntoInteresRepository.save(stale);
+
+        PuntoInteres parque = reload(parqueId);
+        assertEquals("Parque Grande", parque.getNombre());
+        assertEquals(1, parque.getTotalResenas());
+        assertEquals(5f, parque.getPuntuacionMedia());
+    }
+
+    @Test
+    void rebuildAll_shouldRecomputeFromResenas() {
+        PuntoInteres parque = entityManager.find(PuntoInteres.class, parqueId);
+        Usuario usuario = entityManager.find(Usuario.class, usuarioId);
+        // reseñas insertadas por fuera del servicio: los agregados no se enteran
+        for (int valoracion : new int[]{1, 2, 2, 5})
+            entityManager.persist(Resena.builder().comentario("Carga").valoracion(valoracion)
+                    .punto(parque).usuario(usuario).build());
+        puntoInteresRepository.setValoraciones(miradorId, 4.5f, 2, 9, 0, 0, 0, 1, 1);
+        assertEquals(0, reload(parqueId).getTotalResenas());
+
+        assertEquals(2, job.rebuildAll());
+
+        parque = reload(parqueId);
+        assertEquals(4, parque.getTotalResenas());
+        assertEquals(10, parque.getSumaValoraciones());
+        assertEquals(1, parque.getValoraciones1());
+        assertEquals(2, parque.getValoraciones2());
+        assertEquals(1, parque.getValoraciones5());
+        assertEquals(2.5f, parque.getPuntuacionMedia());
+        PuntoInteres mirador = reload(miradorId);
+        assertEquals(0, mirador.getTotalResenas());
+        assertEquals(0f, mirador.getPuntuacionMedia());
+    }
+}
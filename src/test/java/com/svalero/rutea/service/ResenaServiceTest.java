@@ -16,11 +16,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.env.MockEnvironment;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,8 +34,9 @@ class ResenaServiceTest {
     @Mock private ResenaRepository resenaRepository;
     @Mock private PuntoInteresRepository puntoInteresRepository;
     @Mock private UsuarioRepository usuarioRepository;
-    @Mock private ModelMapper modelMapper;
+    @Mock private LikeCounter likeCounter;
 
+    @Spy private EntityCaches entityCaches = new EntityCaches(new MockEnvironment());
     @InjectMocks private ResenaService resenaService;
 
     private PuntoInteres punto;
@@ -43,7 +45,11 @@ class ResenaServiceTest {
     private Resena r2;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
+        lenient().when(likeCounter.read(any())).thenAnswer(inv -> inv.<LikeCounter.Read<?, ?>>getArgument(0).read());
+        lenient().when(likeCounter.likes(anyLong(), anyLong()))
+                .thenAnswer(inv -> inv.<Long>getArgument(1) + likeCounter.pending(inv.getArgument(0)));
+
         punto = PuntoInteres.builder().id(10L).nombre("Parque").build();
         usuario = Usuario.builder().id(20L).username("borja").build();
 
@@ -83,16 +89,8 @@ class ResenaServiceTest {
         when(puntoInteresRepository.findById(10L)).thenReturn(Optional.of(punto));
         when(usuarioRepository.findById(20L)).thenReturn(Optional.of(usuario));
 
-        Resena mapped = Resena.builder().build();
-        when(modelMapper.map(in, Resena.class)).thenReturn(mapped);
-
         when(resenaRepository.save(any(Resena.class))).thenReturn(r1);
 
-        ResenaOutDto mappedOut = new ResenaOutDto(
-                1L, "Muy bien", false, r1.getFechaPublicacion(), 10, "Genial", 5, null, null
-        );
-        when(modelMapper.map(r1, ResenaOutDto.class)).thenReturn(mappedOut);
-
         ResenaOutDto out = resenaService.add(in);
 
         assertNotNull(out);
@@ -107,8 +105,7 @@ class ResenaServiceTest {
 
         verify(puntoInteresRepository).findById(10L);
         verify(usuarioRepository).findById(20L);
-        verify(modelMapper).map(in, Resena.class);
-        verify(modelMapper).map(r1, ResenaOutDto.class);
+        verify(puntoInteresRepository).applyValoracion(10L, 5, 1);
     }
 
     @Test
@@ -140,7 +137,6 @@ class ResenaServiceTest {
         verify(puntoInteresRepository).findById(10L);
         verify(usuarioRepository).findById(999L);
         verify(resenaRepository, never()).save(any());
-        verify(modelMapper, never()).map(any(), eq(Resena.class));
     }
 
     // -------------------- FIND BY ID --------------------
@@ -149,11 +145,6 @@ class ResenaServiceTest {
     void findById_shouldReturnOutDto_whenExists() throws Exception {
         when(resenaRepository.findById(1L)).thenReturn(Optional.of(r1));
 
-        ResenaOutDto mappedOut = new ResenaOutDto(
-                1L, "Muy bien", false, r1.getFechaPublicacion(), 10, "Genial", 5, null, null
-        );
-        when(modelMapper.map(r1, ResenaOutDto.class)).thenReturn(mappedOut);
-
         ResenaOutDto out = resenaService.findById(1L);
 
         assertEquals(1L, out.getId());
@@ -162,7 +153,6 @@ class ResenaServiceTest {
         assertEquals(20L, out.getUsuarioId());
 
         verify(resenaRepository).findById(1L);
-        verify(modelMapper).map(r1, ResenaOutDto.class);
     }
 
     @Test
@@ -172,7 +162,6 @@ class ResenaServiceTest {
         assertThrows(ResenaNotFoundException.class, () -> resenaService.findById(999L));
 
         verify(resenaRepository).findById(999L);
-        verifyNoInteractions(modelMapper);
     }
 
     // -------------------- MODIFY --------------------
@@ -187,25 +176,8 @@ class ResenaServiceTest {
         when(puntoInteresRepository.findById(10L)).thenReturn(Optional.of(punto));
         when(usuarioRepository.findById(20L)).thenReturn(Optional.of(usuario));
 
-        doAnswer(inv -> {
-            ResenaInDto src = inv.getArgument(0);
-            Resena dest = inv.getArgument(1);
-            dest.setComentario(src.getComentario());
-            dest.setEditada(src.isEditada());
-            dest.setFechaPublicacion(src.getFechaPublicacion());
-            dest.setLikes(src.getLikes());
-            dest.setTitulo(src.getTitulo());
-            dest.setValoracion(src.getValoracion());
-            return null;
-        }).when(modelMapper).map(any(ResenaInDto.class), any(Resena.class));
-
         when(resenaRepository.save(any(Resena.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        ResenaOutDto mappedOut = new ResenaOutDto(
-                1L, "Editada", true, in.getFechaPublicacion(), 5, "Nuevo", 3, null, null
-        );
-        when(modelMapper.map(any(Resena.class), eq(ResenaOutDto.class))).thenReturn(mappedOut);
-
         ResenaOutDto out = resenaService.modify(1L, in);
 
         assertEquals(1L, out.getId());
@@ -217,8 +189,49 @@ class ResenaServiceTest {
         verify(resenaRepository).findById(1L);
         verify(puntoInteresRepository).findById(10L);
         verify(usuarioRepository).findById(20L);
-        verify(modelMapper).map(any(ResenaInDto.class), any(Resena.class));
         verify(resenaRepository).save(any(Resena.class));
+        // 5 -> 3 en el mismo punto
+        verify(puntoInteresRepository).applyValoracion(10L, 5, -1);
+        verify(puntoInteresRepository).applyValoracion(10L, 3, 1);
+        // los likes se fijan aparte y descartan los pendientes
+        verify(resenaRepository).setLikes(1L, 5);
+        verify(likeCounter).discard(1L);
+    }
+
+    @Test
+    void patch_shouldMoveValoracion_whenPuntoChanges() throws Exception {
+        PuntoInteres otro = PuntoInteres.builder().id(11L).nombre("Mirador").build();
+        when(resenaRepository.findById(1L)).thenReturn(Optional.of(r1));
+        when(puntoInteresRepository.findById(11L)).thenReturn(Optional.of(otro));
+        when(resenaRepository.save(any(Resena.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        resenaService.patch(1L, Map.of("puntoId", 11L));
+
+        verify(puntoInteresRepository).applyValoracion(10L, 5, -1);
+        verify(puntoInteresRepository).applyValoracion(11L, 5, 1);
+    }
+
+    @Test
+    void patch_shouldNotTouchAggregates_whenValoracionAndPuntoUnchanged() throws Exception {
+        when(resenaRepository.findById(1L)).thenReturn(Optional.of(r1));
+        when(resenaRepository.save(any(Resena.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        resenaService.patch(1L, Map.of("comentario", "Otro", "valoracion", 5));
+
+        verify(puntoInteresRepository, never()).applyValoracion(anyLong(), anyInt(), anyInt());
+        verify(resenaRepository, never()).setLikes(anyLong(), anyInt());
+        verify(likeCounter, never()).discard(anyLong());
+    }
+
+    @Test
+    void patch_shouldSetLikesExplicitly_andDiscardPending() throws Exception {
+        when(resenaRepository.findById(1L)).thenReturn(Optional.of(r1));
+        when(resenaRepository.save(any(Resena.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        resenaService.patch(1L, Map.of("likes", 15));
+
+        verify(resenaRepository).setLikes(1L, 15);
+        verify(likeCounter).discard(1L);
     }
 
     @Test
@@ -252,7 +265,6 @@ class ResenaServiceTest {
         verify(puntoInteresRepository).findById(999L);
         verify(usuarioRepository, never()).findById(anyLong());
         verify(resenaRepository, never()).save(any());
-        verify(modelMapper, never()).map(any(), any(Resena.class));
     }
 
     @Test
@@ -271,7 +283,6 @@ class ResenaServiceTest {
         verify(puntoInteresRepository).findById(10L);
         verify(usuarioRepository).findById(999L);
         verify(resenaRepository, never()).save(any());
-        verify(modelMapper, never()).map(any(), any(Resena.class));
     }
 
     // -------------------- DELETE --------------------
@@ -284,6 +295,7 @@ class ResenaServiceTest {
 
         verify(resenaRepository).findById(1L);
         verify(resenaRepository).findById(1L);
+        verify(puntoInteresRepository).applyValoracion(10L, 5, -1);
     }
 
     @Test
@@ -296,6 +308,29 @@ class ResenaServiceTest {
         verify(resenaRepository, never()).save(any());
     }
 
+    // -------------------- LIKE --------------------
+
+    @Test
+    void like_shouldCountInMemory_andReturnLikesIncludingPending() throws Exception {
+        when(resenaRepository.findById(1L)).thenReturn(Optional.of(r1));
+        when(likeCounter.pending(1L)).thenReturn(3L);
+
+        ResenaOutDto out = resenaService.like(1L);
+
+        assertEquals(13, out.getLikes());
+        verify(likeCounter).increment(1L);
+        verify(resenaRepository, never()).save(any());
+    }
+
+    @Test
+    void like_shouldThrow_whenNotFound() {
+        when(resenaRepository.findById(999L)).thenReturn(Optional.empty());
+
+        assertThrows(ResenaNotFoundException.class, () -> resenaService.like(999L));
+
+        verify(likeCounter, never()).increment(anyLong());
+    }
+
     // -------------------- FIND ALL (SPECIFICATION) --------------------
 
     @Test
@@ -303,11 +338,6 @@ class ResenaServiceTest {
     void findAll_shouldReturnFiltered_whenAllFiltersPresent() {
         when(resenaRepository.findAll(any(Specification.class))).thenReturn(List.of(r1));
 
-        ResenaOutDto mappedOut = new ResenaOutDto(
-                1L, "Muy bien", false, r1.getFechaPublicacion(), 10, "Genial", 5, null, null
-        );
-        when(modelMapper.map(r1, ResenaOutDto.class)).thenReturn(mappedOut);
-
         List<ResenaOutDto> result = resenaService.findAll(false, 10, 5);
 
         assertEquals(1, result.size());
@@ -323,11 +353,6 @@ class ResenaServiceTest {
     void findAll_shouldReturnAll_whenNoFilters() {
         when(resenaRepository.findAll(any(Specification.class))).thenReturn(List.of(r1, r2));
 
-        ResenaOutDto out1 = new ResenaOutDto(1L, "Muy bien", false, r1.getFechaPublicacion(), 10, "Genial", 5, null, null);
-        ResenaOutDto out2 = new ResenaOutDto(2L, "Normal", true, r2.getFechaPublicacion(), 0, null, 3, null, null);
-        when(modelMapper.map(r1, ResenaOutDto.class)).thenReturn(out1);
-        when(modelMapper.map(r2, ResenaOutDto.class)).thenReturn(out2);
-
         List<ResenaOutDto> result = resenaService.findAll(null, null, null);
 
         assertEquals(2, result.size());
@@ -0,0 +1,68 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.geo.GeoUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "rutea.jobs.ruta-geometry.enabled=true")
+@Import({RutaGeometryJob.class, EntityCaches.class})
+class RutaGeometryJobTest {
+
+    @Autowired private RutaGeometryJob job;
+    @Autowired private TestEntityManager entityManager;
+
+    @Test
+    void recomputeAll_shouldStoreGeometry_forEveryRutaAcrossBatches() {
+        PuntoInteres a = entityManager.persist(PuntoInteres.builder().nombre("A").latitud(41.60).longitud(-0.90).build());
+        PuntoInteres b = entityManager.persist(PuntoInteres.builder().nombre("B").latitud(41.70).longitud(-0.80).build());
+        PuntoInteres c = entityManager.persist(PuntoInteres.builder().nombre("C").latitud(41.65).longitud(-0.70).build());
+
+        int total = RutaGeometryJob.BATCH_SIZE + 10;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            List<PuntoInteres> puntos = switch (i % 3) {
+                case 0 -> List.of(a, b, c);
+                case 1 -> List.of(c);
+                default -> List.of();
+            };
+            ids.add(entityManager.persist(Ruta.builder()
+                    .titulo("Ruta " + i).distanciaKm(1f).fechaRealizacion(LocalDate.now())
+                    .puntos(new ArrayList<>(puntos)).build()).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(total, job.recomputeAll());
+        entityManager.flush();
+        entityManager.clear();
+
+        double ab = GeoUtils.haversineKm(41.60, -0.90, 41.70, -0.80);
+        double bc = GeoUtils.haversineKm(41.70, -0.80, 41.65, -0.70);
+        Ruta tresPuntos = entityManager.find(Ruta.class, ids.get(total - 3));
+        assertEquals(ab + bc, tresPuntos.getDistanciaKm(), 0.01);
+        assertArrayEquals(new double[]{ab, bc}, tresPuntos.getTramosKm(), 0.001);
+        assertEquals(41.60, tresPuntos.getBboxMinLat());
+        assertEquals(-0.70, tresPuntos.getBboxMaxLon());
+
+        Ruta unPunto = entityManager.find(Ruta.class, ids.get(total - 2));
+        assertEquals(1f, unPunto.getDistanciaKm());
+        assertEquals(0, unPunto.getTramosKm().length);
+        assertEquals(41.65, unPunto.getBboxMaxLat());
+
+        Ruta sinPuntos = entityManager.find(Ruta.class, ids.get(total - 1));
+        assertEquals(1f, sinPuntos.getDistanciaKm());
+        assertNull(sinPuntos.getTramosKm());
+        assertNull(sinPuntos.getBboxMinLat());
+    }
+}
@@ -0,0 +1,152 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.search.EtiquetaIndex;
+import com.svalero.rutea.search.SearchIndex;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cuenta las sentencias contra ruta_puntos al editar una ruta larga: con la columna posicion
+ * y la colección modificada en el sitio, cada cambio solo escribe las filas afectadas.
+ * Sin lotes de JDBC: con ellos, el inspector vería una vez cada sentencia y no cada fila.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.svalero.rutea.service.RutaPuntosUpdateTest$RutaPuntosStatements",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=0"})
+@Import({RutaService.class, SearchIndex.class, EtiquetaService.class, EtiquetaIndex.class, EntityCaches.class})
+class RutaPuntosUpdateTest {
+
+    private static final int TOTAL_PUNTOS = 300;
+
+    @Autowired private RutaService rutaService;
+    @Autowired private TestEntityManager entityManager;
+
+    private long rutaId;
+    private List<Long> puntosIds;
+    private long extraId;
+
+    /**
+     * Guarda el SQL que toca ruta_puntos. Hibernate instancia la clase, de ahí el estado estático.
+     */
+    public static class RutaPuntosStatements implements StatementInspector {
+
+        static final List<String> SQL = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            String lower = sql.toLowerCase();
+            if (lower.contains("ruta_puntos") && !lower.startsWith("select"))
+                SQL.add(lower);
+            return sql;
+        }
+
+        static long count(String verb) {
+            synchronized (SQL) {
+                return SQL.stream().filter(s -> s.startsWith(verb)).count();
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        Usuario usuario = entityManager.persist(Usuario.builder()
+                .email("u@rutea.com").username("u").password("secreto").fechaRegistro(LocalDate.now()).build());
+        List<PuntoInteres> puntos = new ArrayList<>();
+        for (int i = 0; i < TOTAL_PUNTOS; i++) {
+            puntos.add(entityManager.persist(PuntoInteres.builder()
+                    .nombre("Punto " + i).latitud(41.6 + i * 0.001).longitud(-0.9).build()));
+        }
+        extraId = entityManager.persist(PuntoInteres.builder()
+                .nombre("Extra").latitud(41.0).longitud(-1.0).build()).getId();
+        rutaId = entityManager.persist(Ruta.builder()
+                .titulo("Larga").fechaRealizacion(LocalDate.now()).usuario(usuario)
+                .puntos(new ArrayList<>(puntos)).build()).getId();
+        puntosIds = new ArrayList<>(puntos.stream().map(PuntoInteres::getId).toList());
+
+        entityManager.flush();
+        entityManager.clear();
+        RutaPuntosStatements.SQL.clear();
+    }
+
+    private void patchPuntos(List<Long> ids) throws Exception {
+        rutaService.patch(rutaId, Map.of("puntosIds", ids));
+        entityManager.flush();
+    }
+
+    private List<Long> storedPuntosIds() {
+        entityManager.clear();
+        return entityManager.find(Ruta.class, rutaId).getPuntos().stream().map(PuntoInteres::getId).toList();
+    }
+
+    @Test
+    void patch_shouldInsertOneRow_whenAppendingOnePunto() throws Exception {
+        puntosIds.add(extraId);
+
+        patchPuntos(puntosIds);
+
+        assertEquals(1, RutaPuntosStatements.count("insert"));
+        assertEquals(0, RutaPuntosStatements.count("update"));
+        assertEquals(0, RutaPuntosStatements.count("delete"));
+        assertEquals(puntosIds, storedPuntosIds());
+    }
+
+    @Test
+    void patch_shouldDeleteOneRow_whenRemovingLastPunto() throws Exception {
+        puntosIds.remove(puntosIds.size() - 1);
+
+        patchPuntos(puntosIds);
+
+        assertEquals(0, RutaPuntosStatements.count("insert"));
+        assertEquals(0, RutaPuntosStatements.count("update"));
+        assertEquals(1, RutaPuntosStatements.count("delete"));
+        assertEquals(puntosIds, storedPuntosIds());
+    }
+
+    @Test
+    void patch_shouldUpdateOnlyMovedPositions_whenSwappingTwoPuntos() throws Exception {
+        Collections.swap(puntosIds, 150, 151);
+
+        patchPuntos(puntosIds);
+
+        assertEquals(0, RutaPuntosStatements.count("insert"));
+        assertEquals(2, RutaPuntosStatements.count("update"));
+        assertEquals(0, RutaPuntosStatements.count("delete"));
+        assertEquals(puntosIds, storedPuntosIds());
+    }
+
+    @Test
+    void patch_shouldReplaceOneRow_whenChangingOnePunto() throws Exception {
+        puntosIds.set(10, extraId);
+
+        patchPuntos(puntosIds);
+
+        assertEquals(List.of(), RutaPuntosStatements.SQL.stream().filter(s -> !s.startsWith("update")).toList());
+        assertEquals(1, RutaPuntosStatements.count("update"));
+        assertEquals(puntosIds, storedPuntosIds());
+    }
+
+    @Test
+    void patch_shouldNotTouchRows_whenPuntosUnchanged() throws Exception {
+        patchPuntos(puntosIds);
+
+        assertEquals(List.of(), RutaPuntosStatements.SQL);
+        assertEquals(puntosIds, storedPuntosIds());
+    }
+}
@@ -0,0 +1,92 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.CursorPage;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import com.svalero.rutea.search.EtiquetaIndex;
+import com.svalero.rutea.search.SearchIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba con las estadísticas de Hibernate que el listado de rutas lanza un número
+ * fijo de sentencias por página, sin importar cuántas rutas, usuarios o puntos haya.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({RutaService.class, SearchIndex.class, EtiquetaService.class, EtiquetaIndex.class, EntityCaches.class})
+class RutaServiceQueryCountTest {
+
+    private static final int TOTAL_RUTAS = 1_000;
+
+    @Autowired private RutaService rutaService;
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            usuarios.add(entityManager.persist(Usuario.builder()
+                    .email("u" + i + "@rutea.com").username("u" + i).password("secreto")
+                    .fechaRegistro(LocalDate.now()).build()));
+        }
+        List<PuntoInteres> puntos = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            puntos.add(entityManager.persist(PuntoInteres.builder()
+                    .nombre("Punto " + i).latitud(41.6).longitud(-0.9).build()));
+        }
+        for (int i = 0; i < TOTAL_RUTAS; i++) {
+            entityManager.persist(Ruta.builder()
+                    .titulo("Ruta " + i).fechaRealizacion(LocalDate.now()).publica(i % 2 == 0)
+                    .usuario(usuarios.get(i % usuarios.size()))
+                    .puntos(new ArrayList<>(List.of(
+                            puntos.get(i % 50), puntos.get((i + 1) % 50), puntos.get((i + 2) % 50))))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllV2_shouldRunConstantStatementsPerPage_whenListingAllRutas() throws Exception {
+        int pages = 0;
+        int rutas = 0;
+        String cursor = null;
+        do {
+            CursorPage<RutaOutDtoV2> page = rutaService.findAllV2("", null, "", null, true, cursor, PageCursor.MAX_LIMIT);
+            page.getItems().forEach(r -> {
+                assertEquals(3, r.getTotalPuntos());
+                assertNotNull(r.getUsuarioId());
+            });
+            rutas += page.getItems().size();
+            pages++;
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(TOTAL_RUTAS, rutas);
+        // por página: la consulta keyset de rutas + la consulta IN de ids de puntos
+        assertEquals(2L * pages, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+}
@@ -3,24 +3,36 @@ package com.svalero.rutea.service;
 import com.svalero.rutea.domain.PuntoInteres;
 import com.svalero.rutea.domain.Ruta;
 import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.CursorPage;
 import com.svalero.rutea.dto.RutaInDto;
+import com.svalero.rutea.dto.RutaInDtoV2;
+import com.svalero.rutea.dto.RutaOptimizacionOutDto;
 import com.svalero.rutea.dto.RutaOutDto;
+import com.svalero.rutea.dto.RutaOutDtoV2;
+import com.svalero.rutea.exception.InvalidCursorException;
 import com.svalero.rutea.exception.PuntoInteresNotFoundException;
 import com.svalero.rutea.exception.RutaNotFoundException;
+import com.svalero.rutea.exception.TooManyPuntosException;
 import com.svalero.rutea.exception.UsuarioNotFoundException;
 import com.svalero.rutea.repository.PuntoInteresRepository;
+import com.svalero.rutea.repository.RutaPuntoRef;
 import com.svalero.rutea.repository.RutaRepository;
 import com.svalero.rutea.repository.UsuarioRepository;
+import com.svalero.rutea.search.EtiquetaIndex;
+import com.svalero.rutea.search.SearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,8 +45,11 @@ class RutaServiceTest {
     @Mock private RutaRepository rutaRepository;
     @Mock private UsuarioRepository usuarioRepository;
     @Mock private PuntoInteresRepository puntoInteresRepository;
-    @Mock private ModelMapper modelMapper;
+    @Mock private SearchIndex searchIndex;
+    @Mock private EtiquetaService etiquetaService;
+    @Mock private EtiquetaIndex etiquetaIndex;
 
+    @Spy private EntityCaches entityCaches = new EntityCaches(new MockEnvironment());
     @InjectMocks private RutaService rutaService;
 
     private Usuario usuario;
@@ -45,6 +60,8 @@ class RutaServiceTest {
 
     @BeforeEach
     void setUp() {
+        ReflectionTestUtils.setField(rutaService, "optimizeTimeBudgetMs", 1_000L);
+
         usuario = Usuario.builder().id(10L).username("borja").build();
 
         p1 = PuntoInteres.builder().id(100L).nombre("Parque").build();
@@ -59,7 +76,7 @@ class RutaServiceTest {
                 .publica(true)
                 .titulo("Paseo por el parque")
                 .usuario(usuario)
-                .puntos(List.of(p1, p2))
+                .puntos(new ArrayList<>(List.of(p1, p2)))
                 .build();
 
         ruta2 = Ruta.builder()
@@ -71,7 +88,7 @@ class RutaServiceTest {
                 .publica(false)
                 .titulo("Subida al monte")
                 .usuario(null)
-                .puntos(List.of())
+                .puntos(new ArrayList<>())
                 .build();
     }
 
@@ -85,19 +102,10 @@ class RutaServiceTest {
         );
 
         when(usuarioRepository.findById(10L)).thenReturn(Optional.of(usuario));
-        when(puntoInteresRepository.findById(100L)).thenReturn(Optional.of(p1));
-        when(puntoInteresRepository.findById(200L)).thenReturn(Optional.of(p2));
-
-        Ruta mapped = Ruta.builder().build();
-        when(modelMapper.map(in, Ruta.class)).thenReturn(mapped);
+        when(puntoInteresRepository.findAllById(List.of(100L, 200L))).thenReturn(List.of(p1, p2));
 
         when(rutaRepository.save(any(Ruta.class))).thenReturn(ruta1);
 
-        RutaOutDto mappedOut = new RutaOutDto(
-                1L, "facil", 5.5f, 60, ruta1.getFechaRealizacion(), true, "Paseo por el parque", null, null
-        );
-        when(modelMapper.map(any(Ruta.class), eq(RutaOutDto.class))).thenReturn(mappedOut);
-
         RutaOutDto out = rutaService.add(in);
 
         assertNotNull(out);
@@ -111,10 +119,11 @@ class RutaServiceTest {
         assertEquals(2, captor.getValue().getPuntos().size());
 
         verify(usuarioRepository).findById(10L);
-        verify(puntoInteresRepository).findById(100L);
-        verify(puntoInteresRepository).findById(200L);
-        verify(modelMapper).map(in, Ruta.class);
-        verify(modelMapper).map(any(Ruta.class), eq(RutaOutDto.class));
+        verify(puntoInteresRepository).findAllById(List.of(100L, 200L));
+        verify(puntoInteresRepository, never()).findById(anyLong());
+        verify(searchIndex).put(SearchIndex.Tipo.RUTA, 1L, ruta1.getTitulo(), ruta1.getEtiquetas());
+        verify(etiquetaService).sync(captor.getValue());
+        verify(etiquetaIndex).put(1L, Map.of());
     }
 
     @Test
@@ -129,7 +138,6 @@ class RutaServiceTest {
 
         verify(usuarioRepository).findById(999L);
         verify(rutaRepository, never()).save(any());
-        verify(modelMapper, never()).map(any(), eq(Ruta.class));
         verifyNoInteractions(puntoInteresRepository);
     }
 
@@ -140,14 +148,103 @@ class RutaServiceTest {
         );
 
         when(usuarioRepository.findById(10L)).thenReturn(Optional.of(usuario));
-        when(modelMapper.map(in, Ruta.class)).thenReturn(new Ruta());
-        when(puntoInteresRepository.findById(999L)).thenReturn(Optional.empty());
+        when(puntoInteresRepository.findAllById(List.of(999L))).thenReturn(List.of());
 
         assertThrows(PuntoInteresNotFoundException.class, () -> rutaService.add(in));
 
         verify(usuarioRepository).findById(10L);
-        verify(modelMapper).map(in, Ruta.class);
-        verify(puntoInteresRepository).findById(999L);
+        verify(puntoInteresRepository).findAllById(List.of(999L));
+        verify(rutaRepository, never()).save(any());
+    }
+
+    @Test
+    void add_shouldKeepOrderAndDuplicates_whenResolvingPuntosInOneQuery() throws Exception {
+        RutaInDto in = new RutaInDto(
+                "facil", 5.5f, 60, LocalDate.now(), true, "Ida y vuelta", 10L, List.of(200L, 100L, 200L)
+        );
+
+        when(usuarioRepository.findById(10L)).thenReturn(Optional.of(usuario));
+        // el repositorio no garantiza orden en el IN
+        when(puntoInteresRepository.findAllById(List.of(200L, 100L))).thenReturn(List.of(p1, p2));
+        when(rutaRepository.save(any(Ruta.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        RutaOutDto out = rutaService.add(in);
+
+        assertEquals(List.of(200L, 100L, 200L), out.getPuntosIds());
+        verify(puntoInteresRepository).findAllById(List.of(200L, 100L));
+        verify(puntoInteresRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void add_shouldComputeDistanciaFromPuntos_whenTwoOrMorePuntos() throws Exception {
+        // Zaragoza -> Huesca, ~65 km; el cliente manda 5.5
+        PuntoInteres zaragoza = PuntoInteres.builder().id(100L).latitud(41.6488).longitud(-0.8891).build();
+        PuntoInteres huesca = PuntoInteres.builder().id(200L).latitud(42.1401).longitud(-0.4089).build();
+        RutaInDto in = new RutaInDto(
+                "facil", 5.5f, 60, LocalDate.now(), true, "Zaragoza - Huesca", 10L, List.of(100L, 200L)
+        );
+
+        when(usuarioRepository.findById(10L)).thenReturn(Optional.of(usuario));
+        when(puntoInteresRepository.findAllById(List.of(100L, 200L))).thenReturn(List.of(zaragoza, huesca));
+        when(rutaRepository.save(any(Ruta.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        rutaService.add(in);
+
+        ArgumentCaptor<Ruta> captor = ArgumentCaptor.forClass(Ruta.class);
+        verify(rutaRepository).save(captor.capture());
+        Ruta saved = captor.getValue();
+        assertEquals(67.0, saved.getDistanciaKm(), 1.0);
+        assertEquals(1, saved.getTramosKm().length);
+        assertEquals(saved.getDistanciaKm(), saved.getTramosKm()[0], 0.001);
+        assertEquals(41.6488, saved.getBboxMinLat());
+        assertEquals(42.1401, saved.getBboxMaxLat());
+        assertEquals(-0.8891, saved.getBboxMinLon());
+        assertEquals(-0.4089, saved.getBboxMaxLon());
+    }
+
+    @Test
+    void add_shouldKeepClientDistancia_whenFewerThanTwoPuntos() throws Exception {
+        RutaInDto in = new RutaInDto(
+                "facil", 5.5f, 60, LocalDate.now(), true, "Solo un punto", 10L, List.of(100L)
+        );
+
+        when(usuarioRepository.findById(10L)).thenReturn(Optional.of(usuario));
+        when(puntoInteresRepository.findAllById(List.of(100L))).thenReturn(List.of(p1));
+        when(rutaRepository.save(any(Ruta.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        rutaService.add(in);
+
+        ArgumentCaptor<Ruta> captor = ArgumentCaptor.forClass(Ruta.class);
+        verify(rutaRepository).save(captor.capture());
+        assertEquals(5.5f, captor.getValue().getDistanciaKm());
+        assertEquals(0, captor.getValue().getTramosKm().length);
+    }
+
+    @Test
+    void add_shouldReportEveryMissingPunto_whenSeveralNotFound() {
+        RutaInDto in = new RutaInDto(
+                "x", 1f, 1, LocalDate.now(), true, "Ruta", 10L, List.of(100L, 998L, 999L)
+        );
+
+        when(usuarioRepository.findById(10L)).thenReturn(Optional.of(usuario));
+        when(puntoInteresRepository.findAllById(List.of(100L, 998L, 999L))).thenReturn(List.of(p1));
+
+        PuntoInteresNotFoundException ex =
+                assertThrows(PuntoInteresNotFoundException.class, () -> rutaService.add(in));
+
+        assertTrue(ex.getMessage().contains("998"));
+        assertTrue(ex.getMessage().contains("999"));
+        verify(rutaRepository, never()).save(any());
+    }
+
+    @Test
+    void patch_shouldThrow_whenMorePuntosThanTheDtoLimit() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= RutaService.MAX_PUNTOS + 1; i++) ids.add(i);
+        when(rutaRepository.findById(1L)).thenReturn(Optional.of(ruta1));
+
+        assertThrows(TooManyPuntosException.class, () -> rutaService.patch(1L, Map.of("puntosIds", ids)));
+        verify(puntoInteresRepository, never()).findAllById(anyList());
         verify(rutaRepository, never()).save(any());
     }
 
@@ -157,11 +254,6 @@ class RutaServiceTest {
     void findById_shouldReturnOutDto_whenExists() throws Exception {
         when(rutaRepository.findById(1L)).thenReturn(Optional.of(ruta1));
 
-        RutaOutDto mappedOut = new RutaOutDto(
-                1L, "facil", 5.5f, 60, ruta1.getFechaRealizacion(), true, "Paseo por el parque", null, null
-        );
-        when(modelMapper.map(any(Ruta.class), eq(RutaOutDto.class))).thenReturn(mappedOut);
-
         RutaOutDto out = rutaService.findById(1L);
 
         assertEquals(1L, out.getId());
@@ -169,7 +261,6 @@ class RutaServiceTest {
         assertEquals(List.of(100L, 200L), out.getPuntosIds());
 
         verify(rutaRepository).findById(1L);
-        verify(modelMapper).map(any(Ruta.class), eq(RutaOutDto.class));
     }
 
     @Test
@@ -179,7 +270,6 @@ class RutaServiceTest {
         assertThrows(RutaNotFoundException.class, () -> rutaService.findById(999L));
 
         verify(rutaRepository).findById(999L);
-        verifyNoInteractions(modelMapper);
     }
 
     // -------------------- MODIFY --------------------
@@ -192,27 +282,10 @@ class RutaServiceTest {
 
         when(rutaRepository.findById(1L)).thenReturn(Optional.of(ruta1));
         when(usuarioRepository.findById(10L)).thenReturn(Optional.of(usuario));
-        when(puntoInteresRepository.findById(100L)).thenReturn(Optional.of(p1));
-
-        doAnswer(inv -> {
-            RutaInDto src = inv.getArgument(0);
-            Ruta dest = inv.getArgument(1);
-            dest.setDificultad(src.getDificultad());
-            dest.setDistanciaKm(src.getDistanciaKm());
-            dest.setDuracionMinutos(src.getDuracionMinutos());
-            dest.setFechaRealizacion(src.getFechaRealizacion());
-            dest.setPublica(src.isPublica());
-            dest.setTitulo(src.getTitulo());
-            return null;
-        }).when(modelMapper).map(any(RutaInDto.class), any(Ruta.class));
+        when(puntoInteresRepository.findAllById(List.of(100L))).thenReturn(List.of(p1));
 
         when(rutaRepository.save(any(Ruta.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        RutaOutDto mappedOut = new RutaOutDto(
-                1L, "dificil", 12f, 180, in.getFechaRealizacion(), false, "Ruta nueva", null, null
-        );
-        when(modelMapper.map(any(Ruta.class), eq(RutaOutDto.class))).thenReturn(mappedOut);
-
         RutaOutDto out = rutaService.modify(1L, in);
 
         assertEquals(1L, out.getId());
@@ -223,7 +296,7 @@ class RutaServiceTest {
 
         verify(rutaRepository).findById(1L);
         verify(usuarioRepository).findById(10L);
-        verify(puntoInteresRepository).findById(100L);
+        verify(puntoInteresRepository).findAllById(List.of(100L));
         verify(rutaRepository).save(any(Ruta.class));
     }
 
@@ -258,7 +331,6 @@ class RutaServiceTest {
         verify(usuarioRepository).findById(999L);
         verify(rutaRepository, never()).save(any());
         verifyNoInteractions(puntoInteresRepository);
-        verify(modelMapper, never()).map(any(), any(Ruta.class));
     }
 
     @Test
@@ -269,16 +341,13 @@ class RutaServiceTest {
 
         when(rutaRepository.findById(1L)).thenReturn(Optional.of(ruta1));
         when(usuarioRepository.findById(10L)).thenReturn(Optional.of(usuario));
-        when(puntoInteresRepository.findById(999L)).thenReturn(Optional.empty());
-
-        doNothing().when(modelMapper).map(any(RutaInDto.class), any(Ruta.class));
+        when(puntoInteresRepository.findAllById(List.of(999L))).thenReturn(List.of());
 
         assertThrows(PuntoInteresNotFoundException.class, () -> rutaService.modify(1L, in));
 
         verify(rutaRepository).findById(1L);
         verify(usuarioRepository).findById(10L);
-        verify(modelMapper).map(any(RutaInDto.class), any(Ruta.class));
-        verify(puntoInteresRepository).findById(999L);
+        verify(puntoInteresRepository).findAllById(List.of(999L));
         verify(rutaRepository, never()).save(any());
     }
 
@@ -292,6 +361,20 @@ class RutaServiceTest {
 
         verify(rutaRepository).findById(1L);
         verify(rutaRepository).findById(1L);
+        verify(searchIndex).remove(SearchIndex.Tipo.RUTA, 1L);
+    }
+
+    @Test
+    void softDelete_shouldRemoveRutaFromSearchIndex() throws Exception {
+        when(rutaRepository.findById(1L)).thenReturn(Optional.of(ruta1));
+
+        rutaService.softDelete(1L);
+
+        assertTrue(ruta1.isEliminada());
+        verify(rutaRepository).save(ruta1);
+        verify(searchIndex).remove(SearchIndex.Tipo.RUTA, 1L);
+        verify(searchIndex, never()).put(any(), anyLong(), any(), any());
+        verify(etiquetaIndex).remove(1L);
     }
 
     @Test
@@ -304,44 +387,184 @@ class RutaServiceTest {
         verify(rutaRepository, never()).save(any());
     }
 
-    // -------------------- FIND ALL (SPECIFICATION) --------------------
+    // -------------------- OPTIMIZE --------------------
+
+    private Ruta rutaDesordenada() {
+        // salida en lon 0; el orden óptimo es 0 -> 1 -> 2 -> 3
+        List<PuntoInteres> puntos = new ArrayList<>();
+        for (long lon : new long[]{0, 2, 1, 3})
+            puntos.add(PuntoInteres.builder().id(100L + lon).latitud(0).longitud(lon).build());
+        return Ruta.builder().id(5L).titulo("Zigzag").puntos(puntos).build();
+    }
+
+    @Test
+    void optimizeV2_shouldSaveNewOrder_whenPersistAndShorter() throws Exception {
+        Ruta ruta = rutaDesordenada();
+        when(rutaRepository.findById(5L)).thenReturn(Optional.of(ruta));
+
+        RutaOptimizacionOutDto out = rutaService.optimizeV2(5L, true);
+
+        assertEquals(List.of(100L, 101L, 102L, 103L), out.getPuntosIds());
+        assertTrue(out.getDistanciaDespuesKm() < out.getDistanciaAntesKm());
+        assertTrue(out.isGuardada());
+        assertEquals(List.of(100L, 101L, 102L, 103L), ruta.getPuntos().stream().map(PuntoInteres::getId).toList());
+        assertEquals(out.getDistanciaDespuesKm(), ruta.getDistanciaKm(), 0.01);
+        verify(rutaRepository).save(ruta);
+    }
+
+    @Test
+    void optimizeV2_shouldOnlyPropose_whenNotPersist() throws Exception {
+        Ruta ruta = rutaDesordenada();
+        when(rutaRepository.findById(5L)).thenReturn(Optional.of(ruta));
+
+        RutaOptimizacionOutDto out = rutaService.optimizeV2(5L, false);
+
+        assertEquals(List.of(100L, 101L, 102L, 103L), out.getPuntosIds());
+        assertFalse(out.isGuardada());
+        assertEquals(List.of(100L, 102L, 101L, 103L), ruta.getPuntos().stream().map(PuntoInteres::getId).toList());
+        verify(rutaRepository, never()).save(any());
+    }
+
+    @Test
+    void optimizeV2_shouldThrow_whenRutaEliminada() {
+        ruta1.setEliminada(true);
+        when(rutaRepository.findById(1L)).thenReturn(Optional.of(ruta1));
+
+        assertThrows(RutaNotFoundException.class, () -> rutaService.optimizeV2(1L, true));
+        verify(rutaRepository, never()).save(any());
+    }
+
+    @Test
+    void optimizeV2_shouldThrow_whenMorePuntosThanTheLimit() {
+        List<PuntoInteres> puntos = new ArrayList<>();
+        for (long i = 0; i <= RutaService.MAX_PUNTOS; i++)
+            puntos.add(PuntoInteres.builder().id(i).latitud(0).longitud(i * 0.01).build());
+        when(rutaRepository.findById(5L)).thenReturn(Optional.of(Ruta.builder().id(5L).puntos(puntos).build()));
+
+        assertThrows(TooManyPuntosException.class, () -> rutaService.optimizeV2(5L, true));
+        verify(rutaRepository, never()).save(any());
+    }
+
+    // -------------------- MAPEO --------------------
+
+    @Test
+    void toOutDtoV2_shouldCopyEveryField() {
+        ruta1.setEtiquetas("parque, familiar");
+        ruta1.setBboxMinLat(41.6);
+        ruta1.setBboxMinLon(-0.9);
+        ruta1.setBboxMaxLat(41.7);
+        ruta1.setBboxMaxLon(-0.8);
+        ruta1.setTramosKm(new double[]{1.5});
+
+        RutaOutDtoV2 out = RutaService.toOutDtoV2(ruta1);
+
+        assertEquals(new RutaOutDtoV2(1L, "facil", 5.5f, 60, ruta1.getFechaRealizacion(), true,
+                "Paseo por el parque", 10L, List.of(100L, 200L), "parque, familiar", 2,
+                41.6, -0.9, 41.7, -0.8, new double[]{1.5}), out);
+    }
+
+    @Test
+    void copy_shouldOverwriteScalarFields_andLeaveRelationsAlone() {
+        RutaInDtoV2 in = new RutaInDtoV2(null, 3f, 45, LocalDate.of(2024, 5, 1), false, "Nueva",
+                99L, List.of(999L), "nieve");
+
+        RutaService.copy(in, ruta1);
+
+        assertNull(ruta1.getDificultad());
+        assertEquals(3f, ruta1.getDistanciaKm());
+        assertEquals("Nueva", ruta1.getTitulo());
+        assertEquals("nieve", ruta1.getEtiquetas());
+        assertFalse(ruta1.isPublica());
+        assertEquals(1L, ruta1.getId());
+        assertSame(usuario, ruta1.getUsuario());
+        assertEquals(List.of(p1, p2), ruta1.getPuntos());
+    }
+
+    // -------------------- FIND ALL (SPECIFICATION + KEYSET) --------------------
 
     @Test
     @SuppressWarnings("unchecked")
-    void findAll_shouldReturnFiltered_whenDificultadPublicaTituloPresent() {
-        when(rutaRepository.findAll(any(Specification.class))).thenReturn(List.of(ruta1));
+    void findAll_shouldReturnFiltered_whenDificultadPublicaTituloPresent() throws Exception {
+        when(rutaRepository.findBy(any(Specification.class), any())).thenReturn(List.of(ruta1));
+        when(rutaRepository.findPuntoIdsByRutaIds(List.of(1L)))
+                .thenReturn(List.of(new RutaPuntoRef(1L, 100L), new RutaPuntoRef(1L, 200L)));
 
-        RutaOutDto mappedOut = new RutaOutDto(
-                1L, "facil", 5.5f, 60, ruta1.getFechaRealizacion(), true, "Paseo por el parque", null, null
-        );
-        when(modelMapper.map(any(Ruta.class), eq(RutaOutDto.class))).thenReturn(mappedOut);
+        CursorPage<RutaOutDto> result = rutaService.findAll("fac", true, "parque", null, null);
+
+        assertEquals(1, result.getItems().size());
+        assertEquals(1L, result.getItems().get(0).getId());
+        assertEquals(10L, result.getItems().get(0).getUsuarioId());
+        assertEquals(List.of(100L, 200L), result.getItems().get(0).getPuntosIds());
+        assertNull(result.getNextCursor());
 
-        List<RutaOutDto> result = rutaService.findAll("fac", true, "parque");
+        verify(rutaRepository).findBy(any(Specification.class), any());
+        verify(rutaRepository).findPuntoIdsByRutaIds(List.of(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findAll_shouldReturnAll_whenNoFilters() throws Exception {
+        when(rutaRepository.findBy(any(Specification.class), any())).thenReturn(List.of(ruta1, ruta2));
+        when(rutaRepository.findPuntoIdsByRutaIds(List.of(1L, 2L)))
+                .thenReturn(List.of(new RutaPuntoRef(1L, 100L), new RutaPuntoRef(1L, 200L)));
 
-        assertEquals(1, result.size());
-        assertEquals(1L, result.get(0).getId());
-        assertEquals(10L, result.get(0).getUsuarioId());
-        assertEquals(List.of(100L, 200L), result.get(0).getPuntosIds());
+        CursorPage<RutaOutDto> result = rutaService.findAll("", null, "", null, null);
 
-        verify(rutaRepository).findAll(any(Specification.class));
+        assertEquals(2, result.getItems().size());
+        assertEquals(10L, result.getItems().get(0).getUsuarioId());
+        assertNull(result.getItems().get(1).getUsuarioId());
+        assertEquals(List.of(100L, 200L), result.getItems().get(0).getPuntosIds());
+        assertEquals(List.of(), result.getItems().get(1).getPuntosIds());
+
+        verify(rutaRepository).findBy(any(Specification.class), any());
     }
 
     @Test
     @SuppressWarnings("unchecked")
-    void findAll_shouldReturnAll_whenNoFilters() {
-        when(rutaRepository.findAll(any(Specification.class))).thenReturn(List.of(ruta1, ruta2));
+    void findAll_shouldReturnNextCursor_whenMoreRowsThanLimit() throws Exception {
+        // el repositorio devuelve limit + 1 filas -> hay página siguiente
+        when(rutaRepository.findBy(any(Specification.class), any())).thenReturn(List.of(ruta1, ruta2));
+
+        CursorPage<RutaOutDto> result = rutaService.findAll("", null, "", null, 1);
+
+        assertEquals(1, result.getItems().size());
+        assertEquals(1L, result.getItems().get(0).getId());
+        assertEquals(1L, PageCursor.decode(result.getNextCursor()));
+    }
 
-        RutaOutDto out1 = new RutaOutDto(1L, "facil", 5.5f, 60, ruta1.getFechaRealizacion(), true, "Paseo por el parque", null, null);
-        RutaOutDto out2 = new RutaOutDto(2L, "dificil", 12f, 180, ruta2.getFechaRealizacion(), false, "Subida al monte", null, null);
-        when(modelMapper.map(eq(ruta1), eq(RutaOutDto.class))).thenReturn(out1);
-        when(modelMapper.map(eq(ruta2), eq(RutaOutDto.class))).thenReturn(out2);
+    @Test
+    @SuppressWarnings("unchecked")
+    void findAllV2_shouldScanOneBlockOfCandidates_andContinueFromItsLastId() throws Exception {
+        // muchos candidatos por etiqueta y ninguno pasa el resto de filtros
+        long[] candidatos = new long[3 * RutaService.ETIQUETAS_CHUNK_SIZE];
+        for (int i = 0; i < candidatos.length; i++) candidatos[i] = 2L * (i + 1);
+        when(etiquetaIndex.match(List.of("agua"), true)).thenReturn(candidatos);
+        when(rutaRepository.findBy(any(Specification.class), any())).thenReturn(List.of());
+
+        CursorPage<RutaOutDtoV2> first = rutaService.findAllV2("rara", false, "", List.of("agua"), true, null, 10);
+
+        assertTrue(first.getItems().isEmpty());
+        assertEquals(candidatos[RutaService.ETIQUETAS_CHUNK_SIZE - 1], PageCursor.decode(first.getNextCursor()));
+        verify(rutaRepository, times(1)).findBy(any(Specification.class), any());
+
+        CursorPage<RutaOutDtoV2> last = rutaService.findAllV2("rara", false, "", List.of("agua"), true,
+                PageCursor.encode(candidatos[2 * RutaService.ETIQUETAS_CHUNK_SIZE - 1]), 10);
+        assertNull(last.getNextCursor());
+        verify(rutaRepository, times(2)).findBy(any(Specification.class), any());
+    }
 
-        List<RutaOutDto> result = rutaService.findAll("", null, "");
+    @Test
+    void findAll_shouldThrow_whenCursorIsInvalid() {
+        assertThrows(InvalidCursorException.class,
+                () -> rutaService.findAll("", null, "", "no-es-un-cursor", 10));
 
-        assertEquals(2, result.size());
-        assertEquals(10L, result.get(0).getUsuarioId());
-        assertNull(result.get(1).getUsuarioId());
+        verifyNoInteractions(rutaRepository);
+    }
 
-        verify(rutaRepository).findAll(any(Specification.class));
+    @Test
+    void pageCursor_shouldClampLimitToMax() {
+        assertEquals(PageCursor.DEFAULT_LIMIT, PageCursor.clampLimit(null));
+        assertEquals(PageCursor.MAX_LIMIT, PageCursor.clampLimit(10_000));
+        assertEquals(25, PageCursor.clampLimit(25));
     }
 }
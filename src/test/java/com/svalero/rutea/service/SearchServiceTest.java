@@ -0,0 +1,93 @@
+package com.svalero.rutea.service;
+
+import com.svalero.rutea.domain.PuntoInteres;
+import com.svalero.rutea.domain.Ruta;
+import com.svalero.rutea.domain.Usuario;
+import com.svalero.rutea.dto.CursorPage;
+import com.svalero.rutea.dto.SearchHitOutDto;
+import com.svalero.rutea.exception.InvalidCursorException;
+import com.svalero.rutea.search.SearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Carga del índice de búsqueda desde la BD y búsqueda paginada con los títulos leídos de la BD.
+ */
+@DataJpaTest
+@Import({SearchService.class, SearchIndex.class})
+class SearchServiceTest {
+
+    @Autowired private SearchService searchService;
+    @Autowired private TestEntityManager entityManager;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        usuario = entityManager.persist(Usuario.builder()
+                .email("u@rutea.com").username("u").password("secreto").fechaRegistro(LocalDate.now()).build());
+    }
+
+    private Ruta ruta(String titulo, String etiquetas, boolean eliminada) {
+        return entityManager.persist(Ruta.builder().titulo(titulo).etiquetas(etiquetas).eliminada(eliminada)
+                .fechaRealizacion(LocalDate.now()).usuario(usuario).build());
+    }
+
+    @Test
+    void search_shouldFindRutasAndPuntos_afterStreamedBuild() throws Exception {
+        long rutaId = ruta("Cañón del Río Lobos", "senderismo,río", false).getId();
+        ruta("Río eliminado", null, true);
+        long puntoId = entityManager.persist(PuntoInteres.builder()
+                .nombre("Mirador del río").latitud(41.6).longitud(-0.9).build()).getId();
+        entityManager.flush();
+
+        searchService.buildSearchIndex();
+        List<SearchHitOutDto> hits = searchService.search("rio", null, null, null).getItems();
+
+        assertEquals(2, hits.size());
+        assertTrue(hits.stream().anyMatch(h -> h.getTipo().equals("ruta") && h.getId() == rutaId
+                && h.getTitulo().equals("Cañón del Río Lobos")));
+        assertTrue(hits.stream().anyMatch(h -> h.getTipo().equals("punto") && h.getId() == puntoId
+                && h.getTitulo().equals("Mirador del río")));
+
+        List<SearchHitOutDto> soloPuntos = searchService.search("rio", "punto", null, null).getItems();
+        assertEquals(List.of(puntoId), soloPuntos.stream().map(SearchHitOutDto::getId).toList());
+    }
+
+    @Test
+    void search_shouldPageWithCursor_untilNoMoreResults() throws Exception {
+        for (int i = 0; i < 7; i++)
+            ruta("Ruta del Moncayo " + i, null, false);
+        entityManager.flush();
+        searchService.buildSearchIndex();
+
+        List<Long> seen = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            CursorPage<SearchHitOutDto> page = searchService.search("moncayo", null, after, 3);
+            page.getItems().forEach(h -> seen.add(h.getId()));
+            after = page.getNextCursor();
+            pages++;
+        } while (after != null);
+
+        assertEquals(3, pages);
+        assertEquals(7, seen.stream().distinct().count());
+    }
+
+    @Test
+    void search_shouldRejectForeignCursor() {
+        assertThrows(InvalidCursorException.class,
+                () -> searchService.search("moncayo", null, PageCursor.encode(5), 3));
+    }
+}
@@ -0,0 +1,98 @@
+package com.svalero.rutea.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SingleFlight<Long, String> flight = new SingleFlight<>("test", registry);
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void execute_shouldShareOneLoad_betweenConcurrentCallers() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> calls = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            calls.add(pool.submit(() -> flight.execute(1L, () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "ruta";
+            })));
+        }
+        // se suelta la carga cuando las demás llamadas ya están esperándola
+        while (count("shared") < CALLERS - 1)
+            Thread.sleep(5);
+        release.countDown();
+
+        for (Future<String> call : calls)
+            assertEquals("ruta", call.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void execute_shouldShareException_withWaitingCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = pool.submit(() -> flight.execute(1L, () -> {
+            release.await();
+            throw new IllegalStateException("no existe");
+        }));
+        while (count("leader") == 0)
+            Thread.sleep(5);
+        Future<String> follower = pool.submit(() -> flight.execute(1L, () -> "no se ejecuta"));
+        while (count("shared") == 0)
+            Thread.sleep(5);
+        release.countDown();
+
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderError.getCause());
+        assertSame(leaderError.getCause(), followerError.getCause());
+    }
+
+    @Test
+    void execute_shouldLoadAgain_onceFinishedOrForgotten() throws Exception {
+        SingleFlight<Long, Integer> counting = new SingleFlight<>("test", registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        counting.execute(1L, loads::incrementAndGet);
+        counting.execute(1L, loads::incrementAndGet);
+        assertEquals(2, loads.get());
+
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Integer> inFlight = pool.submit(() -> counting.execute(1L, () -> {
+            release.await();
+            return loads.incrementAndGet();
+        }));
+        while (count("leader") < 3)
+            Thread.sleep(5);
+        counting.forgetAll();
+
+        // tras olvidarla, una llamada nueva no se une a la carga en curso
+        assertEquals(3, counting.execute(1L, loads::incrementAndGet));
+        release.countDown();
+        assertEquals(4, inFlight.get(5, TimeUnit.SECONDS));
+    }
+
+    private double count(String result) {
+        return registry.get("rutea.singleflight.calls")
+                .tag("name", "test").tag("result", result).counter().count();
+    }
+}
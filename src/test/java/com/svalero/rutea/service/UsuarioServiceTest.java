@@ -10,8 +10,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.env.MockEnvironment;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -25,8 +25,8 @@ import static org.mockito.Mockito.*;
 class UsuarioServiceTest {
 
     @Mock private UsuarioRepository usuarioRepository;
-    @Mock private ModelMapper modelMapper;
 
+    @Spy private EntityCaches entityCaches = new EntityCaches(new MockEnvironment());
     @InjectMocks private UsuarioService usuarioService;
 
     private Usuario u1;
@@ -63,22 +63,15 @@ class UsuarioServiceTest {
                 "a@a.com", true, LocalDate.now(), 3, "123456", "borja"
         );
 
-        Usuario mapped = Usuario.builder().build();
-        when(modelMapper.map(in, Usuario.class)).thenReturn(mapped);
         when(usuarioRepository.save(any(Usuario.class))).thenReturn(u1);
 
-        UsuarioOutDto outMapped = new UsuarioOutDto(1L, "a@a.com", true, u1.getFechaRegistro(), 3, "borja");
-        when(modelMapper.map(u1, UsuarioOutDto.class)).thenReturn(outMapped);
-
         UsuarioOutDto out = usuarioService.add(in);
 
         assertNotNull(out);
         assertEquals(1L, out.getId());
         assertEquals("borja", out.getUsername());
 
-        verify(modelMapper).map(in, Usuario.class);
         verify(usuarioRepository).save(any(Usuario.class));
-        verify(modelMapper).map(u1, UsuarioOutDto.class);
     }
 
     // -------------------- FIND ALL (SPECIFICATION) --------------------
@@ -87,8 +80,6 @@ class UsuarioServiceTest {
     @SuppressWarnings("unchecked")
     void findAll_shouldReturnFiltered_whenPremiumPresent() {
         when(usuarioRepository.findAll(any(Specification.class))).thenReturn(List.of(u1));
-        when(modelMapper.map(u1, UsuarioOutDto.class))
-                .thenReturn(new UsuarioOutDto(1L, "a@a.com", true, u1.getFechaRegistro(), 3, "borja"));
 
         List<UsuarioOutDto> result = usuarioService.findAll(true, null, "");
 
@@ -100,8 +91,6 @@ class UsuarioServiceTest {
     @SuppressWarnings("unchecked")
     void findAll_shouldReturnFiltered_whenNivelPresent() {
         when(usuarioRepository.findAll(any(Specification.class))).thenReturn(List.of(u2));
-        when(modelMapper.map(u2, UsuarioOutDto.class))
-                .thenReturn(new UsuarioOutDto(2L, "b@b.com", false, u2.getFechaRegistro(), 0, "ana"));
 
         List<UsuarioOutDto> result = usuarioService.findAll(null, 0, "");
 
@@ -113,8 +102,6 @@ class UsuarioServiceTest {
     @SuppressWarnings("unchecked")
     void findAll_shouldReturnFiltered_whenUsernamePresent() {
         when(usuarioRepository.findAll(any(Specification.class))).thenReturn(List.of(u1));
-        when(modelMapper.map(u1, UsuarioOutDto.class))
-                .thenReturn(new UsuarioOutDto(1L, "a@a.com", true, u1.getFechaRegistro(), 3, "borja"));
 
         List<UsuarioOutDto> result = usuarioService.findAll(null, null, "bor");
 
@@ -126,8 +113,6 @@ class UsuarioServiceTest {
     @SuppressWarnings("unchecked")
     void findAll_shouldReturnFiltered_whenAllFiltersPresent() {
         when(usuarioRepository.findAll(any(Specification.class))).thenReturn(List.of(u1));
-        when(modelMapper.map(u1, UsuarioOutDto.class))
-                .thenReturn(new UsuarioOutDto(1L, "a@a.com", true, u1.getFechaRegistro(), 3, "borja"));
 
         List<UsuarioOutDto> result = usuarioService.findAll(true, 3, "bor");
 
@@ -139,10 +124,6 @@ class UsuarioServiceTest {
     @SuppressWarnings("unchecked")
     void findAll_shouldReturnAll_whenNoFilters() {
         when(usuarioRepository.findAll(any(Specification.class))).thenReturn(List.of(u1, u2));
-        when(modelMapper.map(u1, UsuarioOutDto.class))
-                .thenReturn(new UsuarioOutDto(1L, "a@a.com", true, u1.getFechaRegistro(), 3, "borja"));
-        when(modelMapper.map(u2, UsuarioOutDto.class))
-                .thenReturn(new UsuarioOutDto(2L, "b@b.com", false, u2.getFechaRegistro(), 0, "ana"));
 
         List<UsuarioOutDto> result = usuarioService.findAll(null, null, "");
 
@@ -156,16 +137,12 @@ class UsuarioServiceTest {
     void findById_shouldReturnOutDto_whenExists() throws Exception {
         when(usuarioRepository.findById(1L)).thenReturn(Optional.of(u1));
 
-        UsuarioOutDto mappedOut = new UsuarioOutDto(1L, "a@a.com", true, u1.getFechaRegistro(), 3, "borja");
-        when(modelMapper.map(u1, UsuarioOutDto.class)).thenReturn(mappedOut);
-
         UsuarioOutDto out = usuarioService.findById(1L);
 
         assertEquals(1L, out.getId());
         assertEquals("borja", out.getUsername());
 
         verify(usuarioRepository).findById(1L);
-        verify(modelMapper).map(u1, UsuarioOutDto.class);
     }
 
     @Test
@@ -175,7 +152,6 @@ class UsuarioServiceTest {
         assertThrows(UsuarioNotFoundException.class, () -> usuarioService.findById(99L));
 
         verify(usuarioRepository).findById(99L);
-        verifyNoInteractions(modelMapper);
     }
 
     // -------------------- MODIFY --------------------
@@ -188,23 +164,8 @@ class UsuarioServiceTest {
 
         when(usuarioRepository.findById(1L)).thenReturn(Optional.of(u1));
 
-        doAnswer(inv -> {
-            UsuarioInDto src = inv.getArgument(0);
-            Usuario dest = inv.getArgument(1);
-            dest.setEmail(src.getEmail());
-            dest.setEsPremium(src.isEsPremium());
-            dest.setFechaRegistro(src.getFechaRegistro());
-            dest.setNivelExperiencia(src.getNivelExperiencia());
-            dest.setPassword(src.getPassword());
-            dest.setUsername(src.getUsername());
-            return null;
-        }).when(modelMapper).map(any(UsuarioInDto.class), any(Usuario.class));
-
         when(usuarioRepository.save(any(Usuario.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        UsuarioOutDto mappedOut = new UsuarioOutDto(1L, "new@new.com", false, in.getFechaRegistro(), 5, "newuser");
-        when(modelMapper.map(any(Usuario.class), eq(UsuarioOutDto.class))).thenReturn(mappedOut);
-
         UsuarioOutDto out = usuarioService.modify(1L, in);
 
         assertEquals(1L, out.getId());
@@ -212,7 +173,6 @@ class UsuarioServiceTest {
         assertEquals("new@new.com", out.getEmail());
 
         verify(usuarioRepository).findById(1L);
-        verify(modelMapper).map(any(UsuarioInDto.class), any(Usuario.class));
         verify(usuarioRepository).save(any(Usuario.class));
     }
 
@@ -228,7 +188,6 @@ class UsuarioServiceTest {
 
         verify(usuarioRepository).findById(99L);
         verify(usuarioRepository, never()).save(any());
-        verify(modelMapper, never()).map(any(), any(Usuario.class));
     }
 
     // -------------------- DELETE --------------------
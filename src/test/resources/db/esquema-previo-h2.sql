@@ -0,0 +1,109 @@
+-- Volcado (SCRIPT de H2) de una base de datos creada por la versión anterior a Flyway con
+-- ddl-auto=update, con unos pocos datos: la ruta 1 se editó después de crearla y repite un punto.
+
+CREATE CACHED TABLE "PUBLIC"."categorias"(
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1 RESTART WITH 3) NOT NULL,
+    "activa" BOOLEAN NOT NULL,
+    "coste_promedio" FLOAT(24) NOT NULL,
+    "descripcion" CHARACTER VARYING(500),
+    "icono_url" CHARACTER VARYING(255),
+    "nombre" CHARACTER VARYING(255) NOT NULL,
+    "orden_prioridad" INTEGER NOT NULL
+);
+ALTER TABLE "PUBLIC"."categorias" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_4D" PRIMARY KEY("id");
+-- 2 +/- SELECT COUNT(*) FROM PUBLIC.categorias;
+INSERT INTO "PUBLIC"."categorias" VALUES
+(1, TRUE, 10.0, NULL, NULL, 'Cat 1', 1),
+(2, TRUE, 10.0, NULL, NULL, 'Cat 2', 2);
+CREATE CACHED TABLE "PUBLIC"."puntos_interes"(
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1 RESTART WITH 5) NOT NULL,
+    "abierto_actualmente" BOOLEAN NOT NULL,
+    "fecha_creacion" TIMESTAMP(6),
+    "latitud" FLOAT(53) NOT NULL,
+    "longitud" FLOAT(53) NOT NULL,
+    "nombre" CHARACTER VARYING(255) NOT NULL,
+    "puntuacion_media" FLOAT(24) NOT NULL,
+    "categoria_id" BIGINT
+);
+ALTER TABLE "PUBLIC"."puntos_interes" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_2" PRIMARY KEY("id");
+-- 4 +/- SELECT COUNT(*) FROM PUBLIC.puntos_interes;
+INSERT INTO "PUBLIC"."puntos_interes" VALUES
+(1, TRUE, NULL, 41.61, -0.81, 'Punto 1', 3.3, 2),
+(2, TRUE, NULL, 41.62, -0.82, 'Punto 2', 3.3, 1),
+(3, TRUE, NULL, 41.63, -0.83, 'Punto 3', 3.3, 2),
+(4, TRUE, NULL, 41.64, -0.84, 'Punto 4', 3.3, 1);
+CREATE CACHED TABLE "PUBLIC"."resenas"(
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1 RESTART WITH 4) NOT NULL,
+    "comentario" CHARACTER VARYING(255) NOT NULL,
+    "editada" BOOLEAN NOT NULL,
+    "fecha_publicacion" DATE,
+    "likes" INTEGER NOT NULL,
+    "titulo" CHARACTER VARYING(255),
+    "valoracion" INTEGER NOT NULL,
+    "punto_id" BIGINT,
+    "usuario_id" BIGINT
+);
+ALTER TABLE "PUBLIC"."resenas" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_4163" PRIMARY KEY("id");
+-- 3 +/- SELECT COUNT(*) FROM PUBLIC.resenas;
+INSERT INTO "PUBLIC"."resenas" VALUES
+(1, 'c', FALSE, DATE '2024-06-01', 0, NULL, 5, 1, 2),
+(2, 'c', FALSE, DATE '2024-06-01', 0, NULL, 4, 1, 2),
+(3, 'c', FALSE, DATE '2024-06-01', 0, NULL, 1, 2, 2);
+CREATE CACHED TABLE "PUBLIC"."ruta_puntos"(
+    "ruta_id" BIGINT NOT NULL,
+    "punto_id" BIGINT NOT NULL
+);
+-- 6 +/- SELECT COUNT(*) FROM PUBLIC.ruta_puntos;
+INSERT INTO "PUBLIC"."ruta_puntos" VALUES
+(2, 4),
+(2, 2),
+(1, 2),
+(1, 3),
+(1, 1),
+(1, 1);
+CREATE CACHED TABLE "PUBLIC"."rutas"(
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1 RESTART WITH 4) NOT NULL,
+    "dificultad" CHARACTER VARYING(255),
+    "distancia_km" FLOAT(24) NOT NULL,
+    "duracion_minutos" INTEGER NOT NULL,
+    "eliminada" BOOLEAN NOT NULL,
+    "etiquetas" CHARACTER VARYING(255),
+    "fecha_realizacion" DATE NOT NULL,
+    "publica" BOOLEAN NOT NULL,
+    "titulo" CHARACTER VARYING(60) NOT NULL,
+    "usuario_id" BIGINT
+);
+ALTER TABLE "PUBLIC"."rutas" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_67" PRIMARY KEY("id");
+-- 3 +/- SELECT COUNT(*) FROM PUBLIC.rutas;
+INSERT INTO "PUBLIC"."rutas" VALUES
+(1, 'media', 5.0, 60, FALSE, U&'Monta\00f1a; AGUA', DATE '2024-05-01', TRUE, 'Ruta A', 1),
+(2, 'media', 5.0, 60, FALSE, 'agua', DATE '2024-05-01', TRUE, 'Ruta B', 1),
+(3, 'media', 5.0, 60, FALSE, NULL, DATE '2024-05-01', TRUE, 'Ruta C', 1);
+CREATE CACHED TABLE "PUBLIC"."usuarios"(
+    "id" BIGINT GENERATED BY DEFAULT AS IDENTITY(START WITH 1 RESTART WITH 3) NOT NULL,
+    "email" CHARACTER VARYING(255) NOT NULL,
+    "es_premium" BOOLEAN NOT NULL,
+    "fecha_registro" DATE NOT NULL,
+    "nivel_experiencia" INTEGER NOT NULL,
+    "password" CHARACTER VARYING(255) NOT NULL,
+    "username" CHARACTER VARYING(255) NOT NULL
+);
+ALTER TABLE "PUBLIC"."usuarios" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_A8" PRIMARY KEY("id");
+-- 2 +/- SELECT COUNT(*) FROM PUBLIC.usuarios;
+INSERT INTO "PUBLIC"."usuarios" VALUES
+(1, 'u1@rutea.com', FALSE, DATE '2024-01-01', 1, 'secreto', 'u1'),
+(2, 'u2@rutea.com', FALSE, DATE '2024-01-02', 2, 'secreto', 'u2');
+ALTER TABLE "PUBLIC"."usuarios" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_A" CHECK("nivel_experiencia" >= 0) NOCHECK;
+ALTER TABLE "PUBLIC"."resenas" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_416" CHECK(("valoracion" >= 1)
+    AND ("valoracion" <= 5)) NOCHECK;
+ALTER TABLE "PUBLIC"."categorias" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_4" CHECK("orden_prioridad" >= 0) NOCHECK;
+ALTER TABLE "PUBLIC"."rutas" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_6" CHECK("duracion_minutos" >= 0) NOCHECK;
+ALTER TABLE "PUBLIC"."resenas" ADD CONSTRAINT "PUBLIC"."CONSTRAINT_41" CHECK("likes" >= 0) NOCHECK;
+ALTER TABLE "PUBLIC"."usuarios" ADD CONSTRAINT "PUBLIC"."UKl6ry5astby48lwau9l84av316" UNIQUE("username");
+ALTER TABLE "PUBLIC"."usuarios" ADD CONSTRAINT "PUBLIC"."UKdms9f7l95csdi2w7w91seb01c" UNIQUE("email");
+ALTER TABLE "PUBLIC"."rutas" ADD CONSTRAINT "PUBLIC"."FKg2i6peobkcmueoe9gsejbys6n" FOREIGN KEY("usuario_id") REFERENCES "PUBLIC"."usuarios"("id") NOCHECK;
+ALTER TABLE "PUBLIC"."resenas" ADD CONSTRAINT "PUBLIC"."FKgr0olmlk589n5vipkrencaykv" FOREIGN KEY("punto_id") REFERENCES "PUBLIC"."puntos_interes"("id") NOCHECK;
+ALTER TABLE "PUBLIC"."ruta_puntos" ADD CONSTRAINT "PUBLIC"."FKncapvhv12pnwjl1a69wxatnh9" FOREIGN KEY("ruta_id") REFERENCES "PUBLIC"."rutas"("id") NOCHECK;
+ALTER TABLE "PUBLIC"."puntos_interes" ADD CONSTRAINT "PUBLIC"."FKc8uns1213d1l0vivv0i0i8wmc" FOREIGN KEY("categoria_id") REFERENCES "PUBLIC"."categorias"("id") NOCHECK;
+ALTER TABLE "PUBLIC"."resenas" ADD CONSTRAINT "PUBLIC"."FKqmgnj7jpq76u7y06qtngfwm0p" FOREIGN KEY("usuario_id") REFERENCES "PUBLIC"."usuarios"("id") NOCHECK;
+ALTER TABLE "PUBLIC"."ruta_puntos" ADD CONSTRAINT "PUBLIC"."FK3pccw4hy9cplnyg2j2tbh7jnr" FOREIGN KEY("punto_id") REFERENCES "PUBLIC"."puntos_interes"("id") NOCHECK;